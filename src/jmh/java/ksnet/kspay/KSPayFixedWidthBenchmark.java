@@ -0,0 +1,187 @@
+package ksnet.kspay;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+	Class Name : KSPayFixedWidthBenchmark
+	             고정길이 항목 쓰기/읽기 : 기존 format/setTrim 과 KSPayFixedWidth 비교
+	             응답 문자열 분리 (split)
+
+	실행 : gradlew jmh
+	취소 요청 1건의 가변 항목(전송구분, 요청일자, 상점아이디, 승인구분, 거래번호)과
+	한글 제품명 1건을 기준으로 한다.
+*/
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KSPayFixedWidthBenchmark {
+
+	private static final String[] VALUES  = { "0", "20181120153010", "2999199999", "1010", "181120123456" };
+	private static final int[]    LENGTHS = { 1, 14, 10, 4, 12 };
+	private static final String   GOODS   = "선페이 예치금 충전상품";
+	private static final String   TOKENS  = "1011|181120123456|O|20181120|153010|취소성공|정상";
+
+	private final byte[] frame = new byte[64];
+	private byte[]       response;
+
+	@Setup
+	public void setup()
+	{
+		response = new byte[41];
+		KSPayFixedWidth.write(response, 0, "O", 1, 'X');
+		KSPayFixedWidth.write(response, 1, "181120123456", 12, 'X');
+		KSPayFixedWidth.write(response, 13, "20181120", 8, 'X');
+		KSPayFixedWidth.write(response, 21, "취소성공", 20, 'X');
+	}
+
+	@Benchmark
+	public void legacyFormat(Blackhole bh) throws UnsupportedEncodingException
+	{
+		int off = 0;
+		for (int i = 0; i < VALUES.length; i++)
+		{
+			byte[] b = Legacy.format(VALUES[i], LENGTHS[i], 'X').getBytes("ksc5601");
+			System.arraycopy(b, 0, frame, off, b.length);
+			off += LENGTHS[i];
+		}
+		bh.consume(frame);
+	}
+
+	@Benchmark
+	public void fixedWidthWrite(Blackhole bh)
+	{
+		int off = 0;
+		for (int i = 0; i < VALUES.length; i++)
+			off = KSPayFixedWidth.write(frame, off, VALUES[i], LENGTHS[i], 'X');
+		bh.consume(frame);
+	}
+
+	@Benchmark
+	public String legacyFormatHangul() throws UnsupportedEncodingException
+	{
+		return Legacy.format(GOODS, 50, 'X');
+	}
+
+	@Benchmark
+	public String fixedWidthFormatHangul()
+	{
+		return KSPayFixedWidth.format(GOODS, 50, 'X');
+	}
+
+	@Benchmark
+	public String legacyFormatNumber() throws UnsupportedEncodingException
+	{
+		return Legacy.format("450", 4, '9');
+	}
+
+	@Benchmark
+	public String fixedWidthFormatNumber()
+	{
+		return KSPayFixedWidth.format("450", 4, '9');
+	}
+
+	@Benchmark
+	public String legacySetTrim() throws UnsupportedEncodingException
+	{
+		return Legacy.setTrim("2999199999SUNPAY", 10);
+	}
+
+	@Benchmark
+	public String fixedWidthTrim()
+	{
+		return KSPayFixedWidth.trim("2999199999SUNPAY", 10);
+	}
+
+	@Benchmark
+	public void legacyRead(Blackhole bh) throws UnsupportedEncodingException
+	{
+		bh.consume(new String(response, 0, 1, "ksc5601"));
+		bh.consume(new String(response, 1, 12, "ksc5601"));
+		bh.consume(new String(response, 13, 8, "ksc5601"));
+		bh.consume(new String(response, 21, 20, "ksc5601"));
+	}
+
+	@Benchmark
+	public void fixedWidthRead(Blackhole bh)
+	{
+		bh.consume(KSPayFixedWidth.read(response, 0, 1));
+		bh.consume(KSPayFixedWidth.read(response, 1, 12));
+		bh.consume(KSPayFixedWidth.read(response, 13, 8));
+		bh.consume(KSPayFixedWidth.read(response, 21, 20));
+	}
+
+	@Benchmark
+	public String[] split()
+	{
+		return KSPayApprovalCancelBean.split(TOKENS, '|');
+	}
+
+	/* 변경 전 KSPayApprovalCancelBean.format, setTrim */
+	static final class Legacy {
+
+		static String format(String str, int len, char ctype) throws UnsupportedEncodingException
+		{
+			byte[] buff;
+			int filllen = 0;
+
+			String       trim_str = null;
+			StringBuffer sb       = new StringBuffer();
+
+			buff = (str == null) ? new byte[0] : str.getBytes("ksc5601");
+
+			filllen = len - buff.length;
+			if (filllen < 0)
+			{
+				for(int i=0, j=0; j<len-4; i++)
+				{
+					j += (str.charAt(i) > 127) ? 2 : 1;
+					sb.append(str.charAt(i));
+				}
+
+				trim_str = sb.toString();
+				buff = trim_str.getBytes("ksc5601");
+				filllen = len - buff.length;
+
+				if (filllen <= 0) return new String(buff, 0, len ,"ksc5601");
+				sb.setLength(0);
+			}else
+			{
+				trim_str = str;
+			}
+
+			if(ctype == '9')
+			{
+				for(int i = 0; i<filllen;i++) sb.append('0');
+				sb.append(trim_str);
+			}else
+			{
+				for(int i = 0; i<filllen;i++) sb.append(' ');
+				sb.insert(0, trim_str);
+			}
+			return sb.toString();
+		}
+
+		static String setTrim(String str, int len) throws UnsupportedEncodingException
+		{
+			byte[] subbytes = new byte[len];
+
+			System.arraycopy(str.getBytes("ksc5601"), 0, subbytes, 0, len);
+			String tmpStr = new String(subbytes ,"ksc5601");
+			if(tmpStr.length() == 0)
+			{
+				subbytes = new byte[len-1];
+				System.arraycopy(str.getBytes("ksc5601"), 0, subbytes, 0, len-1);
+				tmpStr = new String(subbytes ,"ksc5601");
+			}
+			return tmpStr;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+	Class Name : KSPayTelegramBenchmark
+	             취소요청 전문 생성, 응답 전문 해석, 송수신(loopback) 비교
+
+	실행 : gradlew jmh (결과 build/reports/jmh/results.json)
+		- 요청 : HeadMessage + CancelDataMessage 와 KSPayCancelTemplate (단건, 복합 9건)
+		- 응답 : KSPaySimulator 가 만든 신용카드/계좌이체/휴대폰 취소 응답 전문
+		         해석(KSPayTelegramCodec)과 응답 필드 채우기(ReceiveMessage 와 같은 결과)
+		- 송수신 : KSPaySimulator(지연 없음)에 SendSocket, 연결 풀 사용
+	KSPayApprovalCancelBean 로그(KSPayLog -> System.out)는 측정 중 버린다.
+*/
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KSPayTelegramBenchmark {
+
+	private static final PrintStream STDOUT = System.out;
+
+	private static final KSPayCancelTemplate CREDIT = KSPayCancelTemplate.of("0", "0210");
+	private static final KSPayCancelTemplate BANK   = KSPayCancelTemplate.of("2", "0603");
+	private static final KSPayCancelTemplate MOBILE = KSPayCancelTemplate.of("2", "0210");
+
+	private static final String   REQUEST_DATE = "20181120153010";
+	private static final String   STORE_ID     = "2999199999";
+	private static final String   TRNO         = "181120123456";
+	private static final String[] TYPES_9      = { "1010", "1010", "1010", "1010", "1010", "1010", "1010", "1010", "1010" };
+	private static final String[] TRNOS_9      = { "181120000001", "181120000002", "181120000003", "181120000004",
+			"181120000005", "181120000006", "181120000007", "181120000008", "181120000009" };
+
+	private byte[]      creditResponse;
+	private byte[]      bankResponse;
+	private byte[]      mobileResponse;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		silence();
+
+		KSPaySimulator simulator = new KSPaySimulator(0);
+		creditResponse = simulator.respond(request(CREDIT, "1010"));
+		bankResponse   = simulator.respond(request(BANK,   "2010"));
+		mobileResponse = simulator.respond(request(MOBILE, "M110"));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		System.setOut(STDOUT);
+	}
+
+	/* 요청 전문 */
+
+	@Benchmark
+	public byte[] buildHeadAndCancelMessage() throws UnsupportedEncodingException
+	{
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		ipg.HeadMessage("0", "0210", "00", "0", REQUEST_DATE, STORE_ID, "", "", "", "", "0", "", "K", "1", "", "1", "");
+		ipg.CancelDataMessage("1010", "0", TRNO, "", "", "", "", "");
+
+		byte[] body  = (ipg.HeadMsg + ipg.SendMsg).getBytes(KSPayFixedWidth.CHARSET);
+		byte[] frame = new byte[KSPayFrame.LENGTH_SIZE + body.length];
+		KSPayFixedWidth.write(frame, 0, "" + body.length, KSPayFrame.LENGTH_SIZE, '9');
+		System.arraycopy(body, 0, frame, KSPayFrame.LENGTH_SIZE, body.length);
+		return frame;
+	}
+
+	@Benchmark
+	public void buildTemplate(Blackhole bh)
+	{
+		byte[] frame = CREDIT.acquire("0", REQUEST_DATE, STORE_ID, "1010", TRNO);
+		bh.consume(frame);
+		CREDIT.release(frame);
+	}
+
+	@Benchmark
+	public byte[] buildCompoundTemplate()
+	{
+		return CREDIT.acquire("0", REQUEST_DATE, STORE_ID, TYPES_9, TRNOS_9);
+	}
+
+	/* 응답 전문 */
+
+	@Benchmark
+	public void decodeCredit(Blackhole bh) throws IOException
+	{
+		decode(creditResponse, bh);
+	}
+
+	@Benchmark
+	public void decodeBank(Blackhole bh) throws IOException
+	{
+		decode(bankResponse, bh);
+	}
+
+	@Benchmark
+	public void decodeMobile(Blackhole bh) throws IOException
+	{
+		decode(mobileResponse, bh);
+	}
+
+	// ReceiveMessage 와 같이 응답 필드(배열) 전체를 채운다.
+	@Benchmark
+	public KSPayApprovalCancelBean decodeCreditLegacyFields() throws IOException
+	{
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		KSPayLegacyFields.fill(ipg, KSPayTelegramCodec.decode(creditResponse), 9);
+		return ipg;
+	}
+
+	@Benchmark
+	public KSPayApprovalCancelBean decodeMobileLegacyFields() throws IOException
+	{
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		KSPayLegacyFields.fill(ipg, KSPayTelegramCodec.decode(mobileResponse), 9);
+		return ipg;
+	}
+
+	/* 송수신 */
+
+	@State(Scope.Benchmark)
+	public static class Loopback {
+
+		KSPaySimulator  simulator;
+		KSPaySocketPool pool;
+
+		@Setup
+		public void start() throws IOException
+		{
+			silence();
+			simulator = new KSPaySimulator(0).start();
+			pool      = new KSPaySocketPool(16, 3000, 30000, true);
+		}
+
+		@TearDown
+		public void stop()
+		{
+			pool.close();
+			simulator.close();
+			System.setOut(STDOUT);
+		}
+	}
+
+	@Benchmark
+	public KSPayResult sendSocket(Loopback loopback)
+	{
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", loopback.simulator.getPort());
+		ipg.setLegacyFields(false);
+		ipg.setSocketPool(loopback.pool);
+		ipg.CancelMessage(CREDIT, "0", REQUEST_DATE, STORE_ID, "1010", TRNO);
+		ipg.SendSocket("1");
+		return ipg.getResult(0);
+	}
+
+	private static void decode(byte[] response, Blackhole bh) throws IOException
+	{
+		KSPayResult result = KSPayResult.of(KSPayTelegramCodec.decode(response).record(0));
+		bh.consume(result.getTransactionNo());
+		bh.consume(result.isApproved());
+		bh.consume(result.getMessage1());
+		bh.consume(result.getMessage2());
+	}
+
+	private static byte[] request(KSPayCancelTemplate template, String approvalType)
+	{
+		return template.acquire("0", REQUEST_DATE, STORE_ID, approvalType, TRNO);
+	}
+
+	// 측정 중 System.out 을 버린다. (TearDown 에서 STDOUT 으로 복구)
+	private static void silence()
+	{
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {}
+			public void write(byte[] b, int off, int len) {}
+		}));
+	}
+}
@@ -1,5 +1,6 @@
 package kr.co.sunpay.api;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -26,6 +27,11 @@ public class HttpInterceptor extends HandlerInterceptorAdapter {
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
 			throws Exception {
 		
+		// 비동기 처리 완료 후 재진입(async dispatch)은 이미 저장한 요청
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		
 		log.info("## HttpInterceptor.preHandle called..");
 		logService.saveLog(request);
 		
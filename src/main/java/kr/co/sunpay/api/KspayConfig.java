@@ -0,0 +1,227 @@
+package kr.co.sunpay.api;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import kr.co.sunpay.api.service.DepositBalanceService;
+import kr.co.sunpay.api.service.DepositReservationLedger;
+import kr.co.sunpay.api.service.KsnetService;
+import kr.co.sunpay.api.service.KspayGatewayExecutor;
+import kr.co.sunpay.api.service.KspayGatewayGuard;
+import kr.co.sunpay.api.service.KspayRetryPolicy;
+import ksnet.kspay.KSPayAsyncClient;
+import ksnet.kspay.KSPayLog;
+import ksnet.kspay.KSPaySimulator;
+import ksnet.kspay.KSPaySocketPool;
+import ksnet.kspay.KSPayWebHostClient;
+
+/**
+ * KSPay IPG 통신 설정
+ */
+@Configuration
+public class KspayConfig {
+
+	/**
+	 * 결제 취소 소켓 연결 풀
+	 * - keep-alive: IPG 데몬이 연결을 유지하는 경우 SendSocket 간 연결 재사용
+	 */
+	@Bean(destroyMethod = "close")
+	public KSPaySocketPool kspaySocketPool(
+			@Value("${kspay.ipg.pool.max-per-host:20}") int maxPerHost,
+			@Value("${kspay.ipg.pool.borrow-timeout-ms:3000}") long borrowTimeoutMs,
+			@Value("${kspay.ipg.pool.idle-timeout-ms:30000}") long idleTimeoutMs,
+			@Value("${kspay.ipg.pool.keep-alive:true}") boolean keepAlive) {
+
+		return new KSPaySocketPool(maxPerHost, borrowTimeoutMs, idleTimeoutMs, keepAlive);
+	}
+
+	/**
+	 * 결제 취소 비동기(NIO) 클라이언트
+	 * - threads: 연결/송수신 완료 이벤트를 처리하는 스레드 수
+	 * - 요청별 제한시간(KSPayDeadline)이 없을 때 connect-ms, read-timeout-ms 적용
+	 */
+	@Bean(destroyMethod = "close")
+	public KSPayAsyncClient kspayAsyncClient(
+			@Value("${kspay.ipg.nio.threads:4}") int threads,
+			@Value("${kspay.ipg.timeout.connect-ms:3000}") long connectTimeoutMs,
+			@Value("${kspay.ipg.nio.read-timeout-ms:30000}") long readTimeoutMs) throws IOException {
+
+		return new KSPayAsyncClient(threads, connectTimeoutMs, readTimeoutMs);
+	}
+
+	/**
+	 * KSPay 전문/WebHost 로그(ksnet.kspay 공용, 비동기)
+	 * - dir: 로그 폴더(dir/kspay_yyyyMMdd.log), 없으면 표준출력
+	 * - capacity: 대기열 크기, 가득 차면 버림(/kspay/health 의 kspayLogDropped)
+	 * - batch-size: 한번에 쓰는 최대 줄 수
+	 */
+	@Bean(destroyMethod = "close")
+	public KSPayLog kspayLog(
+			@Value("${kspay.log.dir:}") String dir,
+			@Value("${kspay.log.capacity:8192}") int capacity,
+			@Value("${kspay.log.batch-size:256}") int batchSize) {
+
+		return KSPayLog.configure(dir, capacity, batchSize);
+	}
+
+	/**
+	 * KSPay WebHost(결제 승인 확인) HTTP 클라이언트
+	 * - 연결 재사용(keep-alive), 연결/응답 제한시간, 동시 요청 수 제한
+	 * - KSPayWebHostBean, KSPayWebHostMobileBean 의 기본 클라이언트로도 등록
+	 */
+	@Bean
+	public KSPayWebHostClient kspayWebHostClient(
+			@Value("${kspay.webhost.timeout.connect-ms:3000}") int connectTimeoutMs,
+			@Value("${kspay.webhost.timeout.read-ms:10000}") int readTimeoutMs,
+			@Value("${kspay.webhost.max-concurrent:20}") int maxConcurrent,
+			@Value("${kspay.webhost.acquire-timeout-ms:3000}") long acquireTimeoutMs) {
+
+		KSPayWebHostClient client = new KSPayWebHostClient(connectTimeoutMs, readTimeoutMs, maxConcurrent,
+				acquireTimeoutMs);
+		KSPayWebHostClient.setDefault(client);
+		return client;
+	}
+
+	/**
+	 * KSPay 게이트웨이 서킷브레이커 + 동시요청 제한
+	 * - failure-threshold: 연속 통신실패 횟수, 도달하면 open-ms 동안 요청 차단
+	 * - max-concurrent: 동시 요청 수(기본값은 연결 풀 크기와 같음)
+	 */
+	@Bean
+	public KspayGatewayGuard kspayGatewayGuard(
+			@Value("${kspay.ipg.breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${kspay.ipg.breaker.open-ms:30000}") long openMs,
+			@Value("${kspay.ipg.bulkhead.max-concurrent:20}") int maxConcurrent,
+			@Value("${kspay.ipg.bulkhead.wait-ms:0}") long waitMs) {
+
+		return new KspayGatewayGuard(failureThreshold, openMs, maxConcurrent, waitMs);
+	}
+
+	/**
+	 * KSPay 게이트웨이 통신 작업 스레드풀(취소 요청, 결제 승인 확인)
+	 * - threads: 게이트웨이 응답을 기다리는 동시 요청 수
+	 * - queue-size: 대기 요청 수, 초과하면 취소 요청은 거절(503), 결제 승인 확인은 요청 스레드에서 실행
+	 */
+	@Bean(destroyMethod = "close")
+	public KspayGatewayExecutor kspayGatewayExecutor(
+			@Value("${kspay.gateway.executor.threads:32}") int threads,
+			@Value("${kspay.gateway.executor.queue-size:200}") int queueSize) {
+
+		return new KspayGatewayExecutor(threads, queueSize);
+	}
+
+	/**
+	 * KSPay 취소 재전송 정책
+	 * - max-attempts: 승인구분별 최대 전송 횟수(첫 전송 포함), 1 이면 재전송 안함
+	 * - 휴대폰 취소는 취소거절시에도 재전송(기존 동작)
+	 * - budget: 요청마다 ratio 만큼 적립, 재전송마다 1 차감(최대 max-tokens)
+	 */
+	@Bean(destroyMethod = "close")
+	public KspayRetryPolicy kspayRetryPolicy(
+			@Value("${kspay.ipg.retry.credit.max-attempts:2}") int creditAttempts,
+			@Value("${kspay.ipg.retry.bank.max-attempts:2}") int bankAttempts,
+			@Value("${kspay.ipg.retry.mobile.max-attempts:2}") int mobileAttempts,
+			@Value("${kspay.ipg.retry.mobile.retry-on-decline:true}") boolean mobileRetryOnDecline,
+			@Value("${kspay.ipg.retry.backoff.base-ms:200}") long baseDelayMs,
+			@Value("${kspay.ipg.retry.backoff.max-ms:2000}") long maxDelayMs,
+			@Value("${kspay.ipg.retry.budget.ratio:0.1}") double budgetRatio,
+			@Value("${kspay.ipg.retry.budget.max-tokens:10}") int budgetMaxTokens) {
+
+		return new KspayRetryPolicy(baseDelayMs, maxDelayMs, budgetRatio, budgetMaxTokens)
+				.rule(KsnetService.KSPAY_AUTHTY_CREDIT, creditAttempts, false)
+				.rule(KsnetService.KSPAY_AUTHTY_BANK_CANCEL, bankAttempts, false)
+				.rule(KsnetService.KSPAY_AUTHTY_MOBILE, mobileAttempts, mobileRetryOnDecline);
+	}
+
+	/**
+	 * 일괄 결제 취소 작업 스레드풀
+	 * - threads: 동시에 처리하는 취소건 수(상점이 다르면 병렬), bulkhead.max-concurrent 이하로 설정
+	 * - queue-size: 대기 작업 수, 초과하면 해당 취소건은 요청하지 않고 거절 결과 응답
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService kspayBatchExecutor(
+			@Value("${kspay.refund.batch.threads:8}") int threads,
+			@Value("${kspay.refund.batch.queue-size:1000}") int queueSize) {
+
+		AtomicInteger seq = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), r -> {
+					Thread t = new Thread(r, "kspay-batch-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * 결제알림 PUSH 발송 스레드풀(결제 완료 후 FCM 발송)
+	 * - threads: 동시 발송 수
+	 * - queue-size: 대기 건수, 초과하면 발송하지 않고 READY 상태로 남김(/kspay/push/replay 로 재발송)
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService kspayPushExecutor(
+			@Value("${kspay.push.threads:4}") int threads,
+			@Value("${kspay.push.queue-size:1000}") int queueSize) {
+
+		AtomicInteger seq = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), r -> {
+					Thread t = new Thread(r, "kspay-push-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * 순간정산 결제 예치금 예약
+	 * - stripes: 상점별 잠금 수
+	 * - hold-ttl-ms: 결제 마무리되지 않은 예약 유지 시간(결제 세션 ttl 과 같게)
+	 * - sweep-ms: 만료 예약 정리 주기
+	 * - 예치금은 DepositBalanceService 의 잔액(스냅샷 + 이후 내역)
+	 */
+	@Bean(destroyMethod = "close")
+	public DepositReservationLedger depositReservationLedger(DepositBalanceService depositBalances,
+			@Value("${kspay.deposit.reservation.stripes:64}") int stripes,
+			@Value("${kspay.deposit.reservation.hold-ttl-ms:1800000}") long holdTtlMs,
+			@Value("${kspay.deposit.reservation.sweep-ms:60000}") long sweepMs) {
+
+		return new DepositReservationLedger(stripes, holdTtlMs, sweepMs, depositBalances::getBalance);
+	}
+
+	/**
+	 * KSPay IPG 모의 서버(부하/장애 테스트용, 운영 사용 금지)
+	 * - kspay.ipg.simulator.enabled=true 이면 로컬에서 시작
+	 * - 연결하려면 kspay.ipg.host=127.0.0.1, kspay.ipg.port 를 simulator.port 와 같게 설정
+	 * - latency: 평균 mean-ms 지수분포 + tail-rate 확률로 tail-ms 추가
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "kspay.ipg.simulator.enabled", havingValue = "true")
+	public KSPaySimulator kspaySimulator(
+			@Value("${kspay.ipg.simulator.port:29991}") int port,
+			@Value("${kspay.ipg.simulator.latency.mean-ms:50}") long meanMs,
+			@Value("${kspay.ipg.simulator.latency.tail-rate:0}") double tailRate,
+			@Value("${kspay.ipg.simulator.latency.tail-ms:0}") long tailMs,
+			@Value("${kspay.ipg.simulator.reject-rate:0}") double rejectRate,
+			@Value("${kspay.ipg.simulator.partial-write-rate:0}") double partialWriteRate,
+			@Value("${kspay.ipg.simulator.truncate-rate:0}") double truncateRate,
+			@Value("${kspay.ipg.simulator.drop-rate:0}") double dropRate,
+			@Value("${kspay.ipg.simulator.stall-rate:0}") double stallRate) throws IOException {
+
+		return new KSPaySimulator(port)
+				.setLatency(KSPaySimulator.withTail(KSPaySimulator.exponential(meanMs), tailRate, tailMs))
+				.setRejectRate(rejectRate)
+				.setPartialWriteRate(partialWriteRate)
+				.setTruncateRate(truncateRate)
+				.setDropRate(dropRate)
+				.setStallRate(stallRate)
+				.start();
+	}
+}
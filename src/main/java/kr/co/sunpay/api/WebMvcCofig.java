@@ -1,7 +1,9 @@
 package kr.co.sunpay.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -18,10 +20,19 @@ public class WebMvcCofig implements WebMvcConfigurer {
 	@Autowired
 	HttpInterceptor httpInterceptor;
 	
+	// 비동기 요청(게이트웨이 통신) 제한시간, 휴대폰 취소 제한시간(kspay.ipg.deadline.mobile-ms)보다 길게
+	@Value("${kspay.gateway.async-timeout-ms:70000}")
+	long asyncTimeoutMs;
+	
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
 		registry.addInterceptor(httpInterceptor)
 				.excludePathPatterns(httpExcludePath);
 				
 	}
+	
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setDefaultTimeout(asyncTimeoutMs);
+	}
 }
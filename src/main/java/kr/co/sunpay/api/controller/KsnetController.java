@@ -1,25 +1,55 @@
 package kr.co.sunpay.api.controller;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import kr.co.sunpay.api.domain.KsnetRefundLog;
 import kr.co.sunpay.api.model.DepositService;
 import kr.co.sunpay.api.model.KsnetRefundBody;
+import kr.co.sunpay.api.model.KspayBatchRefundResult;
 import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import kr.co.sunpay.api.service.DepositBalanceService;
+import kr.co.sunpay.api.service.DepositReservationLedger;
+import kr.co.sunpay.api.service.KsnetPaySessionCache;
 import kr.co.sunpay.api.service.KsnetService;
+import kr.co.sunpay.api.service.KspayBatchRefundService;
+import kr.co.sunpay.api.service.KspayGatewayExecutor;
+import kr.co.sunpay.api.service.KspayGatewayGuard;
+import kr.co.sunpay.api.service.KspayRefundReconciler;
+import kr.co.sunpay.api.service.KspayRetryPolicy;
+import kr.co.sunpay.api.service.PaymentPushService;
 import kr.co.sunpay.api.service.PushService;
+import kr.co.sunpay.api.service.StoreRoutingTable;
 import kr.co.sunpay.api.service.StoreService;
+import ksnet.kspay.KSPayLog;
+import ksnet.kspay.KSPaySocketPool;
+import ksnet.kspay.KSPayWebHostClient;
+import lombok.extern.java.Log;
 
+@Log
 @RestController
 @RequestMapping("/kspay")
 public class KsnetController {
 	
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	
 	@Autowired
 	KsnetService ksnetService;
 	
@@ -31,12 +61,71 @@ public class KsnetController {
 	
 	@Autowired
 	PushService pushService;
+	
+	@Autowired
+	KspayGatewayGuard gatewayGuard;
+	
+	@Autowired
+	KSPaySocketPool socketPool;
+	
+	@Autowired
+	KspayRetryPolicy retryPolicy;
+	
+	@Autowired
+	KspayBatchRefundService batchRefundService;
+	
+	@Autowired
+	KspayGatewayExecutor gatewayExecutor;
+	
+	@Autowired
+	KSPayWebHostClient webHostClient;
+	
+	@Autowired
+	KSPayLog kspayLog;
+	
+	@Autowired
+	PaymentPushService paymentPushService;
+	
+	@Autowired
+	KsnetPaySessionCache paySessions;
+	
+	@Autowired
+	StoreRoutingTable storeRouting;
+	
+	@Autowired
+	DepositReservationLedger depositReservations;
+	
+	@Autowired
+	DepositBalanceService depositBalances;
+	
+	@Autowired
+	KspayRefundReconciler refundReconciler;
 
+	/**
+	 * 결제 취소
+	 * - 게이트웨이 작업 스레드풀에서 처리(요청 스레드 반환), 대기열 초과시 503
+	 * 
+	 * @param refund
+	 * @return
+	 */
 	@PostMapping("/refund")
-	public ResponseEntity<Object> refund(@RequestBody KsnetRefundBody refund) {
+	public CompletableFuture<ResponseEntity<Object>> refund(@RequestBody KsnetRefundBody refund) {
 		
 		System.out.println("-- /kspay/refund start");
 		System.out.println(refund);
+		
+		// refundNow 는 예외를 결과로 바꾸므로 실패는 대기열 초과(KspayGatewayException)
+		return gatewayExecutor.supply(() -> refundNow(refund)).exceptionally(ex -> {
+			Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+			
+			KspayRefundReturns result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", cause.getMessage());
+			result.setOutcome(Outcome.BLOCKED);
+			return new ResponseEntity<Object>(result, HttpStatus.SERVICE_UNAVAILABLE);
+		});
+	}
+	
+	private ResponseEntity<Object> refundNow(KsnetRefundBody refund) {
+		
 		KspayRefundReturns result;
 		
 		try {
@@ -44,14 +133,137 @@ public class KsnetController {
 			return new ResponseEntity<Object>(result, HttpStatus.FOUND);
 			
 		} catch (Exception e) {
-			result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", "취소할 수 없는 주문건입니다.");
-			
-			// 환불요청정보 저장, 결과 업데이트
-			KsnetRefundLog log = ksnetService.saveRefundLog(refund);
-			log.setStatusCode(KsnetRefundLog.STATUS_ERROR);
-			ksnetService.updateRefundLog(log, result);
+			result = ksnetService.refundError(refund);
 			return new ResponseEntity<Object>(result, HttpStatus.FOUND);
 		}
 		
 	}
+	
+	/**
+	 * 복합 결제 취소
+	 * - 같은 상점, 같은 승인구분의 취소 최대 9건을 KSPay 통신 1회로 요청
+	 * - 요청 순서대로 건별 결과 응답
+	 * 
+	 * @param refunds
+	 * @return
+	 */
+	@PostMapping("/refund/compound")
+	public ResponseEntity<Object> refundCompound(@RequestBody List<KsnetRefundBody> refunds) {
+		
+		log.fine("-- /kspay/refund/compound start(" + (refunds == null ? 0 : refunds.size()) + "건)");
+		
+		try {
+			List<KspayRefundReturns> results = ksnetService.refundCompound(refunds);
+			return new ResponseEntity<Object>(results, HttpStatus.OK);
+			
+		} catch (IllegalArgumentException e) {
+			return new ResponseEntity<Object>(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+	
+	/**
+	 * 일괄 결제 취소
+	 * - 상점이 다른 취소건은 병렬, 같은 상점은 요청 순서대로 처리
+	 * - 건별 결과를 완료되는 대로 한 줄씩(NDJSON) 응답
+	 * 
+	 * @param refunds
+	 * @return
+	 */
+	@PostMapping(value = "/refund/batch", produces = APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<ResponseBodyEmitter> refundBatch(@RequestBody List<KsnetRefundBody> refunds) {
+		
+		if (refunds == null || refunds.isEmpty() || refunds.size() > batchRefundService.getMaxItems()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"취소건은 1 ~ " + batchRefundService.getMaxItems() + "건까지 요청할 수 있습니다.");
+		}
+		
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchRefundService.getTimeoutMs());
+		batchRefundService.refund(refunds, item -> sendLine(emitter, item))
+				.whenComplete((v, ex) -> emitter.complete());
+		
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(emitter);
+	}
+	
+	/**
+	 * 결과 1건 전송(JSON + 줄바꿈)
+	 * - 연결이 끊겨도 취소 처리는 계속됨(결과는 취소로그로 확인)
+	 */
+	private void sendLine(ResponseBodyEmitter emitter, KspayBatchRefundResult item) {
+		
+		synchronized (emitter) {
+			try {
+				emitter.send(item, MediaType.APPLICATION_JSON);
+				emitter.send("\n", MediaType.TEXT_PLAIN);
+			} catch (IOException | IllegalStateException e) {
+				log.warning("[일괄취소]결과 전송 실패(trNo: " + item.getTrno() + "): " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * 결제알림 PUSH 재발송
+	 * - 발송 실패(FAILED), 발송되지 않은(READY) 결제결과 대상
+	 * - 로그인 필요(SecurityConfig AUTH_ADMIN)
+	 * 
+	 * @param limit 상태별 최대 건수(kspay.push.replay.max-limit 까지)
+	 * @return 재발송 요청 건수
+	 */
+	@PostMapping("/push/replay")
+	public ResponseEntity<Object> replayPush(@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		
+		Map<String, Object> result = new HashMap<>();
+		result.put("dispatched", paymentPushService.replay(limit));
+		return new ResponseEntity<Object>(result, HttpStatus.OK);
+	}
+	
+	/**
+	 * 예치금 확인
+	 * - 상점별 예치금 내역 전체를 다시 합산해서 내역 잔액, 스냅샷, 보관한 잔액과 비교
+	 * - 로그인 필요(SecurityConfig AUTH_ADMIN)
+	 * 
+	 * @return 확인한 상점 수, 내역 수, 불일치 상점 UID
+	 */
+	@PostMapping("/deposit/verify")
+	public ResponseEntity<Object> verifyDeposit() {
+		
+		return new ResponseEntity<Object>(depositBalances.verify(), HttpStatus.OK);
+	}
+	
+	/**
+	 * KSPay 게이트웨이 상태
+	 * - 차단중(OPEN)이면 503
+	 * 
+	 * @return
+	 */
+	@GetMapping("/health")
+	public ResponseEntity<Object> health() {
+		
+		Map<String, Object> health = gatewayGuard.snapshot();
+		health.putAll(gatewayExecutor.snapshot());
+		health.put("poolIdle", socketPool.getIdleCount());
+		health.put("poolActive", socketPool.getActiveCount());
+		health.put("retries", retryPolicy.getRetries());
+		health.put("retryThrottled", retryPolicy.getThrottled());
+		health.put("retryBudget", retryPolicy.getBudget());
+		health.put("webhostActive", webHostClient.getActiveCount());
+		health.put("webhostCalls", webHostClient.getCalls());
+		health.put("webhostFailures", webHostClient.getFailures());
+		health.put("webhostRejected", webHostClient.getRejected());
+		health.put("webhostAvgMs", webHostClient.getAverageMillis());
+		health.put("webhostP99Ms", webHostClient.getPercentileMillis(99));
+		health.put("webhostMaxMs", webHostClient.getMaxMillis());
+		health.put("kspayLogQueued", kspayLog.getQueued());
+		health.put("kspayLogDropped", kspayLog.getDropped());
+		health.put("kspayLogErrors", kspayLog.getErrors());
+		health.putAll(paymentPushService.snapshot());
+		health.putAll(paySessions.snapshot());
+		health.putAll(storeRouting.snapshot());
+		health.putAll(depositReservations.snapshot());
+		health.putAll(depositBalances.snapshot());
+		health.putAll(refundReconciler.snapshot());
+		
+		HttpStatus status = (gatewayGuard.getState() == KspayGatewayGuard.State.OPEN) ? HttpStatus.SERVICE_UNAVAILABLE
+				: HttpStatus.OK;
+		return new ResponseEntity<Object>(health, status);
+	}
 }
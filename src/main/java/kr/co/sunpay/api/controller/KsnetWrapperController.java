@@ -1,9 +1,12 @@
 package kr.co.sunpay.api.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import javax.persistence.EntityNotFoundException;
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,13 +15,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import kr.co.sunpay.api.domain.KsnetPay;
 import kr.co.sunpay.api.domain.KsnetPayResult;
 import kr.co.sunpay.api.domain.Store;
-import kr.co.sunpay.api.domain.StoreId;
 import kr.co.sunpay.api.model.DepositService;
-import kr.co.sunpay.api.repository.KsnetPayRepository;
+import kr.co.sunpay.api.model.PaymentFinishOutcome;
+import kr.co.sunpay.api.model.StoreRoute;
 import kr.co.sunpay.api.repository.KsnetPayResultRepository;
-import kr.co.sunpay.api.repository.StoreIdRepository;
-import kr.co.sunpay.api.service.PushService;
+import kr.co.sunpay.api.service.DepositReservationLedger;
+import kr.co.sunpay.api.service.KsnetPaySessionCache;
+import kr.co.sunpay.api.service.KspayGatewayExecutor;
+import kr.co.sunpay.api.service.PaymentFinishGuard;
+import kr.co.sunpay.api.service.PaymentPushService;
+import kr.co.sunpay.api.service.StoreRoutingTable;
 import kr.co.sunpay.api.service.StoreService;
+import ksnet.kspay.KSPayWebHostClient;
+import ksnet.kspay.KSPayWebHostReply;
 import lombok.extern.java.Log;
 import springfox.documentation.annotations.ApiIgnore;
 
@@ -29,22 +38,34 @@ import springfox.documentation.annotations.ApiIgnore;
 public class KsnetWrapperController {
 
 	@Autowired
-	KsnetPayRepository ksnetPayRepo;
+	KsnetPaySessionCache paySessions;
 
 	@Autowired
 	KsnetPayResultRepository ksnetPayResultRepo;
-	
+
 	@Autowired
 	StoreService storeService;
 
 	@Autowired
-	StoreIdRepository storeIdRepo;
+	StoreRoutingTable storeRouting;
+
+	@Autowired
+	DepositReservationLedger depositReservations;
+
+	@Autowired
+	PaymentPushService paymentPushService;
 	
 	@Autowired
-	PushService pushService;
+	PaymentFinishGuard finishGuard;
 	
 	@Autowired
 	DepositService depositService;
+	
+	@Autowired
+	KspayGatewayExecutor gatewayExecutor;
+	
+	@Autowired
+	KSPayWebHostClient webHostClient;
 
 	/**
 	 * 결제데이터 받아서 저장 및 KSNet 통신 시작
@@ -55,61 +76,58 @@ public class KsnetWrapperController {
 	@RequestMapping({"/init", "/m/init"})
 	public void init(KsnetPay ksnetPay, Model model) {
 		log.info("-- KsnetWrapperController.init called...");
-		// 결제요청 저장
-		KsnetPay newPay = ksnetPayRepo.save(ksnetPay);
-		
 		// ksnetPay.getSndStoreid() > 상점을 확인하기 위한 상점ID, 실제 결제는 현재 상점 Activated ID로 진행함
 		// 단 예치금 부족하거나 결제한도 초과 시 일반정산으로 결제
 		
-		// 상점ID로 상점 검색하여 현재 Activated 상태인 상점ID 구함
-		Store store = storeService.getStoreByStoreId(ksnetPay.getSndStoreid());
-		if (store == null) {
-			model.addAttribute("err", "상점정보를 찾을 수 없습니다. 관리자에게 문의해주시기 바랍니다.[1]");
-			return;
-		}
+		// 상점ID로 현재 Activated 상태인 상점ID 구함(라우팅 테이블, DB 조회 없음)
+		StoreRoute route = storeRouting.get(ksnetPay.getSndStoreid());
 		
-		// 상점ID 미등록 상태
-		if (store.getStoreIds() == null || store.getStoreIds().size() < 1) {
-			model.addAttribute("err", "상점정보를 찾을 수 없습니다. 관리자에게 문의해주시기 바랍니다.[2]");
-			return;
+		// 결제요청 저장, Activated 상점ID가 있으면 바꿔서 한 번에 저장
+		if (route != null && route.getActivatedId() != null) {
+			ksnetPay.setSndStoreid(route.getActivatedId());
 		}
+		KsnetPay newPay = paySessions.create(ksnetPay);
 		
-		StoreId activatedId = null;
-		
-		for (StoreId sId : store.getStoreIds()) {
-			if (sId.getActivated()) {
-				activatedId = sId;
-				newPay.setSndStoreid(activatedId.getId());
-				ksnetPayRepo.save(newPay);
-				break;
-			}
+		if (route == null) {
+			model.addAttribute("err", "상점정보를 찾을 수 없습니다. 관리자에게 문의해주시기 바랍니다.[1]");
+			return;
 		}
 		
 		// 활성화상태의 상점ID가 없음
-		if (activatedId == null) {
+		if (route.getActivatedId() == null) {
 			model.addAttribute("err", "상점정보를 찾을 수 없습니다. 관리자에게 문의해주시기 바랍니다.[3]");
 			return;
 		}
 		
-		if (activatedId.getServiceTypeCode().equals(StoreService.SERVICE_TYPE_INSTANT)) {
+		if (route.isInstant()) {
 			// TODO: 순간결제라면 예치금, 결제한도 확인 후 진행
-			// 예치금이 현재 상품 금액보다 적은 경우
-			if (store.getDeposit() < ksnetPay.getSndAmount()) {
-				boolean sendPush = false;
-				
-				// 순간정산 OFF
-				storeService.instantOff(store.getUid(), sendPush);
+			// 결제금액만큼 예치금 예약(결제 마무리에서 commit/release)
+			boolean reserved = depositReservations.hold(route.getStoreUid(), newPay.getUid(), ksnetPay.getSndAmount());
+			
+			// 사용가능 예치금(예치금 - 진행중인 순간정산 결제금액)이 현재 상품 금액보다 적은 경우
+			if (!reserved) {
+				if (depositReservations.getBalance(route.getStoreUid()) < ksnetPay.getSndAmount()) {
+					// 예치금 자체가 부족: 순간정산 OFF, 예치금 부족 PUSH
+					Store store = storeService.getStoreByStoreId(route.getActivatedId());
+					if (store != null) {
+						boolean sendPush = false;
+						storeService.instantOff(store, sendPush);
+						depositService.pushDepositLack(store);
+					}
+				}
 				
-				// 결제 상점 ID를 일반결제 ID로 전환
-				ksnetPay.setSndStoreid(storeService.getActivatedId(store));
-				ksnetPayRepo.save(ksnetPay);
-				depositService.pushDepositLack(store);
+				// 이 결제는 일반정산 ID로 결제(진행중인 결제 때문에 부족한 경우 상점 설정은 그대로 둠)
+				String normalId = route.getNormalId();
+				if (normalId != null) {
+					newPay.setSndStoreid(normalId);
+					paySessions.update(newPay);
+				}
 			}
 
 		}
 		
 		// 상점ID는 예치금 확인 후 변경된 ID로 적용
-		model.addAttribute("storeId", ksnetPay.getSndStoreid());
+		model.addAttribute("storeId", newPay.getSndStoreid());
 		model.addAttribute("uid", newPay.getUid());
 	}
 
@@ -123,7 +141,7 @@ public class KsnetWrapperController {
 	@RequestMapping("/payment/{uid}")
 	public String payment(@PathVariable int uid, Model model) {
 		log.info("-- KsnetWrapperController.payment called...");
-		KsnetPay ksnetPay = ksnetPayRepo.findByUid(uid);
+		KsnetPay ksnetPay = paySessions.get(uid);
 		model.addAttribute("order", ksnetPay);
 
 		return "ksnet/payment";
@@ -131,64 +149,51 @@ public class KsnetWrapperController {
 
 	/**
 	 * KSNet에서 받은 키값으로 결제 마무리 및 쇼핑몰 페이지로 돌아감
+	 * - KSNet 결제 승인 확인(WebHost)은 게이트웨이 작업 스레드풀에서 처리
 	 * 
 	 * @param request
 	 * @param model
 	 */
 	@RequestMapping("/finish")
-	public void finish(HttpServletRequest request, Model model) {
+	public CompletableFuture<String> finish(HttpServletRequest request, Model model) {
 		log.info("-- KsnetWrapperController.finish called...");
 
-		KsnetPay ksnetPay = ksnetPayRepo.findByUid(Integer.parseInt(request.getParameter("uid")));
-		KsnetPayResult ksnetPayResult = new KsnetPayResult();
+		int uid = Integer.parseInt(request.getParameter("uid"));
+		String rcid = request.getParameter("reCommConId");
+		String reCommType = request.getParameter("reCommType");
+		String reHash = request.getParameter("reHash");
+
+		// 결제 승인 확인은 거절하지 않음(대기열 초과시 요청 스레드에서 처리)
+		return gatewayExecutor.supplyOrRun(() -> {
+			finishPayment(uid, rcid, reCommType, reHash, model);
+			return "ksnet/finish";
+		});
+	}
 
-		if (!storeIdRepo.findById(ksnetPay.getSndStoreid()).isPresent()) {
-			throw new EntityNotFoundException("사용가능한 상점 ID가 없습니다.");
-		}
+	private void finishPayment(int uid, String rcid, String reCommType, String reHash, Model model) {
 
-		// Dashboard에 노출될 내용
-		ksnetPayResult.setKsnetPay(ksnetPay);
-		ksnetPayResult.setStoreId(ksnetPay.getSndStoreid());
-		ksnetPayResult.setServiceTypeCd(
-				storeIdRepo.findById(ksnetPay.getSndStoreid()).get().getServiceTypeCode());
+		// 재요청이면 KSNet 승인 확인, 저장, PUSH 없이 저장된 결과 사용
+		PaymentFinishOutcome outcome = finishGuard.finish(uid, rcid, () -> {
+			KsnetPay ksnetPay = paySessions.get(uid);
+			KsnetPayResult ksnetPayResult = newPayResult(ksnetPay);
 
-		String rcid = request.getParameter("reCommConId");
-		String authyn = "";
-		String authno = "";
-
-		ksnet.kspay.KSPayWebHostBean ipg = new ksnet.kspay.KSPayWebHostBean(rcid);
-
-		// KSNET 결제결과 중 아래에 나타나지 않은 항목이 필요한 경우 Null 대신 필요한 항목명을 설정할 수 있습니다.
-		if (ipg.kspay_send_msg("1")) {
-			authyn = ipg.kspay_get_value("authyn");
-			authno = ipg.kspay_get_value("authno");
-
-			ksnetPayResult.setAuthyn(authyn); // 성공여부
-			ksnetPayResult.setAuthno(authno);
-
-			ksnetPayResult.setTrno(ipg.kspay_get_value("trno")); // 거래번호(KSNet 고유번호)
-			ksnetPayResult.setTrddt(ipg.kspay_get_value("trddt"));
-			ksnetPayResult.setTrdtm(ipg.kspay_get_value("trdtm"));
-			ksnetPayResult.setAmt(Integer.parseInt(ipg.kspay_get_value("amt")));
-			ksnetPayResult.setMsg1(ipg.kspay_get_value("msg1"));
-			ksnetPayResult.setMsg2(ipg.kspay_get_value("msg2"));
-			ksnetPayResult.setOrdno(ipg.kspay_get_value("ordno"));
-			ksnetPayResult.setResult(ipg.kspay_get_value("result"));
-			ksnetPayResult.setIsscd(ipg.kspay_get_value("isscd"));
-			ksnetPayResult.setAqucd(ipg.kspay_get_value("aqucd"));
-			ksnetPayResult.setHalbu(ipg.kspay_get_value("halbu"));
-			ksnetPayResult.setCbtrno(ipg.kspay_get_value("cbtrno"));
-		}
+			ksnet.kspay.KSPayWebHostBean ipg = new ksnet.kspay.KSPayWebHostBean(rcid);
+			ipg.setClient(webHostClient);
 
-		ksnetPayResult = ksnetPayResultRepo.save(ksnetPayResult);
+			// KSNET 결제결과 중 아래에 나타나지 않은 항목이 필요한 경우 Null 대신 필요한 항목명을 설정할 수 있습니다.
+			if (ipg.kspay_send_msg("1")) {
+				setPayResult(ksnetPayResult, ipg.getReply());
+			}
 
-		// 결제 결과 PUSH 발송
-		pushService.sendPush(ksnetPayResult);
+			return savePayResult(uid, ksnetPayResult);
+		});
+		paySessions.remove(uid);
+		settleReservation(uid, outcome);
 
-		model.addAttribute("sndReply", ksnetPay.getSndReply());
+		model.addAttribute("sndReply", outcome.getSndReply());
 		model.addAttribute("reCommConId", rcid);
-		model.addAttribute("reCommType", request.getParameter("reCommType"));
-		model.addAttribute("reHash", request.getParameter("reHash"));
+		model.addAttribute("reCommType", reCommType);
+		model.addAttribute("reHash", reHash);
 
 	}
 	
@@ -199,63 +204,136 @@ public class KsnetWrapperController {
 	 * @param model
 	 */
 	@RequestMapping("/m/finish/{uid}")
-	public String mFinish(@PathVariable int uid, HttpServletRequest request, Model model) {
+	public CompletableFuture<String> mFinish(@PathVariable int uid, HttpServletRequest request, Model model) {
 		log.info("-- KsnetWrapperController.mFinish called...");
 
-		KsnetPay ksnetPay = ksnetPayRepo.findByUid(uid);
-		KsnetPayResult ksnetPayResult = new KsnetPayResult();
+		String rcid = request.getParameter("reCommConId");
+		String reCommType = request.getParameter("reCommType");
+		String reHash = request.getParameter("reHash");
+
+		return gatewayExecutor.supplyOrRun(() -> {
+			mFinishPayment(uid, rcid, reCommType, reHash, model);
+			return "ksnet/m/finish";
+		});
+	}
+
+	private void mFinishPayment(int uid, String rcid, String reCommType, String reHash, Model model) {
+
+		// 재요청이면 KSNet 승인 확인, 저장, PUSH 없이 저장된 결과 사용
+		PaymentFinishOutcome outcome = finishGuard.finish(uid, rcid, () -> {
+			KsnetPay ksnetPay = paySessions.get(uid);
+			KsnetPayResult ksnetPayResult = newPayResult(ksnetPay);
+
+			ksnet.kspay.KSPayWebHostMobileBean ipg = new ksnet.kspay.KSPayWebHostMobileBean(rcid);
+			ipg.setClient(webHostClient);
 
-		if (!storeIdRepo.findById(ksnetPay.getSndStoreid()).isPresent()) {
+			// KSNET 결제결과 중 아래에 나타나지 않은 항목이 필요한 경우 Null 대신 필요한 항목명을 설정할 수 있습니다.
+			if (ipg.send_msg("1")) {
+				setPayResult(ksnetPayResult, ipg.getReply());
+			}
+
+			return savePayResult(uid, ksnetPayResult);
+		});
+		paySessions.remove(uid);
+		settleReservation(uid, outcome);
+
+		model.addAttribute("sndReply", outcome.getSndReply());
+		model.addAttribute("reCommConId", rcid);
+		model.addAttribute("reCommType", reCommType);
+		model.addAttribute("reHash", reHash);
+	}
+
+	/**
+	 * 순간정산 예치금 예약 종료, 승인이면 commit 아니면 release(예약이 없는 결제는 무시)
+	 * 
+	 * @param uid
+	 * @param outcome
+	 */
+	private void settleReservation(int uid, PaymentFinishOutcome outcome) {
+
+		if ("O".equals(outcome.getAuthyn())) {
+			depositReservations.commit(uid);
+		} else {
+			depositReservations.release(uid);
+		}
+	}
+
+	/**
+	 * 결제요청으로 결제결과 생성(Dashboard에 노출될 내용)
+	 * 
+	 * @param ksnetPay
+	 * @return
+	 */
+	private KsnetPayResult newPayResult(KsnetPay ksnetPay) {
+
+		StoreRoute route = storeRouting.get(ksnetPay.getSndStoreid());
+		if (route == null) {
 			throw new EntityNotFoundException("사용가능한 상점 ID가 없습니다.");
 		}
 
-		// Dashboard에 노출될 내용
+		KsnetPayResult ksnetPayResult = new KsnetPayResult();
 		ksnetPayResult.setKsnetPay(ksnetPay);
 		ksnetPayResult.setStoreId(ksnetPay.getSndStoreid());
-		ksnetPayResult.setServiceTypeCd(
-				storeIdRepo.findById(ksnetPay.getSndStoreid()).get().getServiceTypeCode());
+		ksnetPayResult.setServiceTypeCd(route.serviceTypeOf(ksnetPay.getSndStoreid()));
 
-		String rcid = request.getParameter("reCommConId");
-		String authyn = "";
-		String authno = "";
+		return ksnetPayResult;
+	}
 
-		ksnet.kspay.KSPayWebHostMobileBean ipg = new ksnet.kspay.KSPayWebHostMobileBean(rcid);
-		
+	/**
+	 * 결제 결과 저장, PUSH 는 커밋 후 별도 스레드에서 발송
+	 * - 같은 거래번호로 승인된 결제결과가 이미 있으면 저장하지 않음
+	 * - 다른 서버에서 같은 거래번호의 승인 결과를 먼저 저장한 경우(유니크 키 중복) 저장된 결과 사용
+	 * 
+	 * @param uid
+	 * @param ksnetPayResult
+	 * @return
+	 */
+	private PaymentFinishOutcome savePayResult(int uid, KsnetPayResult ksnetPayResult) {
 
-		// KSNET 결제결과 중 아래에 나타나지 않은 항목이 필요한 경우 Null 대신 필요한 항목명을 설정할 수 있습니다.
-		if (ipg.send_msg("1")) {
-			authyn = ipg.getValue("authyn");
-			authno = ipg.getValue("authno");
-
-			ksnetPayResult.setAuthyn(authyn); // 성공여부
-			ksnetPayResult.setAuthno(authno);
-
-			ksnetPayResult.setTrno(ipg.getValue("trno")); // 거래번호(KSNet 고유번호)
-			ksnetPayResult.setTrddt(ipg.getValue("trddt"));
-			ksnetPayResult.setTrdtm(ipg.getValue("trdtm"));
-			ksnetPayResult.setAmt(Integer.parseInt(ipg.getValue("amt")));
-			ksnetPayResult.setMsg1(ipg.getValue("msg1"));
-			ksnetPayResult.setMsg2(ipg.getValue("msg2"));
-			ksnetPayResult.setOrdno(ipg.getValue("ordno"));
-			ksnetPayResult.setResult(ipg.getValue("result"));
-			ksnetPayResult.setIsscd(ipg.getValue("isscd"));
-			ksnetPayResult.setAqucd(ipg.getValue("aqucd"));
-			
-			if (null != authyn && 1 == authyn.length()) {
-//				ipg.send_msg("3");
+		if ("O".equals(ksnetPayResult.getAuthyn()) && ksnetPayResult.getTrno() != null) {
+			KsnetPayResult paid = ksnetPayResultRepo.findByTrnoAndAuthyn(ksnetPayResult.getTrno(), "O").orElse(null);
+			if (paid != null) {
+				log.info("[결제마무리]이미 저장된 거래번호(trno: " + ksnetPayResult.getTrno() + ")");
+				return PaymentFinishOutcome.of(paid);
 			}
 		}
 
-		ksnetPayResult = ksnetPayResultRepo.save(ksnetPayResult);
-
-		// 결제 결과 PUSH 발송
-		pushService.sendPush(ksnetPayResult);
-
-		model.addAttribute("sndReply", ksnetPay.getSndReply());
-		model.addAttribute("reCommConId", rcid);
-		model.addAttribute("reCommType", request.getParameter("reCommType"));
-		model.addAttribute("reHash", request.getParameter("reHash"));
+		try {
+			return PaymentFinishOutcome.of(paymentPushService.complete(ksnetPayResult));
+		} catch (DataIntegrityViolationException e) {
+			KsnetPayResult paid = ("O".equals(ksnetPayResult.getAuthyn()) && ksnetPayResult.getTrno() != null)
+					? ksnetPayResultRepo.findByTrnoAndAuthyn(ksnetPayResult.getTrno(), "O").orElse(null)
+					: null;
+			if (paid == null) {
+				throw e;
+			}
+			return PaymentFinishOutcome.of(paid);
+		}
+	}
 
-		return "ksnet/m/finish";
+	/**
+	 * KSNet 결제결과(WebHost 응답)를 결제결과에 반영
+	 * - 모바일 응답에는 할부개월수, 현금영수증번호 항목이 없음(null)
+	 * 
+	 * @param ksnetPayResult
+	 * @param reply
+	 */
+	private void setPayResult(KsnetPayResult ksnetPayResult, KSPayWebHostReply reply) {
+
+		ksnetPayResult.setAuthyn(reply.getAuthyn()); // 성공여부
+		ksnetPayResult.setAuthno(reply.getAuthno());
+
+		ksnetPayResult.setTrno(reply.getTrno()); // 거래번호(KSNet 고유번호)
+		ksnetPayResult.setTrddt(reply.getTrddt());
+		ksnetPayResult.setTrdtm(reply.getTrdtm());
+		ksnetPayResult.setAmt(reply.getAmount());
+		ksnetPayResult.setMsg1(reply.getMsg1());
+		ksnetPayResult.setMsg2(reply.getMsg2());
+		ksnetPayResult.setOrdno(reply.getOrdno());
+		ksnetPayResult.setResult(reply.getResult());
+		ksnetPayResult.setIsscd(reply.getIsscd());
+		ksnetPayResult.setAqucd(reply.getAqucd());
+		ksnetPayResult.setHalbu(reply.getHalbu());
+		ksnetPayResult.setCbtrno(reply.getCbtrno());
 	}
 }
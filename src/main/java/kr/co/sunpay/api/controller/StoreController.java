@@ -26,6 +26,7 @@ import kr.co.sunpay.api.model.MemberResponse;
 import kr.co.sunpay.api.model.StoreRequest;
 import kr.co.sunpay.api.repository.GroupRepository;
 import kr.co.sunpay.api.repository.StoreRepository;
+import kr.co.sunpay.api.service.DepositBalanceService;
 import kr.co.sunpay.api.service.GroupService;
 import kr.co.sunpay.api.service.MemberService;
 import kr.co.sunpay.api.service.StoreService;
@@ -49,6 +50,9 @@ public class StoreController {
 
 	@Autowired
 	MemberService memberService;
+	
+	@Autowired
+	DepositBalanceService depositBalances;
 
 	/**
 	 * memberUid 권한 하위의 모든 상점리스트 반환
@@ -69,9 +73,10 @@ public class StoreController {
 			stores = storeService.getStoresByMember(member);
 		}
 
-		// 그룹별 수수료 정보 합산하여 리턴함
+		// 그룹별 수수료 정보 합산하여 리턴함, 예치금은 예치금 내역 기준 잔액
 		for (Store s : stores) {
 			s = s.hideFee();
+			s.setBalance(depositBalances.getBalance(s.getUid()));
 		}
 
 		return stores;
@@ -94,6 +99,7 @@ public class StoreController {
 
 		for (Store s : memberStores) {
 			if (s.getUid() == uid) {
+				s.setBalance(depositBalances.getBalance(s.getUid()));
 				return s.hideFee();
 			}
 		}
@@ -0,0 +1,42 @@
+package kr.co.sunpay.api.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * 상점 예치금 스냅샷(추가만 함, 수정/삭제 없음)
+ * - 잔액 = 마지막 스냅샷 잔액 + 이후 예치금 내역(SP_DEPOSIT_LOGS UID > LAST_LOG_UID) 합계
+ * - 처음 스냅샷은 기존 SP_STORES.DEPOSIT 을 시작 잔액으로 사용(baseline)
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "SP_DEPOSIT_SNAPSHOTS")
+@ToString
+public class DepositSnapshot extends DefaultEntity {
+
+	@Column(name = "STORE_UID_FK")
+	private int storeUid;
+
+	// 스냅샷에 포함된 마지막 예치금 내역 UID
+	@Column(name = "LAST_LOG_UID")
+	private int lastLogUid;
+
+	@Column(name = "BALANCE")
+	private int balance;
+
+	public DepositSnapshot() {
+
+	}
+
+	public DepositSnapshot(int storeUid, int lastLogUid, int balance) {
+		this.storeUid = storeUid;
+		this.lastLogUid = lastLogUid;
+		this.balance = balance;
+	}
+}
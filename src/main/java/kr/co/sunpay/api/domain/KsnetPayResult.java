@@ -36,6 +36,12 @@ import lombok.ToString;
 @ToString
 public class KsnetPayResult {
 
+	// 결제알림 PUSH 발송 상태 코드
+	public static final String PUSH_READY = "READY";		// 발송 대기(결제결과 저장됨)
+	public static final String PUSH_SENDING = "SENDING";	// 발송중(발송 작업이 가져감, 다른 작업은 발송하지 않음)
+	public static final String PUSH_SENT = "SENT";			// 발송 완료
+	public static final String PUSH_FAILED = "FAILED";		// 발송 실패(재발송 대상)
+
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	@Column(name="UID")
@@ -109,6 +115,18 @@ public class KsnetPayResult {
 	@Column(name="INSTALMENT", length=3)
 	private String halbu;
 	
+	// 결제알림 PUSH 발송 상태
+	@Column(name="PUSH_STATUS_CD", length=10)
+	private String pushStatusCode;
+	
+	// 결제알림 PUSH 발송 시도 횟수
+	@Column(name="PUSH_TRY_CNT", columnDefinition="INT DEFAULT 0")
+	private Integer pushTryCount;
+	
+	// 결제알림 PUSH 발송 실패한 수신자(FCM TOKEN UID, 쉼표 구분), 재발송시 이 수신자에게만 발송
+	@Column(name="PUSH_FAILED_TOKENS", length=500)
+	private String pushFailedTokens;
+	
 	@CreationTimestamp
 	@Column(name="CREATED_DT")
 	private LocalDateTime createdDate;
@@ -117,6 +135,7 @@ public class KsnetPayResult {
 	@Column(name="UPDATED_DT")
 	private LocalDateTime updatedDate;
 	
+	// 결제요청의 결제결과(승인 실패 후 재시도하면 여러 건), 승인된 결과는 거래번호당 1건(db/kspay_pay_result_approved_trno.sql)
 	@OneToOne(fetch=FetchType.EAGER, optional=false)
 	@JoinColumn(name="KSNET_PAY_UID_FK")
 	private KsnetPay ksnetPay;
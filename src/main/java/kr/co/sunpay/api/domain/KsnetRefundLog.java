@@ -33,6 +33,7 @@ public class KsnetRefundLog {
 	public static final String STATUS_FINISH = "FINISH";		// 환불 오류였으나 처리됨(환불됨)
 	public static final String STATUS_CANCEL = "CANCEL";		// 환불 오류건이었으나 취소됨
 	public static final String STATUS_TRY = "TRY";				// 환불 요청 시도
+	public static final String STATUS_UNKNOWN = "UNKNOWN";		// 요청 전송 후 응답 없음(취소 여부 확인 필요)
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
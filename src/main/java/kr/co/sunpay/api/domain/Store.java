@@ -18,9 +18,12 @@ import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.swagger.annotations.ApiModelProperty;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -53,9 +56,18 @@ public class Store extends BaseEntity {
 	@Column(name="BANK_ACCOUNT_NM", length=10)
 	private String bankAccountName;
 	
+	// 첫 예치금 스냅샷 기준값(상점 생성시 0), 이후 갱신하지 않음
+	// 예치금 변경은 DepositLedger(예치금 내역 추가)로만, setter 없음, 요청/응답에 포함하지 않음
+	@JsonIgnore
+	@Setter(AccessLevel.NONE)
+	@Column(name="DEPOSIT", updatable=false)
+	private Integer baselineDeposit = 0;
+	
+	// 예치금 잔액(DepositBalanceService), 상점 조회 API 에서 채움, 저장하지 않음
 	@ApiModelProperty(notes="취소예치금 금액")
-	@Column(name="DEPOSIT")
-	private Integer deposit = 0;
+	@JsonProperty(value="deposit", access=JsonProperty.Access.READ_ONLY)
+	@Transient
+	private Integer balance;
 	
 	@Column(name="MIN_DEPOSIT")
 	private int minDeposit;
@@ -0,0 +1,22 @@
+package kr.co.sunpay.api.exception;
+
+/**
+ * KSPay 게이트웨이 요청 거절(통신 전)
+ * - CODE_CIRCUIT_OPEN: 게이트웨이 장애로 차단중
+ * - CODE_BULKHEAD_FULL: 동시 요청 수 초과
+ */
+public class KspayGatewayException extends Exception {
+
+	private final int ERR_CODE;
+	public final static int CODE_CIRCUIT_OPEN = 100;
+	public final static int CODE_BULKHEAD_FULL = 200;
+
+	public KspayGatewayException(String msg, int errCode) {
+		super(msg);
+		ERR_CODE = errCode;
+	}
+
+	public int getErrCode() {
+		return ERR_CODE;
+	}
+}
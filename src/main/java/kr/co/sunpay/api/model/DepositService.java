@@ -21,14 +21,15 @@ import kr.co.sunpay.api.domain.DepositLog;
 import kr.co.sunpay.api.domain.FcmToken;
 import kr.co.sunpay.api.domain.KsnetPayResult;
 import kr.co.sunpay.api.domain.Store;
-import kr.co.sunpay.api.domain.StoreId;
-import kr.co.sunpay.api.exception.DepositException;
 import kr.co.sunpay.api.repository.DepositLogRepository;
 import kr.co.sunpay.api.repository.KsnetPayResultRepository;
 import kr.co.sunpay.api.repository.StoreIdRepository;
 import kr.co.sunpay.api.repository.StoreRepository;
 import kr.co.sunpay.api.service.CodeService;
+import kr.co.sunpay.api.service.DepositBalanceService;
+import kr.co.sunpay.api.service.DepositLedger;
 import kr.co.sunpay.api.service.PushService;
+import kr.co.sunpay.api.service.StoreRoutingTable;
 import kr.co.sunpay.api.service.StoreService;
 import kr.co.sunpay.api.util.Sunpay;
 
@@ -53,6 +54,15 @@ public class DepositService extends CodeService {
 	@Autowired
 	StoreService storeService;
 	
+	@Autowired
+	StoreRoutingTable storeRouting;
+	
+	@Autowired
+	DepositLedger depositLedger;
+	
+	@Autowired
+	DepositBalanceService depositBalances;
+	
 	public static final String TYPE_DEPOSIT = "DEPOSIT";		// 입금
 	public static final String TYPE_WITHDRAW = "WITHDRAW";		// 출금
 	
@@ -72,15 +82,14 @@ public class DepositService extends CodeService {
 	 * depositNo로 상점 검색해서 예치금 증액 및 히스토리 기록
 	 * @param depositNo
 	 * @param depositAmt
+	 * @return 증액 후 잔액
 	 */
-	public void deposit(String depositNo, int depositAmt) {
+	public int deposit(String depositNo, int depositAmt) {
 		
-		Store store = storeRepo.findByDepositNo(depositNo).orElse(null);
-		if (store == null) throw new EntityNotFoundException("상점을 찾을 수 없습니다.");
+		Integer storeUid = storeRepo.findUidByDepositNo(depositNo).orElse(null);
+		if (storeUid == null) throw new EntityNotFoundException("상점을 찾을 수 없습니다.");
 		
-		store.setDeposit(store.getDeposit() + depositAmt);
-		storeRepo.save(store);
-		writeLog(store, depositNo, store.getDepositNo(), DepositService.TYPE_DEPOSIT, null, DepositService.STATUS_FINISH, depositAmt);
+		return depositLedger.credit(storeUid, depositNo, depositNo, null, DepositService.STATUS_FINISH, depositAmt);
 	}
 	
 	/**
@@ -99,7 +108,7 @@ public class DepositService extends CodeService {
 				Map<String, String> msg = new HashMap<String, String>();
 				String msgText = "[예치금입금]"
 						+ "\n입금액: " + NumberFormat.getNumberInstance(Locale.US).format(depositAmt) + "원"
-						+ "\n잔액: " + NumberFormat.getNumberInstance(Locale.US).format(store.getDeposit()) + "원";
+						+ "\n잔액: " + NumberFormat.getNumberInstance(Locale.US).format(depositBalances.getBalance(store.getUid())) + "원";
 				msg.put("cate", "deposit");
 				msg.put("isDisplay", "Y");
 				msg.put("title", "예치금 입금");
@@ -122,11 +131,11 @@ public class DepositService extends CodeService {
 		if (storeId == null || storeId.isEmpty()) return;
 		
 		Store store = storeService.getStoreByStoreId(storeId);
-		List<FcmToken> tokens = pushService.getTokensByStoreId(storeId);
+		List<FcmToken> tokens = pushService.getTokensByStore(store);
 		
 		Map<String, String> msg = new HashMap<String, String>();
 		String msgText = "예치금이 부족하여 환불이 취소되었습니다."
-				+ "\n예치금 잔액: " + NumberFormat.getInstance(Locale.US).format(store.getDeposit()) + "원"
+				+ "\n예치금 잔액: " + NumberFormat.getInstance(Locale.US).format(depositBalances.getBalance(store.getUid())) + "원"
 				+ "\n환불요청금액: " + NumberFormat.getInstance(Locale.US).format(paidResult.getAmt()) + "원";
 		msg.put("cate", "deposit");
 		msg.put("isDisplay", "Y");
@@ -150,7 +159,7 @@ public class DepositService extends CodeService {
 
 		Map<String, String> msg = new HashMap<String, String>();
 		String msgText = "예치금이 부족합니다." + "\n예치금 잔액: "
-				+ NumberFormat.getInstance(Locale.US).format(store.getDeposit()) + "원";
+				+ NumberFormat.getInstance(Locale.US).format(depositBalances.getBalance(store.getUid())) + "원";
 		msg.put("cate", "deposit");
 		msg.put("isDisplay", "Y");
 		msg.put("title", "예치금을 충전해주세요.");
@@ -169,8 +178,8 @@ public class DepositService extends CodeService {
 	 */
 	public boolean isValidNo(String depositNo) {
 		
-		Optional<Store> oStore = storeRepo.findByDepositNo(depositNo);
-		if (!oStore.isPresent()) return false;
+		Optional<Integer> oStoreUid = storeRepo.findUidByDepositNo(depositNo);
+		if (!oStoreUid.isPresent()) return false;
 		
 		return true;
 	}
@@ -184,20 +193,15 @@ public class DepositService extends CodeService {
 	public void tryRefund(String storeId, KsnetPayResult paidResult) throws Exception {
 
 		// 예치금 차감할 상점 검색
-		Store store = storeService.getStoreByStoreId(storeId);
+		StoreRoute route = storeRouting.get(storeId);
 
-		if (store == null) {
+		if (route == null) {
 			throw new Exception("상점 정보를 찾을 수 없음");
 		}
 
+		// 잔액이 결제금액 이상일 때만 차감, 부족하면 DepositException(CODE_DEPOSIT_LACK)
 		int paidAmount = paidResult.getAmt();
-		if (store.getDeposit() < paidAmount) {
-			throw new DepositException("취소예치금 부족", DepositException.CODE_DEPOSIT_LACK);
-		}
-
-		store.setDeposit(store.getDeposit() - paidAmount);
-		storeRepo.save(store);
-		writeLog(store, null, null, DepositService.TYPE_WITHDRAW, paidResult.getTrno(), DepositService.STATUS_TRY,
+		depositLedger.debit(route.getStoreUid(), route.getDepositNo(), paidResult.getTrno(), DepositService.STATUS_TRY,
 				paidAmount);
 	}
 	
@@ -217,7 +221,8 @@ public class DepositService extends CodeService {
 		int deposit = 0;
 		
 		if (store != null) {
-			deposit = store.getDeposit();
+			Integer balance = depositBalances.getBalance(store.getUid());
+			deposit = (balance == null) ? 0 : balance;
 			
 			if (depositNo == null) depositNo = store.getDepositNo();
 		}
@@ -233,17 +238,11 @@ public class DepositService extends CodeService {
 	public void resetDeposit(KsnetRefundBody cancel) throws Exception {
 		
 		// 예치금 복구할 상점 검색
-		Optional<StoreId> oStoreId = storeIdRepo.findById(cancel.getStoreid());
-		if (!oStoreId.isPresent()) {
+		StoreRoute route = storeRouting.get(cancel.getStoreid());
+		if (route == null) {
 			throw new Exception("존재하지 않는 상점 ID");
 		}
 
-		Optional<Store> oStore = storeRepo.findByUid(oStoreId.get().getStore().getUid());
-		if (!oStore.isPresent()) {
-			throw new Exception("상점 정보를 찾을 수 없음");
-		}
-		Store store = oStore.get();
-
 		// 주문번호, 상점ID로 결제금액 검색
 		Optional<KsnetPayResult> oPayResult = ksnetPayResultRepo.findByTrnoAndStoreIdAndAuthyn(cancel.getTrno(),
 				cancel.getStoreid(), "O");
@@ -254,10 +253,8 @@ public class DepositService extends CodeService {
 		int paidAmount = oPayResult.get().getAmt();
 		System.out.println("RESET DEPOSIT AMOUNT:" + paidAmount);
 
-		store.setDeposit(store.getDeposit() + paidAmount);
-		storeRepo.save(store);
-		writeLog(store, null, null, DepositService.TYPE_DEPOSIT, cancel.getTrno(), DepositService.STATUS_FAIL,
-				paidAmount);
+		depositLedger.credit(route.getStoreUid(), null, route.getDepositNo(), cancel.getTrno(),
+				DepositService.STATUS_FAIL, paidAmount);
 		
 	}
 
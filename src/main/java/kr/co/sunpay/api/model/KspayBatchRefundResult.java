@@ -0,0 +1,33 @@
+package kr.co.sunpay.api.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 일괄 취소 요청 건별 결과(완료되는 순서대로 응답)
+ */
+@Getter
+@ToString
+public class KspayBatchRefundResult {
+
+	// 요청 목록의 순번(0부터)
+	private final int index;
+
+	private final String storeid;
+
+	private final String trno;
+
+	private final KspayRefundReturns result;
+
+	// 대기시간 포함 처리시간(ms)
+	private final long elapsedMillis;
+
+	public KspayBatchRefundResult(int index, KsnetRefundBody refund, KspayRefundReturns result, long elapsedMillis) {
+
+		this.index = index;
+		this.storeid = refund.getStoreid();
+		this.trno = refund.getTrno();
+		this.result = result;
+		this.elapsedMillis = elapsedMillis;
+	}
+}
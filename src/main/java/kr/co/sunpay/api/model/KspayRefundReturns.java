@@ -1,5 +1,7 @@
 package kr.co.sunpay.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -9,6 +11,18 @@ import lombok.ToString;
 @ToString
 public class KspayRefundReturns {
 
+	/**
+	 * 게이트웨이 통신 결과(응답에는 포함하지 않음)
+	 * - APPROVED: 취소 승인
+	 * - DECLINED: 응답 수신, 취소 거절(또는 지원하지 않는 승인구분)
+	 * - NO_RESPONSE: 통신실패, 자체응답
+	 * - BLOCKED: 게이트웨이 장애/요청 초과로 통신하지 않음
+	 * - UNKNOWN: 요청 전송 후 응답 없음(제한시간 초과 등), 취소 여부 확인 필요
+	 */
+	public enum Outcome {
+		APPROVED, DECLINED, NO_RESPONSE, BLOCKED, UNKNOWN
+	}
+
 	private String rTransactionNo;
 	
 	private String rStatus;
@@ -21,6 +35,9 @@ public class KspayRefundReturns {
 	
 	private String rMessage2;
 	
+	@JsonIgnore
+	private Outcome outcome;
+	
 	public KspayRefundReturns() {
 		
 	}
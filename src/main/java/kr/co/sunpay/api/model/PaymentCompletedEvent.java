@@ -0,0 +1,24 @@
+package kr.co.sunpay.api.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 결제 완료(KSNet 결제결과 저장) 이벤트
+ * - 트랜잭션 커밋 후 결제알림 PUSH 발송(PaymentPushService)
+ */
+@Getter
+@ToString
+public class PaymentCompletedEvent {
+
+	// KsnetPayResult UID
+	private final int payResultUid;
+
+	private final String storeId;
+
+	public PaymentCompletedEvent(int payResultUid, String storeId) {
+
+		this.payResultUid = payResultUid;
+		this.storeId = storeId;
+	}
+}
@@ -0,0 +1,42 @@
+package kr.co.sunpay.api.model;
+
+import kr.co.sunpay.api.domain.KsnetPayResult;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 결제 마무리(/ksnet/finish, /ksnet/m/finish) 결과
+ * - 같은 결제요청의 재요청에는 저장된 결과를 그대로 사용(PaymentFinishGuard)
+ */
+@Getter
+@ToString
+public class PaymentFinishOutcome {
+
+	// KsnetPay UID
+	private final int payUid;
+
+	// KsnetPayResult UID
+	private final int payResultUid;
+
+	private final String trno;
+
+	private final String authyn;
+
+	// 쇼핑몰 복귀 URL
+	private final String sndReply;
+
+	public PaymentFinishOutcome(int payUid, int payResultUid, String trno, String authyn, String sndReply) {
+
+		this.payUid = payUid;
+		this.payResultUid = payResultUid;
+		this.trno = trno;
+		this.authyn = authyn;
+		this.sndReply = sndReply;
+	}
+
+	public static PaymentFinishOutcome of(KsnetPayResult ksnetPayResult) {
+
+		return new PaymentFinishOutcome(ksnetPayResult.getKsnetPay().getUid(), ksnetPayResult.getUid(),
+				ksnetPayResult.getTrno(), ksnetPayResult.getAuthyn(), ksnetPayResult.getKsnetPay().getSndReply());
+	}
+}
@@ -0,0 +1,79 @@
+package kr.co.sunpay.api.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+import kr.co.sunpay.api.service.StoreService;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 상점ID → 상점 라우팅 정보(StoreRoutingTable)
+ * - 상점의 모든 상점ID가 같은 StoreRoute 를 공유
+ * - 예치금 잔액처럼 자주 바뀌는 값은 보관하지 않음(필요하면 storeUid 로 상점 조회)
+ */
+@Getter
+@ToString
+public class StoreRoute {
+
+	private final int storeUid;
+
+	// 현재 활성상태 상점ID, 없으면 null
+	private final String activatedId;
+
+	// 활성상태 상점ID의 정산 타입 코드
+	private final String serviceTypeCode;
+
+	private final String depositNo;
+
+	// 상점ID → 정산 타입 코드(상점의 모든 상점ID, 등록 순서)
+	private final Map<String, String> serviceTypes;
+
+	public StoreRoute(int storeUid, String activatedId, String serviceTypeCode, String depositNo,
+			Map<String, String> serviceTypes) {
+
+		this.storeUid = storeUid;
+		this.activatedId = activatedId;
+		this.serviceTypeCode = serviceTypeCode;
+		this.depositNo = depositNo;
+		this.serviceTypes = Collections.unmodifiableMap(serviceTypes);
+	}
+
+	/**
+	 * 순간정산 상점ID가 활성상태인지
+	 *
+	 * @return
+	 */
+	public boolean isInstant() {
+		return StoreService.SERVICE_TYPE_INSTANT.equals(serviceTypeCode);
+	}
+
+	public boolean isActivated(String storeId) {
+		return activatedId != null && activatedId.equals(storeId);
+	}
+
+	/**
+	 * 일반정산 상점ID(순간정산이 아닌 첫 상점ID, StoreService.instantOff 와 같은 기준)
+	 *
+	 * @return 없으면 null
+	 */
+	public String getNormalId() {
+
+		for (Map.Entry<String, String> entry : serviceTypes.entrySet()) {
+			if (!StoreService.SERVICE_TYPE_INSTANT.equals(entry.getValue())) {
+				return entry.getKey();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 상점ID의 정산 타입 코드
+	 *
+	 * @param storeId
+	 * @return 상점의 상점ID가 아니면 null
+	 */
+	public String serviceTypeOf(String storeId) {
+		return serviceTypes.get(storeId);
+	}
+}
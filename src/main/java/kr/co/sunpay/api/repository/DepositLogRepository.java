@@ -3,8 +3,14 @@ package kr.co.sunpay.api.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import kr.co.sunpay.api.domain.DepositLog;
 
@@ -21,4 +27,25 @@ public interface DepositLogRepository extends JpaRepository<DepositLog, Integer>
 	Optional<DepositLog> findFirstByTrNoAndStatusCdOrderByCreatedDateDesc(String trNo, String statusCode);
 	
 	Optional<DepositLog> findOneByTrNoAndStatusCdOrderByCreatedDateDesc(String trNo, String statusCode);
+
+	/**
+	 * 상점의 afterUid 이후 예치금 내역 합계(입금 +, 출금 -)
+	 * @param storeUid
+	 * @param afterUid
+	 * @return [합계, 마지막 내역 UID(없으면 0), 건수]
+	 */
+	@Query("SELECT COALESCE(SUM(CASE WHEN l.typeCode = 'WITHDRAW' THEN -l.amt ELSE l.amt END), 0), COALESCE(MAX(l.uid), 0), COUNT(l) "
+			+ "FROM DepositLog l WHERE l.store.uid = :storeUid AND l.uid > :afterUid")
+	List<Object[]> foldAfter(@Param("storeUid") int storeUid, @Param("afterUid") int afterUid);
+
+	/**
+	 * 상점의 afterUid 이후 예치금 내역(UID 순), 트랜잭션 안에서 사용 후 닫아야 함
+	 * - MySQL 은 fetch size Integer.MIN_VALUE 일 때 한 행씩 읽음
+	 * @param storeUid
+	 * @param afterUid
+	 * @return [UID, 구분, 금액, 잔액]
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+	@Query("SELECT l.uid, l.typeCode, l.amt, l.total FROM DepositLog l WHERE l.store.uid = :storeUid AND l.uid > :afterUid ORDER BY l.uid")
+	Stream<Object[]> streamByStoreUid(@Param("storeUid") int storeUid, @Param("afterUid") int afterUid);
 }
@@ -0,0 +1,21 @@
+package kr.co.sunpay.api.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import kr.co.sunpay.api.domain.DepositSnapshot;
+
+public interface DepositSnapshotRepository extends JpaRepository<DepositSnapshot, Integer> {
+
+	Optional<DepositSnapshot> findFirstByStoreUidOrderByLastLogUidDesc(int storeUid);
+
+	Optional<DepositSnapshot> findFirstByStoreUidOrderByLastLogUidAsc(int storeUid);
+
+	List<DepositSnapshot> findByStoreUidOrderByLastLogUidAsc(int storeUid);
+
+	@Query("SELECT DISTINCT s.storeUid FROM DepositSnapshot s")
+	List<Integer> findStoreUids();
+}
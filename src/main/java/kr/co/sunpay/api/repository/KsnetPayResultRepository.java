@@ -1,12 +1,16 @@
 package kr.co.sunpay.api.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import kr.co.sunpay.api.domain.KsnetPayResult;
 
@@ -26,4 +30,69 @@ public interface KsnetPayResultRepository extends JpaRepository<KsnetPayResult,
 	
 	Optional<KsnetPayResult> findByTrnoAndStoreIdAndAuthyn(String trno, String storeId, String Authyn);
 	Optional<KsnetPayResult> findByTrnoAndAuthyn(String trno, String Authyn);
+	
+	/**
+	 * 결제요청(KsnetPay UID)의 승인된 결제결과, 결제 마무리 재요청 확인용
+	 * @param ksnetPayUid
+	 * @param authyn
+	 * @return
+	 */
+	Optional<KsnetPayResult> findFirstByKsnetPayUidAndAuthynOrderByUidAsc(int ksnetPayUid, String authyn);
+	
+	/**
+	 * 결제알림 PUSH 재발송 대상 조회
+	 * @param pushStatusCode
+	 * @param pushTryCount 발송 시도 횟수가 이 값보다 작은 건
+	 * @param updatedDate 이 시각 이전에 마지막으로 변경된 건
+	 * @param pageable
+	 * @return
+	 */
+	List<KsnetPayResult> findByPushStatusCodeAndPushTryCountLessThanAndUpdatedDateBeforeOrderByUidAsc(
+			String pushStatusCode, Integer pushTryCount, LocalDateTime updatedDate, Pageable pageable);
+	
+	/**
+	 * 결제알림 PUSH 발송 작업이 가져감(현재 상태가 fromStatusCode 일 때만 SENDING 으로 변경)
+	 * @param uid
+	 * @param fromStatusCode
+	 * @return 변경된 행 수(다른 작업이 이미 가져갔으면 0)
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE KsnetPayResult r SET r.pushStatusCode = 'SENDING', r.updatedDate = CURRENT_TIMESTAMP WHERE r.uid = :uid AND r.pushStatusCode = :fromStatusCode")
+	int claimPush(@Param("uid") int uid, @Param("fromStatusCode") String fromStatusCode);
+	
+	/**
+	 * 발송중(SENDING) 상태로 오래 남은 건 다시 가져감(발송 중 서버 종료 등)
+	 * @param uid
+	 * @param updatedDate 이 시각 이전에 마지막으로 변경된 건만
+	 * @return 변경된 행 수
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE KsnetPayResult r SET r.updatedDate = CURRENT_TIMESTAMP WHERE r.uid = :uid AND r.pushStatusCode = 'SENDING' AND r.updatedDate < :updatedDate")
+	int claimStalePush(@Param("uid") int uid, @Param("updatedDate") LocalDateTime updatedDate);
+	
+	/**
+	 * 결제알림 PUSH 발송 결과 반영(발송 상태, 시도 횟수만 변경)
+	 * @param uid
+	 * @param pushStatusCode
+	 * @return
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE KsnetPayResult r SET r.pushStatusCode = :pushStatusCode, r.pushTryCount = COALESCE(r.pushTryCount, 0) + 1, r.updatedDate = CURRENT_TIMESTAMP WHERE r.uid = :uid")
+	int updatePushStatus(@Param("uid") int uid, @Param("pushStatusCode") String pushStatusCode);
+	
+	/**
+	 * 결제알림 PUSH 발송 결과 반영(발송 상태, 시도 횟수, 실패한 수신자)
+	 * @param uid
+	 * @param pushStatusCode
+	 * @param pushFailedTokens 실패한 수신자(FCM TOKEN UID, 쉼표 구분), 모두 성공하면 null
+	 * @return
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE KsnetPayResult r SET r.pushStatusCode = :pushStatusCode, r.pushTryCount = COALESCE(r.pushTryCount, 0) + 1, r.pushFailedTokens = :pushFailedTokens, r.updatedDate = CURRENT_TIMESTAMP WHERE r.uid = :uid")
+	int updatePushResult(@Param("uid") int uid, @Param("pushStatusCode") String pushStatusCode,
+			@Param("pushFailedTokens") String pushFailedTokens);
 }
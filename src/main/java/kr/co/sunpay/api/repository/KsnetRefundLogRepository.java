@@ -4,7 +4,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import kr.co.sunpay.api.domain.KsnetRefundLog;
 
@@ -14,6 +18,23 @@ public interface KsnetRefundLogRepository extends CrudRepository<KsnetRefundLog,
 
 	List<KsnetRefundLog> findByTrNoAndStatusCodeNot(String trNo, String statusCode);
 
+	List<KsnetRefundLog> findByTrNoAndStatusCode(String trNo, String statusCode);
+
+	List<KsnetRefundLog> findByStatusCodeOrderByCreatedDateAsc(String statusCode);
+
+	/**
+	 * 환불 상태 변경(현재 상태가 fromStatusCode 일 때만, 여러 서버가 같은 건을 처리하지 않도록)
+	 * @param uid
+	 * @param fromStatusCode
+	 * @param toStatusCode
+	 * @return 변경된 행 수
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE KsnetRefundLog l SET l.statusCode = :toStatusCode WHERE l.uid = :uid AND l.statusCode = :fromStatusCode")
+	int updateStatusCode(@Param("uid") int uid, @Param("fromStatusCode") String fromStatusCode,
+			@Param("toStatusCode") String toStatusCode);
+
 	/**
 	 * 상점ID + 기간 + 환불상태로 검색
 	 * @param storeIds
@@ -1,5 +1,6 @@
 package kr.co.sunpay.api.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.repository.CrudRepository;
@@ -13,4 +14,5 @@ public interface StoreIdRepository extends CrudRepository<StoreId, Integer> {
 	public Optional<StoreId> findByIdAndActivated(String id, Boolean activated);
 	public Optional<StoreId> findByStoreAndActivated(Store store, Boolean activated);
 	public Optional<StoreId> findByIdAndStore(String id, Store store);
+	public List<StoreId> findByStore(Store store);
 }
@@ -23,4 +23,25 @@ public interface StoreRepository extends JpaRepository<Store, Integer> {
 	List<Object[]> findByBizNo(@Param("bizNo") String bizNo);
 	
 	Optional<Store> findByStoreIds(StoreId storeId);
+
+	@Query("SELECT s.uid FROM Store s WHERE s.depositNo = :depositNo")
+	Optional<Integer> findUidByDepositNo(@Param("depositNo") String depositNo);
+
+	@Query(value = "SELECT DEPOSIT FROM SP_STORES WHERE UID=:uid", nativeQuery = true)
+	Integer findDepositByUid(@Param("uid") int uid);
+
+	/**
+	 * 예치금 스냅샷이 없는 상점 UID(시작시 첫 스냅샷 생성용)
+	 * @return
+	 */
+	@Query(value = "SELECT s.UID FROM SP_STORES s WHERE NOT EXISTS (SELECT 1 FROM SP_DEPOSIT_SNAPSHOTS d WHERE d.STORE_UID_FK=s.UID)", nativeQuery = true)
+	List<Integer> findUidsWithoutDepositSnapshot();
+
+	/**
+	 * 예치금 변경 잠금(상점 행 잠금, 트랜잭션 종료까지 같은 상점의 예치금 변경은 순서대로 처리)
+	 * @param uid
+	 * @return 상점이 없으면 null
+	 */
+	@Query(value = "SELECT UID FROM SP_STORES WHERE UID=:uid FOR UPDATE", nativeQuery = true)
+	Integer lockForDeposit(@Param("uid") int uid);
 }
@@ -36,6 +36,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 		"/v2/api-docs"
 	};
 	
+	// 관리 기능(로그인 필요, AUTH_PASS 보다 먼저 확인)
+	private static final String[] AUTH_ADMIN = {
+			"/kspay/deposit/**",
+			"/kspay/push/**"
+	};
+	
 	// 로그인 패스하는 URL
 	private static final String[] AUTH_PASS = {
 			"/ksnet/**",
@@ -56,6 +62,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 		
 		// 페이지 접근 권한 제어
 		http.authorizeRequests()
+			.antMatchers(AUTH_ADMIN).hasRole("USER")
 			.antMatchers(AUTH_PASS).permitAll()
 			.antMatchers(AUTH_USER).hasRole("USER");
 		
@@ -0,0 +1,410 @@
+package kr.co.sunpay.api.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import kr.co.sunpay.api.domain.DepositSnapshot;
+import kr.co.sunpay.api.model.DepositService;
+import kr.co.sunpay.api.repository.DepositLogRepository;
+import kr.co.sunpay.api.repository.DepositSnapshotRepository;
+import kr.co.sunpay.api.repository.StoreRepository;
+import lombok.extern.java.Log;
+
+/**
+ * 상점 예치금 잔액(예치금 내역 기준)
+ * - 예치금 내역(SP_DEPOSIT_LOGS)은 추가만 함, 잔액 = 마지막 스냅샷(SP_DEPOSIT_SNAPSHOTS) + 이후 내역 합계
+ * - 잔액은 메모리에 보관(상점 UID → 마지막 내역 UID, 잔액), 조회는 DB 조회 없이 처리
+ * - 예치금 변경(DepositLedger)은 상점 행 잠금 후 보관한 잔액 이후 내역을 다시 합산(다른 서버 변경 포함)
+ * - 스냅샷이 없는 상점은 기존 예치금(SP_STORES.DEPOSIT)과 마지막 내역 UID로 첫 스냅샷 생성(baseline)
+ *   이후 예치금 컬럼은 갱신하지 않음(상점 조회, PUSH 등 잔액 표시는 getBalance 사용)
+ * - snapshot.interval-ms 마다 스냅샷 이후 내역이 snapshot.min-logs 건 이상인 상점의 스냅샷 추가
+ * - verify.interval-ms 마다(또는 /kspay/deposit/verify) 상점별로 병렬로 내역 전체를 다시 합산해서 불일치 확인
+ */
+@Log
+@Service
+public class DepositBalanceService {
+
+	@Autowired
+	StoreRepository storeRepo;
+
+	@Autowired
+	DepositLogRepository depositLogRepo;
+
+	@Autowired
+	DepositSnapshotRepository snapshotRepo;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	// 스냅샷 추가 주기
+	@Value("${kspay.deposit.snapshot.interval-ms:3600000}")
+	long snapshotIntervalMs;
+
+	// 스냅샷 이후 내역이 이 건수 이상이면 스냅샷 추가
+	@Value("${kspay.deposit.snapshot.min-logs:100}")
+	int snapshotMinLogs;
+
+	// 확인 작업 스레드 수
+	@Value("${kspay.deposit.verify.threads:4}")
+	int verifyThreads;
+
+	// 확인 주기, 0 이하면 요청할 때만
+	@Value("${kspay.deposit.verify.interval-ms:86400000}")
+	long verifyIntervalMs;
+
+	private static class Balance {
+
+		final int lastLogUid;
+		final int balance;
+		// 마지막 스냅샷 이후 내역 수
+		final int pending;
+
+		Balance(int lastLogUid, int balance, int pending) {
+			this.lastLogUid = lastLogUid;
+			this.balance = balance;
+			this.pending = pending;
+		}
+	}
+
+	private final ConcurrentHashMap<Integer, Balance> balances = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong snapshots = new AtomicLong();
+	private final AtomicLong drifts = new AtomicLong();
+
+	private ScheduledExecutorService scheduler;
+
+	// 확인 작업 스레드(verify 호출마다 같이 사용)
+	private ExecutorService verifyWorkers;
+
+	@PostConstruct
+	public void start() {
+
+		AtomicInteger seq = new AtomicInteger();
+		verifyWorkers = Executors.newFixedThreadPool(Math.max(1, verifyThreads), r -> {
+			Thread t = new Thread(r, "deposit-verify-" + seq.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "deposit-snapshot");
+			t.setDaemon(true);
+			return t;
+		});
+		if (snapshotIntervalMs > 0) {
+			scheduler.scheduleWithFixedDelay(this::writeSnapshots, snapshotIntervalMs, snapshotIntervalMs,
+					TimeUnit.MILLISECONDS);
+		}
+		if (verifyIntervalMs > 0) {
+			scheduler.scheduleWithFixedDelay(this::verify, verifyIntervalMs, verifyIntervalMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		scheduler.shutdownNow();
+		verifyWorkers.shutdownNow();
+	}
+
+	/**
+	 * 시작시 스냅샷이 없는 상점의 첫 스냅샷 생성
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void baseline() {
+
+		List<Integer> storeUids = storeRepo.findUidsWithoutDepositSnapshot();
+		for (Integer storeUid : storeUids) {
+			try {
+				tx().execute(status -> baselineStore(storeUid));
+			} catch (RuntimeException e) {
+				log.warning("[예치금]스냅샷 생성 실패(storeUid: " + storeUid + "): " + e.getMessage());
+			}
+		}
+
+		log.info("[예치금]시작시 스냅샷 생성 " + storeUids.size() + "건");
+	}
+
+	/**
+	 * 예치금 잔액
+	 *
+	 * @param storeUid
+	 * @return 상점이 없으면 null
+	 */
+	public Integer getBalance(int storeUid) {
+
+		Balance balance = balances.get(storeUid);
+		if (balance != null) {
+			hits.incrementAndGet();
+			return balance.balance;
+		}
+
+		misses.incrementAndGet();
+		balance = tx().execute(status -> fold(storeUid));
+		return (balance == null) ? null : balance.balance;
+	}
+
+	/**
+	 * 예치금 변경 전 잔액(DepositLedger, 상점 행 잠금 후 같은 트랜잭션에서 호출)
+	 * - 보관한 잔액 이후 내역을 합산, 다른 서버에서 변경한 내역도 포함
+	 *
+	 * @param storeUid
+	 * @return 상점이 없으면 null
+	 */
+	Integer currentBalance(int storeUid) {
+
+		Balance balance = fold(storeUid);
+		return (balance == null) ? null : balance.balance;
+	}
+
+	/**
+	 * 예치금 내역 추가 후(커밋 후) 잔액 반영
+	 *
+	 * @param storeUid
+	 * @param logUid 추가한 내역 UID
+	 * @param balance 추가 후 잔액
+	 */
+	void applied(int storeUid, int logUid, int balance) {
+
+		balances.compute(storeUid, (k, cur) -> {
+			if (cur == null) {
+				return null;
+			}
+			return (cur.lastLogUid < logUid) ? new Balance(logUid, balance, cur.pending + 1) : cur;
+		});
+	}
+
+	/**
+	 * 상점별 예치금 내역 전체를 다시 합산해서 확인(상점별 병렬)
+	 * - 내역 잔액(TOTAL), 스냅샷, 보관한 잔액 비교
+	 *
+	 * @return 확인 결과(상점 수, 내역 수, 불일치 상점 UID)
+	 */
+	public Map<String, Object> verify() {
+
+		long started = System.currentTimeMillis();
+		List<Integer> storeUids = snapshotRepo.findStoreUids();
+
+		long logs = 0;
+		List<Integer> drifted = new ArrayList<>();
+		List<Future<int[]>> results = new ArrayList<>();
+		try {
+			for (Integer storeUid : storeUids) {
+				results.add(verifyWorkers.submit(() -> tx(true).execute(status -> verifyStore(storeUid))));
+			}
+
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					int[] result = results.get(i).get();
+					logs += result[0];
+					if (result[1] > 0) {
+						drifted.add(storeUids.get(i));
+					}
+				} catch (ExecutionException e) {
+					log.log(Level.WARNING, "[예치금]확인 오류(storeUid: " + storeUids.get(i) + ")", e.getCause());
+					drifted.add(storeUids.get(i));
+				}
+			}
+		} catch (InterruptedException e) {
+			// 남은 확인 작업 취소
+			results.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+		}
+
+		drifts.addAndGet(drifted.size());
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("stores", storeUids.size());
+		result.put("logs", logs);
+		result.put("drifted", drifted);
+		result.put("elapsedMs", System.currentTimeMillis() - started);
+
+		log.info("[예치금]확인 " + result);
+		return result;
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("depositBalances", balances.size());
+		snapshot.put("depositBalanceHits", hits.get());
+		snapshot.put("depositBalanceMisses", misses.get());
+		snapshot.put("depositSnapshots", snapshots.get());
+		snapshot.put("depositDrifts", drifts.get());
+		return snapshot;
+	}
+
+	/**
+	 * 보관한 잔액(없으면 마지막 스냅샷) + 이후 내역 합계, 결과 보관
+	 * 트랜잭션 안에서 호출
+	 */
+	private Balance fold(int storeUid) {
+
+		Balance base = balances.get(storeUid);
+		if (base == null) {
+			DepositSnapshot snapshot = snapshotRepo.findFirstByStoreUidOrderByLastLogUidDesc(storeUid)
+					.orElse(null);
+			if (snapshot == null) {
+				snapshot = baselineStore(storeUid);
+				if (snapshot == null) {
+					return null;
+				}
+			}
+			base = new Balance(snapshot.getLastLogUid(), snapshot.getBalance(), 0);
+		}
+
+		Object[] tail = depositLogRepo.foldAfter(storeUid, base.lastLogUid).get(0);
+		int count = ((Number) tail[2]).intValue();
+		if (count == 0) {
+			return cache(storeUid, base);
+		}
+
+		return cache(storeUid, new Balance(((Number) tail[1]).intValue(),
+				base.balance + ((Number) tail[0]).intValue(), base.pending + count));
+	}
+
+	// 마지막 내역 UID 가 더 큰 값만 보관
+	private Balance cache(int storeUid, Balance balance) {
+
+		return balances.merge(storeUid, balance, (cur, next) -> (next.lastLogUid > cur.lastLogUid) ? next : cur);
+	}
+
+	/**
+	 * 첫 스냅샷(상점 예치금 컬럼, 마지막 내역 UID), 상점 행 잠금 후 생성
+	 * 트랜잭션 안에서 호출
+	 *
+	 * @return 상점이 없으면 null
+	 */
+	private DepositSnapshot baselineStore(int storeUid) {
+
+		if (storeRepo.lockForDeposit(storeUid) == null) {
+			return null;
+		}
+
+		DepositSnapshot existing = snapshotRepo.findFirstByStoreUidOrderByLastLogUidDesc(storeUid).orElse(null);
+		if (existing != null) {
+			return existing;
+		}
+
+		Integer deposit = storeRepo.findDepositByUid(storeUid);
+		Object[] logs = depositLogRepo.foldAfter(storeUid, 0).get(0);
+		DepositSnapshot snapshot = snapshotRepo.save(new DepositSnapshot(storeUid, ((Number) logs[1]).intValue(),
+				(deposit == null) ? 0 : deposit));
+		snapshots.incrementAndGet();
+		return snapshot;
+	}
+
+	void writeSnapshots() {
+
+		for (Map.Entry<Integer, Balance> entry : balances.entrySet()) {
+			Balance balance = entry.getValue();
+			if (balance.pending < snapshotMinLogs) {
+				continue;
+			}
+
+			try {
+				// 보관한 잔액은 커밋된 내역 기준이므로 그대로 스냅샷
+				snapshotRepo.save(new DepositSnapshot(entry.getKey(), balance.lastLogUid, balance.balance));
+				snapshots.incrementAndGet();
+				balances.computeIfPresent(entry.getKey(),
+						(k, cur) -> (cur.lastLogUid == balance.lastLogUid) ? new Balance(cur.lastLogUid, cur.balance, 0)
+								: new Balance(cur.lastLogUid, cur.balance, cur.pending - balance.pending));
+			} catch (RuntimeException e) {
+				log.warning("[예치금]스냅샷 저장 실패(storeUid: " + entry.getKey() + "): " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 상점 확인, 첫 스냅샷부터 내역을 한 건씩 읽어서 합산
+	 * 읽기 트랜잭션 안에서 호출(스트림 조회 중에는 같은 연결로 다른 조회 불가, 스냅샷 먼저 조회)
+	 * - 예치금 컬럼은 첫 스냅샷 이후 갱신하지 않으므로 비교하지 않음
+	 * - 보관한 잔액은 같은 마지막 내역까지 합산한 경우만 비교(확인 중 추가된 내역은 다음 확인에서)
+	 *
+	 * @return [확인한 내역 수, 불일치 수]
+	 */
+	private int[] verifyStore(int storeUid) {
+
+		List<DepositSnapshot> list = snapshotRepo.findByStoreUidOrderByLastLogUidAsc(storeUid);
+		if (list.isEmpty()) {
+			return new int[] { 0, 0 };
+		}
+
+		Map<Integer, Integer> checkpoints = new HashMap<>();
+		list.forEach(s -> checkpoints.put(s.getLastLogUid(), s.getBalance()));
+		DepositSnapshot first = list.get(0);
+
+		int count = 0;
+		int mismatched = 0;
+		int lastLogUid = first.getLastLogUid();
+		int running = first.getBalance();
+
+		try (Stream<Object[]> rows = depositLogRepo.streamByStoreUid(storeUid, first.getLastLogUid())) {
+			for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+				lastLogUid = ((Number) row[0]).intValue();
+				int amt = ((Number) row[2]).intValue();
+				running += DepositService.TYPE_WITHDRAW.equals(row[1]) ? -amt : amt;
+				count++;
+
+				if (((Number) row[3]).intValue() != running) {
+					mismatched++;
+					log.warning("[예치금]내역 잔액 불일치(storeUid: " + storeUid + ", logUid: " + lastLogUid
+							+ ", total: " + row[3] + ", fold: " + running + ")");
+				}
+
+				Integer checkpoint = checkpoints.get(lastLogUid);
+				if (checkpoint != null && checkpoint != running) {
+					mismatched++;
+					log.warning("[예치금]스냅샷 불일치(storeUid: " + storeUid + ", logUid: " + lastLogUid
+							+ ", snapshot: " + checkpoint + ", fold: " + running + ")");
+				}
+			}
+		}
+
+		Balance cached = balances.get(storeUid);
+		if (cached != null && cached.lastLogUid == lastLogUid && cached.balance != running) {
+			mismatched++;
+			log.warning("[예치금]보관 잔액 불일치(storeUid: " + storeUid + ", cached: " + cached.balance + ", fold: " + running + ")");
+			balances.remove(storeUid, cached);
+		}
+
+		return new int[] { count, mismatched };
+	}
+
+	private TransactionTemplate tx() {
+		return tx(false);
+	}
+
+	private TransactionTemplate tx(boolean readOnly) {
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setReadOnly(readOnly);
+		return tx;
+	}
+}
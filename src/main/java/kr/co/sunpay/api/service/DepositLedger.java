@@ -0,0 +1,130 @@
+package kr.co.sunpay.api.service;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import kr.co.sunpay.api.domain.DepositLog;
+import kr.co.sunpay.api.exception.DepositException;
+import kr.co.sunpay.api.model.DepositService;
+import kr.co.sunpay.api.repository.DepositLogRepository;
+import kr.co.sunpay.api.repository.StoreRepository;
+
+/**
+ * 상점 예치금 증감(예치금 내역 추가)
+ * - 잔액을 직접 바꾸지 않고 예치금 내역(DepositLog)을 추가, 잔액은 DepositBalanceService(스냅샷 + 이후 내역)
+ * - 상점 행 잠금(SELECT ... FOR UPDATE)으로 같은 상점의 증감은 순서대로 처리, 다른 상점과는 경합 없음
+ * - 잠금, 잔액 확인, 내역 추가를 한 트랜잭션에서 처리, 내역 잔액(TOTAL)은 추가 후 잔액
+ * - 상점 예치금 컬럼(SP_STORES.DEPOSIT)은 갱신하지 않음(첫 스냅샷 기준값), 잔액은 DepositBalanceService 로 조회
+ * - 커밋 후 보관한 잔액 반영, 예치금 예약(DepositReservationLedger)의 예치금을 다시 읽도록 정리
+ */
+@Service
+public class DepositLedger {
+
+	@Autowired
+	StoreRepository storeRepo;
+
+	@Autowired
+	DepositLogRepository depositLogRepo;
+
+	@Autowired
+	DepositBalanceService balances;
+
+	@Autowired
+	DepositReservationLedger reservations;
+
+	/**
+	 * 예치금 증액(입금 내역 추가)
+	 *
+	 * @param storeUid
+	 * @param originalDepositNo 입금요청 시 전송된 입금번호
+	 * @param depositNo
+	 * @param trNo
+	 * @param statusCode
+	 * @param amt
+	 * @return 증액 후 잔액
+	 */
+	@Transactional
+	public int credit(int storeUid, String originalDepositNo, String depositNo, String trNo, String statusCode,
+			int amt) {
+
+		int balance = lock(storeUid);
+
+		return append(storeUid, originalDepositNo, depositNo, DepositService.TYPE_DEPOSIT, trNo, statusCode, amt,
+				balance + amt);
+	}
+
+	/**
+	 * 예치금 차감(잔액이 amt 이상일 때만 출금 내역 추가)
+	 *
+	 * @param storeUid
+	 * @param depositNo
+	 * @param trNo
+	 * @param statusCode
+	 * @param amt
+	 * @return 차감 후 잔액
+	 * @throws DepositException 잔액 부족(CODE_DEPOSIT_LACK)
+	 */
+	@Transactional(rollbackFor = DepositException.class)
+	public int debit(int storeUid, String depositNo, String trNo, String statusCode, int amt)
+			throws DepositException {
+
+		int balance = lock(storeUid);
+		if (balance < amt) {
+			throw new DepositException("취소예치금 부족", DepositException.CODE_DEPOSIT_LACK);
+		}
+
+		return append(storeUid, null, depositNo, DepositService.TYPE_WITHDRAW, trNo, statusCode, amt, balance - amt);
+	}
+
+	/**
+	 * 상점 행 잠금 후 잔액(트랜잭션 종료까지 다른 증감 대기)
+	 */
+	private int lock(int storeUid) {
+
+		if (storeRepo.lockForDeposit(storeUid) == null) {
+			throw new EntityNotFoundException("상점을 찾을 수 없습니다.");
+		}
+
+		Integer balance = balances.currentBalance(storeUid);
+		if (balance == null) {
+			throw new EntityNotFoundException("상점을 찾을 수 없습니다.");
+		}
+		return balance;
+	}
+
+	private int append(int storeUid, String originalDepositNo, String depositNo, String typeCode, String trNo,
+			String statusCode, int amt, int total) {
+
+		DepositLog log = depositLogRepo.save(new DepositLog(storeRepo.getOne(storeUid), originalDepositNo, depositNo,
+				typeCode, trNo, statusCode, amt, total));
+
+		afterCommit(storeUid, log.getUid(), total);
+		return total;
+	}
+
+	private void afterCommit(int storeUid, int logUid, int total) {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			applied(storeUid, logUid, total);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				applied(storeUid, logUid, total);
+			}
+		});
+	}
+
+	private void applied(int storeUid, int logUid, int total) {
+
+		balances.applied(storeUid, logUid, total);
+		reservations.invalidate(storeUid);
+	}
+}
@@ -0,0 +1,340 @@
+package kr.co.sunpay.api.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * 순간정산 결제 예치금 예약(결제요청 UID 기준)
+ * - 결제 시작(init)에서 결제금액만큼 예약(hold), 사용가능 금액 = 예치금 - 예약금액
+ * - 결제 마무리에서 승인이면 commit, 실패면 release, 마무리되지 않은 예약은 holdTtlMillis 후 자동 해제
+ * - commit 과 release 는 둘 다 예약만 종료(건수만 따로 집계)
+ * - 예치금 초과 방지 범위는 결제 진행 중(hold ~ commit/release)인 금액뿐
+ *   승인된 결제금액은 예약에서 빠지고 예치금도 차감하지 않음, 승인 건이 쌓여도 사용가능 금액은 줄지 않음
+ *   예치금은 환불(취소)할 때 DepositLedger.debit 에서 잔액 확인 후 차감(부족하면 환불 실패)
+ * - 동시 결제가 각각 예치금 확인을 통과해 예치금보다 많이 결제되지 않도록 상점별로 확인과 예약을 한번에 처리
+ * - 상점별 잠금은 stripes 개로 나눠 사용(상점 UID 로 선택), 다른 상점끼리는 거의 경합하지 않음
+ * - 예치금은 처음 예약할 때 balanceLoader 로 읽어 보관, 예치금 변경 후 invalidate 하면 다음 예약때 다시 읽음
+ *   읽기(DB 조회)는 잠금 밖에서 하고, 읽는 중 invalidate 되지 않았을 때만 반영(version 비교)
+ */
+public class DepositReservationLedger {
+
+	private static class Account {
+
+		long balance;
+		long held;
+		boolean loaded;
+
+		// invalidate 할 때마다 증가
+		long version;
+	}
+
+	private static class Hold {
+
+		final int storeUid;
+		final int amount;
+		final long expiresAt;
+
+		Hold(int storeUid, int amount, long expiresAt) {
+			this.storeUid = storeUid;
+			this.amount = amount;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final Object[] stripes;
+	private final long holdTtlMillis;
+	private final IntFunction<Integer> balanceLoader;
+	private final LongSupplier clock;
+
+	private final ConcurrentHashMap<Integer, Account> accounts = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, Hold> holds = new ConcurrentHashMap<>();
+
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong committed = new AtomicLong();
+	private final AtomicLong released = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+
+	private final ScheduledExecutorService sweeper;
+
+	/**
+	 * @param stripes 상점별 잠금 수
+	 * @param holdTtlMillis 예약 유지 시간
+	 * @param sweepMillis 만료 예약 정리 주기, 0 이하면 정리하지 않음(expire 직접 호출)
+	 * @param balanceLoader 상점 UID → 예치금, 상점이 없으면 null
+	 */
+	public DepositReservationLedger(int stripes, long holdTtlMillis, long sweepMillis,
+			IntFunction<Integer> balanceLoader) {
+		this(stripes, holdTtlMillis, sweepMillis, balanceLoader, System::currentTimeMillis);
+	}
+
+	DepositReservationLedger(int stripes, long holdTtlMillis, long sweepMillis, IntFunction<Integer> balanceLoader,
+			LongSupplier clock) {
+
+		this.stripes = new Object[Math.max(1, stripes)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new Object();
+		}
+		this.holdTtlMillis = holdTtlMillis;
+		this.balanceLoader = balanceLoader;
+		this.clock = clock;
+
+		if (sweepMillis > 0) {
+			this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "deposit-hold-sweeper");
+				t.setDaemon(true);
+				return t;
+			});
+			this.sweeper.scheduleWithFixedDelay(this::expire, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.sweeper = null;
+		}
+	}
+
+	/**
+	 * 결제금액만큼 예치금 예약
+	 * - 같은 결제요청을 다시 예약하면 기존 예약 유지(true)
+	 *
+	 * @param storeUid
+	 * @param payUid KsnetPay UID
+	 * @param amount
+	 * @return 사용가능 금액이 부족하거나 상점이 없으면 false
+	 */
+	public boolean hold(int storeUid, int payUid, int amount) {
+
+		while (true) {
+			Account account = load(storeUid);
+
+			synchronized (stripe(storeUid)) {
+				if (holds.containsKey(payUid)) {
+					return true;
+				}
+
+				if (account == null) {
+					rejected.incrementAndGet();
+					return false;
+				}
+
+				// 읽은 뒤 invalidate 됨, 다시 읽음
+				if (!account.loaded) {
+					continue;
+				}
+
+				if (account.balance - account.held < amount) {
+					rejected.incrementAndGet();
+					return false;
+				}
+
+				account.held += amount;
+				holds.put(payUid, new Hold(storeUid, amount, clock.getAsLong() + holdTtlMillis));
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 결제 승인, 예약 종료
+	 * - release 와 같이 예약금액을 사용가능 금액으로 돌려줌(승인 후 환불에 대비해 남겨두지 않음)
+	 * - 승인은 예치금을 차감하지 않음, 환불 시 DepositLedger 에서 차감
+	 *
+	 * @param payUid
+	 * @return 예약이 있었으면 true
+	 */
+	public boolean commit(int payUid) {
+
+		if (!remove(payUid)) {
+			return false;
+		}
+		committed.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * 결제 실패, 예약 해제
+	 *
+	 * @param payUid
+	 * @return 예약이 있었으면 true
+	 */
+	public boolean release(int payUid) {
+
+		if (!remove(payUid)) {
+			return false;
+		}
+		released.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * 만료된 예약 해제
+	 *
+	 * @return 해제한 예약 수
+	 */
+	public int expire() {
+
+		long now = clock.getAsLong();
+		int count = 0;
+		for (Map.Entry<Integer, Hold> entry : holds.entrySet()) {
+			if (entry.getValue().expiresAt <= now && remove(entry.getKey())) {
+				count++;
+			}
+		}
+		expired.addAndGet(count);
+		return count;
+	}
+
+	/**
+	 * 보관한 예치금 폐기(예치금 변경 후), 예약은 유지
+	 *
+	 * @param storeUid
+	 */
+	public void invalidate(int storeUid) {
+
+		synchronized (stripe(storeUid)) {
+			Account account = accounts.get(storeUid);
+			if (account != null) {
+				account.loaded = false;
+				account.version++;
+			}
+		}
+	}
+
+	/**
+	 * 예치금 등록(시작시 일괄 조회 결과)
+	 *
+	 * @param storeUid
+	 * @param balance
+	 */
+	public void setBalance(int storeUid, int balance) {
+
+		synchronized (stripe(storeUid)) {
+			Account account = accounts.computeIfAbsent(storeUid, k -> new Account());
+			account.balance = balance;
+			account.loaded = true;
+		}
+	}
+
+	/**
+	 * 사용가능 금액(예치금 - 예약금액)
+	 *
+	 * @param storeUid
+	 * @return 상점이 없으면 0
+	 */
+	public long getAvailable(int storeUid) {
+
+		Account account = load(storeUid);
+		if (account == null) {
+			return 0;
+		}
+
+		synchronized (stripe(storeUid)) {
+			return account.balance - account.held;
+		}
+	}
+
+	/**
+	 * 보관한 예치금(예약금액 제외 전)
+	 *
+	 * @param storeUid
+	 * @return 상점이 없으면 0
+	 */
+	public long getBalance(int storeUid) {
+
+		Account account = load(storeUid);
+		if (account == null) {
+			return 0;
+		}
+
+		synchronized (stripe(storeUid)) {
+			return account.balance;
+		}
+	}
+
+	public long getHeld(int storeUid) {
+
+		synchronized (stripe(storeUid)) {
+			Account account = accounts.get(storeUid);
+			return (account == null) ? 0 : account.held;
+		}
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("depositHolds", holds.size());
+		snapshot.put("depositHoldRejected", rejected.get());
+		snapshot.put("depositHoldCommitted", committed.get());
+		snapshot.put("depositHoldReleased", released.get());
+		snapshot.put("depositHoldExpired", expired.get());
+		return snapshot;
+	}
+
+	public void close() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+		}
+	}
+
+	private boolean remove(int payUid) {
+
+		Hold hold = holds.remove(payUid);
+		if (hold == null) {
+			return false;
+		}
+
+		synchronized (stripe(hold.storeUid)) {
+			Account account = accounts.get(hold.storeUid);
+			if (account != null) {
+				account.held -= hold.amount;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 예치금을 읽은 Account(stripe 잠금 밖에서 호출)
+	 * - balanceLoader 는 잠금 없이 호출, 같은 stripe 의 다른 상점이 DB 조회를 기다리지 않음
+	 * - 읽는 중 invalidate 되면 반영하지 않고 다시 읽음
+	 *
+	 * @return 상점이 없으면 null
+	 */
+	private Account load(int storeUid) {
+
+		Object stripe = stripe(storeUid);
+		while (true) {
+			Account account;
+			long version;
+			synchronized (stripe) {
+				account = accounts.computeIfAbsent(storeUid, k -> new Account());
+				if (account.loaded) {
+					return account;
+				}
+				version = account.version;
+			}
+
+			Integer balance = balanceLoader.apply(storeUid);
+			if (balance == null) {
+				return null;
+			}
+
+			synchronized (stripe) {
+				if (account.version == version) {
+					if (!account.loaded) {
+						account.balance = balance;
+						account.loaded = true;
+					}
+					return account;
+				}
+			}
+		}
+	}
+
+	private Object stripe(int storeUid) {
+		return stripes[(storeUid & 0x7fffffff) % stripes.length];
+	}
+}
@@ -0,0 +1,218 @@
+package kr.co.sunpay.api.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import kr.co.sunpay.api.domain.KsnetPay;
+import kr.co.sunpay.api.repository.KsnetPayRepository;
+
+/**
+ * 결제 세션 캐시(init → payment → finish, 결제요청 UID 기준)
+ * - 결제요청(KsnetPay)을 메모리에 보관, payment/finish 는 DB 조회 없이 사용(상점ID 정보는 StoreRoutingTable)
+ * - 변경(결제 상점ID)은 finish 가 다른 서버에서 처리될 수 있으므로 바로 저장(write-through), 저장 후 세션 교체
+ * - 세션은 저장된 결제요청의 복사본을 보관, get 은 복사본을 돌려줌(요청 스레드 간 같은 객체를 공유하지 않음)
+ * - 세션에 저장 안 된 변경이 없으므로 정리(ttl-ms, max-entries)는 메모리에서만 삭제, DB 저장 없음
+ * - 캐시에 없으면(재시작, 다른 서버) DB 에서 조회
+ */
+@Service
+public class KsnetPaySessionCache {
+
+	@Autowired
+	KsnetPayRepository ksnetPayRepo;
+
+	// 세션 보관 시간
+	@Value("${kspay.session.ttl-ms:1800000}")
+	long ttlMs;
+
+	// 메모리에 보관하는 세션 수
+	@Value("${kspay.session.max-entries:10000}")
+	int maxEntries;
+
+	// 만료 세션 정리 주기
+	@Value("${kspay.session.cleanup-ms:60000}")
+	long cleanupMs;
+
+	private static class Session {
+
+		// 저장된 결제요청(변경하지 않음, 변경은 새 세션으로 교체)
+		final KsnetPay pay;
+		final long expiresAt;
+
+		Session(KsnetPay pay, long expiresAt) {
+			this.pay = pay;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final ConcurrentHashMap<Integer, Session> sessions = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+
+	private ScheduledExecutorService cleaner;
+
+	@PostConstruct
+	public void start() {
+
+		if (cleanupMs <= 0) {
+			return;
+		}
+
+		cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "kspay-session-cleaner");
+			t.setDaemon(true);
+			return t;
+		});
+		cleaner.scheduleWithFixedDelay(this::evict, cleanupMs, cleanupMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void close() {
+		if (cleaner != null) {
+			cleaner.shutdownNow();
+		}
+	}
+
+	/**
+	 * 결제요청 저장(insert) 후 세션 생성
+	 *
+	 * @param ksnetPay
+	 * @return 저장된 결제요청(UID 포함)
+	 */
+	public KsnetPay create(KsnetPay ksnetPay) {
+
+		KsnetPay newPay = ksnetPayRepo.save(ksnetPay);
+		writes.incrementAndGet();
+		put(newPay.getUid(), new Session(copy(newPay), System.currentTimeMillis() + ttlMs));
+		return newPay;
+	}
+
+	/**
+	 * 결제요청 변경 내용 바로 저장 후 세션 교체
+	 *
+	 * @param ksnetPay create/get 으로 받은 결제요청
+	 */
+	public void update(KsnetPay ksnetPay) {
+
+		// 저장 중 다른 스레드가 넘겨준 객체를 바꿔도 세션에는 저장한 내용만 보관
+		KsnetPay saved = ksnetPayRepo.save(copy(ksnetPay));
+		writes.incrementAndGet();
+		sessions.computeIfPresent(saved.getUid(), (uid, session) -> new Session(copy(saved), session.expiresAt));
+	}
+
+	/**
+	 * 결제요청 조회
+	 *
+	 * @param uid
+	 * @return 세션의 복사본, 없으면 null
+	 */
+	public KsnetPay get(int uid) {
+
+		Session session = session(uid);
+		return (session == null) ? null : copy(session.pay);
+	}
+
+	/**
+	 * 결제 마무리 후 세션 삭제
+	 *
+	 * @param uid
+	 */
+	public void remove(int uid) {
+		sessions.remove(uid);
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("paySessions", sessions.size());
+		snapshot.put("paySessionHits", hits.get());
+		snapshot.put("paySessionMisses", misses.get());
+		snapshot.put("paySessionWrites", writes.get());
+		return snapshot;
+	}
+
+	private Session session(int uid) {
+
+		long now = System.currentTimeMillis();
+		Session session = sessions.get(uid);
+		if (session != null && session.expiresAt > now) {
+			hits.incrementAndGet();
+			return session;
+		}
+
+		misses.incrementAndGet();
+		if (session != null) {
+			sessions.remove(uid, session);
+		}
+
+		KsnetPay ksnetPay = ksnetPayRepo.findByUid(uid);
+		if (ksnetPay == null) {
+			return null;
+		}
+
+		Session loaded = new Session(ksnetPay, now + ttlMs);
+		Session existing = sessions.putIfAbsent(uid, loaded);
+		if (existing != null) {
+			return existing;
+		}
+		if (sessions.size() > maxEntries) {
+			evict();
+		}
+		return loaded;
+	}
+
+	private void put(int uid, Session session) {
+
+		sessions.put(uid, session);
+		if (sessions.size() > maxEntries) {
+			evict();
+		}
+	}
+
+	private static KsnetPay copy(KsnetPay ksnetPay) {
+
+		KsnetPay copy = new KsnetPay();
+		BeanUtils.copyProperties(ksnetPay, copy);
+		return copy;
+	}
+
+	private void evict() {
+
+		// 만료된 세션 먼저, 부족하면 만료가 가까운 세션부터
+		long now = System.currentTimeMillis();
+		sessions.forEach((uid, session) -> {
+			if (session.expiresAt <= now) {
+				sessions.remove(uid, session);
+			}
+		});
+
+		int excess = sessions.size() - maxEntries;
+		if (excess <= 0) {
+			return;
+		}
+
+		// 매번 정리하지 않도록 10% 여유를 두고 정리
+		List<Map.Entry<Integer, Session>> entries = new ArrayList<>(sessions.entrySet());
+		entries.sort((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt));
+		int count = Math.min(entries.size(), excess + maxEntries / 10);
+		for (int i = 0; i < count; i++) {
+			sessions.remove(entries.get(i).getKey(), entries.get(i).getValue());
+		}
+	}
+}
@@ -1,23 +1,37 @@
 package kr.co.sunpay.api.service;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import kr.co.sunpay.api.domain.KsnetRefundLog;
 import kr.co.sunpay.api.exception.DepositException;
+import kr.co.sunpay.api.exception.KspayGatewayException;
 import kr.co.sunpay.api.domain.KsnetPayResult;
 import kr.co.sunpay.api.model.DepositService;
 import kr.co.sunpay.api.model.KsnetRefundBody;
 import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
 import kr.co.sunpay.api.repository.KsnetPayResultRepository;
 import kr.co.sunpay.api.repository.KsnetRefundLogRepository;
 import kr.co.sunpay.api.util.Sunpay;
 import ksnet.kspay.KSPayApprovalCancelBean;
+import ksnet.kspay.KSPayAsyncClient;
+import ksnet.kspay.KSPayCancelTemplate;
+import ksnet.kspay.KSPayDeadline;
+import ksnet.kspay.KSPayResult;
+import ksnet.kspay.KSPaySocketPool;
 import lombok.extern.java.Log;
 
 @Log
@@ -38,8 +52,47 @@ public class KsnetService {
 	
 	@Autowired
 	KsnetPayResultRepository ksnetPayResultRepo;
+	
+	@Autowired
+	KSPaySocketPool socketPool;
+	
+	@Autowired
+	KSPayAsyncClient asyncClient;
+	
+	@Autowired
+	KspayGatewayGuard gatewayGuard;
+	
+	@Autowired
+	KspayRetryPolicy retryPolicy;
+	
+	// nio: sendKSPay 가 비동기 클라이언트로 요청 후 결과를 기다림
+	@Value("${kspay.ipg.transport:blocking}")
+	String transport;
+	
+	// IPG 통신 제한시간(ms): 연결, 수신 대기, 승인구분별 요청 전체(재전송 포함)
+	@Value("${kspay.ipg.timeout.connect-ms:3000}")
+	int connectTimeoutMs;
+	
+	@Value("${kspay.ipg.timeout.read-ms:30000}")
+	int readTimeoutMs;
+	
+	@Value("${kspay.ipg.deadline.credit-ms:35000}")
+	long creditDeadlineMs;
+	
+	@Value("${kspay.ipg.deadline.bank-ms:35000}")
+	long bankDeadlineMs;
+	
+	@Value("${kspay.ipg.deadline.mobile-ms:65000}")
+	long mobileDeadlineMs;
+	
+	// IPG 서버 주소(부하/장애 테스트시 KSPaySimulator 로 변경)
+	@Value("${kspay.ipg.host:" + IPG_IP_ADDR + "}")
+	String ipgHost;
+	
+	@Value("${kspay.ipg.port:" + IPG_PORT + "}")
+	int ipgPort;
 
-	// 소켓통신(KSPAY 소켓 설치된 서버의 IP, PORT) 
+	// 소켓통신(KSPAY 소켓 설치된 서버의 IP, PORT), kspay.ipg.host, kspay.ipg.port 기본값
 	public static final String IPG_IP_ADDR = "13.209.200.120";
 	public static final int IPG_PORT = 29991;
 
@@ -49,6 +102,11 @@ public class KsnetService {
 	public static final String KSPAY_AUTHTY_MOBILE = "M110";
 	
 	public static final String KSPAY_CANCEL_RSTATUS_TRUE = "O";
+	
+	// 취소요청 전문 템플릿(EncType, 전문버전)
+	private static final KSPayCancelTemplate CREDIT_CANCEL_TEMPLATE = KSPayCancelTemplate.of("0", "0210");
+	private static final KSPayCancelTemplate BANK_CANCEL_TEMPLATE = KSPayCancelTemplate.of("2", "0603");
+	private static final KSPayCancelTemplate MOBILE_CANCEL_TEMPLATE = KSPayCancelTemplate.of("2", "0210");
 
 	/**
 	 * 결제 취소 요청건 저장
@@ -91,6 +149,24 @@ public class KsnetService {
 		refundLogRepo.save(log);
 	}
 
+	/**
+	 * 취소 처리 중 예외 발생시 결과
+	 * - 취소거절 결과 생성, 환불요청정보 오류로 저장
+	 * 
+	 * @param refund
+	 * @return
+	 */
+	public KspayRefundReturns refundError(KsnetRefundBody refund) {
+
+		KspayRefundReturns result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", "취소할 수 없는 주문건입니다.");
+
+		// 환불요청정보 저장, 결과 업데이트
+		KsnetRefundLog log = saveRefundLog(refund);
+		log.setStatusCode(KsnetRefundLog.STATUS_ERROR);
+		updateRefundLog(log, result);
+		return result;
+	}
+
 	/**
 	 * 기취소건인지 확인
 	 * @param cancel
@@ -123,19 +199,136 @@ public class KsnetService {
 		return oPayResult.orElse(null);
 	}
 
+	/**
+	 * 결과 확인이 필요한 취소건(요청 전송 후 응답 없음)
+	 * 
+	 * @return
+	 */
+	public List<KsnetRefundLog> getUnknownRefundLogs() {
+		return refundLogRepo.findByStatusCodeOrderByCreatedDateAsc(KsnetRefundLog.STATUS_UNKNOWN);
+	}
+
+	/**
+	 * 결과 확인중인 취소건이 있는지 확인
+	 * @param cancel
+	 * @return
+	 */
+	public boolean hasUnknownRefundLog(KsnetRefundBody cancel) {
+		return !refundLogRepo.findByTrNoAndStatusCode(cancel.getTrno(), KsnetRefundLog.STATUS_UNKNOWN).isEmpty();
+	}
+
+	/**
+	 * 취소 요청시 예치금을 차감하는 결제건인지(순간정산 + 카드결제)
+	 * - 차감한 건만 취소 결과에 따라 예치금 차감 완료/원복
+	 * 
+	 * @param serviceTypeCode 결제건의 정산타입
+	 * @param authty 승인구분
+	 * @return
+	 */
+	public static boolean isDepositDebited(String serviceTypeCode, String authty) {
+		return "INSTANT".equals(serviceTypeCode) && KSPAY_AUTHTY_CREDIT.equals(authty);
+	}
+
+	/**
+	 * 결과 확인중인 취소건 처리(KSPay 재요청 결과 반영, KspayRefundReconciler)
+	 * - 취소됨: 예치금 차감 완료, 환불 완료 처리
+	 * - 취소안됨: 차감한 예치금 원복, 환불 오류 처리
+	 * - 상태를 먼저 변경(UNKNOWN 일 때만), 다른 서버에서 이미 처리한 건은 무시
+	 * 
+	 * @param refundLog
+	 * @param cancelled KSPay 에서 취소 처리되었는지 여부
+	 * @return 처리했으면 true
+	 */
+	public boolean resolveUnknownRefund(KsnetRefundLog refundLog, boolean cancelled) {
+
+		String statusCode = cancelled ? KsnetRefundLog.STATUS_COMPLETED : KsnetRefundLog.STATUS_ERROR;
+		if (refundLogRepo.updateStatusCode(refundLog.getUid(), KsnetRefundLog.STATUS_UNKNOWN, statusCode) == 0) {
+			return false;
+		}
+
+		KsnetRefundBody refund = new KsnetRefundBody();
+		refund.setStoreid(refundLog.getStoreId());
+		refund.setStorepasswd(refundLog.getStorePasswd());
+		refund.setTrno(refundLog.getTrNo());
+		refund.setAuthty(refundLog.getAuthty());
+
+		boolean depositDebited = isDepositDebited(refundLog.getServiceTypeCode(), refundLog.getAuthty());
+
+		try {
+			if (cancelled) {
+				if (depositDebited) {
+					depositService.completeRefund(refund);
+				}
+			} else if (depositDebited) {
+				depositService.resetDeposit(refund);
+			}
+		} catch (Exception e) {
+			log.log(Level.WARNING, "DepositError: trNo - " + refund.getTrno());
+		}
+
+		if (cancelled) {
+			updateRefundLogStatus(refundLog.getTrNo(), KsnetRefundLog.STATUS_FINISH);
+		}
+		refundLog.setStatusCode(statusCode);
+		refundLogRepo.save(refundLog);
+		return true;
+	}
+
+	/**
+	 * 승인구분별 통신 제한시간
+	 * - 휴대폰 취소는 취소거절시 한번 더 전송하므로 제한시간이 더 김
+	 * 
+	 * @param authty
+	 * @return
+	 */
+	public KSPayDeadline createDeadline(String authty) {
+
+		long budget;
+		switch (authty == null ? "" : authty) {
+		case KSPAY_AUTHTY_BANK_CANCEL:
+		case KSPAY_AUTHTY_BANK_REFUND:
+			budget = bankDeadlineMs;
+			break;
+		case KSPAY_AUTHTY_MOBILE:
+			budget = mobileDeadlineMs;
+			break;
+		default:
+			budget = creditDeadlineMs;
+			break;
+		}
+
+		return KSPayDeadline.of(connectTimeoutMs, readTimeoutMs, budget);
+	}
+
 	public KspayRefundReturns sendKSPay(KsnetRefundBody cancel) {
+		return sendKSPay(cancel, createDeadline(cancel.getAuthty()));
+	}
+
+	/**
+	 * 결제 취소 요청
+	 * - deadline 이 지나면 통신을 중단하고, 요청 전송 후였다면 결과 UNKNOWN
+	 * 
+	 * @param cancel
+	 * @param deadline
+	 * @return
+	 */
+	public KspayRefundReturns sendKSPay(KsnetRefundBody cancel, KSPayDeadline deadline) {
+		
+		if ("nio".equals(transport)) {
+			return sendKSPayAsync(cancel, deadline).join();
+		}
 
-		KspayRefundReturns returns = new KspayRefundReturns("", "X", "", "", "취소거절", "지원X");
+		KspayRefundReturns returns = unsupportedReturns("지원X");
 
 		switch (cancel.getAuthty()) {
 		// 신용카드 결제 취소
 		case KSPAY_AUTHTY_CREDIT:
-			returns = kspayCancelPostCredit(cancel);
+			returns = kspayCancelPostCredit(cancel, deadline);
 			break;
 
 		// 계좌이체 결제 취소(결제 당일)
 		case KSPAY_AUTHTY_BANK_CANCEL:
-			returns = kspayCancelPostBank(cancel);
+			returns = kspayCancelPostBank(cancel, deadline);
 			break;
 
 		// 계좌이체 결제 환불
@@ -144,364 +337,596 @@ public class KsnetService {
 
 		// 모바일 결제 취소
 		case KSPAY_AUTHTY_MOBILE:
-			returns = kspayCancelPostMobile(cancel);
+			returns = kspayCancelPostMobile(cancel, deadline);
 			break;
 
 		default:
-			returns.setRTransactionNo("");
-			returns.setRStatus("X");
-			returns.setRTradeDate("");
-			returns.setRTradeTime("");
-			returns.setRMessage1("취소거절");
-			returns.setRMessage2("승인구분 없음");
+			returns = unsupportedReturns("승인구분 없음");
 			break;
 		}
 
 		return returns;
 	}
 
-	public KspayRefundReturns kspayCancelPostBank(KsnetRefundBody cancel) {
-		// Header부 Data --------------------------------------------------
-		String EncType = "2"; // 0: 암화안함, 1:ssl, 2: seed
-		String Version = "0603"; // 전문버전
-		String Type = "00"; // 구분
-		String Resend = "0"; // 전송구분 : 0 : 처음, 2: 재전송
-		String RequestDate = new SimpleDateFormat("yyyyMMddHHmmss").format(new java.util.Date()); // 요청일자 :
-		String KeyInType = "K"; // KeyInType 여부 : S : Swap, K: KeyInType
-		String LineType = "1"; // lineType 0 : offline, 1:internet, 2:Mobile
-		String ApprovalCount = "1"; // 복합승인갯수
-		String GoodType = "0"; // 제품구분 0 : 실물, 1 : 디지털
-		String HeadFiller = ""; // 예비
-
-		// Header (입력값 (*) 필수항목)--------------------------------------------------
-		String StoreId = cancel.getStoreid(); // *상점아이디
-		String OrderNumber = ""; // 주문번호
-		String UserName = ""; // 주문자명
-		String IdNum = ""; // 주민번호 or 사업자번호
-		String Email = ""; // email
-		String GoodName = ""; // 제품명
-		String PhoneNo = ""; // 휴대폰번호
-		// Header end
-		// -------------------------------------------------------------------
-
-		// Data
-		// Default------------------------------------------------------------------
-		String ApprovalType = cancel.getAuthty();	// 승인구분 코드
-		String TrNo = cancel.getTrno();	// 거래번호
-
-		// Server로 부터 응답이 없을시 자체응답
-		String rApprovalType = "2011"; // 승인구분
-		String rACTransactionNo = TrNo; // 거래번호
-		String rACStatus = "X"; // 오류구분 :승인 X:거절
-		String rACTradeDate = RequestDate.substring(0, 8); // 거래 개시 일자(YYYYMMDD)
-		String rACTradeTime = RequestDate.substring(8, 14); // 거래 개시 시간(HHMMSS)
-		String rACAcctSele = ""; // 계좌이체 구분 - 1:Dacom, 2:Pop Banking, 3:실시간계좌이체 4: 승인형계좌이체
-		String rACFeeSele = ""; // 선/후불제구분 - 1:선불, 2:후불
-		String rACInjaName = ""; // 인자명(통장인쇄메세지-상점명)
-		String rACPareBankCode = ""; // 입금모계좌코드
-		String rACPareAcctNo = ""; // 입금모계좌번호
-		String rACCustBankCode = ""; // 출금모계좌코드
-		String rACCustAcctNo = ""; // 출금모계좌번호
-		String rACAmount = ""; // 금액 (결제대상금액)
-		String rACBankTransactionNo = ""; // 은행거래번호
-		String rACIpgumNm = ""; // 입금자명
-		String rACBankFee = "0"; // 계좌이체 수수료
-		String rACBankAmount = ""; // 총결제금액(결제대상금액+ 수수료
-		String rACBankRespCode = "9999"; // 오류코드
-		String rACMessage1 = "취소거절"; // 오류 message 1
-		String rACMessage2 = "C잠시후재시도"; // 오류 message 2
-		String rACFiller = ""; // 예비
-		
-		KspayRefundReturns returns = new KspayRefundReturns(rACTransactionNo, rACStatus, rACTradeDate, rACTradeTime,
-				rACMessage1, rACMessage2);
+	/**
+	 * 결제 취소 비동기 요청(NIO)
+	 * - 응답을 기다리는 동안 요청 스레드를 점유하지 않음
+	 * - 결과는 sendKSPay 와 동일
+	 * 
+	 * @param cancel
+	 * @return
+	 */
+	public CompletableFuture<KspayRefundReturns> sendKSPayAsync(KsnetRefundBody cancel) {
+		return sendKSPayAsync(cancel, createDeadline(cancel.getAuthty()));
+	}
+
+	public CompletableFuture<KspayRefundReturns> sendKSPayAsync(KsnetRefundBody cancel, KSPayDeadline deadline) {
+
+		switch (cancel.getAuthty()) {
+		// 신용카드 결제 취소
+		case KSPAY_AUTHTY_CREDIT:
+			return kspayCancelCreditAsync(cancel, deadline);
+
+		// 계좌이체 결제 취소(결제 당일)
+		case KSPAY_AUTHTY_BANK_CANCEL:
+			return kspayCancelBankAsync(cancel, deadline);
+
+		// 계좌이체 결제 환불
+		case KSPAY_AUTHTY_BANK_REFUND:
+			return CompletableFuture.completedFuture(unsupportedReturns("지원X"));
+
+		// 모바일 결제 취소
+		case KSPAY_AUTHTY_MOBILE:
+			return kspayCancelMobileAsync(cancel, deadline);
+
+		default:
+			return CompletableFuture.completedFuture(unsupportedReturns("승인구분 없음"));
+		}
+	}
+
+	public KspayRefundReturns kspayCancelPostCredit(KsnetRefundBody cancel, KSPayDeadline deadline) {
+
+		String requestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date());
+		KspayRefundReturns returns = creditDefaultReturns();
 
 		try {
-			KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean(IPG_IP_ADDR, IPG_PORT);
+			KSPayApprovalCancelBean ipg = createCancelBean(cancel, CREDIT_CANCEL_TEMPLATE, requestDate, deadline);
+			ipg.setSocketPool(socketPool);
 
-			ipg.HeadMessage(EncType, Version, Type, Resend, RequestDate, StoreId, OrderNumber, UserName, IdNum, Email,
-					GoodType, GoodName, KeyInType, LineType, PhoneNo, ApprovalCount, HeadFiller);
+			send(ipg, returns, cancel.getAuthty(), deadline);
+		} catch (Exception e) {
+			returns.setRMessage2("P잠시후재시도(" + e.toString() + ")"); // 메시지2
+		}
 
-			ipg.CancelDataMessage(ApprovalType, "0", TrNo, "", "", "", "", "");
+		return returns;
+	}
 
-			if (ipg.SendSocket("1")) {
-				rApprovalType = ipg.ApprovalType[0];
-				rACTransactionNo = ipg.ACTransactionNo[0]; // 거래번호
-				rACStatus = ipg.ACStatus[0]; // 오류구분 :승인 X:거절
-				rACTradeDate = ipg.ACTradeDate[0]; // 거래 개시 일자(YYYYMMDD)
-				rACTradeTime = ipg.ACTradeTime[0]; // 거래 개시 시간(HHMMSS)
-				rACAcctSele = ipg.ACAcctSele[0]; // 계좌이체 구분 - 1:Dacom, 2:Pop Banking, 3:Scrapping 계좌이체, 4:승인형계좌이체,
-													// 5:금결원계좌이체
-				rACFeeSele = ipg.ACFeeSele[0]; // 선/후불제구분 - 1:선불, 2:후불
-				rACInjaName = ipg.ACInjaName[0]; // 인자명(통장인쇄메세지-상점명)
-				rACPareBankCode = ipg.ACPareBankCode[0]; // 입금모계좌코드
-				rACPareAcctNo = ipg.ACPareAcctNo[0]; // 입금모계좌번호
-				rACCustBankCode = ipg.ACCustBankCode[0]; // 출금모계좌코드
-				rACCustAcctNo = ipg.ACCustAcctNo[0]; // 출금모계좌번호
-				rACAmount = ipg.ACAmount[0]; // 금액 (결제대상금액)
-				rACBankTransactionNo = ipg.ACBankTransactionNo[0]; // 은행거래번호
-				rACIpgumNm = ipg.ACIpgumNm[0]; // 입금자명
-				rACBankFee = ipg.ACBankFee[0]; // 계좌이체 수수료
-				rACBankAmount = ipg.ACBankAmount[0]; // 총결제금액(결제대상금액+ 수수료
-				rACBankRespCode = ipg.ACBankRespCode[0]; // 오류코드
-				rACMessage1 = ipg.ACMessage1[0]; // 오류 message 1
-				rACMessage2 = ipg.ACMessage2[0]; // 오류 message 2
-				rACFiller = ipg.ACFiller[0]; // 예비
-				
-				returns.setRTransactionNo(rACTransactionNo);
-				returns.setRStatus(rACStatus);
-				returns.setRTradeDate(rACTradeDate);
-				returns.setRTradeTime(rACTradeTime);
-				returns.setRMessage1(rACMessage1);
-				returns.setRMessage2(rACMessage2);
-			}
+	public KspayRefundReturns kspayCancelPostBank(KsnetRefundBody cancel, KSPayDeadline deadline) {
+
+		String requestDate = new SimpleDateFormat("yyyyMMddHHmmss").format(new java.util.Date());
+		KspayRefundReturns returns = bankDefaultReturns(cancel, requestDate);
+
+		try {
+			KSPayApprovalCancelBean ipg = createCancelBean(cancel, BANK_CANCEL_TEMPLATE, requestDate, deadline);
+			ipg.setSocketPool(socketPool);
+
+			send(ipg, returns, cancel.getAuthty(), deadline);
 		} catch (Exception e) {
-			rACMessage2 = "P잠시후재시도(" + e.toString() + ")"; // 메시지2
-			returns.setRMessage2(rACMessage2);
-		} // end of catch
+			returns.setRMessage2("P잠시후재시도(" + e.toString() + ")"); // 메시지2
+		}
 
 		return returns;
 	}
 
-	public KspayRefundReturns kspayCancelPostMobile(KsnetRefundBody cancel) {
-
-		// Default(수정항목이 아님)-------------------------------------------------------
-		String EncType = "2"; // 0: 암화안함, 1:openssl, 2: seed
-		String Version = "0210"; // 전문버전
-		String Type = "00"; // 구분
-		String Resend = "0"; // 전송구분 : 0 : 처음, 2: 재전송
-		String RequestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date()); // 요청일자 :
-																									// yyyymmddhhmmss
-		String KeyInType = "K"; // KeyInType 여부 : S : Swap, K: KeyInType
-		String LineType = "1"; // lineType 0 : offline, 1:internet, 2:Mobile
-		String ApprovalCount = "1"; // 복합승인갯수
-		String GoodType = "0"; // 제품구분 0 : 실물, 1 : 디지털
-		String HeadFiller = ""; // 예비
-		// -------------------------------------------------------------------------------
-
-		// Header (입력값 (*) 필수항목)--------------------------------------------------
-		String StoreId = cancel.getStoreid(); // *상점아이디
-		String OrderNumber = ""; // 주문번호
-		String UserName = ""; // 주문자명
-		String IdNum = ""; // 주민번호 or 사업자번호
-		String Email = ""; // email
-		String GoodName = ""; // 제품명
-		String PhoneNo = ""; // 휴대폰번호
-		// Header end
-		// -------------------------------------------------------------------
-
-		// Data Default(수정항목이 아님)-------------------------------------------------
-		String ApprovalType = cancel.getAuthty(); // 승인구분
-		String TrNo = cancel.getTrno(); // 거래번호
-		// Data Default end
-		// -------------------------------------------------------------
-
-		// 승인거절 응답
-		// Server로 부터 응답이 없을시 자체응답
-		String rApprovalType = "M111";
-		String rTransactionNo = ""; // 거래번호
-		String rStatus = "X"; // 상태 O : 승인, X : 거절
-		String rTradeDate = ""; // 거래일자
-		String rTradeTime = ""; // 거래시간
-		String rBalAmount = ""; // 잔액
-		String rRespCode = "PM09"; // 응답코드
-		String rRespMsg = "C잠시후 재시도"; // 응답메시지
-		String rBypassMsg = ""; // Echo항목
-		String rCompCode = ""; // 서비스업체구분
-		String rFiller = "";
-
-		KspayRefundReturns returns = new KspayRefundReturns(rTransactionNo, rStatus, rTradeDate, rTradeTime, rRespCode,
-				rRespMsg);
+	public KspayRefundReturns kspayCancelPostMobile(KsnetRefundBody cancel, KSPayDeadline deadline) {
+
+		String requestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date());
+		KspayRefundReturns returns = mobileDefaultReturns();
 
 		try {
-			KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean(IPG_IP_ADDR, IPG_PORT);
+			KSPayApprovalCancelBean ipg = createCancelBean(cancel, MOBILE_CANCEL_TEMPLATE, requestDate, deadline);
+			ipg.setSocketPool(socketPool);
 
-			ipg.HeadMessage(EncType, Version, Type, Resend, RequestDate, StoreId, OrderNumber, UserName, IdNum, Email,
-					GoodType, GoodName, KeyInType, LineType, PhoneNo, ApprovalCount, HeadFiller);
+			// 취소거절의 경우에도 재전송(kspay.ipg.retry.mobile.retry-on-decline)
+			send(ipg, returns, cancel.getAuthty(), deadline);
+		} catch (Exception e) {
+			setMobileErrorReturns(returns);
+		}
+
+		return returns;
+	}
+
+	public CompletableFuture<KspayRefundReturns> kspayCancelCreditAsync(KsnetRefundBody cancel,
+			KSPayDeadline deadline) {
+
+		String requestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date());
+		KSPayApprovalCancelBean ipg = createCancelBean(cancel, CREDIT_CANCEL_TEMPLATE, requestDate, deadline);
+		KspayRefundReturns returns = creditDefaultReturns();
+
+		return sendAsync(ipg, returns, cancel.getAuthty(), deadline, 1).exceptionally(ex -> {
+			returns.setRMessage2("P잠시후재시도(" + ex.toString() + ")");
+			return returns;
+		});
+	}
+
+	public CompletableFuture<KspayRefundReturns> kspayCancelBankAsync(KsnetRefundBody cancel,
+			KSPayDeadline deadline) {
 
-			ipg.CancelDataMessage(ApprovalType, "0", TrNo, "", "", "", "", "");
+		String requestDate = new SimpleDateFormat("yyyyMMddHHmmss").format(new java.util.Date());
+		KSPayApprovalCancelBean ipg = createCancelBean(cancel, BANK_CANCEL_TEMPLATE, requestDate, deadline);
+		KspayRefundReturns returns = bankDefaultReturns(cancel, requestDate);
+
+		return sendAsync(ipg, returns, cancel.getAuthty(), deadline, 1).exceptionally(ex -> {
+			returns.setRMessage2("P잠시후재시도(" + ex.toString() + ")");
+			return returns;
+		});
+	}
+
+	public CompletableFuture<KspayRefundReturns> kspayCancelMobileAsync(KsnetRefundBody cancel,
+			KSPayDeadline deadline) {
+
+		String requestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date());
+		KSPayApprovalCancelBean ipg = createCancelBean(cancel, MOBILE_CANCEL_TEMPLATE, requestDate, deadline);
+		KspayRefundReturns returns = mobileDefaultReturns();
+
+		return sendAsync(ipg, returns, cancel.getAuthty(), deadline, 1).exceptionally(ex -> {
+			setMobileErrorReturns(returns);
+			return returns;
+		});
+	}
+
+	/**
+	 * 취소 요청 전송(재전송 정책 적용)
+	 * - 재전송시 전송구분 "2"
+	 * - 응답을 받지 못한 전송은 이전 응답값을 유지하고 결과(outcome)만 갱신
+	 * - 결과 알 수 없음(UNKNOWN) 이후 재전송이 통신실패면 UNKNOWN 유지(앞선 요청이 처리되었을 수 있음)
+	 * 
+	 * @param ipg
+	 * @param returns
+	 * @param authty
+	 * @param deadline
+	 */
+	private void send(KSPayApprovalCancelBean ipg, KspayRefundReturns returns, String authty,
+			KSPayDeadline deadline) {
 
+		for (int attempt = 1;; attempt++) {
+			resetOutcome(returns);
 			if (ipg.SendSocket("1")) {
-				rApprovalType = ipg.ApprovalType[0]; // 승인구분 코드
-				rTransactionNo = ipg.MTransactionNo[0]; // 거래번호
-				rStatus = ipg.MStatus[0]; // 거래성공여부
-				rTradeDate = ipg.MTradeDate[0]; // 거래일자
-				rTradeTime = ipg.MTradeTime[0]; // 거래시간
-				rBalAmount = ipg.MBalAmount[0]; // 잔액
-				rRespCode = ipg.MRespCode[0]; // 응답코드
-				rRespMsg = ipg.MRespMsg[0]; // 응답메시지
-				rBypassMsg = ipg.MBypassMsg[0]; // Echo 필드
-				rCompCode = ipg.MCompCode[0]; // 기관코드
-				rFiller = ipg.MFiller[0]; // 예비
-
-				returns.setRTransactionNo(rTransactionNo);
-				returns.setRStatus(rStatus);
-				returns.setRTradeDate(rTradeDate);
-				returns.setRTradeTime(rTradeTime);
-				returns.setRMessage1(rRespCode);
-				returns.setRMessage2(rRespMsg);
+				setReturns(ipg, returns);
+			} else if (ipg.isOutcomeUnknown()) {
+				setUnknownReturns(returns);
 			}
 
-			if (rStatus == null || rStatus.substring(0, 1).equals("X")) // 취소거절의 경우 한번 더 전송한다.
-			{
-				if (ipg.SendSocket("1")) {
-					rApprovalType = ipg.ApprovalType[0]; // 승인구분 코드
-					rTransactionNo = ipg.MTransactionNo[0]; // 거래번호
-					rStatus = ipg.MStatus[0]; // 거래성공여부
-					rTradeDate = ipg.MTradeDate[0]; // 거래일자
-					rTradeTime = ipg.MTradeTime[0]; // 거래시간
-					rBalAmount = ipg.MBalAmount[0]; // 잔액
-					rRespCode = ipg.MRespCode[0]; // 응답코드
-					rRespMsg = ipg.MRespMsg[0]; // 응답메시지
-					rBypassMsg = ipg.MBypassMsg[0]; // Echo 필드
-					rCompCode = ipg.MCompCode[0]; // 기관코드
-					rFiller = ipg.MFiller[0]; // 예비
-
-					returns.setRTransactionNo(rTransactionNo);
-					returns.setRStatus(rStatus);
-					returns.setRTradeDate(rTradeDate);
-					returns.setRTradeTime(rTradeTime);
-					returns.setRMessage1(rRespCode);
-					returns.setRMessage2(rRespMsg);
-				}
+			long delay = retryPolicy.backoff(authty, returns.getOutcome(), attempt, deadline);
+			if (delay < 0) {
+				return;
 			}
-		} catch (Exception e) {
-			rStatus = "X";
-			rRespCode = "9999"; // 응답코드
-			rRespMsg = "C취소거절"; // 응답메시지
 
-			returns.setRStatus(rStatus);
-			returns.setRMessage1(rRespCode);
-			returns.setRMessage2(rRespMsg);
-		} // end of catch
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			log.info("[KSPay]재전송(" + (attempt + 1) + "회, " + returns.getOutcome() + ")");
+			ipg.setResend("2");
+		}
+	}
+
+	private CompletableFuture<KspayRefundReturns> sendAsync(KSPayApprovalCancelBean ipg, KspayRefundReturns returns,
+			String authty, KSPayDeadline deadline, int attempt) {
+
+		resetOutcome(returns);
+
+		return ipg.SendSocketAsync("1", asyncClient).thenCompose(sent -> {
+			if (sent) {
+				setReturns(ipg, returns);
+			} else if (ipg.isOutcomeUnknown()) {
+				setUnknownReturns(returns);
+			}
+
+			long delay = retryPolicy.backoff(authty, returns.getOutcome(), attempt, deadline);
+			if (delay < 0) {
+				return CompletableFuture.completedFuture(returns);
+			}
+
+			log.info("[KSPay]재전송(" + (attempt + 1) + "회, " + returns.getOutcome() + ")");
+			ipg.setResend("2");
+			return retryPolicy.delay(delay).thenCompose(v -> sendAsync(ipg, returns, authty, deadline, attempt + 1));
+		});
+	}
+
+	// 전송 전 결과 초기화: 이전 전송이 UNKNOWN 이면 이번 전송이 통신실패여도 UNKNOWN 유지
+	private void resetOutcome(KspayRefundReturns returns) {
+		if (returns.getOutcome() != Outcome.UNKNOWN) {
+			returns.setOutcome(Outcome.NO_RESPONSE);
+		}
+	}
+
+	// Server로 부터 응답이 없을시 자체응답
+	private KspayRefundReturns creditDefaultReturns() {
+		return noResponse(new KspayRefundReturns("", "X", "", "", "취소거절", "C잠시후재시도"));
+	}
+
+	private KspayRefundReturns bankDefaultReturns(KsnetRefundBody cancel, String requestDate) {
+		return noResponse(new KspayRefundReturns(cancel.getTrno(), "X", requestDate.substring(0, 8),
+				requestDate.substring(8, 14), "취소거절", "C잠시후재시도"));
+	}
+
+	private KspayRefundReturns mobileDefaultReturns() {
+		return noResponse(new KspayRefundReturns("", "X", "", "", "PM09", "C잠시후 재시도"));
+	}
 
+	private KspayRefundReturns noResponse(KspayRefundReturns returns) {
+		returns.setOutcome(Outcome.NO_RESPONSE);
 		return returns;
 	}
 
-	public KspayRefundReturns kspayCancelPostCredit(KsnetRefundBody cancel) {
-		// Default(수정항목이 아님)-------------------------------------------------------
-		String EncType = "0"; // 0: 암화안함, 1:openssl, 2: seed
-		String Version = "0210"; // 전문버전
-		String Type = "00"; // 구분
-		String Resend = "0"; // 전송구분 : 0 : 처음, 2: 재전송
-		String RequestDate = new SimpleDateFormat("yyyyMMddhhmmss").format(new java.util.Date()); // 요청일자 :
-																									// yyyymmddhhmmss
-		String KeyInType = "K"; // KeyInType 여부 : S : Swap, K: KeyInType
-		String LineType = "1"; // lineType 0 : offline, 1:internet, 2:Mobile
-		String ApprovalCount = "1"; // 복합승인갯수
-		String GoodType = "0"; // 제품구분 0 : 실물, 1 : 디지털
-		String HeadFiller = ""; // 예비
-		// -------------------------------------------------------------------------------
-
-		// Header (입력값 (*) 필수항목)--------------------------------------------------
-		String StoreId = cancel.getStoreid(); // *상점아이디
-		String OrderNumber = ""; // 주문번호
-		String UserName = ""; // *주문자명
-		String IdNum = ""; // 주민번호 or 사업자번호
-		String Email = ""; // *email
-		String GoodName = ""; // *제품명
-		String PhoneNo = ""; // *휴대폰번호
-		// Header end
-		// -------------------------------------------------------------------
-
-		// Data Default(수정항목이 아님)-------------------------------------------------
-		String ApprovalType = cancel.getAuthty(); // 승인구분
-		String TrNo = cancel.getTrno(); // 거래번호
-		// Data Default end
-		// -------------------------------------------------------------
-
-		// Server로 부터 응답이 없을시 자체응답
-		String rApprovalType = "1011";
-		String rTransactionNo = ""; // 거래번호
-		String rStatus = "X"; // 상태 O : 승인, X : 거절
-		String rTradeDate = ""; // 거래일자
-		String rTradeTime = ""; // 거래시간
-		String rIssCode = "00"; // 발급사코드
-		String rAquCode = "00"; // 매입사코드
-		String rAuthNo = "9999"; // 승인번호 or 거절시 오류코드
-		String rMessage1 = "취소거절"; // 메시지1
-		String rMessage2 = "C잠시후재시도"; // 메시지2
-		String rCardNo = ""; // 카드번호
-		String rExpDate = ""; // 유효기간
-		String rInstallment = ""; // 할부
-		String rAmount = ""; // 금액
-		String rMerchantNo = ""; // 가맹점번호
-		String rAuthSendType = "N"; // 전송구분
-		String rApprovalSendType = "N"; // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
-		String rPoint1 = "000000000000"; // Point1
-		String rPoint2 = "000000000000"; // Point2
-		String rPoint3 = "000000000000"; // Point3
-		String rPoint4 = "000000000000"; // Point4
-		String rVanTransactionNo = "";
-		String rFiller = ""; // 예비
-		String rAuthType = ""; // ISP : ISP거래, MP1, MP2 : MPI거래, SPACE : 일반거래
-		String rMPIPositionType = ""; // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
-		String rMPIReUseType = ""; // Y : 재사용, N : 재사용아님
-		String rEncData = ""; // MPI, ISP 데이터
-
-		KspayRefundReturns returns = new KspayRefundReturns(rTransactionNo, rStatus, rTradeDate, rTradeTime, rMessage1,
-				rMessage2);
+	// 지원하지 않는 승인구분(통신하지 않음)
+	private KspayRefundReturns unsupportedReturns(String message) {
+		KspayRefundReturns returns = new KspayRefundReturns("", "X", "", "", "취소거절", message);
+		returns.setOutcome(Outcome.DECLINED);
+		return returns;
+	}
+
+	// 요청 전송 후 응답 없음(제한시간 초과 등): 취소 여부 확인 필요
+	private void setUnknownReturns(KspayRefundReturns returns) {
+		returns.setOutcome(Outcome.UNKNOWN);
+		returns.setRStatus("X");
+		returns.setRMessage2("C취소결과 확인중");
+	}
+
+	private void setMobileErrorReturns(KspayRefundReturns returns) {
+		returns.setOutcome(Outcome.NO_RESPONSE);
+		returns.setRStatus("X");
+		returns.setRMessage1("9999"); // 응답코드
+		returns.setRMessage2("C취소거절"); // 응답메시지
+	}
+
+	/**
+	 * 취소 응답 결과 설정
+	 * - 응답이 없으면(통신실패) 자체응답 유지
+	 * - 휴대폰 결제는 메시지1, 2에 응답코드, 응답메시지
+	 * 
+	 * @param ipg
+	 * @param returns
+	 */
+	private void setReturns(KSPayApprovalCancelBean ipg, KspayRefundReturns returns) {
+
+		KSPayResult result = ipg.getResult(0);
+		if (result == null) {
+			return;
+		}
+
+		setReturns(result, returns);
+	}
+
+	private void setReturns(KSPayResult result, KspayRefundReturns returns) {
+
+		returns.setRTransactionNo(result.getTransactionNo()); // 거래번호
+		returns.setRStatus(result.getStatus()); // 상태 O : 승인, X : 거절
+		returns.setRTradeDate(result.getTradeDate()); // 거래일자
+		returns.setRTradeTime(result.getTradeTime()); // 거래시간
+		returns.setRMessage1(result.getMessage1()); // 메시지1
+		returns.setRMessage2(result.getMessage2()); // 메시지2
+		returns.setOutcome(result.isApproved() ? Outcome.APPROVED : Outcome.DECLINED);
+	}
+
+	/**
+	 * 취소 요청 전문 생성
+	 * - 템플릿에 요청일자, 상점아이디, 승인구분, 거래번호만 덮어씀
+	 * - 응답은 getTelegram() 에서 필요한 항목만 읽음
+	 * 
+	 * @param cancel
+	 * @param template EncType, 전문버전별 템플릿
+	 * @param requestDate 요청일자(yyyymmddhhmmss)
+	 * @param deadline 통신 제한시간
+	 * @return
+	 */
+	private KSPayApprovalCancelBean createCancelBean(KsnetRefundBody cancel, KSPayCancelTemplate template,
+			String requestDate, KSPayDeadline deadline) {
+
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean(ipgHost, ipgPort);
+		ipg.setLegacyFields(false);
+		ipg.setDeadline(deadline);
+		ipg.CancelMessage(template, "0", requestDate, cancel.getStoreid(), cancel.getAuthty(), cancel.getTrno());
+
+		return ipg;
+	}
+
+	public KspayRefundReturns refund(KsnetRefundBody refund) {
+		// 요청 전체 통신 제한시간(승인구분별)
+		KSPayDeadline deadline = createDeadline(refund.getAuthty());
+		
+		// 결제 취소 요청 DB 저장, 취소 가능 여부 확인
+		PendingRefund pending = prepareRefund(refund);
+		if (pending.result != null) {
+			return pending.result;
+		}
+
+		// KSPay 통신장애(차단중) 또는 요청 초과 시 예치금 차감 전 거절
+		KspayGatewayGuard.Permit permit;
+		try {
+			permit = gatewayGuard.acquire();
+		} catch (KspayGatewayException ex) {
+			return blockRefund(pending, ex);
+		}
+
+		try {
+			// 순간정산 예치금 차감
+			if (!reserveDeposit(pending)) {
+				return pending.result;
+			}
+			
+			// KSPay 통신 시작
+			KspayRefundReturns result = sendKSPay(refund, deadline);
+			permit.record(result.getOutcome() == Outcome.NO_RESPONSE || result.getOutcome() == Outcome.UNKNOWN);
+			
+			return completeRefund(pending, result);
+		} finally {
+			permit.close();
+		}
+	}
+
+	/**
+	 * 복합 결제 취소(같은 상점, 같은 승인구분의 취소 최대 9건을 KSPay 통신 1회로)
+	 * - 건별 취소 가능 여부 확인, 예치금 차감은 단건 취소와 같음
+	 * - 응답 결과는 거래번호로 요청건(취소로그)에 매칭
+	 * - 응답을 받지 못한 경우에만 전문 전체 재전송, 건별 취소거절은 재전송하지 않음
+	 * 
+	 * @param refunds
+	 * @return 요청 순서대로 건별 결과
+	 */
+	public List<KspayRefundReturns> refundCompound(List<KsnetRefundBody> refunds) {
+
+		checkCompound(refunds);
+		KSPayDeadline deadline = createDeadline(refunds.get(0).getAuthty());
 
+		KspayRefundReturns[] results = new KspayRefundReturns[refunds.size()];
+		List<PendingRefund> pendings = new ArrayList<>();
+		for (int i = 0; i < refunds.size(); i++) {
+			PendingRefund pending = prepareRefund(refunds.get(i));
+			if (pending.result != null) {
+				results[i] = pending.result;
+			} else {
+				pending.index = i;
+				pendings.add(pending);
+			}
+		}
+
+		if (pendings.isEmpty()) {
+			return Arrays.asList(results);
+		}
+
+		KspayGatewayGuard.Permit permit;
 		try {
-			KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean(IPG_IP_ADDR, IPG_PORT);
+			permit = gatewayGuard.acquire();
+		} catch (KspayGatewayException ex) {
+			pendings.forEach(pending -> results[pending.index] = blockRefund(pending, ex));
+			return Arrays.asList(results);
+		}
 
-			ipg.HeadMessage(EncType, Version, Type, Resend, RequestDate, StoreId, OrderNumber, UserName, IdNum, Email,
-					GoodType, GoodName, KeyInType, LineType, PhoneNo, ApprovalCount, HeadFiller);
+		try {
+			List<PendingRefund> reserved = new ArrayList<>();
+			for (PendingRefund pending : pendings) {
+				if (reserveDeposit(pending)) {
+					reserved.add(pending);
+				} else {
+					results[pending.index] = pending.result;
+				}
+			}
 
-			ipg.CancelDataMessage(ApprovalType, "0", TrNo, "", "", "", "", "");
+			if (reserved.isEmpty()) {
+				return Arrays.asList(results);
+			}
 
-			if (ipg.SendSocket("1")) {
-				rApprovalType = ipg.ApprovalType[0];
-				rTransactionNo = ipg.TransactionNo[0]; // 거래번호
-				rStatus = ipg.Status[0]; // 상태 O : 승인, X : 거절
-				rTradeDate = ipg.TradeDate[0]; // 거래일자
-				rTradeTime = ipg.TradeTime[0]; // 거래시간
-				rIssCode = ipg.IssCode[0]; // 발급사코드
-				rAquCode = ipg.AquCode[0]; // 매입사코드
-				rAuthNo = ipg.AuthNo[0]; // 승인번호 or 거절시 오류코드
-				rMessage1 = ipg.Message1[0]; // 메시지1
-				rMessage2 = ipg.Message2[0]; // 메시지2
-				rCardNo = ipg.CardNo[0]; // 카드번호
-				rExpDate = ipg.ExpDate[0]; // 유효기간
-				rInstallment = ipg.Installment[0]; // 할부
-				rAmount = ipg.Amount[0]; // 금액
-				rMerchantNo = ipg.MerchantNo[0]; // 가맹점번호
-				rAuthSendType = ipg.AuthSendType[0]; // 전송구분= new String(this.read(2));
-				rApprovalSendType = ipg.ApprovalSendType[0]; // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
-				rPoint1 = ipg.Point1[0]; // Point1
-				rPoint2 = ipg.Point2[0]; // Point2
-				rPoint3 = ipg.Point3[0]; // Point3
-				rPoint4 = ipg.Point4[0]; // Point4
-				rVanTransactionNo = ipg.VanTransactionNo[0]; // Van거래번호
-				rFiller = ipg.Filler[0]; // 예비
-				rAuthType = ipg.AuthType[0]; // ISP : ISP거래, MP1, MP2 : MPI거래, SPACE : 일반거래
-				rMPIPositionType = ipg.MPIPositionType[0]; // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
-				rMPIReUseType = ipg.MPIReUseType[0]; // Y : 재사용, N : 재사용아님
-				rEncData = ipg.EncData[0]; // MPI, ISP 데이터
-
-				returns.setRTransactionNo(rTransactionNo);
-				returns.setRStatus(rStatus);
-				returns.setRTradeDate(rTradeDate);
-				returns.setRTradeTime(rTradeTime);
-				returns.setRMessage1(rMessage1);
-				returns.setRMessage2(rMessage2);
-				
+			List<KsnetRefundBody> cancels = new ArrayList<>();
+			reserved.forEach(pending -> cancels.add(pending.refund));
+
+			List<KspayRefundReturns> returns = sendKSPayCompound(cancels, deadline);
+			boolean failure = returns.stream()
+					.allMatch(r -> r.getOutcome() == Outcome.NO_RESPONSE || r.getOutcome() == Outcome.UNKNOWN);
+			permit.record(failure);
+
+			for (int i = 0; i < reserved.size(); i++) {
+				PendingRefund pending = reserved.get(i);
+				results[pending.index] = completeRefund(pending, returns.get(i));
 			}
-		} catch (Exception e) {
-			rMessage2 = "P잠시후재시도(" + e.toString() + ")"; // 메시지2
+		} finally {
+			permit.close();
+		}
 
-			returns.setRMessage2(rMessage2);
-		} // end of catch
+		return Arrays.asList(results);
+	}
 
-		return returns;
+	/**
+	 * 복합 취소 요청 확인: 1 ~ 9건, 같은 상점, 같은 승인구분(전문 Header 공유), 거래번호 중복 불가
+	 * 
+	 * @param refunds
+	 */
+	private void checkCompound(List<KsnetRefundBody> refunds) {
+
+		if (refunds == null || refunds.isEmpty() || refunds.size() > KSPayCancelTemplate.MAX_COUNT) {
+			throw new IllegalArgumentException("복합취소는 1 ~ " + KSPayCancelTemplate.MAX_COUNT + "건까지 요청할 수 있습니다.");
+		}
+
+		KsnetRefundBody first = refunds.get(0);
+		if (cancelTemplate(first.getAuthty()) == null) {
+			throw new IllegalArgumentException("복합취소를 지원하지 않는 승인구분: " + first.getAuthty());
+		}
+
+		Set<String> trNos = new HashSet<>();
+		for (KsnetRefundBody refund : refunds) {
+			if (!Objects.equals(first.getStoreid(), refund.getStoreid())
+					|| !Objects.equals(first.getAuthty(), refund.getAuthty())) {
+				throw new IllegalArgumentException("복합취소는 같은 상점, 같은 승인구분만 요청할 수 있습니다.");
+			}
+			if (Sunpay.isEmpty(refund.getTrno()) || !trNos.add(refund.getTrno())) {
+				throw new IllegalArgumentException("거래번호 없음 또는 중복: " + refund.getTrno());
+			}
+		}
 	}
-	
-	public KspayRefundReturns refund(KsnetRefundBody refund) {
+
+	/**
+	 * 복합 취소 요청 전송
+	 * - 응답의 건별 결과를 거래번호로 요청건에 매칭(거래번호가 없으면 순서대로)
+	 * - 응답에 없는 요청건은 자체응답 유지
+	 * 
+	 * @param cancels 같은 상점, 같은 승인구분
+	 * @param deadline
+	 * @return 요청 순서대로 건별 결과
+	 */
+	public List<KspayRefundReturns> sendKSPayCompound(List<KsnetRefundBody> cancels, KSPayDeadline deadline) {
+
+		KsnetRefundBody first = cancels.get(0);
+		String authty = first.getAuthty();
+		String requestDate = new SimpleDateFormat(
+				KSPAY_AUTHTY_BANK_CANCEL.equals(authty) ? "yyyyMMddHHmmss" : "yyyyMMddhhmmss").format(new java.util.Date());
+
+		List<KspayRefundReturns> returns = new ArrayList<>();
+		String[] approvalTypes = new String[cancels.size()];
+		String[] trNos = new String[cancels.size()];
+		for (int i = 0; i < cancels.size(); i++) {
+			KsnetRefundBody cancel = cancels.get(i);
+			approvalTypes[i] = cancel.getAuthty();
+			trNos[i] = cancel.getTrno();
+
+			switch (authty) {
+			case KSPAY_AUTHTY_BANK_CANCEL:
+				returns.add(bankDefaultReturns(cancel, requestDate));
+				break;
+			case KSPAY_AUTHTY_MOBILE:
+				returns.add(mobileDefaultReturns());
+				break;
+			default:
+				returns.add(creditDefaultReturns());
+				break;
+			}
+		}
+
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean(ipgHost, ipgPort);
+		ipg.setLegacyFields(false);
+		ipg.setDeadline(deadline);
+		ipg.setSocketPool(socketPool);
+		ipg.CancelMessage(cancelTemplate(authty), "0", requestDate, first.getStoreid(), approvalTypes, trNos);
+
+		for (int attempt = 1;; attempt++) {
+			boolean sent;
+			try {
+				sent = "nio".equals(transport) ? ipg.SendSocketAsync("1", asyncClient).join() : ipg.SendSocket("1");
+			} catch (Exception e) {
+				log.log(Level.WARNING, "[KSPay]복합취소 전송 오류", e);
+				sent = false;
+			}
+
+			Outcome outcome = Outcome.NO_RESPONSE;
+			if (sent && !ipg.getResults().isEmpty()) {
+				setCompoundReturns(ipg.getResults(), trNos, returns);
+				return returns;
+			} else if (ipg.isOutcomeUnknown()) {
+				returns.forEach(this::setUnknownReturns);
+				outcome = Outcome.UNKNOWN;
+			}
+
+			// 응답이 없는 경우에만 재전송
+			long delay = retryPolicy.backoff(authty, outcome, attempt, deadline);
+			if (delay < 0) {
+				return returns;
+			}
+
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return returns;
+			}
+
+			log.info("[KSPay]복합취소 재전송(" + (attempt + 1) + "회, " + outcome + ")");
+			ipg.setResend("2");
+		}
+	}
+
+	// 복합취소 응답 결과를 요청건에 매칭
+	private void setCompoundReturns(List<KSPayResult> results, String[] trNos, List<KspayRefundReturns> returns) {
+
+		boolean[] matched = new boolean[trNos.length];
+		List<KSPayResult> unmatched = new ArrayList<>();
+
+		for (KSPayResult result : results) {
+			int i = Arrays.asList(trNos).indexOf(result.getTransactionNo().trim());
+			if (i >= 0 && !matched[i]) {
+				matched[i] = true;
+				setReturns(result, returns.get(i));
+			} else {
+				unmatched.add(result);
+			}
+		}
+
+		// 거래번호가 없는 결과(거절 등)는 매칭되지 않은 요청건에 순서대로
+		int next = 0;
+		for (KSPayResult result : unmatched) {
+			while (next < matched.length && matched[next]) {
+				next++;
+			}
+			if (next >= matched.length) {
+				break;
+			}
+			matched[next] = true;
+			setReturns(result, returns.get(next));
+		}
+	}
+
+	// 승인구분별 취소요청 전문 템플릿, 지원하지 않는 승인구분이면 null
+	private KSPayCancelTemplate cancelTemplate(String authty) {
+
+		switch (authty == null ? "" : authty) {
+		case KSPAY_AUTHTY_CREDIT:
+			return CREDIT_CANCEL_TEMPLATE;
+		case KSPAY_AUTHTY_BANK_CANCEL:
+			return BANK_CANCEL_TEMPLATE;
+		case KSPAY_AUTHTY_MOBILE:
+			return MOBILE_CANCEL_TEMPLATE;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 취소 진행중인 요청건(취소로그, 결제건)
+	 * - result 가 있으면 처리 종료(취소 불가, 예치금 부족 등)
+	 */
+	private static class PendingRefund {
+
+		private final KsnetRefundBody refund;
+		private final KsnetRefundLog refundLog;
+		private KsnetPayResult paidResult;
+		// 예치금 차감함(순간정산 + 카드결제), 취소 결과에 따라 차감 완료/원복
+		private boolean depositDebited;
+		private KspayRefundReturns result;
+		private int index;
+
+		PendingRefund(KsnetRefundBody refund, KsnetRefundLog refundLog) {
+			this.refund = refund;
+			this.refundLog = refundLog;
+		}
+	}
+
+	/**
+	 * 결제 취소 요청건 저장, 취소 가능 여부 확인
+	 * 
+	 * @param refund
+	 * @return
+	 */
+	private PendingRefund prepareRefund(KsnetRefundBody refund) {
+		
 		// Default 결과값 생성
 		KspayRefundReturns result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", "");
 		
 		// 결제 취소 요청 DB 저장
 		refund.setStatusCode(KsnetRefundLog.STATUS_TRY);
 		KsnetRefundLog refundLog = saveRefundLog(refund);
+		PendingRefund pending = new PendingRefund(refund, refundLog);
 		
 		// 주문정보 조회 
 		KsnetPayResult paidResult = getPaidResult(refund.getTrno());
@@ -509,9 +934,11 @@ public class KsnetService {
 			refundLog.setStatusCode(KsnetRefundLog.STATUS_ERROR);
 			result.setRMessage2("주문정보 없음");
 			updateRefundLog(refundLog, result);
-			return result;
+			pending.result = result;
+			return pending;
 		}
 		
+		pending.paidResult = paidResult;
 		refundLog.setKsnetPayResult(paidResult);
 		
 		// 결제건의 정산타입 저장
@@ -525,17 +952,54 @@ public class KsnetService {
 			refundLog.setStatusCode(KsnetRefundLog.STATUS_FINISH);
 			result.setRMessage2("기취소거래건");
 			updateRefundLog(refundLog, result);
-			return result;
+			pending.result = result;
+			return pending;
+		}
+
+		// 결과 확인중인 취소건이 있으면 확인 전까지 재요청 불가(예치금 중복 차감 방지)
+		if (hasUnknownRefundLog(refund)) {
+			refundLog.setStatusCode(KsnetRefundLog.STATUS_ERROR);
+			result.setRMessage2("취소결과 확인중");
+			updateRefundLog(refundLog, result);
+			pending.result = result;
+			return pending;
 		}
+		
+		return pending;
+	}
+
+	// 게이트웨이 차단/요청 초과로 통신하지 않음
+	private KspayRefundReturns blockRefund(PendingRefund pending, KspayGatewayException ex) {
+
+		KspayRefundReturns result = new KspayRefundReturns(pending.refund.getTrno(), "X", "", "", "취소거절", "");
+		pending.refundLog.setStatusCode(KsnetRefundLog.STATUS_ERROR);
+		result.setRMessage2(ex.getMessage());
+		result.setOutcome(Outcome.BLOCKED);
+		updateRefundLog(pending.refundLog, result);
+		return result;
+	}
+
+	/**
+	 * (순간결제 + 카드결제)건의 예치금 확인 및 차감
+	 * - 차감 실패시 환불 중단(pending.result 설정)
+	 * 
+	 * @param pending
+	 * @return 취소 요청 가능 여부
+	 */
+	private boolean reserveDeposit(PendingRefund pending) {
+
+		KsnetRefundBody refund = pending.refund;
+		KsnetRefundLog refundLog = pending.refundLog;
+		KsnetPayResult paidResult = pending.paidResult;
+		KspayRefundReturns result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", "");
 
-		// 순간정산으로 결제했는지 확인
-		boolean isInstantPaid = paidResult.getServiceTypeCd().equals("INSTANT") ? true : false;
 		refundLog.setAmt(paidResult.getAmt());
 
 		// (순간결제 + 카드결제)건의 취소요청 시 예치금 확인 및 차감
-		if (isInstantPaid && refund.getAuthty().equals(KsnetService.KSPAY_AUTHTY_CREDIT)) {
+		if (isDepositDebited(paidResult.getServiceTypeCd(), refund.getAuthty())) {
 			try {
 				depositService.tryRefund(refund.getStoreid(), paidResult);
+				pending.depositDebited = true;
 			} catch (DepositException ex) {
 				
 				// 예치금 부족시 PUSH알림
@@ -555,7 +1019,8 @@ public class KsnetService {
 				refundLog.setStatusCode(KsnetRefundLog.STATUS_ERROR);
 				result.setRMessage2(ex.getMessage());
 				updateRefundLog(refundLog, result);
-				return result;
+				pending.result = result;
+				return false;
 				
 			} catch (Exception ex) {
 				
@@ -563,18 +1028,44 @@ public class KsnetService {
 				refundLog.setStatusCode(KsnetRefundLog.STATUS_ERROR);
 				result.setRMessage2(ex.getMessage());
 				updateRefundLog(refundLog, result);
-				return result;
+				pending.result = result;
+				return false;
 				
 			}
 		} 
+		
+		return true;
+	}
 
-		// KSPay 통신 시작
-		result = sendKSPay(refund);
+	/**
+	 * KSPay 취소 결과 처리
+	 * - 결과 알 수 없음: 결과 확인 대상으로 남김
+	 * - 취소거절/통신실패: 순간정산 예치금 원복
+	 * - 취소 완료: 예치금 차감 완료, 기존 시도/실패건 완료 처리, PUSH 발송
+	 * 
+	 * @param pending
+	 * @param result KSPay 취소 결과
+	 * @return
+	 */
+	private KspayRefundReturns completeRefund(PendingRefund pending, KspayRefundReturns result) {
+
+		KsnetRefundBody refund = pending.refund;
+		KsnetRefundLog refundLog = pending.refundLog;
+		boolean depositDebited = pending.depositDebited;
+		
+		// 요청 전송 후 응답 없음: 취소되었을 수 있으므로 예치금 원복하지 않고 결과 확인 대상으로 남김
+		if (result.getOutcome() == Outcome.UNKNOWN) {
+			log.log(Level.WARNING, "[환불요청]취소결과 확인 필요(trNo: " + refund.getTrno() + ")");
+			refundLog.setStatusCode(KsnetRefundLog.STATUS_UNKNOWN);
+			updateRefundLog(refundLog, result);
+			return result;
+		}
+		
 		// KSPay 통신 오류 시
 		if (!result.getRStatus().equals("O")) {
 			
-			// 순간정산이었다면 예치금원복
-			if (isInstantPaid) {
+			// 예치금 차감했다면 원복
+			if (depositDebited) {
 				try {
 					depositService.resetDeposit(refund);
 				} catch (Exception e) {
@@ -589,8 +1080,8 @@ public class KsnetService {
 		}
 		
 		// KSPay 통신 성공, 환불 완료 처리
-		// 순간정산 환불 시 처리
-		if (isInstantPaid) {
+		// 예치금 차감한 환불 시 처리
+		if (depositDebited) {
 			try {
 				depositService.completeRefund(refund);
 			} catch (Exception e) {
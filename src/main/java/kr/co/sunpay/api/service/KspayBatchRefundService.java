@@ -0,0 +1,119 @@
+package kr.co.sunpay.api.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import kr.co.sunpay.api.model.KsnetRefundBody;
+import kr.co.sunpay.api.model.KspayBatchRefundResult;
+import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import lombok.extern.java.Log;
+
+/**
+ * 일괄 결제 취소
+ * - 취소건을 작업 스레드풀(kspayBatchExecutor)에서 병렬 처리
+ * - 같은 상점의 취소건은 요청 순서대로 하나씩 처리(예치금 차감 순서 유지), 다른 일괄요청과도 상점 단위로 순서 유지
+ * - 건별 결과는 완료되는 대로 listener 로 전달
+ */
+@Log
+@Service
+public class KspayBatchRefundService {
+
+	@Autowired
+	KsnetService ksnetService;
+
+	@Autowired
+	@Qualifier("kspayBatchExecutor")
+	ExecutorService executor;
+
+	// 일괄요청 1건당 최대 취소건 수
+	@Value("${kspay.refund.batch.max-items:500}")
+	int maxItems;
+
+	// 일괄요청 응답(스트림) 제한시간
+	@Value("${kspay.refund.batch.timeout-ms:600000}")
+	long timeoutMs;
+
+	// 상점별 마지막 취소 작업, 다음 취소건은 이 작업이 끝난 뒤 시작
+	private final ConcurrentHashMap<String, CompletableFuture<Void>> storeTails = new ConcurrentHashMap<>();
+
+	public int getMaxItems() {
+		return maxItems;
+	}
+
+	public long getTimeoutMs() {
+		return timeoutMs;
+	}
+
+	/**
+	 * 일괄 취소 요청
+	 *
+	 * @param refunds
+	 * @param listener 건별 결과(작업 스레드에서 호출, 동시에 호출될 수 있음)
+	 * @return 모든 취소건 처리 완료
+	 */
+	public CompletableFuture<Void> refund(List<KsnetRefundBody> refunds, Consumer<KspayBatchRefundResult> listener) {
+
+		CompletableFuture<?>[] items = new CompletableFuture<?>[refunds.size()];
+		for (int i = 0; i < refunds.size(); i++) {
+			items[i] = submit(i, refunds.get(i), listener);
+		}
+
+		return CompletableFuture.allOf(items);
+	}
+
+	private CompletableFuture<Void> submit(int index, KsnetRefundBody refund, Consumer<KspayBatchRefundResult> listener) {
+
+		long start = System.nanoTime();
+		String storeid = (refund.getStoreid() == null) ? "" : refund.getStoreid();
+
+		CompletableFuture<Void> item = storeTails.compute(storeid, (key, tail) -> {
+			CompletableFuture<Void> prev = (tail == null) ? CompletableFuture.completedFuture(null) : tail;
+
+			return prev.thenApplyAsync(v -> refundItem(refund), executor).handle((result, ex) -> {
+				// 대기열 초과로 작업이 거절되면 취소 요청하지 않음
+				if (ex != null) {
+					result = rejectedReturns(refund);
+				}
+
+				long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+				try {
+					listener.accept(new KspayBatchRefundResult(index, refund, result, elapsed));
+				} catch (Exception e) {
+					log.log(Level.WARNING, "[일괄취소]결과 전달 실패(trNo: " + refund.getTrno() + ")", e);
+				}
+				return null;
+			});
+		});
+
+		item.whenComplete((v, ex) -> storeTails.remove(storeid, item));
+		return item;
+	}
+
+	private KspayRefundReturns refundItem(KsnetRefundBody refund) {
+
+		try {
+			return ksnetService.refund(refund);
+		} catch (Exception e) {
+			log.log(Level.WARNING, "[일괄취소]취소 처리 오류(trNo: " + refund.getTrno() + ")", e);
+			return ksnetService.refundError(refund);
+		}
+	}
+
+	private KspayRefundReturns rejectedReturns(KsnetRefundBody refund) {
+
+		KspayRefundReturns result = new KspayRefundReturns(refund.getTrno(), "X", "", "", "취소거절", "일괄취소 대기열 초과");
+		result.setOutcome(Outcome.BLOCKED);
+		return result;
+	}
+}
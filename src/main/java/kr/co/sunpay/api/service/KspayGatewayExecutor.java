@@ -0,0 +1,98 @@
+package kr.co.sunpay.api.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import kr.co.sunpay.api.exception.KspayGatewayException;
+
+/**
+ * KSPay 게이트웨이 통신(IPG 소켓, WebHost HTTP) 전용 작업 스레드풀
+ * - 게이트웨이 응답을 기다리는 동안 Tomcat 요청 스레드를 점유하지 않도록 비동기 처리
+ * - 스레드 수, 대기열 크기를 따로 두어 게이트웨이 지연이 다른 API(/store, /member 등)에 영향을 주지 않음
+ * - 대기열 초과시 거절(supply) 또는 요청 스레드에서 실행(supplyOrRun)
+ */
+public class KspayGatewayExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong callerRuns = new AtomicLong();
+
+	public KspayGatewayExecutor(int threads, int queueSize) {
+
+		AtomicInteger seq = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+					Thread t = new Thread(r, "kspay-gateway-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * 게이트웨이 작업 실행
+	 * - 대기열이 가득 차면 KspayGatewayException(CODE_BULKHEAD_FULL) 으로 완료
+	 *
+	 * @param task
+	 * @return
+	 */
+	public <T> CompletableFuture<T> supply(Supplier<T> task) {
+
+		try {
+			return CompletableFuture.supplyAsync(task, executor);
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(
+					new KspayGatewayException("요청 초과(잠시후재시도)", KspayGatewayException.CODE_BULKHEAD_FULL));
+			return future;
+		}
+	}
+
+	/**
+	 * 게이트웨이 작업 실행, 대기열이 가득 차면 요청 스레드에서 실행
+	 * - 결제 승인 확인처럼 거절하면 안되는 작업
+	 *
+	 * @param task
+	 * @return
+	 */
+	public <T> CompletableFuture<T> supplyOrRun(Supplier<T> task) {
+
+		try {
+			return CompletableFuture.supplyAsync(task, executor);
+		} catch (RejectedExecutionException e) {
+			callerRuns.incrementAndGet();
+
+			CompletableFuture<T> future = new CompletableFuture<>();
+			try {
+				future.complete(task.get());
+			} catch (RuntimeException ex) {
+				future.completeExceptionally(ex);
+			}
+			return future;
+		}
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("executorActive", executor.getActiveCount());
+		snapshot.put("executorQueued", executor.getQueue().size());
+		snapshot.put("executorRejected", rejected.get());
+		snapshot.put("executorCallerRuns", callerRuns.get());
+		return snapshot;
+	}
+
+	public void close() {
+		executor.shutdown();
+	}
+}
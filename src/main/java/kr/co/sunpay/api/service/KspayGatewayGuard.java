@@ -0,0 +1,208 @@
+package kr.co.sunpay.api.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import kr.co.sunpay.api.exception.KspayGatewayException;
+
+/**
+ * KSPay IPG 게이트웨이 보호(서킷브레이커 + 동시요청 제한)
+ * - CLOSED: 정상, 통신실패가 연속 failureThreshold 회 발생하면 OPEN
+ * - OPEN: openMillis 동안 요청을 통신 전에 거절
+ * - HALF_OPEN: OPEN 시간이 지나면 1건만 시험 전송, 성공시 CLOSED / 실패시 다시 OPEN
+ * - 동시 요청은 maxConcurrent 건까지, 초과시 waitMillis 만큼 기다린 후 거절
+ */
+public class KspayGatewayGuard {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+	private final int maxConcurrent;
+	private final long waitMillis;
+	private final LongSupplier clock;
+
+	private final Semaphore bulkhead;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean probing;
+
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong rejectedOpen = new AtomicLong();
+	private final AtomicLong rejectedFull = new AtomicLong();
+
+	public KspayGatewayGuard(int failureThreshold, long openMillis, int maxConcurrent, long waitMillis) {
+		this(failureThreshold, openMillis, maxConcurrent, waitMillis, System::currentTimeMillis);
+	}
+
+	KspayGatewayGuard(int failureThreshold, long openMillis, int maxConcurrent, long waitMillis, LongSupplier clock) {
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openMillis = openMillis;
+		this.maxConcurrent = maxConcurrent;
+		this.waitMillis = waitMillis;
+		this.clock = clock;
+		this.bulkhead = new Semaphore(maxConcurrent, true);
+	}
+
+	/**
+	 * 게이트웨이 요청 허가
+	 * - 사용 후 반드시 Permit.close()
+	 *
+	 * @return
+	 * @throws KspayGatewayException 차단중이거나 동시 요청 초과
+	 */
+	public Permit acquire() throws KspayGatewayException {
+
+		boolean probe = enter();
+
+		boolean acquired;
+		try {
+			acquired = bulkhead.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+
+		if (!acquired) {
+			if (probe) {
+				endProbe();
+			}
+			rejectedFull.incrementAndGet();
+			throw new KspayGatewayException("KSPay 요청 초과(잠시후재시도)", KspayGatewayException.CODE_BULKHEAD_FULL);
+		}
+
+		calls.incrementAndGet();
+		return new Permit(probe);
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * 상태 조회(/kspay/health)
+	 *
+	 * @return
+	 */
+	public synchronized Map<String, Object> snapshot() {
+
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("state", state);
+		map.put("consecutiveFailures", consecutiveFailures);
+		map.put("failureThreshold", failureThreshold);
+		map.put("openedAt", state == State.CLOSED ? null : openedAt);
+		map.put("openMillis", openMillis);
+		map.put("activeCalls", maxConcurrent - bulkhead.availablePermits());
+		map.put("maxConcurrent", maxConcurrent);
+		map.put("calls", calls.get());
+		map.put("failures", failures.get());
+		map.put("rejectedOpen", rejectedOpen.get());
+		map.put("rejectedFull", rejectedFull.get());
+
+		return map;
+	}
+
+	// 차단중이면 거절, HALF_OPEN 에서는 시험 요청 1건만 허가
+	private synchronized boolean enter() throws KspayGatewayException {
+
+		if (state == State.OPEN) {
+			if (clock.getAsLong() - openedAt < openMillis) {
+				rejectedOpen.incrementAndGet();
+				throw new KspayGatewayException("KSPay 통신장애(잠시후재시도)", KspayGatewayException.CODE_CIRCUIT_OPEN);
+			}
+			state = State.HALF_OPEN;
+		}
+
+		if (state == State.HALF_OPEN) {
+			if (probing) {
+				rejectedOpen.incrementAndGet();
+				throw new KspayGatewayException("KSPay 통신장애(잠시후재시도)", KspayGatewayException.CODE_CIRCUIT_OPEN);
+			}
+			probing = true;
+			return true;
+		}
+
+		return false;
+	}
+
+	private synchronized void onSuccess(boolean probe) {
+
+		consecutiveFailures = 0;
+		if (probe) {
+			probing = false;
+			state = State.CLOSED;
+		}
+	}
+
+	private synchronized void onFailure(boolean probe) {
+
+		failures.incrementAndGet();
+		consecutiveFailures++;
+
+		if (probe || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			state = State.OPEN;
+			openedAt = clock.getAsLong();
+		}
+		if (probe) {
+			probing = false;
+		}
+	}
+
+	// 결과 없이 끝난 시험 요청(통신 전 중단 등)
+	private synchronized void endProbe() {
+		probing = false;
+	}
+
+	/**
+	 * 요청 허가
+	 * - record: 게이트웨이 통신 결과(응답 수신 여부) 기록
+	 * - close: 동시요청 반납, 결과를 기록하지 않은 경우 상태 변경 없음
+	 */
+	public final class Permit implements AutoCloseable {
+
+		private final boolean probe;
+		private boolean recorded;
+		private boolean closed;
+
+		private Permit(boolean probe) {
+			this.probe = probe;
+		}
+
+		public void record(boolean gatewayFailure) {
+
+			if (recorded || closed) {
+				return;
+			}
+			recorded = true;
+
+			if (gatewayFailure) {
+				onFailure(probe);
+			} else {
+				onSuccess(probe);
+			}
+		}
+
+		@Override
+		public void close() {
+
+			if (closed) {
+				return;
+			}
+			closed = true;
+
+			if (probe && !recorded) {
+				endProbe();
+			}
+			bulkhead.release();
+		}
+	}
+}
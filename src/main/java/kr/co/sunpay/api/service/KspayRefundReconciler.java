@@ -0,0 +1,218 @@
+package kr.co.sunpay.api.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import kr.co.sunpay.api.domain.KsnetRefundLog;
+import kr.co.sunpay.api.exception.KspayGatewayException;
+import kr.co.sunpay.api.model.KsnetRefundBody;
+import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import lombok.extern.java.Log;
+
+/**
+ * 결과 확인이 필요한 취소건(UNKNOWN) 처리
+ * - interval-ms 마다 min-age-ms 가 지난 UNKNOWN 취소건을 KSPay 에 같은 거래번호로 다시 취소 요청해서 결과 확인
+ *   (KSPay 거래 조회 전문이 없으므로 재요청 결과로 판단)
+ * - 취소 승인, 또는 기취소 응답(cancelled-messages 포함): 취소됨 → 예치금 차감 완료, 환불 완료
+ * - 취소안됨으로 확인된 거절(not-cancelled-messages 포함): 취소안됨 → 차감한 예치금 원복, 환불 오류(이후 다시 취소 요청 가능)
+ * - 그 외 취소거절: 기취소 응답 문구를 알 수 없으므로 판단하지 않음, UNKNOWN 유지(운영자 확인, 경고 로그)
+ * - 응답 없음/결과 알 수 없음/게이트웨이 차단: 다음 주기에 다시 확인
+ */
+@Log
+@Service
+public class KspayRefundReconciler {
+
+	@Autowired
+	KsnetService ksnetService;
+
+	@Autowired
+	KspayGatewayGuard gatewayGuard;
+
+	// 확인 주기, 0 이하면 확인하지 않음
+	@Value("${kspay.refund.reconcile.interval-ms:300000}")
+	long intervalMs;
+
+	// 취소 요청 후 이 시간이 지난 건만 확인(진행 중인 요청 제외, 통신 제한시간보다 길게)
+	@Value("${kspay.refund.reconcile.min-age-ms:120000}")
+	long minAgeMs;
+
+	// 기취소 응답 메시지(쉼표 구분, 응답 메시지1/2에 포함되면 이미 취소된 건)
+	@Value("${kspay.refund.reconcile.cancelled-messages:기취소,이미취소}")
+	String[] cancelledMessages;
+
+	// 취소안됨 응답 메시지(쉼표 구분, 응답 메시지1/2에 포함되면 취소되지 않은 건), 확인된 응답만 등록
+	@Value("${kspay.refund.reconcile.not-cancelled-messages:}")
+	String[] notCancelledMessages;
+
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong notCancelled = new AtomicLong();
+	private final AtomicLong deferred = new AtomicLong();
+	private final AtomicLong unrecognized = new AtomicLong();
+
+	private ScheduledExecutorService scheduler;
+
+	@PostConstruct
+	public void start() {
+
+		if (intervalMs <= 0) {
+			return;
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "kspay-refund-reconciler");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::reconcile, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void close() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * UNKNOWN 취소건 확인
+	 *
+	 * @return 처리한 건수
+	 */
+	public int reconcile() {
+
+		LocalDateTime before = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(minAgeMs));
+		List<KsnetRefundLog> refundLogs = ksnetService.getUnknownRefundLogs();
+
+		int resolved = 0;
+		for (KsnetRefundLog refundLog : refundLogs) {
+			if (refundLog.getCreatedDate() != null && refundLog.getCreatedDate().isAfter(before)) {
+				break;
+			}
+
+			try {
+				Boolean result = check(refundLog);
+				if (result == null) {
+					deferred.incrementAndGet();
+				} else if (ksnetService.resolveUnknownRefund(refundLog, result)) {
+					(result ? cancelled : notCancelled).incrementAndGet();
+					resolved++;
+				}
+			} catch (KspayGatewayException e) {
+				// 게이트웨이 차단/요청 초과, 다음 주기에 확인
+				log.warning("[환불확인]게이트웨이 사용 불가: " + e.getMessage());
+				break;
+			} catch (RuntimeException e) {
+				log.log(Level.WARNING, "[환불확인]확인 오류(trNo: " + refundLog.getTrNo() + ")", e);
+			}
+		}
+
+		if (resolved > 0) {
+			log.info("[환불확인]" + resolved + "건 처리, 남은 건 " + (refundLogs.size() - resolved));
+		}
+		return resolved;
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("refundReconcileCancelled", cancelled.get());
+		snapshot.put("refundReconcileNotCancelled", notCancelled.get());
+		snapshot.put("refundReconcileDeferred", deferred.get());
+		snapshot.put("refundReconcileUnrecognized", unrecognized.get());
+		return snapshot;
+	}
+
+	/**
+	 * 같은 거래번호로 다시 취소 요청
+	 *
+	 * @param refundLog
+	 * @return 취소됨 true, 취소안됨 false, 알 수 없음 null
+	 * @throws KspayGatewayException
+	 */
+	private Boolean check(KsnetRefundLog refundLog) throws KspayGatewayException {
+
+		KsnetRefundBody refund = new KsnetRefundBody();
+		refund.setStoreid(refundLog.getStoreId());
+		refund.setStorepasswd(refundLog.getStorePasswd());
+		refund.setTrno(refundLog.getTrNo());
+		refund.setAuthty(refundLog.getAuthty());
+
+		KspayRefundReturns result;
+		try (KspayGatewayGuard.Permit permit = gatewayGuard.acquire()) {
+			result = ksnetService.sendKSPay(refund);
+			permit.record(result.getOutcome() == Outcome.NO_RESPONSE || result.getOutcome() == Outcome.UNKNOWN);
+		}
+
+		Boolean cancelled = interpret(result);
+		if (Boolean.TRUE.equals(cancelled) && KsnetService.KSPAY_CANCEL_RSTATUS_TRUE.equals(result.getRStatus())) {
+			// 이번 요청으로 취소됨, 처리시 응답도 저장(기취소건 확인용)
+			refundLog.setResult(result);
+		}
+
+		if (cancelled == null && result.getOutcome() == Outcome.DECLINED) {
+			unrecognized.incrementAndGet();
+			log.warning("[환불확인]판단할 수 없는 취소거절, 확인 필요(trNo: " + refundLog.getTrNo() + ", 메시지: "
+					+ result.getRMessage1() + " / " + result.getRMessage2() + ")");
+		}
+		return cancelled;
+	}
+
+	/**
+	 * 재요청 응답 판단
+	 *
+	 * @param result
+	 * @return 취소됨 true, 취소안됨 false, 알 수 없음 null
+	 */
+	Boolean interpret(KspayRefundReturns result) {
+
+		if (KsnetService.KSPAY_CANCEL_RSTATUS_TRUE.equals(result.getRStatus())) {
+			return true;
+		}
+
+		if (result.getOutcome() != Outcome.DECLINED) {
+			return null;
+		}
+
+		if (contains(result, cancelledMessages)) {
+			return true;
+		}
+		if (contains(result, notCancelledMessages)) {
+			return false;
+		}
+		return null;
+	}
+
+	private boolean contains(KspayRefundReturns result, String[] messages) {
+
+		if (messages == null) {
+			return false;
+		}
+
+		for (String message : messages) {
+			String m = message.trim();
+			if (m.isEmpty()) {
+				continue;
+			}
+			if ((result.getRMessage1() != null && result.getRMessage1().contains(m))
+					|| (result.getRMessage2() != null && result.getRMessage2().contains(m))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,188 @@
+package kr.co.sunpay.api.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import ksnet.kspay.KSPayDeadline;
+
+/**
+ * KSPay 취소 재전송 정책
+ * - 승인구분별 최대 전송 횟수, 취소거절시 재전송 여부
+ * - 재전송 대상: 통신실패(NO_RESPONSE), 결과 알 수 없음(UNKNOWN), 취소거절(DECLINED, 설정한 승인구분만)
+ * - 대기시간: 지수 백오프 + full jitter, 요청 제한시간(KSPayDeadline) 안에서만 재전송
+ * - 재전송 예산: 요청마다 budgetRatio 만큼 쌓이고 재전송마다 1 차감, 장애 중 재전송이 부하를 키우지 않도록 제한
+ */
+public class KspayRetryPolicy {
+
+	private static final long TOKEN = 1000; // 예산 1회 = 1000
+
+	private final Map<String, Rule> rules = new ConcurrentHashMap<>();
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final long tokensPerRequest;
+	private final long maxTokens;
+
+	private final AtomicLong tokens;
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+
+	private final ScheduledExecutorService timer;
+
+	/**
+	 * 승인구분별 설정
+	 */
+	public static final class Rule {
+
+		private final int maxAttempts;
+		private final boolean retryOnDecline;
+
+		public Rule(int maxAttempts, boolean retryOnDecline) {
+			this.maxAttempts = Math.max(1, maxAttempts);
+			this.retryOnDecline = retryOnDecline;
+		}
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public boolean isRetryOnDecline() {
+			return retryOnDecline;
+		}
+	}
+
+	public KspayRetryPolicy(long baseDelayMillis, long maxDelayMillis, double budgetRatio, int budgetMaxTokens) {
+
+		this.baseDelayMillis = Math.max(1, baseDelayMillis);
+		this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+		this.tokensPerRequest = (long) (budgetRatio * TOKEN);
+		this.maxTokens = budgetMaxTokens * TOKEN;
+		this.tokens = new AtomicLong(this.maxTokens);
+
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "kspay-retry-timer");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public KspayRetryPolicy rule(String authty, int maxAttempts, boolean retryOnDecline) {
+		rules.put(authty, new Rule(maxAttempts, retryOnDecline));
+		return this;
+	}
+
+	/**
+	 * 재전송 대상 결과인지 확인
+	 *
+	 * @param authty
+	 * @param outcome
+	 * @return
+	 */
+	public boolean isRetryable(String authty, Outcome outcome) {
+
+		Rule rule = rules.get(authty);
+		if (rule == null || outcome == null) {
+			return false;
+		}
+
+		switch (outcome) {
+		case NO_RESPONSE:
+		case UNKNOWN:
+			return true;
+		case DECLINED:
+			return rule.isRetryOnDecline();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * attempt 번째 전송 결과에 대한 재전송 대기시간(ms)
+	 * - 재전송하지 않으면 -1
+	 * - 첫 전송 결과마다 재전송 예산을 적립
+	 *
+	 * @param authty
+	 * @param outcome
+	 * @param attempt 1부터
+	 * @param deadline 요청 제한시간(null 이면 제한 없음)
+	 * @return
+	 */
+	public long backoff(String authty, Outcome outcome, int attempt, KSPayDeadline deadline) {
+
+		if (attempt == 1) {
+			deposit();
+		}
+
+		Rule rule = rules.get(authty);
+		if (rule == null || attempt >= rule.getMaxAttempts() || !isRetryable(authty, outcome)) {
+			return -1;
+		}
+
+		long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+		long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+		// 대기 후 전송할 시간이 남지 않으면 재전송하지 않음
+		if (deadline != null && deadline.remainingMillis() <= delay) {
+			return -1;
+		}
+
+		if (!withdraw()) {
+			throttled.incrementAndGet();
+			return -1;
+		}
+
+		retries.incrementAndGet();
+		return delay;
+	}
+
+	/**
+	 * 비동기 재전송 대기
+	 *
+	 * @param delayMillis
+	 * @return
+	 */
+	public CompletableFuture<Void> delay(long delayMillis) {
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		timer.schedule(() -> future.complete(null), delayMillis, TimeUnit.MILLISECONDS);
+		return future;
+	}
+
+	public long getRetries() {
+		return retries.get();
+	}
+
+	public long getThrottled() {
+		return throttled.get();
+	}
+
+	public double getBudget() {
+		return (double) tokens.get() / TOKEN;
+	}
+
+	public void close() {
+		timer.shutdownNow();
+	}
+
+	private void deposit() {
+		tokens.accumulateAndGet(tokensPerRequest, (cur, add) -> Math.min(maxTokens, cur + add));
+	}
+
+	private boolean withdraw() {
+		while (true) {
+			long cur = tokens.get();
+			if (cur < TOKEN) {
+				return false;
+			}
+			if (tokens.compareAndSet(cur, cur - TOKEN)) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package kr.co.sunpay.api.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import kr.co.sunpay.api.domain.KsnetPayResult;
+import kr.co.sunpay.api.model.PaymentFinishOutcome;
+import kr.co.sunpay.api.repository.KsnetPayResultRepository;
+import lombok.extern.java.Log;
+
+/**
+ * 결제 마무리 중복 처리 방지(결제요청 UID + KSNet 결과 키(reCommConId) 기준)
+ * - 구매자 브라우저가 /ksnet/finish 를 재요청해도 KSNet 승인 확인, 결제결과 저장, PUSH 는 한번만
+ * - 처리중인 요청이 있으면 그 결과를 기다려 사용, 끝난 결과는 메모리에 max-entries 건까지 보관
+ * - 승인 실패 후 다시 결제하면(새 reCommConId) 이전 결과를 사용하지 않고 KSNet 승인 확인
+ * - 결제요청의 승인된 결제결과가 이미 있으면(재시작, 다른 서버 포함) 그 결과 사용
+ *   승인된 결제결과는 거래번호당 1건(db/kspay_pay_result_approved_trno.sql 유니크 인덱스)
+ */
+@Log
+@Service
+public class PaymentFinishGuard {
+
+	@Autowired
+	KsnetPayResultRepository ksnetPayResultRepo;
+
+	// 메모리에 보관하는 결제 마무리 결과 수
+	@Value("${kspay.finish.cache.max-entries:10000}")
+	int maxEntries;
+
+	// 결제요청 UID:reCommConId → 결제 마무리 결과
+	private final ConcurrentHashMap<String, CompletableFuture<PaymentFinishOutcome>> outcomes = new ConcurrentHashMap<>();
+
+	// 보관 순서(오래된 결과부터 정리)
+	private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * 결제 마무리 1회 실행
+	 *
+	 * @param payUid KsnetPay UID
+	 * @param reCommConId KSNet 결과 키
+	 * @param finish KSNet 승인 확인 + 결제결과 저장
+	 * @return 처음 요청이면 finish 결과, 재요청이면 저장된 결과
+	 */
+	public PaymentFinishOutcome finish(int payUid, String reCommConId, Supplier<PaymentFinishOutcome> finish) {
+
+		String key = payUid + ":" + reCommConId;
+		CompletableFuture<PaymentFinishOutcome> cached = outcomes.get(key);
+		if (cached != null) {
+			return await(payUid, cached);
+		}
+
+		CompletableFuture<PaymentFinishOutcome> mine = new CompletableFuture<>();
+		cached = outcomes.putIfAbsent(key, mine);
+		if (cached != null) {
+			return await(payUid, cached);
+		}
+
+		try {
+			PaymentFinishOutcome outcome = stored(payUid);
+			if (outcome == null) {
+				outcome = finish.get();
+			} else {
+				log.info("[결제마무리]저장된 결과 사용(uid: " + payUid + ")");
+			}
+
+			mine.complete(outcome);
+			order.add(key);
+			evict();
+			return outcome;
+
+		} catch (RuntimeException e) {
+			// 실패한 요청은 보관하지 않음(재요청시 다시 처리)
+			outcomes.remove(key, mine);
+			mine.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * 결제요청의 승인된 결제 마무리 결과
+	 *
+	 * @param payUid
+	 * @return 없으면 null
+	 */
+	public PaymentFinishOutcome stored(int payUid) {
+
+		KsnetPayResult ksnetPayResult = ksnetPayResultRepo.findFirstByKsnetPayUidAndAuthynOrderByUidAsc(payUid, "O")
+				.orElse(null);
+		return (ksnetPayResult == null) ? null : PaymentFinishOutcome.of(ksnetPayResult);
+	}
+
+	private PaymentFinishOutcome await(int payUid, CompletableFuture<PaymentFinishOutcome> cached) {
+
+		log.info("[결제마무리]재요청(uid: " + payUid + ")");
+		try {
+			return cached.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private void evict() {
+
+		while (outcomes.size() > maxEntries) {
+			String oldest = order.poll();
+			if (oldest == null) {
+				return;
+			}
+			outcomes.remove(oldest);
+		}
+	}
+}
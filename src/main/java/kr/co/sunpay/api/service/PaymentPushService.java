@@ -0,0 +1,245 @@
+package kr.co.sunpay.api.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import kr.co.sunpay.api.domain.FcmToken;
+import kr.co.sunpay.api.domain.KsnetPayResult;
+import kr.co.sunpay.api.model.PaymentCompletedEvent;
+import kr.co.sunpay.api.repository.KsnetPayResultRepository;
+import lombok.extern.java.Log;
+
+/**
+ * 결제 완료 처리 + 결제알림 PUSH 발송
+ * - 결제결과 저장과 함께 PaymentCompletedEvent 발행, 트랜잭션 커밋 후 PUSH 작업 스레드풀(kspayPushExecutor)에서 발송
+ * - 결제 완료 페이지(쇼핑몰 복귀)는 PUSH 발송(FCM)을 기다리지 않음
+ * - 발송 상태(READY -> SENDING -> SENT/FAILED)와 시도 횟수를 결제결과에 기록, FAILED 와 오래된 READY 건은 replay 로 재발송
+ * - 발송 작업은 시작할 때 상태를 SENDING 으로 바꿔서 가져감(조건부 UPDATE), 같은 건이 대기열에 두번 들어가도 한번만 발송
+ * - 일부 수신자만 실패하면 실패한 수신자를 기록, 재발송은 그 수신자에게만
+ */
+@Log
+@Service
+public class PaymentPushService {
+
+	@Autowired
+	KsnetPayResultRepository ksnetPayResultRepo;
+
+	@Autowired
+	PushService pushService;
+
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("kspayPushExecutor")
+	ExecutorService executor;
+
+	// 이 시간이 지나도록 READY 인 건은 발송되지 않은 것으로 보고 재발송(서버 재시작, 대기열 초과)
+	@Value("${kspay.push.replay.ready-after-ms:60000}")
+	long readyAfterMs;
+
+	// 이 시간이 지나도록 SENDING 인 건은 발송 중 중단된 것으로 보고 재발송(서버 종료 등)
+	@Value("${kspay.push.replay.sending-after-ms:600000}")
+	long sendingAfterMs;
+
+	// 최대 발송 시도 횟수(재발송 포함)
+	@Value("${kspay.push.replay.max-tries:5}")
+	int maxTries;
+
+	// 재발송 1회 상태별 최대 건수(요청 limit 상한)
+	@Value("${kspay.push.replay.max-limit:500}")
+	int maxLimit;
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+
+	/**
+	 * 결제결과 저장 및 결제 완료 이벤트 발행
+	 * 
+	 * @param ksnetPayResult
+	 * @return 저장된 결제결과
+	 */
+	@Transactional
+	public KsnetPayResult complete(KsnetPayResult ksnetPayResult) {
+
+		ksnetPayResult.setPushStatusCode(KsnetPayResult.PUSH_READY);
+		ksnetPayResult.setPushTryCount(0);
+
+		KsnetPayResult saved = ksnetPayResultRepo.save(ksnetPayResult);
+		eventPublisher.publishEvent(new PaymentCompletedEvent(saved.getUid(), saved.getStoreId()));
+
+		return saved;
+	}
+
+	/**
+	 * 결제결과 커밋 후 PUSH 발송 요청
+	 * 
+	 * @param event
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPaymentCompleted(PaymentCompletedEvent event) {
+		dispatch(event.getPayResultUid(), KsnetPayResult.PUSH_READY);
+	}
+
+	/**
+	 * 발송 실패건(FAILED), 발송되지 않은 건(READY), 발송 중 중단된 건(SENDING) 재발송
+	 * - 대기열에 남아있는 READY 건을 다시 넣어도 먼저 시작한 작업만 발송
+	 * 
+	 * @param limit 상태별 최대 건수(1 ~ kspay.push.replay.max-limit)
+	 * @return 재발송 요청 건수
+	 */
+	public int replay(int limit) {
+
+		LocalDateTime now = LocalDateTime.now();
+		PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxLimit)));
+
+		List<KsnetPayResult> targets = new ArrayList<KsnetPayResult>();
+		targets.addAll(ksnetPayResultRepo.findByPushStatusCodeAndPushTryCountLessThanAndUpdatedDateBeforeOrderByUidAsc(
+				KsnetPayResult.PUSH_FAILED, maxTries, now, page));
+		targets.addAll(ksnetPayResultRepo.findByPushStatusCodeAndPushTryCountLessThanAndUpdatedDateBeforeOrderByUidAsc(
+				KsnetPayResult.PUSH_READY, maxTries, now.minus(readyAfterMs, ChronoUnit.MILLIS), page));
+		targets.addAll(ksnetPayResultRepo.findByPushStatusCodeAndPushTryCountLessThanAndUpdatedDateBeforeOrderByUidAsc(
+				KsnetPayResult.PUSH_SENDING, maxTries, now.minus(sendingAfterMs, ChronoUnit.MILLIS), page));
+
+		int count = 0;
+		for (KsnetPayResult target : targets) {
+			if (dispatch(target.getUid(), target.getPushStatusCode())) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("pushSent", sent.get());
+		snapshot.put("pushFailed", failed.get());
+		snapshot.put("pushRejected", rejected.get());
+		snapshot.put("pushSkipped", skipped.get());
+		return snapshot;
+	}
+
+	// 대기열 초과시 READY 상태로 남고 replay 대상이 됨
+	private boolean dispatch(int payResultUid, String fromStatusCode) {
+
+		try {
+			executor.execute(() -> deliver(payResultUid, fromStatusCode));
+			return true;
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			log.warning("[결제알림]PUSH 대기열 초과(uid: " + payResultUid + ")");
+			return false;
+		}
+	}
+
+	private void deliver(int payResultUid, String fromStatusCode) {
+
+		// 다른 작업(대기열에 두번 들어간 건, 다른 서버의 재발송)이 이미 가져간 건은 발송하지 않음
+		if (!claim(payResultUid, fromStatusCode)) {
+			skipped.incrementAndGet();
+			return;
+		}
+
+		List<FcmToken> failures;
+		try {
+			// 수신자 조회(상점 > 멤버 > FCM TOKEN)만 트랜잭션 안에서, FCM 발송은 DB 연결 없이
+			PendingPush pending = readOnlyTx().execute(status -> {
+				KsnetPayResult ksnetPayResult = ksnetPayResultRepo.findById(payResultUid).orElse(null);
+				if (ksnetPayResult == null) {
+					return null;
+				}
+				return new PendingPush(
+						retryTokens(pushService.getTokensByStoreId(ksnetPayResult.getStoreId()),
+								ksnetPayResult.getPushFailedTokens()),
+						pushService.paidMessage(ksnetPayResult));
+			});
+			if (pending == null) {
+				return;
+			}
+
+			failures = pushService.sendPushFailures(pending.tokens, pending.msg);
+		} catch (Exception e) {
+			// 발송 전 오류, 실패한 수신자 기록은 그대로
+			log.log(Level.WARNING, "[결제알림]PUSH 발송 오류(uid: " + payResultUid + ")", e);
+			failed.incrementAndGet();
+			ksnetPayResultRepo.updatePushStatus(payResultUid, KsnetPayResult.PUSH_FAILED);
+			return;
+		}
+
+		boolean ok = failures.isEmpty();
+		(ok ? sent : failed).incrementAndGet();
+		ksnetPayResultRepo.updatePushResult(payResultUid, ok ? KsnetPayResult.PUSH_SENT : KsnetPayResult.PUSH_FAILED,
+				ok ? null : failures.stream().map(t -> String.valueOf(t.getUid())).collect(Collectors.joining(",")));
+	}
+
+	private boolean claim(int payResultUid, String fromStatusCode) {
+
+		if (KsnetPayResult.PUSH_SENDING.equals(fromStatusCode)) {
+			return ksnetPayResultRepo.claimStalePush(payResultUid,
+					LocalDateTime.now().minus(sendingAfterMs, ChronoUnit.MILLIS)) > 0;
+		}
+		return ksnetPayResultRepo.claimPush(payResultUid, fromStatusCode) > 0;
+	}
+
+	/**
+	 * 재발송 수신자(이전 발송에서 실패한 수신자만), 기록이 없으면 전체
+	 */
+	private List<FcmToken> retryTokens(List<FcmToken> tokens, String failedTokens) {
+
+		if (failedTokens == null || failedTokens.isEmpty()) {
+			return tokens;
+		}
+
+		Set<String> uids = new HashSet<String>(Arrays.asList(failedTokens.split(",")));
+		return tokens.stream().filter(t -> uids.contains(String.valueOf(t.getUid()))).collect(Collectors.toList());
+	}
+
+	private TransactionTemplate readOnlyTx() {
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setReadOnly(true);
+		return tx;
+	}
+
+	private static class PendingPush {
+
+		final List<FcmToken> tokens;
+		final Map<String, String> msg;
+
+		PendingPush(List<FcmToken> tokens, Map<String, String> msg) {
+			this.tokens = tokens;
+			this.msg = msg;
+		}
+	}
+}
@@ -21,7 +21,6 @@ import kr.co.sunpay.api.domain.KsnetRefundLog;
 import kr.co.sunpay.api.domain.KsnetPayResult;
 import kr.co.sunpay.api.domain.Member;
 import kr.co.sunpay.api.domain.Store;
-import kr.co.sunpay.api.domain.StoreId;
 import kr.co.sunpay.api.repository.FcmTokenRepository;
 import kr.co.sunpay.api.repository.StoreIdRepository;
 import kr.co.sunpay.api.repository.StoreRepository;
@@ -47,6 +46,9 @@ public class PushService {
 	
 	@Autowired
 	StoreService storeService;
+	
+	@Autowired
+	DepositBalanceService depositBalances;
 
 	// FCM 토큰 테스트
 	public boolean sendTest(String fcmToken, Map<String, String> msg) {
@@ -81,22 +83,59 @@ public class PushService {
 	/**
 	 * KSNET 결제 결과 PUSH
 	 * @param ksnetPayResult
+	 * @return 모든 수신자에게 발송 성공(수신자 없음 포함)
 	 */
-	public void sendPush(KsnetPayResult ksnetPayResult) {
+	public boolean sendPush(KsnetPayResult ksnetPayResult) {
 
 		// 상점 ID로 수신자 조회
 		List<FcmToken> tokens = getTokensByStoreId(ksnetPayResult.getStoreId());
 		
+		return sendPush(tokens, paidMessage(ksnetPayResult));
+	}
+
+	/**
+	 * KSNET 결제 결과 PUSH 메세지
+	 * @param ksnetPayResult
+	 * @return
+	 */
+	public Map<String, String> paidMessage(KsnetPayResult ksnetPayResult) {
+
 		Map<String, String> msg = new HashMap<String, String>();
 		msg.put("cate", "paid");
 		msg.put("isDisplay", "Y");
 		msg.put("title", "결제알림");
 		msg.put("message", ksnetPayResult.msgGenerator());
 		
-		tokens.forEach(token -> {
+		return msg;
+	}
+
+	/**
+	 * 수신자별 PUSH 발송
+	 * @param tokens
+	 * @param msg
+	 * @return 모든 수신자에게 발송 성공(수신자 없음 포함)
+	 */
+	public boolean sendPush(List<FcmToken> tokens, Map<String, String> msg) {
+		return sendPushFailures(tokens, msg).isEmpty();
+	}
+
+	/**
+	 * 수신자별 PUSH 발송
+	 * @param tokens
+	 * @param msg
+	 * @return 발송 실패한 수신자
+	 */
+	public List<FcmToken> sendPushFailures(List<FcmToken> tokens, Map<String, String> msg) {
+
+		List<FcmToken> failures = new ArrayList<FcmToken>();
+		for (FcmToken token : tokens) {
 			msg.put("user", token.getId());
-			push(token.getFcmToken(), msg);
-		});
+			if (!push(token.getFcmToken(), msg)) {
+				failures.add(token);
+			}
+		}
+		
+		return failures;
 	}
 
 	/**
@@ -105,15 +144,15 @@ public class PushService {
 	 */
 	public void sendPush(KsnetRefundLog refundLog) {
 
-		// 상점 ID로 수신자 조회
-		List<FcmToken> tokens = getTokensByStoreId(refundLog.getStoreId());
-		
 		// 상점 조회
 		Store store = storeService.getStoreByStoreId(refundLog.getStoreId());
 
+		// 상점으로 수신자 조회
+		List<FcmToken> tokens = getTokensByStore(store);
+
 		Map<String, String> msg = new HashMap<String, String>();
 		String msgText = refundLog.msgGenerator()
-				+ "\n예치금 잔액: " +  store.getDeposit();
+				+ "\n예치금 잔액: " +  depositBalances.getBalance(store.getUid());
 		
 		msg.put("cate", "refund");
 		msg.put("isDisplay", "Y");
@@ -163,9 +202,8 @@ public class PushService {
 
 	public List<FcmToken> getTokensByStoreId(String id) {
 		
-		// 상점ID로 상점 조회 > 상점의 멤버 > FCM TOKEN 조회
-		StoreId storeId = storeIdRepo.findById(id).orElse(null);
-		Store store = storeRepo.findByStoreIds(storeId).orElse(null);
+		// 상점ID로 상점 조회(라우팅 테이블) > 상점의 멤버 > FCM TOKEN 조회
+		Store store = storeService.getStoreByStoreId(id);
 		
 		return getTokensByStore(store);
 	}
@@ -0,0 +1,174 @@
+package kr.co.sunpay.api.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import kr.co.sunpay.api.domain.Store;
+import kr.co.sunpay.api.domain.StoreId;
+import kr.co.sunpay.api.model.StoreRoute;
+import kr.co.sunpay.api.repository.StoreIdRepository;
+
+/**
+ * 상점ID → 상점 라우팅 테이블(상점 UID, 활성상태 상점ID, 정산 타입, 예치금 번호)
+ * - 결제 요청, PUSH, 예치금 처리에서 상점ID로 상점을 찾을 때 DB 조회 대신 사용
+ * - 처음 조회할 때 상점의 모든 상점ID를 한번에 등록
+ * - 상점ID 생성/수정/삭제/활성화, 순간정산 ON/OFF 시 StoreService 에서 상점 단위로 정리(invalidate)
+ *   트랜잭션 중이면 커밋 후 한번 더 정리(커밋 전 다른 요청이 이전 값을 다시 등록하는 경우)
+ * - 정리는 변경한 서버에서만 되므로 ttl-ms 가 지나면 다시 조회(다른 서버의 변경은 최대 ttl-ms 후 반영)
+ */
+@Service
+public class StoreRoutingTable {
+
+	@Autowired
+	StoreIdRepository storeIdRepo;
+
+	// 등록 후 다시 조회할 때까지 시간, 0 이하면 정리될 때까지 사용
+	@Value("${kspay.store.routing.ttl-ms:60000}")
+	long ttlMs;
+
+	private static class Entry {
+
+		final StoreRoute route;
+		final long expiresAt;
+
+		Entry(StoreRoute route, long expiresAt) {
+			this.route = route;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Entry> routes = new ConcurrentHashMap<>();
+
+	// 상점 UID → Entry(상점 단위 정리)
+	private final ConcurrentHashMap<Integer, Entry> byStore = new ConcurrentHashMap<>();
+
+	// 정리할 때마다 증가, 조회 중 정리된 경우 등록하지 않음
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	/**
+	 * 상점ID의 라우팅 정보
+	 *
+	 * @param storeId
+	 * @return 등록되지 않은 상점ID면 null
+	 */
+	public StoreRoute get(String storeId) {
+
+		if (storeId == null) {
+			return null;
+		}
+
+		Entry entry = routes.get(storeId);
+		if (entry != null) {
+			if (ttlMs <= 0 || entry.expiresAt > System.currentTimeMillis()) {
+				hits.incrementAndGet();
+				return entry.route;
+			}
+			expire(entry);
+		}
+
+		misses.incrementAndGet();
+		return load(storeId);
+	}
+
+	/**
+	 * 상점의 라우팅 정보 정리
+	 *
+	 * @param storeUid
+	 */
+	public void invalidate(int storeUid) {
+
+		evict(storeUid);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					evict(storeUid);
+				}
+			});
+		}
+	}
+
+	public Map<String, Object> snapshot() {
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("storeRoutes", routes.size());
+		snapshot.put("storeRouteHits", hits.get());
+		snapshot.put("storeRouteMisses", misses.get());
+		snapshot.put("storeRouteInvalidations", invalidations.get());
+		snapshot.put("storeRouteExpirations", expirations.get());
+		return snapshot;
+	}
+
+	private StoreRoute load(String storeId) {
+
+		long gen = generation.get();
+
+		StoreId id = storeIdRepo.findById(storeId).orElse(null);
+		if (id == null || id.getStore() == null) {
+			return null;
+		}
+
+		Store store = id.getStore();
+		List<StoreId> ids = storeIdRepo.findByStore(store);
+
+		Map<String, String> serviceTypes = new LinkedHashMap<>();
+		StoreId activated = null;
+		for (StoreId sId : ids) {
+			serviceTypes.put(sId.getId(), sId.getServiceTypeCode());
+			if (activated == null && Boolean.TRUE.equals(sId.getActivated())) {
+				activated = sId;
+			}
+		}
+
+		StoreRoute route = new StoreRoute(store.getUid(), (activated == null) ? null : activated.getId(),
+				(activated == null) ? null : activated.getServiceTypeCode(), store.getDepositNo(), serviceTypes);
+
+		Entry entry = new Entry(route, System.currentTimeMillis() + ttlMs);
+		synchronized (this) {
+			if (generation.get() == gen) {
+				byStore.put(route.getStoreUid(), entry);
+				serviceTypes.keySet().forEach(key -> routes.put(key, entry));
+			}
+		}
+
+		return route;
+	}
+
+	private synchronized void evict(int storeUid) {
+
+		generation.incrementAndGet();
+		invalidations.incrementAndGet();
+
+		Entry entry = byStore.remove(storeUid);
+		if (entry != null) {
+			entry.route.getServiceTypes().keySet().forEach(routes::remove);
+		}
+	}
+
+	/**
+	 * 만료된 라우팅 정보 정리(그 사이 다시 등록된 정보는 그대로 둠)
+	 * - 상점 정보 변경이 아니므로 조회 중인 다른 등록은 취소하지 않음(generation 유지)
+	 */
+	private synchronized void expire(Entry entry) {
+
+		if (byStore.remove(entry.route.getStoreUid(), entry)) {
+			expirations.incrementAndGet();
+		}
+		entry.route.getServiceTypes().keySet().forEach(key -> routes.remove(key, entry));
+	}
+}
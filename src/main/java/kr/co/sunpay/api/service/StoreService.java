@@ -21,6 +21,7 @@ import kr.co.sunpay.api.domain.Store;
 import kr.co.sunpay.api.domain.StoreId;
 import kr.co.sunpay.api.model.MemberResponse;
 import kr.co.sunpay.api.model.StoreRequest;
+import kr.co.sunpay.api.model.StoreRoute;
 import kr.co.sunpay.api.repository.StoreIdRepository;
 import kr.co.sunpay.api.repository.StoreRepository;
 import kr.co.sunpay.api.util.Sunpay;
@@ -46,6 +47,12 @@ public class StoreService extends MemberService {
 	@Autowired
 	PushService pushService;
 
+	@Autowired
+	StoreRoutingTable storeRouting;
+
+	@Autowired
+	DepositBalanceService depositBalances;
+
 	public static final String SERVICE_TYPE_INSTANT = "INSTANT";
 	public static final String SERVICE_TYPE_D2 = "D2";
 
@@ -428,7 +435,7 @@ public class StoreService extends MemberService {
 		validator(store);
 
 		// 상점 데이터 셋팅
-		store.setDeposit(0);
+		// 예치금은 0 으로 생성(요청 값 없음), 이후 DepositLedger 로만 변경
 
 		// 상점ID는 상점ID 등록 API를 이용해야 함
 		store.setStoreIds(null);
@@ -640,7 +647,8 @@ public class StoreService extends MemberService {
 	 */
 	public boolean isInstantOn(String storeId) {
 
-		if (storeId != null && storeIdRepo.findByIdAndActivated(storeId, true).isPresent())
+		StoreRoute route = storeRouting.get(storeId);
+		if (route != null && route.isActivated(storeId))
 			return true;
 
 		return false;
@@ -663,17 +671,17 @@ public class StoreService extends MemberService {
 	}
 
 	/**
-	 * 상점 ID로 상점 리턴
+	 * 상점 ID로 상점 리턴(상점ID → 상점 UID 는 라우팅 테이블에서 찾음)
 	 * 
 	 * @param storeId
 	 * @return
 	 */
 	public Store getStoreByStoreId(String storeId) {
 
-		StoreId id = storeIdRepo.findById(storeId).orElse(null);
+		StoreRoute route = storeRouting.get(storeId);
 
-		if (id != null) {
-			Store store = storeRepo.findByStoreIds(id).orElse(null);
+		if (route != null) {
+			Store store = storeRepo.findByUid(route.getStoreUid()).orElse(null);
 			return store;
 		}
 
@@ -728,6 +736,7 @@ public class StoreService extends MemberService {
 
 		// 상점 정보 저장
 		storeRepo.save(store);
+		storeRouting.invalidate(store.getUid());
 		return store;
 	}
 
@@ -753,6 +762,7 @@ public class StoreService extends MemberService {
 		}
 
 		storeRepo.save(store);
+		storeRouting.invalidate(store.getUid());
 	}
 
 	/**
@@ -782,6 +792,7 @@ public class StoreService extends MemberService {
 		}
 
 		storeRepo.save(store);
+		storeRouting.invalidate(store.getUid());
 	}
 
 	/**
@@ -796,8 +807,9 @@ public class StoreService extends MemberService {
 		if (store == null)
 			throw new IllegalArgumentException("상점 정보를 찾을 수 없습니다.");
 
-		// 예치금이 최소예치금보다 작은 경우 활성화 안됨, 리턴
-		if (store.getDeposit() < store.getMinDeposit()) {
+		// 예치금(예치금 내역 기준 잔액)이 최소예치금보다 작은 경우 활성화 안됨, 리턴
+		Integer deposit = depositBalances.getBalance(storeUid);
+		if (deposit == null || deposit < store.getMinDeposit()) {
 			instantOff(storeUid, sendPush);
 			throw new IllegalArgumentException("예치금이 부족합니다.");
 		}
@@ -824,6 +836,7 @@ public class StoreService extends MemberService {
 		// 순간정산ID 찾았을 경우에만 저장
 		if (isInstantOn) {
 			storeRepo.save(store);
+			storeRouting.invalidate(store.getUid());
 
 			if (sendPush)
 				pushInstantOn(store);
@@ -872,6 +885,7 @@ public class StoreService extends MemberService {
 		// 순간정산ID 찾았을 경우에만 저장
 		if (isInstantOff) {
 			storeRepo.save(store);
+			storeRouting.invalidate(store.getUid());
 
 			// 순간 > 일반 전환 PUSH 발송
 			if (sendPush)
@@ -1028,6 +1042,7 @@ public class StoreService extends MemberService {
 
 		if (isUpdated) {
 			storeRepo.save(store);
+			storeRouting.invalidate(store.getUid());
 		}
 
 		return store;
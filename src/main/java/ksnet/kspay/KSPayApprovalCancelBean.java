@@ -2,6 +2,8 @@ package ksnet.kspay;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import ksnet.kspay.KSPaySocketBean;
 import lombok.ToString;
 
@@ -19,14 +21,24 @@ import lombok.ToString;
 @ToString
 public class KSPayApprovalCancelBean{
 	
-	private static final String MSG_ENCODING = "ksc5601";
-	
 	private String              IPAddr;
 	private int                 Port;
 	
 	private KSPaySocketBean     KSPaySocket;
+	private KSPaySocketPool     SocketPool;         // 연결 풀(null 이면 요청마다 새로 연결)
+	private KSPayDeadline       Deadline;           // 통신 제한시간(null 이면 제한 없음)
+	private boolean             OutcomeUnknown;     // 요청 전송 후 응답 없음(처리 여부 알 수 없음)
+	private KSPayFrame          Frame;              // 수신 전문
+	private KSPayTelegram       Telegram;           // 수신 전문 해석 결과
+	private List<KSPayResult>   Results;            // 승인구분별 결과 (getResults 호출시 생성)
+	private boolean             LegacyFields = true;// false 이면 응답 필드(배열)를 채우지 않고 Telegram 만 사용
 	
 	public String               HeadMsg;            //Head Message
+	
+	private KSPayCancelTemplate Template;           // 취소요청 템플릿 (CancelMessage)
+	private String[]            TemplateSlots;      // 전송구분, 요청일자, 상점아이디
+	private String[]            TemplateApprovalTypes;  // 승인구분 (복합취소는 건별)
+	private String[]            TemplateTransactionNos; // 거래번호 (복합취소는 건별)
 	public String               DataMsg;
 	public String               SendMsg;
 	public String               ReceiveMsg;
@@ -54,199 +66,204 @@ public class KSPayApprovalCancelBean{
                     ApprovalCount   ,                            // 복합승인갯수
                     HeadFiller      ;                            // 예비
 
+    /*
+    **  응답 필드 (승인구분별 ReceiveCount 건)
+    **  기존 방식으로 응답을 받거나(LegacyFields) FillLegacyFields() 를 호출할 때 생성된다.
+    **  필요한 결과만 읽는 경우 getResult() 를 사용한다.
+    */
     /* 신용카드승인결과 */
-    public String[] ApprovalType     = new String[MAXSIZE],      // 승인구분
-                    TransactionNo    = new String[MAXSIZE],      // 거래번호
-                    Status           = new String[MAXSIZE],      // 상태 O : 승인 , X : 거절
-                    TradeDate        = new String[MAXSIZE],      // 거래일자
-                    TradeTime        = new String[MAXSIZE],      // 거래시간
-                    IssCode          = new String[MAXSIZE],      // 발급사코드
-                    AquCode          = new String[MAXSIZE],      // 매입사코드
-                    AuthNo           = new String[MAXSIZE],      // 승인번호 or 거절시 오류코드
-                    Message1         = new String[MAXSIZE],      // 메시지1
-                    Message2         = new String[MAXSIZE],      // 메시지2
-                    CardNo           = new String[MAXSIZE],      // 카드번호
-                    ExpDate          = new String[MAXSIZE],      // 유효기간
-                    Installment      = new String[MAXSIZE],      // 할부
-                    Amount           = new String[MAXSIZE],      // 금액
-                    MerchantNo       = new String[MAXSIZE],      // 가맹점번호
-                    AuthSendType     = new String[MAXSIZE],      // 전송구분= new String[MAXSIZE]
-                    ApprovalSendType = new String[MAXSIZE],      // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
-                    Point1           = new String[MAXSIZE],      
-                    Point2           = new String[MAXSIZE],      
-                    Point3           = new String[MAXSIZE],      
-                    Point4           = new String[MAXSIZE],      
-                    VanTransactionNo = new String[MAXSIZE],      // Van 거래번호
-                    Filler           = new String[MAXSIZE],      // 예비
-                    AuthType         = new String[MAXSIZE],      // ISP : ISP거래, MP1, MP2 : MPI거래, SPACE : 일반거래
-                    MPIPositionType  = new String[MAXSIZE],      // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
-                    MPIReUseType     = new String[MAXSIZE],      // Y : 재사용, N : 재사용아님
-                    EncData          = new String[MAXSIZE];      // MPI, ISP 데이터
+    public String[] ApprovalType,                                // 승인구분
+                    TransactionNo,                               // 거래번호
+                    Status,                                      // 상태 O : 승인 , X : 거절
+                    TradeDate,                                   // 거래일자
+                    TradeTime,                                   // 거래시간
+                    IssCode,                                     // 발급사코드
+                    AquCode,                                     // 매입사코드
+                    AuthNo,                                      // 승인번호 or 거절시 오류코드
+                    Message1,                                    // 메시지1
+                    Message2,                                    // 메시지2
+                    CardNo,                                      // 카드번호
+                    ExpDate,                                     // 유효기간
+                    Installment,                                 // 할부
+                    Amount,                                      // 금액
+                    MerchantNo,                                  // 가맹점번호
+                    AuthSendType,                                // 전송구분= new String[MAXSIZE]
+                    ApprovalSendType,                            // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
+                    Point1,                                      
+                    Point2,                                      
+                    Point3,                                      
+                    Point4,                                      
+                    VanTransactionNo,                            // Van 거래번호
+                    Filler,                                      // 예비
+                    AuthType,                                    // ISP : ISP거래, MP1, MP2 : MPI거래, SPACE : 일반거래
+                    MPIPositionType,                             // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
+                    MPIReUseType,                                // Y : 재사용, N : 재사용아님
+                    EncData;                                     // MPI, ISP 데이터
 
     /* 가상계좌승인결과 */
     public String[]
-                    VATransactionNo  = new String[MAXSIZE],
-                    VAStatus         = new String[MAXSIZE],
-                    VATradeDate      = new String[MAXSIZE],
-                    VATradeTime      = new String[MAXSIZE],
-                    VABankCode       = new String[MAXSIZE],
-                    VAVirAcctNo      = new String[MAXSIZE],
-                    VAName           = new String[MAXSIZE],
-                    VACloseDate      = new String[MAXSIZE],
-                    VACloseTime      = new String[MAXSIZE],
-                    VARespCode       = new String[MAXSIZE],
-                    VAMessage1       = new String[MAXSIZE],
-                    VAMessage2       = new String[MAXSIZE],
-                    VAAmount         = new String[MAXSIZE],
-                    VAFiller         = new String[MAXSIZE];
+                    VATransactionNo,                       
+                    VAStatus,                              
+                    VATradeDate,                           
+                    VATradeTime,                           
+                    VABankCode,                            
+                    VAVirAcctNo,                           
+                    VAName,                                
+                    VACloseDate,                           
+                    VACloseTime,                           
+                    VARespCode,                            
+                    VAMessage1,                            
+                    VAMessage2,                            
+                    VAAmount,                              
+                    VAFiller;                              
 
     /* 월드패스승인결과 */
     public String[]
-                    WPTransactionNo  = new String[MAXSIZE],
-                    WPStatus         = new String[MAXSIZE],
-                    WPTradeDate      = new String[MAXSIZE],
-                    WPTradeTime      = new String[MAXSIZE],
-                    WPIssCode        = new String[MAXSIZE],      // 발급사코드
-                    WPAuthNo         = new String[MAXSIZE],      // 승인번호
-                    WPBalanceAmount  = new String[MAXSIZE],      // 잔액
-                    WPLimitAmount    = new String[MAXSIZE],      // 한도액
-                    WPMessage1       = new String[MAXSIZE],      // 메시지1
-                    WPMessage2       = new String[MAXSIZE],      // 메시지2
-                    WPCardNo         = new String[MAXSIZE],      // 카드번호
-                    WPAmount         = new String[MAXSIZE],      // 금액
-                    WPMerchantNo     = new String[MAXSIZE],      // 가맹점번호
-                    WPFiller         = new String[MAXSIZE];      // 예비
+                    WPTransactionNo,                       
+                    WPStatus,                              
+                    WPTradeDate,                           
+                    WPTradeTime,                           
+                    WPIssCode,                                   // 발급사코드
+                    WPAuthNo,                                    // 승인번호
+                    WPBalanceAmount,                             // 잔액
+                    WPLimitAmount,                               // 한도액
+                    WPMessage1,                                  // 메시지1
+                    WPMessage2,                                  // 메시지2
+                    WPCardNo,                                    // 카드번호
+                    WPAmount,                                    // 금액
+                    WPMerchantNo,                                // 가맹점번호
+                    WPFiller;                                    // 예비
 
     /* 포인트카드승인결과 */
     public String[]
-                    PTransactionNo   = new String[MAXSIZE],      // 거래번호
-                    PStatus          = new String[MAXSIZE],      // 상태 O : 승인 , X : 거절
-                    PTradeDate       = new String[MAXSIZE],      // 거래일자
-                    PTradeTime       = new String[MAXSIZE],      // 거래시간
-                    PIssCode         = new String[MAXSIZE],      // 발급사코드
-                    PAuthNo          = new String[MAXSIZE],      // 승인번호 or 거절시 오류코드
-                    PMessage1        = new String[MAXSIZE],      // 메시지1
-                    PMessage2        = new String[MAXSIZE],      // 메시지2
-                    PPoint1          = new String[MAXSIZE],      // 거래포인트
-                    PPoint2          = new String[MAXSIZE],      // 가용포인트
-                    PPoint3          = new String[MAXSIZE],      // 누적포인트
-                    PPoint4          = new String[MAXSIZE],      // 가맹점포인트
-                    PMerchantNo      = new String[MAXSIZE],      // 가맹점번호
-                    PNotice1         = new String[MAXSIZE],      //
-                    PNotice2         = new String[MAXSIZE],      //
-                    PNotice3         = new String[MAXSIZE],      //
-                    PNotice4         = new String[MAXSIZE],      //
-                    PFiller          = new String[MAXSIZE];      // 예비
+                    PTransactionNo,                              // 거래번호
+                    PStatus,                                     // 상태 O : 승인 , X : 거절
+                    PTradeDate,                                  // 거래일자
+                    PTradeTime,                                  // 거래시간
+                    PIssCode,                                    // 발급사코드
+                    PAuthNo,                                     // 승인번호 or 거절시 오류코드
+                    PMessage1,                                   // 메시지1
+                    PMessage2,                                   // 메시지2
+                    PPoint1,                                     // 거래포인트
+                    PPoint2,                                     // 가용포인트
+                    PPoint3,                                     // 누적포인트
+                    PPoint4,                                     // 가맹점포인트
+                    PMerchantNo,                                 // 가맹점번호
+                    PNotice1,                                    //
+                    PNotice2,                                    //
+                    PNotice3,                                    //
+                    PNotice4,                                    //
+                    PFiller;                                     // 예비
 
     /* 현금영수증승인결과 */
     public String[]
-                    HTransactionNo     = new String[MAXSIZE],    // 거래번호
-                    HStatus            = new String[MAXSIZE],    // 오류구분 O:정상 X:거절
-                    HCashTransactionNo = new String[MAXSIZE],    // 현금영수증 거래번호
-                    HIncomeType        = new String[MAXSIZE],    // 0: 소득      1: 비소득
-                    HTradeDate         = new String[MAXSIZE],    // 거래 개시 일자
-                    HTradeTime         = new String[MAXSIZE],    // 거래 개시 시간
-                    HMessage1          = new String[MAXSIZE],    // 응답 message1
-                    HMessage2          = new String[MAXSIZE],    // 응답 message2
-                    HCashMessage1      = new String[MAXSIZE],    // 국세청 메시지 1
-                    HCashMessage2      = new String[MAXSIZE],    // 국세청 메시지 2
-                    HFiller            = new String[MAXSIZE];    // 예비
+                    HTransactionNo,                              // 거래번호
+                    HStatus,                                     // 오류구분 O:정상 X:거절
+                    HCashTransactionNo,                          // 현금영수증 거래번호
+                    HIncomeType,                                 // 0: 소득      1: 비소득
+                    HTradeDate,                                  // 거래 개시 일자
+                    HTradeTime,                                  // 거래 개시 시간
+                    HMessage1,                                   // 응답 message1
+                    HMessage2,                                   // 응답 message2
+                    HCashMessage1,                               // 국세청 메시지 1
+                    HCashMessage2,                               // 국세청 메시지 2
+                    HFiller;                                     // 예비
 
     /*핸드폰 인증1차 승인결과*/
     public String[]
-                    MB1ApprovalType  = new String[MAXSIZE],      /* 구분코드 */
-                    MB1TransactionNo = new String[MAXSIZE],      /* 거래번호 */
-                    MB1Status        = new String[MAXSIZE],      /* 상태 : O, X */
-                    MB1TradeDate     = new String[MAXSIZE],      /* 거래일자 */
-                    MB1TradeTime     = new String[MAXSIZE],      /* 거래시간 */
-                    MB1Serverinfo    = new String[MAXSIZE],      /* 서버INFO : 업체에서는 보관 필요 없음 예비로 */
-                    MB1Smsval        = new String[MAXSIZE],      /* 다날의 경우 space */
-                    MB1Stanrespcode  = new String[MAXSIZE],      /* 응답코드 */
-                    MB1Message       = new String[MAXSIZE],      /* 에러메시지 */
-                    MB1Filler        = new String[MAXSIZE];
+                    MB1ApprovalType,                             /* 구분코드 */
+                    MB1TransactionNo,                            /* 거래번호 */
+                    MB1Status,                                   /* 상태 : O, X */
+                    MB1TradeDate,                                /* 거래일자 */
+                    MB1TradeTime,                                /* 거래시간 */
+                    MB1Serverinfo,                               /* 서버INFO : 업체에서는 보관 필요 없음 예비로 */
+                    MB1Smsval,                                   /* 다날의 경우 space */
+                    MB1Stanrespcode,                             /* 응답코드 */
+                    MB1Message,                                  /* 에러메시지 */
+                    MB1Filler;                             
 
     /*핸드폰 인증2차 승인결과*/
     public String[]
-                    MB2ApprovalType  = new String[MAXSIZE],      /* 구분코드 */
-                    MB2TransactionNo = new String[MAXSIZE],      /* 거래번호 */
-                    MB2Status        = new String[MAXSIZE],      /* 상태     */
-                    MB2TradeDate     = new String[MAXSIZE],      /* 거래일자 */
-                    MB2TradeTime     = new String[MAXSIZE],      /* 거래시간 */
-                    MB2Stanrespcode  = new String[MAXSIZE],      /* 응답코드 */
-                    MB2Message       = new String[MAXSIZE],      /* 응답메시지 */
-                    MB2Filler        = new String[MAXSIZE];      /* 예비 */
+                    MB2ApprovalType,                             /* 구분코드 */
+                    MB2TransactionNo,                            /* 거래번호 */
+                    MB2Status,                                   /* 상태     */
+                    MB2TradeDate,                                /* 거래일자 */
+                    MB2TradeTime,                                /* 거래시간 */
+                    MB2Stanrespcode,                             /* 응답코드 */
+                    MB2Message,                                  /* 응답메시지 */
+                    MB2Filler;                                   /* 예비 */
 
     // 휴대폰결제결과
     public String[]
-                    MTransactionNo   = new String[MAXSIZE],      // 거래번호 
-                    MStatus          = new String[MAXSIZE],      // 오류구분 O:정상 X:거절
-                    MTradeDate       = new String[MAXSIZE],      // 거래 일자
-                    MTradeTime       = new String[MAXSIZE],      // 거래 시간
-                    MBalAmount       = new String[MAXSIZE],      // 잔액
-                    MRespCode        = new String[MAXSIZE],      // 응답코드
-                    MRespMsg         = new String[MAXSIZE],      // 거래 개시 시간
-                    MBypassMsg       = new String[MAXSIZE],      // Echo항목
-                    MCompCode        = new String[MAXSIZE],      // 업체코드
-                    MTid             = new String[MAXSIZE],      // 서비스제공업체 승인번호
-                    MCommSele        = new String[MAXSIZE],      // SKT,KTF,LGT
-                    MMobileNo        = new String[MAXSIZE],      // 휴대폰번호
-                    MApprAmt         = new String[MAXSIZE],      // 승인금액
-                    MCpId  					 = new String[MAXSIZE],    	 // 가맹점등록정보		
-                    MFiller          = new String[MAXSIZE];      // 예비
+                    MTransactionNo,                              // 거래번호 
+                    MStatus,                                     // 오류구분 O:정상 X:거절
+                    MTradeDate,                                  // 거래 일자
+                    MTradeTime,                                  // 거래 시간
+                    MBalAmount,                                  // 잔액
+                    MRespCode,                                   // 응답코드
+                    MRespMsg,                                    // 거래 개시 시간
+                    MBypassMsg,                                  // Echo항목
+                    MCompCode,                                   // 업체코드
+                    MTid,                                        // 서비스제공업체 승인번호
+                    MCommSele,                                   // SKT,KTF,LGT
+                    MMobileNo,                                   // 휴대폰번호
+                    MApprAmt,                                    // 승인금액
+                    MCpId,                                 	 // 가맹점등록정보		
+                    MFiller;                                     // 예비
 
     /*카드 BIN check 승인결과*/
     public String[]
-                    BINTransactionNo = new String[MAXSIZE],      /* 거래번호					  */
-                    BINStatus        = new String[MAXSIZE],      /* 오류구분 => O:승인 X:거절	  */
-                    BINTradeDate     = new String[MAXSIZE],      /* 거래 일자(YYYYMMDD)           */
-                    BINTradeTime     = new String[MAXSIZE],      /* 거래 시간(HHMMSS)             */
-                    BINAquCode       = new String[MAXSIZE],      /* 발급기관코드                  */
-                    BINMessage1      = new String[MAXSIZE],      /* 응답 message1                 */
-                    BINMessage2      = new String[MAXSIZE],      /* 응답 message2                 */
-                    BINAuthType      = new String[MAXSIZE],      /* 'I':ISP, 'M':MPI, ' ':기타    */
-                    BINMpiLoc        = new String[MAXSIZE],      /* MPI모듈위치: '1':ILK, '2':e-paygen, '3':티지코프 */
-                    BINFiller        = new String[MAXSIZE];      /* 예비                          */
+                    BINTransactionNo,                            /* 거래번호					  */
+                    BINStatus,                                   /* 오류구분 => O:승인 X:거절	  */
+                    BINTradeDate,                                /* 거래 일자(YYYYMMDD)           */
+                    BINTradeTime,                                /* 거래 시간(HHMMSS)             */
+                    BINAquCode,                                  /* 발급기관코드                  */
+                    BINMessage1,                                 /* 응답 message1                 */
+                    BINMessage2,                                 /* 응답 message2                 */
+                    BINAuthType,                                 /* 'I':ISP, 'M':MPI, ' ':기타    */
+                    BINMpiLoc,                                   /* MPI모듈위치: '1':ILK, '2':e-paygen, '3':티지코프 */
+                    BINFiller;                                   /* 예비                          */
 
     /* 상점상세정보 조회결과 */
     public String[]
-                    SITransactionNo    = new String[MAXSIZE],    // 거래번호
-                    SIStatus           = new String[MAXSIZE],    // 성공:O, 실패: X
-                    SIRespCode         = new String[MAXSIZE],    // '0000' : 정상처리
-                    SIAgenMembDealSele = new String[MAXSIZE],    // 자체대행구분
-                    SIStartSele        = new String[MAXSIZE],    // 개시여부
-                    SIEntrNumb         = new String[MAXSIZE],    // 사업자번호
-                    SIShopName         = new String[MAXSIZE],    // 상점명
-                    SIMembNumbGene     = new String[MAXSIZE],    // 일반 가맹점번호
-                    SIMembNumbNoin     = new String[MAXSIZE],    // 무이자 가맹점번호
-                    SIAlloMontType     = new String[MAXSIZE],    // 할부유형
-                    SIFiller           = new String[MAXSIZE];    // 예비
+                    SITransactionNo,                             // 거래번호
+                    SIStatus,                                    // 성공:O, 실패: X
+                    SIRespCode,                                  // '0000' : 정상처리
+                    SIAgenMembDealSele,                          // 자체대행구분
+                    SIStartSele,                                 // 개시여부
+                    SIEntrNumb,                                  // 사업자번호
+                    SIShopName,                                  // 상점명
+                    SIMembNumbGene,                              // 일반 가맹점번호
+                    SIMembNumbNoin,                              // 무이자 가맹점번호
+                    SIAlloMontType,                              // 할부유형
+                    SIFiller;                                    // 예비
 
     /* 계좌이체승인결과 */
     public String[]
-                    ACTransactionNo     = new String[MAXSIZE],
-                    ACStatus            = new String[MAXSIZE],
-                    ACTradeDate         = new String[MAXSIZE],
-                    ACTradeTime         = new String[MAXSIZE],
-                    ACAcctSele          = new String[MAXSIZE],
-                    ACFeeSele           = new String[MAXSIZE],
-                    ACInjaName          = new String[MAXSIZE],
-                    ACPareBankCode      = new String[MAXSIZE],
-                    ACPareAcctNo        = new String[MAXSIZE],
-                    ACCustBankCode      = new String[MAXSIZE],
-                    ACCustAcctNo        = new String[MAXSIZE],
-                    ACAmount	        = new String[MAXSIZE],
-                    ACBankTransactionNo = new String[MAXSIZE],
-                    ACIpgumNm           = new String[MAXSIZE],
-                    ACBankFee           = new String[MAXSIZE],
-                    ACBankAmount        = new String[MAXSIZE],
-                    ACBankRespCode      = new String[MAXSIZE],
-                    ACMessage1          = new String[MAXSIZE],
-                    ACMessage2          = new String[MAXSIZE],
-                    ACEntrNumb	        = new String[MAXSIZE],
-                    ACShopPhone	        = new String[MAXSIZE],
-                    ACCavvSele          = new String[MAXSIZE],
-                    ACFiller            = new String[MAXSIZE],
-                    ACEncData           = new String[MAXSIZE];
+                    ACTransactionNo,                          
+                    ACStatus,                                 
+                    ACTradeDate,                              
+                    ACTradeTime,                              
+                    ACAcctSele,                               
+                    ACFeeSele,                                
+                    ACInjaName,                               
+                    ACPareBankCode,                           
+                    ACPareAcctNo,                             
+                    ACCustBankCode,                           
+                    ACCustAcctNo,                             
+                    ACAmount,                              
+                    ACBankTransactionNo,                      
+                    ACIpgumNm,                                
+                    ACBankFee,                                
+                    ACBankAmount,                             
+                    ACBankRespCode,                           
+                    ACMessage1,                               
+                    ACMessage2,                               
+                    ACEntrNumb,                              
+                    ACShopPhone,                              
+                    ACCavvSele,                               
+                    ACFiller,                                 
+                    ACEncData;                                
 	
 	public KSPayApprovalCancelBean(String IPAddr, int Port) {
 		this.IPAddr = IPAddr;
@@ -315,6 +332,70 @@ public class KSPayApprovalCancelBean{
 		this.ReceiveCount = 0;
 	}
 	
+	// 연결 풀 지정, SendSocket 호출 시 풀에서 연결을 빌려 사용하고 반납한다.
+	public void setSocketPool(KSPaySocketPool SocketPool)
+	{
+		this.SocketPool = SocketPool;
+	}
+	
+	// 연결/수신 제한시간과 요청 전체 제한시간, 재전송(SendSocket 재호출)도 같은 제한시간을 사용한다.
+	public void setDeadline(KSPayDeadline Deadline)
+	{
+		this.Deadline = Deadline;
+	}
+	
+	// 마지막 SendSocket 에서 요청을 보낸 뒤 응답을 받지 못한 경우 true
+	// IPG_Server 가 요청을 처리했을 수 있으므로 통신실패와 달리 결과 확인이 필요하다.
+	public boolean isOutcomeUnknown()
+	{
+		return this.OutcomeUnknown;
+	}
+	
+	// 응답 필드(TransactionNo[], Status[] ...) 사용 여부
+	// 필요한 항목만 getTelegram() 에서 읽는 경우 false 로 설정하면 전체 항목 변환을 생략한다.
+	public void setLegacyFields(boolean LegacyFields)
+	{
+		this.LegacyFields = LegacyFields;
+	}
+	
+	// 마지막 응답 전문, 응답이 없었으면 null
+	public KSPayTelegram getTelegram()
+	{
+		return this.Telegram;
+	}
+	
+	// 마지막 응답의 승인구분별 결과, 응답 전문에 있는 승인구분만 생성한다.
+	public List<KSPayResult> getResults()
+	{
+		if (this.Results == null)
+		{
+			List<KSPayResult> results = new ArrayList<KSPayResult>();
+			if (this.Telegram != null)
+			{
+				for (KSPayRecord record : this.Telegram.records())
+				{
+					KSPayResult result = KSPayResult.of(record);
+					if (result != null) results.add(result);
+				}
+			}
+			this.Results = Collections.unmodifiableList(results);
+		}
+		return this.Results;
+	}
+	
+	// i 번째 결과, 없으면(통신실패 등) null
+	public KSPayResult getResult(int i)
+	{
+		List<KSPayResult> results = this.getResults();
+		return (i < results.size()) ? results.get(i) : null;
+	}
+	
+	// LegacyFields 를 사용하지 않은 경우 마지막 응답으로 응답 필드(배열)를 채운다.
+	public void FillLegacyFields()
+	{
+		KSPayLegacyFields.fill(this, this.Telegram, MAXSIZE);
+	}
+	
 	public boolean HeadMessage
 	(
 		String  pEncType         ,     // 0: 암화안함, 1:openssl, 2: seed
@@ -356,7 +437,7 @@ public class KSPayApprovalCancelBean{
 		TmpHeadMsg.append(this.format(pFiller          ,   35, 'X'));
 		
 		this.HeadMsg  = TmpHeadMsg.toString();
-		System.out.println("HeadMsg=["+TmpHeadMsg.toString()+"]");
+		KSPayLog.println("HeadMsg=["+TmpHeadMsg.toString()+"]");
 		
 		return true;
 	}
@@ -407,7 +488,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("CreditDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("CreditDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -439,7 +520,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("VirtualAccountDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("VirtualAccountDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -459,7 +540,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("VirtualAccountDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("VirtualAccountDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -488,7 +569,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("WorldPassDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("WorldPassDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -513,7 +594,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("PointDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("PointDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -550,7 +631,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("CashBillDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("CashBillDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -582,7 +663,7 @@ public class KSPayApprovalCancelBean{
 
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("MobileDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("MobileDataMessage=["+TmpSendMsg.toString()+"]");
 		return true;
 	}
 	//계좌이체시작요청전문을 만든다.(send)
@@ -611,7 +692,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("AcctRequest_send=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("AcctRequest_send=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -644,7 +725,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("AcctRequest_iappr=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("AcctRequest_iappr=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -673,11 +754,64 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("CancelDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("CancelDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
 	
+	// 단건 취소요청 (HeadMessage + CancelDataMessage 대체)
+	// 미리 인코딩된 템플릿에 바뀌는 항목만 덮어써서 전송한다.
+	public boolean CancelMessage(
+		KSPayCancelTemplate Template ,  // EncType, Version 별 템플릿
+		String Resend        ,         // 전송구분 : 0 : 처음,  2: 재전송
+		String RequestDate   ,         // 요청일자 : yyyymmddhhmmss
+		String StoreId       ,         // 상점아이디
+		String ApprovalType  ,         // 승인구분
+		String TransactionNo )         // 거래번호
+	{
+		return this.CancelMessage(Template, Resend, RequestDate, StoreId, new String[] { ApprovalType }, new String[] { TransactionNo });
+	}
+	
+	// 복합 취소요청 (같은 상점의 취소 최대 9건을 전문 1건으로)
+	// 응답은 요청 순서대로 건별 결과가 온다. getResults() 의 거래번호로 요청건을 확인한다.
+	public boolean CancelMessage(
+		KSPayCancelTemplate Template ,  // EncType, Version 별 템플릿
+		String   Resend        ,       // 전송구분 : 0 : 처음,  2: 재전송
+		String   RequestDate   ,       // 요청일자 : yyyymmddhhmmss
+		String   StoreId       ,       // 상점아이디
+		String[] ApprovalType  ,       // 승인구분 (건별)
+		String[] TransactionNo )       // 거래번호 (건별)
+	{
+		if (TransactionNo.length < 1 || TransactionNo.length > MAXSIZE || ApprovalType.length != TransactionNo.length)
+		{
+			KSPayLog.println("CancelMessage 복합승인갯수 오류=["+TransactionNo.length+"]");
+			return false;
+		}
+		
+		this.Template               = Template;
+		this.TemplateSlots          = new String[] { Resend, RequestDate, StoreId };
+		this.TemplateApprovalTypes  = ApprovalType.clone();
+		this.TemplateTransactionNos = TransactionNo.clone();
+		this.SendCount              = TransactionNo.length;
+		KSPayLog.println("CancelMessage=["+Template+", "+StoreId+", "+Arrays.toString(ApprovalType)+", "+Arrays.toString(TransactionNo)+"]");
+		
+		return true;
+	}
+	
+	// 전송구분 변경 (재전송시 "2"), HeadMessage 또는 CancelMessage 이후에 호출한다.
+	public void setResend(String Resend)
+	{
+		if (this.Template != null)
+		{
+			this.TemplateSlots[0] = Resend;
+		}
+		else if (this.HeadMsg != null)
+		{
+			int off = KSPayLayouts.HEADER.getOffset(KSPayLayouts.HEADER.indexOf("Resend"));
+			this.HeadMsg = this.HeadMsg.substring(0, off) + this.format(Resend, 1, 'X') + this.HeadMsg.substring(off + 1);
+		}
+	}
+	
 	//카드 BIN check
 	public boolean CardBinDataMessage(
 		String ApprovalType ,       // 승인구분
@@ -692,7 +826,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("CardBinDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("CardBinDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -715,7 +849,7 @@ public class KSPayApprovalCancelBean{
 		
 		this.SendMsg += TmpSendMsg.toString();
 		this.SendCount++;
-		System.out.println("ShopInfoDetailDataMessage=["+TmpSendMsg.toString()+"]");
+		KSPayLog.println("ShopInfoDetailDataMessage=["+TmpSendMsg.toString()+"]");
 		
 		return true;
 	}
@@ -727,25 +861,25 @@ public class KSPayApprovalCancelBean{
 		this.ReceiveMsg = "";
 		StringBuffer TmpReceiveMsg = new StringBuffer();
 		
-		String Len         = new String(this.KSPaySocket.read( 4) ,MSG_ENCODING);          // 데이터 길이
+		String Len         = this.Frame.next( 4);                                          // 데이터 길이
 		if(Len == null || Len.trim().equals("")) return false;
-		this.EncType       = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // 0: 암화안함, 1:openssl, 2: seed
-		this.Version       = new String(this.KSPaySocket.read( 4) ,MSG_ENCODING);          // 전문버전
-		this.Type          = new String(this.KSPaySocket.read( 2) ,MSG_ENCODING);          // 구분
-		this.Resend        = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // 전송구분 : 0 : 처음,  2: 재전송
-		this.RequestDate   = new String(this.KSPaySocket.read(14) ,MSG_ENCODING);          // 요청일자 : yyyymmddhhmmss
-		this.StoreId       = new String(this.KSPaySocket.read(10) ,MSG_ENCODING);          // 상점아이디
-		this.OrderNumber   = new String(this.KSPaySocket.read(50) ,MSG_ENCODING);          // 주문번호
-		this.UserName      = new String(this.KSPaySocket.read(50) ,MSG_ENCODING);          // 주문자명
-		this.IdNum         = new String(this.KSPaySocket.read(13) ,MSG_ENCODING);          // 주민번호 or 사업자번호
-		this.Email         = new String(this.KSPaySocket.read(50) ,MSG_ENCODING);          // email
-		this.GoodType      = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // 제품구분 0 : 실물, 1 : 디지털
-		this.GoodName      = new String(this.KSPaySocket.read(50) ,MSG_ENCODING);          // 제품명
-		this.KeyInType     = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // KeyInType 여부 : 1 : Swap, 2: KeyIn
-		this.LineType      = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // lineType 0 : offline, 1:internet, 2:Mobile
-		this.PhoneNo       = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);          // 휴대폰번호
-		this.ApprovalCount = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);          // 승인갯수
-		this.HeadFiller    = new String(this.KSPaySocket.read(35) ,MSG_ENCODING);          // 예비
+		this.EncType       = this.Frame.next( 1);                                          // 0: 암화안함, 1:openssl, 2: seed
+		this.Version       = this.Frame.next( 4);                                          // 전문버전
+		this.Type          = this.Frame.next( 2);                                          // 구분
+		this.Resend        = this.Frame.next( 1);                                          // 전송구분 : 0 : 처음,  2: 재전송
+		this.RequestDate   = this.Frame.next(14);                                          // 요청일자 : yyyymmddhhmmss
+		this.StoreId       = this.Frame.next(10);                                          // 상점아이디
+		this.OrderNumber   = this.Frame.next(50);                                          // 주문번호
+		this.UserName      = this.Frame.next(50);                                          // 주문자명
+		this.IdNum         = this.Frame.next(13);                                          // 주민번호 or 사업자번호
+		this.Email         = this.Frame.next(50);                                          // email
+		this.GoodType      = this.Frame.next( 1);                                          // 제품구분 0 : 실물, 1 : 디지털
+		this.GoodName      = this.Frame.next(50);                                          // 제품명
+		this.KeyInType     = this.Frame.next( 1);                                          // KeyInType 여부 : 1 : Swap, 2: KeyIn
+		this.LineType      = this.Frame.next( 1);                                          // lineType 0 : offline, 1:internet, 2:Mobile
+		this.PhoneNo       = this.Frame.next(12);                                          // 휴대폰번호
+		this.ApprovalCount = this.Frame.next( 1);                                          // 승인갯수
+		this.HeadFiller    = this.Frame.next(35);                                          // 예비
 		
 		TmpReceiveMsg.append(Len               );
 		TmpReceiveMsg.append(this.EncType      );
@@ -767,8 +901,8 @@ public class KSPayApprovalCancelBean{
 		TmpReceiveMsg.append(this.HeadFiller   );
 		
 		this.ReceiveMsg = TmpReceiveMsg.toString();
-		System.out.println("Header ReceiveMsg=["+TmpReceiveMsg.toString()+"]");
-		System.out.println("ReceiveCount=["+this.ReceiveCount+"]\n") ;
+		KSPayLog.println("Header ReceiveMsg=["+TmpReceiveMsg.toString()+"]");
+		KSPayLog.println("ReceiveCount=["+this.ReceiveCount+"]\n") ;
 		this.ReceiveCount = Integer.parseInt(this.ApprovalCount);
 		
 		return ReceiveDataMessage(Integer.parseInt(this.ApprovalCount));
@@ -782,22 +916,22 @@ public class KSPayApprovalCancelBean{
 		
 		StringBuffer TmpReceiveMsg = new StringBuffer();
 		
-		//System.out.println("Header ApprovalCount=["+iCnt+"]");
+		//KSPayLog.println("Header ApprovalCount=["+iCnt+"]");
 		for(int i=0; i < iCnt; i++)
 		{
-			this.ApprovalType[i]     = new String(KSPaySocket.read(4) ,MSG_ENCODING); // 승인구분
-			System.out.println("ApprovalType=["+this.ApprovalType[i]+"]");
+			this.ApprovalType[i]     = this.Frame.next(4);                            // 승인구분
+			KSPayLog.println("ApprovalType=["+this.ApprovalType[i]+"]");
 			
 			// 신용카드
 			if(this.ApprovalType[i].substring(0,1).equals("1") || this.ApprovalType[i].substring(0,1).equals("I")) {
 				if(this.ApprovalType[i].substring(1,2).equals("5")) {
-					this.TransactionNo [i]   = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);    // 거래번호
-					this.Status        [i]   = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);    // 상태 O : 승인, X : 거절
-					this.TradeDate     [i]   = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);    // 거래일자
-					this.TradeTime     [i]   = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);    // 거래시간
-					this.IssCode       [i]   = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);    // 발급사코드
-					this.Message1      [i]   = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);    // 메시지1
-					this.Message2      [i]   = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);    // 메시지2
+					this.TransactionNo [i]   = this.Frame.next(12);                                    // 거래번호
+					this.Status        [i]   = this.Frame.next( 1);                                    // 상태 O : 승인, X : 거절
+					this.TradeDate     [i]   = this.Frame.next( 8);                                    // 거래일자
+					this.TradeTime     [i]   = this.Frame.next( 6);                                    // 거래시간
+					this.IssCode       [i]   = this.Frame.next( 6);                                    // 발급사코드
+					this.Message1      [i]   = this.Frame.next(16);                                    // 메시지1
+					this.Message2      [i]   = this.Frame.next(16);                                    // 메시지2
 					
 					TmpReceiveMsg = new StringBuffer();
 					TmpReceiveMsg.append(this.ApprovalType  [i]   );
@@ -810,31 +944,31 @@ public class KSPayApprovalCancelBean{
 					TmpReceiveMsg.append(this.Message2      [i]   );
 				}
 				else {
-					this.TransactionNo     [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // 거래번호
-					this.Status            [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 상태 O : 승인, X : 거절
-					this.TradeDate         [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);   // 거래일자
-					this.TradeTime         [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 거래시간
-					this.IssCode           [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 발급사코드
-					this.AquCode           [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 매입사코드
-					this.AuthNo            [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // 승인번호 or 거절시 오류코드
-					this.Message1          [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 메시지1
-					this.Message2          [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 메시지2
-					this.CardNo            [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 카드번호
-					this.ExpDate           [i] = new String(this.KSPaySocket.read( 4) ,MSG_ENCODING);   // 유효기간
-					this.Installment       [i] = new String(this.KSPaySocket.read( 2) ,MSG_ENCODING);   // 할부
-					this.Amount            [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);   // 금액
-					this.MerchantNo        [i] = new String(this.KSPaySocket.read(15) ,MSG_ENCODING);   // 가맹점번호
-					this.AuthSendType      [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 전송구분= new String(this.read(2));
-					this.ApprovalSendType  [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
-					this.Point1            [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // Point1
-					this.Point2            [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // Point2
-					this.Point3            [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // Point3
-					this.Point4            [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // Point4
-					this.VanTransactionNo  [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // Point4
-					this.Filler            [i] = new String(this.KSPaySocket.read(82) ,MSG_ENCODING);   // 예비
-					this.AuthType          [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // I : ISP거래, M : MPI거래, SPACE : 일반거래
-					this.MPIPositionType   [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
-					this.MPIReUseType      [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // Y : 재사용, N : 재사용아님
+					this.TransactionNo     [i] = this.Frame.next(12);                                   // 거래번호
+					this.Status            [i] = this.Frame.next( 1);                                   // 상태 O : 승인, X : 거절
+					this.TradeDate         [i] = this.Frame.next( 8);                                   // 거래일자
+					this.TradeTime         [i] = this.Frame.next( 6);                                   // 거래시간
+					this.IssCode           [i] = this.Frame.next( 6);                                   // 발급사코드
+					this.AquCode           [i] = this.Frame.next( 6);                                   // 매입사코드
+					this.AuthNo            [i] = this.Frame.next(12);                                   // 승인번호 or 거절시 오류코드
+					this.Message1          [i] = this.Frame.next(16);                                   // 메시지1
+					this.Message2          [i] = this.Frame.next(16);                                   // 메시지2
+					this.CardNo            [i] = this.Frame.next(16);                                   // 카드번호
+					this.ExpDate           [i] = this.Frame.next( 4);                                   // 유효기간
+					this.Installment       [i] = this.Frame.next( 2);                                   // 할부
+					this.Amount            [i] = this.Frame.next( 9);                                   // 금액
+					this.MerchantNo        [i] = this.Frame.next(15);                                   // 가맹점번호
+					this.AuthSendType      [i] = this.Frame.next( 1);                                   // 전송구분= new String(this.read(2));
+					this.ApprovalSendType  [i] = this.Frame.next( 1);                                   // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
+					this.Point1            [i] = this.Frame.next(12);                                   // Point1
+					this.Point2            [i] = this.Frame.next(12);                                   // Point2
+					this.Point3            [i] = this.Frame.next(12);                                   // Point3
+					this.Point4            [i] = this.Frame.next(12);                                   // Point4
+					this.VanTransactionNo  [i] = this.Frame.next(12);                                   // Point4
+					this.Filler            [i] = this.Frame.next(82);                                   // 예비
+					this.AuthType          [i] = this.Frame.next( 1);                                   // I : ISP거래, M : MPI거래, SPACE : 일반거래
+					this.MPIPositionType   [i] = this.Frame.next( 1);                                   // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
+					this.MPIReUseType      [i] = this.Frame.next( 1);                                   // Y : 재사용, N : 재사용아님
 					
 					String EncLen = "";
 					if( AuthType[i] == "" || AuthType[i].trim().equals("") )
@@ -843,8 +977,8 @@ public class KSPayApprovalCancelBean{
 					}
 					else
 					{
-						EncLen               = new String(this.KSPaySocket.read(5) ,MSG_ENCODING);
-						this.EncData[i]      = new String(this.KSPaySocket.read(Integer.parseInt(EncLen)) ,MSG_ENCODING); // MPI, ISP 데이터
+						EncLen               = this.Frame.next(5);
+						this.EncData[i]      = this.Frame.next(Integer.parseInt(EncLen));                                 // MPI, ISP 데이터
 					}
 					
 					TmpReceiveMsg = new StringBuffer();
@@ -878,28 +1012,28 @@ public class KSPayApprovalCancelBean{
 					TmpReceiveMsg.append(this.EncData           [i]);
 				}
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("Credit ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("Credit ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 포인트카드
 			else if(this.ApprovalType[i].substring(0,1).equals("4")) {
-				this.PTransactionNo[i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);      // 거래번호
-				this.PStatus       [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);      // 상태 O : 승인 , X : 거절
-				this.PTradeDate    [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);      // 거래일자
-				this.PTradeTime    [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);      // 거래시간
-				this.PIssCode      [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);      // 발급사코드
-				this.PAuthNo       [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);      // 승인번호 or 거절시 오류코드
-				this.PMessage1     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);      // 메시지1
-				this.PMessage2     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);      // 메시지2
-				this.PPoint1       [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);      // 거래포인트
-				this.PPoint2       [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);      // 가용포인트
-				this.PPoint3       [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);      // 누적포인트
-				this.PPoint4       [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);      // 가맹점포인트
-				this.PMerchantNo   [i] = new String(this.KSPaySocket.read(15) ,MSG_ENCODING);      // 가맹점번호
-				this.PNotice1      [i] = new String(this.KSPaySocket.read(40) ,MSG_ENCODING);      //
-				this.PNotice2      [i] = new String(this.KSPaySocket.read(40) ,MSG_ENCODING);      //
-				this.PNotice3      [i] = new String(this.KSPaySocket.read(40) ,MSG_ENCODING);      //
-				this.PNotice4      [i] = new String(this.KSPaySocket.read(40) ,MSG_ENCODING);      //
-				this.PFiller       [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);      // 예비
+				this.PTransactionNo[i] = this.Frame.next(12);                                      // 거래번호
+				this.PStatus       [i] = this.Frame.next( 1);                                      // 상태 O : 승인 , X : 거절
+				this.PTradeDate    [i] = this.Frame.next( 8);                                      // 거래일자
+				this.PTradeTime    [i] = this.Frame.next( 6);                                      // 거래시간
+				this.PIssCode      [i] = this.Frame.next( 6);                                      // 발급사코드
+				this.PAuthNo       [i] = this.Frame.next(12);                                      // 승인번호 or 거절시 오류코드
+				this.PMessage1     [i] = this.Frame.next(16);                                      // 메시지1
+				this.PMessage2     [i] = this.Frame.next(16);                                      // 메시지2
+				this.PPoint1       [i] = this.Frame.next( 9);                                      // 거래포인트
+				this.PPoint2       [i] = this.Frame.next( 9);                                      // 가용포인트
+				this.PPoint3       [i] = this.Frame.next( 9);                                      // 누적포인트
+				this.PPoint4       [i] = this.Frame.next( 9);                                      // 가맹점포인트
+				this.PMerchantNo   [i] = this.Frame.next(15);                                      // 가맹점번호
+				this.PNotice1      [i] = this.Frame.next(40);                                      //
+				this.PNotice2      [i] = this.Frame.next(40);                                      //
+				this.PNotice3      [i] = this.Frame.next(40);                                      //
+				this.PNotice4      [i] = this.Frame.next(40);                                      //
+				this.PFiller       [i] = this.Frame.next( 8);                                      // 예비
 				
 				TmpReceiveMsg = new StringBuffer();
 				TmpReceiveMsg.append(this.ApprovalType  [i] );
@@ -923,23 +1057,23 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.PFiller       [i] );
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("Point ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("Point ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 가상계좌
 			else if(this.ApprovalType[i].substring(0,1).equals("6")) {
-				this.VATransactionNo[i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);
-				this.VAStatus       [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);
-				this.VATradeDate    [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);
-				this.VATradeTime    [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);
-				this.VABankCode     [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);
-				this.VAVirAcctNo    [i] = new String(this.KSPaySocket.read(15) ,MSG_ENCODING);
-				this.VAName         [i] = new String(this.KSPaySocket.read(30) ,MSG_ENCODING);
-				this.VACloseDate    [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);
-				this.VACloseTime    [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);
-				this.VARespCode     [i] = new String(this.KSPaySocket.read( 4) ,MSG_ENCODING);
-				this.VAMessage1     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);
-				this.VAMessage2     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);
-				this.VAFiller       [i] = new String(this.KSPaySocket.read(36) ,MSG_ENCODING);
+				this.VATransactionNo[i] = this.Frame.next(12);
+				this.VAStatus       [i] = this.Frame.next( 1);
+				this.VATradeDate    [i] = this.Frame.next( 8);
+				this.VATradeTime    [i] = this.Frame.next( 6);
+				this.VABankCode     [i] = this.Frame.next( 6);
+				this.VAVirAcctNo    [i] = this.Frame.next(15);
+				this.VAName         [i] = this.Frame.next(30);
+				this.VACloseDate    [i] = this.Frame.next( 8);
+				this.VACloseTime    [i] = this.Frame.next( 6);
+				this.VARespCode     [i] = this.Frame.next( 4);
+				this.VAMessage1     [i] = this.Frame.next(16);
+				this.VAMessage2     [i] = this.Frame.next(16);
+				this.VAFiller       [i] = this.Frame.next(36);
 				
 				TmpReceiveMsg = new StringBuffer();
 				TmpReceiveMsg.append(this.ApprovalType   [i] );
@@ -958,24 +1092,24 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.VAFiller       [i] );
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("Virtual ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("Virtual ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 월드패스
 			else if(this.ApprovalType[i].substring(0,1).equals("7")) {
-				this.WPTransactionNo[i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);
-				this.WPStatus       [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);
-				this.WPTradeDate    [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);
-				this.WPTradeTime    [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);
-				this.WPIssCode      [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);
-				this.WPAuthNo       [i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);
-				this.WPBalanceAmount[i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);
-				this.WPLimitAmount  [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);
-				this.WPMessage1     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);
-				this.WPMessage2     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);
-				this.WPCardNo       [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);
-				this.WPAmount       [i] = new String(this.KSPaySocket.read( 9) ,MSG_ENCODING);
-				this.WPMerchantNo   [i] = new String(this.KSPaySocket.read(15) ,MSG_ENCODING);
-				this.WPFiller       [i] = new String(this.KSPaySocket.read(11) ,MSG_ENCODING);
+				this.WPTransactionNo[i] = this.Frame.next(12);
+				this.WPStatus       [i] = this.Frame.next( 1);
+				this.WPTradeDate    [i] = this.Frame.next( 8);
+				this.WPTradeTime    [i] = this.Frame.next( 6);
+				this.WPIssCode      [i] = this.Frame.next( 6);
+				this.WPAuthNo       [i] = this.Frame.next(12);
+				this.WPBalanceAmount[i] = this.Frame.next( 9);
+				this.WPLimitAmount  [i] = this.Frame.next( 9);
+				this.WPMessage1     [i] = this.Frame.next(16);
+				this.WPMessage2     [i] = this.Frame.next(16);
+				this.WPCardNo       [i] = this.Frame.next(16);
+				this.WPAmount       [i] = this.Frame.next( 9);
+				this.WPMerchantNo   [i] = this.Frame.next(15);
+				this.WPFiller       [i] = this.Frame.next(11);
 				
 				TmpReceiveMsg = new StringBuffer();
 				TmpReceiveMsg.append(this.ApprovalType   [i] );
@@ -995,22 +1129,22 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.WPFiller       [i] );
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("WorldPass ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("WorldPass ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 현금영수증
 			else if(this.ApprovalType[i].substring(0,1).equals("H")) {
 				
-				this.HTransactionNo     [i] = new String(this.KSPaySocket.read(12 ) ,MSG_ENCODING);   // 거래번호
-				this.HStatus            [i] = new String(this.KSPaySocket.read(1  ) ,MSG_ENCODING);   // 오류구분 O:정상 X:거절
-				this.HCashTransactionNo [i] = new String(this.KSPaySocket.read(12 ) ,MSG_ENCODING);   // 현금영수증 거래번호
-				this.HIncomeType        [i] = new String(this.KSPaySocket.read(1  ) ,MSG_ENCODING);   // 0: 소득      1: 비소득
-				this.HTradeDate         [i] = new String(this.KSPaySocket.read(8  ) ,MSG_ENCODING);   // 거래 개시 일자
-				this.HTradeTime         [i] = new String(this.KSPaySocket.read(6  ) ,MSG_ENCODING);   // 거래 개시 시간
-				this.HMessage1          [i] = new String(this.KSPaySocket.read(16 ) ,MSG_ENCODING);   // 응답 message1
-				this.HMessage2          [i] = new String(this.KSPaySocket.read(16 ) ,MSG_ENCODING);   // 응답 message2
-				this.HCashMessage1      [i] = new String(this.KSPaySocket.read(20 ) ,MSG_ENCODING);   // 국세청 메시지 1
-				this.HCashMessage2      [i] = new String(this.KSPaySocket.read(20 ) ,MSG_ENCODING);   // 국세청 메시지 2
-				this.HFiller            [i] = new String(this.KSPaySocket.read(150) ,MSG_ENCODING);   // 예비
+				this.HTransactionNo     [i] = this.Frame.next(12 );                                   // 거래번호
+				this.HStatus            [i] = this.Frame.next(1  );                                   // 오류구분 O:정상 X:거절
+				this.HCashTransactionNo [i] = this.Frame.next(12 );                                   // 현금영수증 거래번호
+				this.HIncomeType        [i] = this.Frame.next(1  );                                   // 0: 소득      1: 비소득
+				this.HTradeDate         [i] = this.Frame.next(8  );                                   // 거래 개시 일자
+				this.HTradeTime         [i] = this.Frame.next(6  );                                   // 거래 개시 시간
+				this.HMessage1          [i] = this.Frame.next(16 );                                   // 응답 message1
+				this.HMessage2          [i] = this.Frame.next(16 );                                   // 응답 message2
+				this.HCashMessage1      [i] = this.Frame.next(20 );                                   // 국세청 메시지 1
+				this.HCashMessage2      [i] = this.Frame.next(20 );                                   // 국세청 메시지 2
+				this.HFiller            [i] = this.Frame.next(150);                                   // 예비
 				
 				TmpReceiveMsg = new StringBuffer();
 				
@@ -1027,22 +1161,22 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.HFiller           [i]);
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("CashBill ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("CashBill ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			//핸드폰결제취소
 			else if(this.ApprovalType[i].substring(0,3).equals("M11")) 	
 			{
 				
-				this.MTransactionNo  [i] = new String(this.KSPaySocket.read(12  ) ,MSG_ENCODING);     /* 거래번호 */
-				this.MStatus         [i] = new String(this.KSPaySocket.read(1   ) ,MSG_ENCODING);     /* 상태 : O, X */
-				this.MTradeDate      [i] = new String(this.KSPaySocket.read(8   ) ,MSG_ENCODING);     /* 거래일자 */
-				this.MTradeTime      [i] = new String(this.KSPaySocket.read(6   ) ,MSG_ENCODING);     /* 거래시간 */
-				this.MBalAmount      [i] = new String(this.KSPaySocket.read(9   ) ,MSG_ENCODING);     /* 잔액 */
-				this.MRespCode       [i] = new String(this.KSPaySocket.read(4   ) ,MSG_ENCODING);     /* 응답코드 */
-				this.MRespMsg        [i] = new String(this.KSPaySocket.read(200 ) ,MSG_ENCODING);     /* 응답메시지 */
-				this.MBypassMsg      [i] = new String(this.KSPaySocket.read(100 ) ,MSG_ENCODING);     /* Echo 메시지 */
-				this.MCompCode       [i] = new String(this.KSPaySocket.read(6   ) ,MSG_ENCODING);     /* 기관코드 */
-				this.MFiller         [i] = new String(this.KSPaySocket.read(150 ) ,MSG_ENCODING);     /* 예비 */
+				this.MTransactionNo  [i] = this.Frame.next(12  );                                     /* 거래번호 */
+				this.MStatus         [i] = this.Frame.next(1   );                                     /* 상태 : O, X */
+				this.MTradeDate      [i] = this.Frame.next(8   );                                     /* 거래일자 */
+				this.MTradeTime      [i] = this.Frame.next(6   );                                     /* 거래시간 */
+				this.MBalAmount      [i] = this.Frame.next(9   );                                     /* 잔액 */
+				this.MRespCode       [i] = this.Frame.next(4   );                                     /* 응답코드 */
+				this.MRespMsg        [i] = this.Frame.next(200 );                                     /* 응답메시지 */
+				this.MBypassMsg      [i] = this.Frame.next(100 );                                     /* Echo 메시지 */
+				this.MCompCode       [i] = this.Frame.next(6   );                                     /* 기관코드 */
+				this.MFiller         [i] = this.Frame.next(150 );                                     /* 예비 */
 				
 				TmpReceiveMsg = new StringBuffer();
 				
@@ -1058,27 +1192,27 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.MFiller       [i]);
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("Mobile ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("Mobile ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 핸드폰 결제 M100
 			else if(this.ApprovalType[i].substring(0,3).equals("M10"))
 			{
 				
-				this.MTransactionNo   [i] = new String(this.KSPaySocket.read(12  ) ,MSG_ENCODING);      /* 거래번호 */
-				this.MStatus          [i] = new String(this.KSPaySocket.read(1   ) ,MSG_ENCODING);      /* 상태 : O, X */
-				this.MTradeDate       [i] = new String(this.KSPaySocket.read(8   ) ,MSG_ENCODING);      /* 거래일자 */
-				this.MTradeTime       [i] = new String(this.KSPaySocket.read(6   ) ,MSG_ENCODING);      /* 거래시간 */
-				this.MBalAmount       [i] = new String(this.KSPaySocket.read(9   ) ,MSG_ENCODING);      /* 잔액 */
-				this.MTid             [i] = new String(this.KSPaySocket.read(20  ) ,MSG_ENCODING);      /* Tid */
-				this.MRespCode        [i] = new String(this.KSPaySocket.read(4   ) ,MSG_ENCODING);      /* 응답코드 */
-				this.MRespMsg         [i] = new String(this.KSPaySocket.read(200 ) ,MSG_ENCODING);      /* 응답메시지 */
-				this.MBypassMsg       [i] = new String(this.KSPaySocket.read(100 ) ,MSG_ENCODING);      /* Echo 메시지 */
-				this.MCompCode        [i] = new String(this.KSPaySocket.read(6   ) ,MSG_ENCODING);      /* 기관코드 */
-				this.MCommSele        [i] = new String(this.KSPaySocket.read(3   ) ,MSG_ENCODING);      /* SKT,KTF,LGT */
-				this.MMobileNo        [i] = new String(this.KSPaySocket.read(12  ) ,MSG_ENCODING);      /* 휴대폰번호 */
-				this.MApprAmt         [i] = new String(this.KSPaySocket.read(9   ) ,MSG_ENCODING);      /* 승인금액 */
-				this.MCpId            [i] = new String(this.KSPaySocket.read(40  ) ,MSG_ENCODING);      /* 업체등록코드 */
-				this.MFiller          [i] = new String(this.KSPaySocket.read(66  ) ,MSG_ENCODING);      /* 예비 */
+				this.MTransactionNo   [i] = this.Frame.next(12  );                                      /* 거래번호 */
+				this.MStatus          [i] = this.Frame.next(1   );                                      /* 상태 : O, X */
+				this.MTradeDate       [i] = this.Frame.next(8   );                                      /* 거래일자 */
+				this.MTradeTime       [i] = this.Frame.next(6   );                                      /* 거래시간 */
+				this.MBalAmount       [i] = this.Frame.next(9   );                                      /* 잔액 */
+				this.MTid             [i] = this.Frame.next(20  );                                      /* Tid */
+				this.MRespCode        [i] = this.Frame.next(4   );                                      /* 응답코드 */
+				this.MRespMsg         [i] = this.Frame.next(200 );                                      /* 응답메시지 */
+				this.MBypassMsg       [i] = this.Frame.next(100 );                                      /* Echo 메시지 */
+				this.MCompCode        [i] = this.Frame.next(6   );                                      /* 기관코드 */
+				this.MCommSele        [i] = this.Frame.next(3   );                                      /* SKT,KTF,LGT */
+				this.MMobileNo        [i] = this.Frame.next(12  );                                      /* 휴대폰번호 */
+				this.MApprAmt         [i] = this.Frame.next(9   );                                      /* 승인금액 */
+				this.MCpId            [i] = this.Frame.next(40  );                                      /* 업체등록코드 */
+				this.MFiller          [i] = this.Frame.next(66  );                                      /* 예비 */
 				
 				TmpReceiveMsg = new StringBuffer();
 				
@@ -1099,26 +1233,26 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.MFiller       [i]);
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("Mobile ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("Mobile ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 계좌이체시작요청
 			else if(this.ApprovalType[i].substring(0,3).equals("210")||this.ApprovalType[i].substring(0,3).equals("240")) {
-				this.ACTransactionNo[i] = new String(this.KSPaySocket.read(12) ,MSG_ENCODING);   // 거래번호
-				this.ACStatus       [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 오류구분:- O:승인 X:거절
-				this.ACTradeDate    [i] = new String(this.KSPaySocket.read( 8) ,MSG_ENCODING);   // 거래 개시 일자(YYYYMMDD)
-				this.ACTradeTime    [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 거래 개시 시간(HHMMSS)
-				this.ACAcctSele     [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 계좌이체 구분 -	1:Dacom, 2:Pop Banking,	3:실시간계좌이체, 4:X
-				this.ACFeeSele      [i] = new String(this.KSPaySocket.read( 1) ,MSG_ENCODING);   // 선/후불제구분 -	1:선불,	2:후불
-				this.ACPareBankCode [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 입금모계좌은행코드
-				this.ACPareAcctNo   [i] = new String(this.KSPaySocket.read(15) ,MSG_ENCODING);   // 입금모계좌 번호
-				this.ACCustBankCode [i] = new String(this.KSPaySocket.read( 6) ,MSG_ENCODING);   // 출급은행코드
-				this.ACAmount       [i] = new String(this.KSPaySocket.read(13) ,MSG_ENCODING);   // 금액
-				this.ACInjaName     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 인자명(상점명)
-				this.ACMessage1     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 응답 message1
-				this.ACMessage2     [i] = new String(this.KSPaySocket.read(16) ,MSG_ENCODING);   // 응답 message2
-				this.ACEntrNumb     [i] = new String(this.KSPaySocket.read(10) ,MSG_ENCODING);   // 사업자번호
-				this.ACShopPhone    [i] = new String(this.KSPaySocket.read(20) ,MSG_ENCODING);   // 전화번호
-				this.ACFiller       [i] = new String(this.KSPaySocket.read(49) ,MSG_ENCODING);   // 예비
+				this.ACTransactionNo[i] = this.Frame.next(12);                                   // 거래번호
+				this.ACStatus       [i] = this.Frame.next( 1);                                   // 오류구분:- O:승인 X:거절
+				this.ACTradeDate    [i] = this.Frame.next( 8);                                   // 거래 개시 일자(YYYYMMDD)
+				this.ACTradeTime    [i] = this.Frame.next( 6);                                   // 거래 개시 시간(HHMMSS)
+				this.ACAcctSele     [i] = this.Frame.next( 1);                                   // 계좌이체 구분 -	1:Dacom, 2:Pop Banking,	3:실시간계좌이체, 4:X
+				this.ACFeeSele      [i] = this.Frame.next( 1);                                   // 선/후불제구분 -	1:선불,	2:후불
+				this.ACPareBankCode [i] = this.Frame.next( 6);                                   // 입금모계좌은행코드
+				this.ACPareAcctNo   [i] = this.Frame.next(15);                                   // 입금모계좌 번호
+				this.ACCustBankCode [i] = this.Frame.next( 6);                                   // 출급은행코드
+				this.ACAmount       [i] = this.Frame.next(13);                                   // 금액
+				this.ACInjaName     [i] = this.Frame.next(16);                                   // 인자명(상점명)
+				this.ACMessage1     [i] = this.Frame.next(16);                                   // 응답 message1
+				this.ACMessage2     [i] = this.Frame.next(16);                                   // 응답 message2
+				this.ACEntrNumb     [i] = this.Frame.next(10);                                   // 사업자번호
+				this.ACShopPhone    [i] = this.Frame.next(20);                                   // 전화번호
+				this.ACFiller       [i] = this.Frame.next(49);                                   // 예비
 				
 				TmpReceiveMsg = new StringBuffer();
 				
@@ -1140,38 +1274,38 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.ACFiller          [i]);
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("AcctRequest_send(2100,2400) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("AcctRequest_send(2100,2400) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 계좌이체결과반영요청 || 계좌이체승인요청 || 계좌이체취소요청
 			else if	(this.ApprovalType[i].substring(0,1).equals("2")) {
-				this.ACTransactionNo    [i] = new String(this.KSPaySocket.read( 12) ,MSG_ENCODING);   // 거래번호
-				this.ACStatus           [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 오류구분 :승인 X:거절
-				this.ACTradeDate        [i] = new String(this.KSPaySocket.read(  8) ,MSG_ENCODING);   // 거래 개시 일자(YYYYMMDD)
-				this.ACTradeTime        [i] = new String(this.KSPaySocket.read(  6) ,MSG_ENCODING);   // 거래 개시 시간(HHMMSS)
-				this.ACAcctSele         [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 계좌이체 구분 -	1:Dacom, 2:Pop Banking,	3:실시간계좌이체 4: 승인형계좌이체
-				this.ACFeeSele          [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 선/후불제구분 -	1:선불,	2:후불
-				this.ACInjaName         [i] = new String(this.KSPaySocket.read( 16) ,MSG_ENCODING);   // 인자명(통장인쇄메세지-상점명)
-				this.ACPareBankCode     [i] = new String(this.KSPaySocket.read(  6) ,MSG_ENCODING);   // 입금모계좌코드
-				this.ACPareAcctNo       [i] = new String(this.KSPaySocket.read( 15) ,MSG_ENCODING);   // 입금모계좌번호
-				this.ACCustBankCode     [i] = new String(this.KSPaySocket.read(  6) ,MSG_ENCODING);   // 출금모계좌코드
-				this.ACCustAcctNo       [i] = new String(this.KSPaySocket.read( 15) ,MSG_ENCODING);   // 출금모계좌번호
-				this.ACAmount           [i] = new String(this.KSPaySocket.read( 13) ,MSG_ENCODING);   // 금액	(결제대상금액)
-				this.ACBankTransactionNo[i] = new String(this.KSPaySocket.read( 30) ,MSG_ENCODING);   // 은행거래번호
-				this.ACIpgumNm          [i] = new String(this.KSPaySocket.read( 20) ,MSG_ENCODING);   // 입금자명
-				this.ACBankFee          [i] = new String(this.KSPaySocket.read( 13) ,MSG_ENCODING);   // 계좌이체 수수료
-				this.ACBankAmount       [i] = new String(this.KSPaySocket.read( 13) ,MSG_ENCODING);   // 총결제금액(결제대상금액+ 수수료
-				this.ACBankRespCode     [i] = new String(this.KSPaySocket.read(  4) ,MSG_ENCODING);   // 오류코드
-				this.ACMessage1         [i] = new String(this.KSPaySocket.read( 16) ,MSG_ENCODING);   // 오류 message 1
-				this.ACMessage2         [i] = new String(this.KSPaySocket.read( 16) ,MSG_ENCODING);   // 오류 message 2
-				this.ACCavvSele         [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 암호화데이터응답여부
-				this.ACFiller           [i] = new String(this.KSPaySocket.read(183) ,MSG_ENCODING);   // 예비
+				this.ACTransactionNo    [i] = this.Frame.next( 12);                                   // 거래번호
+				this.ACStatus           [i] = this.Frame.next(  1);                                   // 오류구분 :승인 X:거절
+				this.ACTradeDate        [i] = this.Frame.next(  8);                                   // 거래 개시 일자(YYYYMMDD)
+				this.ACTradeTime        [i] = this.Frame.next(  6);                                   // 거래 개시 시간(HHMMSS)
+				this.ACAcctSele         [i] = this.Frame.next(  1);                                   // 계좌이체 구분 -	1:Dacom, 2:Pop Banking,	3:실시간계좌이체 4: 승인형계좌이체
+				this.ACFeeSele          [i] = this.Frame.next(  1);                                   // 선/후불제구분 -	1:선불,	2:후불
+				this.ACInjaName         [i] = this.Frame.next( 16);                                   // 인자명(통장인쇄메세지-상점명)
+				this.ACPareBankCode     [i] = this.Frame.next(  6);                                   // 입금모계좌코드
+				this.ACPareAcctNo       [i] = this.Frame.next( 15);                                   // 입금모계좌번호
+				this.ACCustBankCode     [i] = this.Frame.next(  6);                                   // 출금모계좌코드
+				this.ACCustAcctNo       [i] = this.Frame.next( 15);                                   // 출금모계좌번호
+				this.ACAmount           [i] = this.Frame.next( 13);                                   // 금액	(결제대상금액)
+				this.ACBankTransactionNo[i] = this.Frame.next( 30);                                   // 은행거래번호
+				this.ACIpgumNm          [i] = this.Frame.next( 20);                                   // 입금자명
+				this.ACBankFee          [i] = this.Frame.next( 13);                                   // 계좌이체 수수료
+				this.ACBankAmount       [i] = this.Frame.next( 13);                                   // 총결제금액(결제대상금액+ 수수료
+				this.ACBankRespCode     [i] = this.Frame.next(  4);                                   // 오류코드
+				this.ACMessage1         [i] = this.Frame.next( 16);                                   // 오류 message 1
+				this.ACMessage2         [i] = this.Frame.next( 16);                                   // 오류 message 2
+				this.ACCavvSele         [i] = this.Frame.next(  1);                                   // 암호화데이터응답여부
+				this.ACFiller           [i] = this.Frame.next(183);                                   // 예비
 				
 				String EncLen = "";
 				this.ACEncData[i] = "";
 				if( ACCavvSele[i].equals("1") )
 				{
-					EncLen               = new String(this.KSPaySocket.read(5) ,MSG_ENCODING);
-					this.ACEncData[i]    = new String(this.KSPaySocket.read(Integer.parseInt(EncLen)) ,MSG_ENCODING); // 금결원암호화응답
+					EncLen               = this.Frame.next(5);
+					this.ACEncData[i]    = this.Frame.next(Integer.parseInt(EncLen));                                 // 금결원암호화응답
 				}
 				
 				TmpReceiveMsg = new StringBuffer();
@@ -1205,21 +1339,21 @@ public class KSPayApprovalCancelBean{
 				}
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("AcctRequest_recv,appr(2200,2300,2420) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("AcctRequest_recv,appr(2200,2300,2420) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 			// 상점상세정보 조회결과
 			else if(this.ApprovalType[i].substring(0,2).equals("A7")) {
-				this.SITransactionNo   [i] = new String(this.KSPaySocket.read( 12) ,MSG_ENCODING);   // 거래번호
-				this.SIStatus          [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 성공:O, 실패: X
-				this.SIRespCode        [i] = new String(this.KSPaySocket.read(  4) ,MSG_ENCODING);   // '0000' : 정상처리
-				this.SIAgenMembDealSele[i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 자체대행구분
-				this.SIStartSele       [i] = new String(this.KSPaySocket.read(  1) ,MSG_ENCODING);   // 개시여부
-				this.SIEntrNumb        [i] = new String(this.KSPaySocket.read( 10) ,MSG_ENCODING);   // 사업자번호
-				this.SIShopName        [i] = new String(this.KSPaySocket.read( 30) ,MSG_ENCODING);   // 상점명
-				this.SIMembNumbGene    [i] = new String(this.KSPaySocket.read( 15) ,MSG_ENCODING);   // 일반 가맹점번호
-				this.SIMembNumbNoin    [i] = new String(this.KSPaySocket.read( 15) ,MSG_ENCODING);   // 무이자 가맹점번호
-				this.SIAlloMontType    [i] = new String(this.KSPaySocket.read(200) ,MSG_ENCODING);   // 할부유형
-				this.SIFiller          [i] = new String(this.KSPaySocket.read(207) ,MSG_ENCODING);   // 예비
+				this.SITransactionNo   [i] = this.Frame.next( 12);                                   // 거래번호
+				this.SIStatus          [i] = this.Frame.next(  1);                                   // 성공:O, 실패: X
+				this.SIRespCode        [i] = this.Frame.next(  4);                                   // '0000' : 정상처리
+				this.SIAgenMembDealSele[i] = this.Frame.next(  1);                                   // 자체대행구분
+				this.SIStartSele       [i] = this.Frame.next(  1);                                   // 개시여부
+				this.SIEntrNumb        [i] = this.Frame.next( 10);                                   // 사업자번호
+				this.SIShopName        [i] = this.Frame.next( 30);                                   // 상점명
+				this.SIMembNumbGene    [i] = this.Frame.next( 15);                                   // 일반 가맹점번호
+				this.SIMembNumbNoin    [i] = this.Frame.next( 15);                                   // 무이자 가맹점번호
+				this.SIAlloMontType    [i] = this.Frame.next(200);                                   // 할부유형
+				this.SIFiller          [i] = this.Frame.next(207);                                   // 예비
 				
 				TmpReceiveMsg = new StringBuffer();
 				
@@ -1236,7 +1370,7 @@ public class KSPayApprovalCancelBean{
 				TmpReceiveMsg.append(this.SIFiller          [i]);
 				
 				this.ReceiveMsg += TmpReceiveMsg.toString();
-				System.out.println("ShopInfoDetail(A700) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
+				KSPayLog.println("ShopInfoDetail(A700) ReceiveMsg["+i+"]"+"=["+TmpReceiveMsg.toString()+"]");
 			}
 		}
 		return true;
@@ -1246,16 +1380,15 @@ public class KSPayApprovalCancelBean{
 	public boolean SendSocket(String Flag)
 	{
 		int	    state_flag        ;     /*최종상태플래그*/
-		String  real_send_msg = "";
+		byte[]  real_send_msg = null;
+		
+		this.OutcomeUnknown = false;
 		
 		try	{
-			real_send_msg = this.HeadMsg+this.SendMsg;
-			
-			String	pDataLen = this.format(""+real_send_msg.getBytes(MSG_ENCODING).length, 4, '9');
-			real_send_msg = pDataLen + real_send_msg;
+			real_send_msg = this.BuildSendMessage();
 			
-			System.out.println(">>>>>>>  SendSocket Start~!! <<<<<<<<");
-			System.out.println("SendMessage=["+real_send_msg+"]");
+			KSPayLog.println(">>>>>>>  SendSocket Start~!! <<<<<<<<");
+			KSPayLog.println("SendMessage=["+this.SendMessageLog(real_send_msg)+"]");
 			
 			state_flag = 9;
 			/*
@@ -1272,160 +1405,219 @@ public class KSPayApprovalCancelBean{
 			}
 		}catch(IOException e)
 		{
-			System.out.println(e.toString());
-			System.out.println("승인요청 실패");
+			KSPayLog.println(e.toString());
+			KSPayLog.println("승인요청 실패");
+			this.OutcomeUnknown = e instanceof KSPayOutcomeUnknownException;
 			return false;
 		}
+		finally
+		{
+			this.ReleaseSendMessage(real_send_msg);
+		}
 		
 		/*예외상황(통신실패,BU에러로재취소)*/
 		if(state_flag == 1) /*FEP와통신실패*/
 		{
-			for(int i = 0; i < this.ReceiveCount; i++)
-			{
-				Status         [i]  = "X";
-				Message1       [i]  = "KSPAY와통신실패";    // 메시지1
-				Message2       [i]  = "잠시후재시도";       // 메시지2
-				Point1         [i]  = "000000000000";
-				Point2         [i]  = "000000000000";
-				Point3         [i]  = "000000000000";
-				Point4         [i]  = "000000000000";
-				
-				VAStatus       [i]  = "X";
-				VAMessage1     [i]  = "KSPAY와통신실패";    // 메시지1
-				VAMessage2     [i]  = "잠시후재시도";       // 메시지2
-				
-				WPStatus       [i]  = "X";
-				WPMessage1     [i]  = "KSPAY와통신실패";    // 메시지1
-				WPMessage2     [i]  = "잠시후재시도";       // 메시지2
-				WPAuthNo       [i]  = "9999";
-				WPBalanceAmount[i]  = "000000000";
-				WPLimitAmount  [i]  = "000000000";
-				
-				PStatus        [i]  = "X";
-				PMessage1      [i]  = "KSPAY와통신실패";    // 메시지1
-				PMessage2      [i]  = "잠시후재시도";       // 메시지2
-				PPoint1        [i]  = "000000000";
-				PPoint2        [i]  = "000000000";
-				PPoint3        [i]  = "000000000";
-				PPoint4        [i]  = "000000000";
-				
-				HStatus        [i]  = "X";
-				HMessage1      [i]  = "KSPAY와통신실패";    // 메시지1
-				HMessage2      [i]  = "잠시후재시도";       // 메시지2
-				
-				MB1Status      [i]  = "X";
-				MB1Message     [i]  = "KSPAY와통신실패";     // 메시지
-				
-				MB2Status      [i]  = "X";
-				MB2Message     [i]      = "KSPAY와통신실패"; // 메시지
-				
-				BINStatus      [i]  = "X";
-				BINMessage1    [i]  = "KSPAY와통신실패";     // 메시지1
-				BINMessage2    [i]  = "잠시후재시도";        // 메시지2
-			}
+			this.SetCommFailure();
 		}
 		
 		return true;
 	}
 	
-	private boolean ProcessRequest(String addr, int port, String ServiceType, String SendMsg) throws IOException
+	/*
+	**	SendSocket 의 비동기(NIO) 버전
+	**	결과(true/false)는 SendSocket 과 같고, 응답 수신 후 Receive 필드가 채워진 상태로 완료된다.
+	*/
+	public CompletableFuture<Boolean> SendSocketAsync(String Flag, KSPayAsyncClient client)
 	{
-		boolean ret = false;
-		
-		this.KSPaySocket = new KSPaySocketBean(addr, port);
+		final byte[] real_send_msg;
 		
-		this.KSPaySocket.ConnectSocket();   //IPG_Server와 연결을 맺는다
-		this.KSPaySocket.write(SendMsg.getBytes(MSG_ENCODING)); //IPG_Server에 승인/취소요청 데이타를 보낸다.
-		
-		ret = ReceiveMessage();
+		this.OutcomeUnknown = false;
 		
-		this.KSPaySocket.CloseSocket();
-		
-		return ret;
-	}
-	
-	public static String format(String str, int len, char ctype)
-	{
-		byte[] buff;
-		int filllen = 0;
+		try	{
+			real_send_msg = this.BuildSendMessage();
+		}catch(IOException e)
+		{
+			KSPayLog.println(e.toString());
+			KSPayLog.println("승인요청 실패");
+			return CompletableFuture.completedFuture(false);
+		}
 		
-		String       trim_str = null;
-		StringBuffer sb       = new StringBuffer();
+		KSPayLog.println(">>>>>>>  SendSocketAsync Start~!! <<<<<<<<");
+		KSPayLog.println("SendMessage=["+this.SendMessageLog(real_send_msg)+"]");
 		
-		try
-		{
-			buff = (str == null) ? new byte[0] : str.getBytes(MSG_ENCODING);
+		return client.send(this.IPAddr, this.Port, real_send_msg, this.Deadline).handle((frame, ex) -> {
+			this.ReleaseSendMessage(real_send_msg);
 			
-			filllen = len - buff.length;
-			if (filllen < 0)
+			if (ex != null)
 			{
-				for(int i=0, j=0; j<len-4; i++)//적당히 여유를 두고 잘라버리자
+				Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+				KSPayLog.println(cause.toString());
+				KSPayLog.println("승인요청 실패");
+				this.OutcomeUnknown = cause instanceof KSPayOutcomeUnknownException;
+				return false;
+			}
+			
+			try	{
+				this.Frame    = KSPayFrame.wrap(frame);
+				this.Telegram = KSPayTelegramCodec.decode(frame);
+				if( !this.ReceiveResult() )   //FEP와 통신실패의경우
 				{
-					j += (str.charAt(i) > 127) ? 2 : 1;
-					sb.append(str.charAt(i));
+					this.SetCommFailure();
 				}
-				
-				trim_str = sb.toString();
-				buff = trim_str.getBytes(MSG_ENCODING);
-				filllen = len - buff.length;
-				
-				if (filllen <= 0) return new String(buff, 0, len ,MSG_ENCODING);//여기는 절대로 안타겠지...
-				sb.setLength(0);
-			}else
+				return true;
+			}catch(IOException e)
 			{
-				trim_str = str;
+				KSPayLog.println(e.toString());
+				KSPayLog.println("승인요청 실패");
+				return false;
 			}
-			
-			if(ctype == '9')   // 숫자열인 경우
-			{
-				for(int i = 0; i<filllen;i++) sb.append('0');
-				sb.append(trim_str);
-			}else              // 문자열인 경우
+			finally
 			{
-				for(int i = 0; i<filllen;i++) sb.append(' ');
-				sb.insert(0, trim_str);
+				this.Frame = null;
 			}
-		}catch(UnsupportedEncodingException ue)
+		});
+	}
+	
+	// 수신 전문 반영, LegacyFields 가 아니면 응답 필드는 채우지 않는다.
+	private boolean ReceiveResult() throws IOException
+	{
+		this.Results = null;
+		
+		if (this.LegacyFields)
 		{
-			ue.printStackTrace();
+			KSPayLegacyFields.allocate(this, MAXSIZE);
+			return this.ReceiveMessage();
 		}
-		return sb.toString();
+		
+		this.ReceiveCount = this.Telegram.size();
+		return !this.Telegram.isEmpty();
 	}
 	
-	private String setTrim(String str, int len)
+	// 길이(4) + Head + Data 송신 전문
+	// 템플릿(CancelMessage)을 사용한 경우 전송 후 ReleaseSendMessage 로 반납한다.
+	private byte[] BuildSendMessage() throws UnsupportedEncodingException
+	{
+		if (this.Template != null)
+		{
+			String[] t = this.TemplateSlots;
+			return this.Template.acquire(t[0], t[1], t[2], this.TemplateApprovalTypes, this.TemplateTransactionNos);
+		}
+		
+		byte[] body = (this.HeadMsg+this.SendMsg).getBytes(KSPayFixedWidth.CHARSET);
+		
+		byte[] real_send_msg = new byte[KSPayFrame.LENGTH_SIZE + body.length];
+		KSPayFixedWidth.write(real_send_msg, 0, ""+body.length, KSPayFrame.LENGTH_SIZE, '9');
+		System.arraycopy(body, 0, real_send_msg, KSPayFrame.LENGTH_SIZE, body.length);
+		return real_send_msg;
+	}
+	
+	private void ReleaseSendMessage(byte[] real_send_msg)
+	{
+		if (this.Template != null) this.Template.release(real_send_msg);
+	}
+	
+	private String SendMessageLog(byte[] real_send_msg)
+	{
+		if (this.Template != null)
+			return this.Template + " " + Arrays.toString(this.TemplateSlots) + " " + Arrays.toString(this.TemplateApprovalTypes)
+					+ " " + Arrays.toString(this.TemplateTransactionNos);
+		
+		return new String(real_send_msg, 0, 4) + this.HeadMsg + this.SendMsg;
+	}
+	
+	// FEP와 통신실패시 응답값 설정
+	private void SetCommFailure()
+	{
+		KSPayLegacyFields.allocate(this, MAXSIZE);
+		
+		for(int i = 0; i < this.ReceiveCount; i++)
+		{
+			Status         [i]  = "X";
+			Message1       [i]  = "KSPAY와통신실패";    // 메시지1
+			Message2       [i]  = "잠시후재시도";       // 메시지2
+			Point1         [i]  = "000000000000";
+			Point2         [i]  = "000000000000";
+			Point3         [i]  = "000000000000";
+			Point4         [i]  = "000000000000";
+			
+			VAStatus       [i]  = "X";
+			VAMessage1     [i]  = "KSPAY와통신실패";    // 메시지1
+			VAMessage2     [i]  = "잠시후재시도";       // 메시지2
+			
+			WPStatus       [i]  = "X";
+			WPMessage1     [i]  = "KSPAY와통신실패";    // 메시지1
+			WPMessage2     [i]  = "잠시후재시도";       // 메시지2
+			WPAuthNo       [i]  = "9999";
+			WPBalanceAmount[i]  = "000000000";
+			WPLimitAmount  [i]  = "000000000";
+			
+			PStatus        [i]  = "X";
+			PMessage1      [i]  = "KSPAY와통신실패";    // 메시지1
+			PMessage2      [i]  = "잠시후재시도";       // 메시지2
+			PPoint1        [i]  = "000000000";
+			PPoint2        [i]  = "000000000";
+			PPoint3        [i]  = "000000000";
+			PPoint4        [i]  = "000000000";
+			
+			HStatus        [i]  = "X";
+			HMessage1      [i]  = "KSPAY와통신실패";    // 메시지1
+			HMessage2      [i]  = "잠시후재시도";       // 메시지2
+			
+			MB1Status      [i]  = "X";
+			MB1Message     [i]  = "KSPAY와통신실패";     // 메시지
+			
+			MB2Status      [i]  = "X";
+			MB2Message     [i]      = "KSPAY와통신실패"; // 메시지
+			
+			BINStatus      [i]  = "X";
+			BINMessage1    [i]  = "KSPAY와통신실패";     // 메시지1
+			BINMessage2    [i]  = "잠시후재시도";        // 메시지2
+		}
+	}
+	
+	private boolean ProcessRequest(String addr, int port, String ServiceType, byte[] SendMsg) throws IOException
 	{
-		byte[] subbytes = null;
-		String tmpStr = null;
-		subbytes = new byte[len];
+		boolean ret = false;
+		
+		this.KSPaySocket = new KSPaySocketBean(addr, port, this.SocketPool);
+		this.KSPaySocket.setDeadline(this.Deadline);
 		
+		this.KSPaySocket.ConnectSocket();   //IPG_Server와 연결을 맺는다
 		try
 		{
-			System.arraycopy(str.getBytes(MSG_ENCODING), 0, subbytes, 0, len);
-			tmpStr = new String(subbytes ,MSG_ENCODING);
-			if(tmpStr.length() == 0)
-			{
-				subbytes = new byte[len-1];
-				System.arraycopy(str.getBytes(MSG_ENCODING), 0, subbytes, 0, len-1);
-				tmpStr = new String(subbytes ,MSG_ENCODING);
-			}
-		}catch(UnsupportedEncodingException ue)
+			this.KSPaySocket.write(SendMsg); //IPG_Server에 승인/취소요청 데이타를 보낸다.
+			
+			this.Frame    = this.KSPaySocket.readFrame();  //응답 전문 전체를 한번에 읽는다.
+			this.Telegram = KSPayTelegramCodec.decode(this.Frame);
+			
+			ret = ReceiveResult();
+			
+			this.KSPaySocket.setReusable(true);  //응답 전문을 모두 읽었으므로 연결 재사용 가능
+		}
+		finally
 		{
-			ue.printStackTrace();
+			this.Frame = null;
+			this.KSPaySocket.CloseSocket();
 		}
-		return tmpStr;
+		
+		return ret;
+	}
+	
+	// 고정길이 항목 (KSPayFixedWidth 참조)
+	public static String format(String str, int len, char ctype)
+	{
+		return KSPayFixedWidth.format(str, len, ctype);
+	}
+	
+	private String setTrim(String str, int len)
+	{
+		return KSPayFixedWidth.trim(str, len);
 	}
 	
 	private String setLogMsg(String str)
 	{
-		String strBuf = "";
-		for(int i=0; i < str.length(); i++)
-		{
-			if(str.substring(i, i+1).equals(" "))
-				strBuf = strBuf + "_";
-			else
-				strBuf = strBuf + str.substring(i, i+1);
-		}
-		return strBuf;
+		return str.replace(' ', '_');
 	}
 	
 	public static String[] split(String srcStr, char c1)
@@ -0,0 +1,245 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.*;
+
+/*
+	Class Name : KSPayAsyncClient
+	             IPG_Server(C-Daemon) 비동기(NIO) 통신
+
+	요청 전문을 보내고 응답 전문(길이 4byte + 데이타)을 모두 받으면 CompletableFuture 를 완료한다.
+	소수의 채널 그룹 스레드가 연결/쓰기/읽기 완료 이벤트를 처리하므로
+	요청 스레드는 응답을 기다리며 블록되지 않는다.
+	요청 전문을 모두 보낸 뒤 실패하면 KSPayOutcomeUnknownException 으로 완료한다.
+*/
+
+public class KSPayAsyncClient {
+
+	private static final int LENGTH_SIZE = 4;
+	private static final int MAX_DATA_SIZE = 9999;     // 길이부 4자리
+
+	private final AsynchronousChannelGroup group;
+	private final ScheduledExecutorService timer;           // 연결 제한시간 (connect 에는 timeout 인자가 없음)
+	private final long                     connectTimeoutMillis;
+	private final long                     readTimeoutMillis;
+
+	public KSPayAsyncClient(int threads, long readTimeoutMillis) throws IOException
+	{
+		this(threads, 0, readTimeoutMillis);
+	}
+
+	public KSPayAsyncClient(int threads, long connectTimeoutMillis, long readTimeoutMillis) throws IOException
+	{
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis    = readTimeoutMillis;
+		this.group = AsynchronousChannelGroup.withFixedThreadPool(threads, new ThreadFactory() {
+			private int seq = 0;
+
+			public synchronized Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "kspay-nio-" + (++seq));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "kspay-nio-timer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	// 요청 전문 전송 후 응답 전문(길이 포함) 반환
+	public CompletableFuture<byte[]> send(String addr, int port, byte[] request)
+	{
+		return send(addr, port, request, null);
+	}
+
+	// deadline 이 있으면 연결, 송수신 제한시간을 남은 시간 이내로 줄인다.
+	public CompletableFuture<byte[]> send(String addr, int port, byte[] request, KSPayDeadline deadline)
+	{
+		CompletableFuture<byte[]> result = new CompletableFuture<byte[]>();
+
+		try
+		{
+			long connectTimeout = (deadline == null) ? connectTimeoutMillis : deadline.connectTimeout();
+
+			AsynchronousSocketChannel channel = AsynchronousSocketChannel.open(group);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+			new Exchange(channel, ByteBuffer.wrap(request), result, deadline).connect(new InetSocketAddress(addr, port), connectTimeout);
+		}
+		catch (IOException e)
+		{
+			result.completeExceptionally(new IOException("[KSPayAsyncClient] cannot connect server : (" + addr + " , " + port + ")", e));
+		}
+
+		return result;
+	}
+
+	public void close()
+	{
+		timer.shutdownNow();
+		try { group.shutdownNow(); } catch (IOException e) { }
+	}
+
+	/*
+	**	요청 1건의 연결 -> 쓰기 -> 길이 읽기 -> 데이타 읽기 진행
+	*/
+	private class Exchange {
+
+		private final AsynchronousSocketChannel  channel;
+		private final ByteBuffer                 request;
+		private final CompletableFuture<byte[]>  result;
+		private final KSPayDeadline              deadline;
+
+		private final ByteBuffer                 length = ByteBuffer.allocate(LENGTH_SIZE);
+		private ByteBuffer                       frame;
+		private volatile boolean                 sent;      // 요청 전문을 모두 보냄
+
+		Exchange(AsynchronousSocketChannel channel, ByteBuffer request, CompletableFuture<byte[]> result, KSPayDeadline deadline)
+		{
+			this.channel  = channel;
+			this.request  = request;
+			this.result   = result;
+			this.deadline = deadline;
+		}
+
+		void connect(SocketAddress remote, long timeoutMillis)
+		{
+			final ScheduledFuture<?> expiry = (timeoutMillis > 0) ? timer.schedule(new Runnable() {
+				public void run() {
+					fail(new SocketTimeoutException("[KSPayAsyncClient] connect timed out : " + remote));
+				}
+			}, timeoutMillis, TimeUnit.MILLISECONDS) : null;
+
+			channel.connect(remote, null, new Handler<Void>() {
+				public void completed(Void v, Void a) {
+					if (expiry != null) expiry.cancel(false);
+					write();
+				}
+			});
+		}
+
+		// 남은 시간으로 줄인 송수신 제한시간, 남은 시간이 없으면 실패 처리 후 -1
+		long timeout()
+		{
+			if (deadline == null) return readTimeoutMillis;
+
+			try
+			{
+				return deadline.readTimeout();
+			}
+			catch (SocketTimeoutException e)
+			{
+				fail(e);
+				return -1;
+			}
+		}
+
+		void write()
+		{
+			long timeout = timeout();
+			if (timeout < 0) return;
+
+			channel.write(request, timeout, TimeUnit.MILLISECONDS, null, new Handler<Integer>() {
+				public void completed(Integer n, Void a) {
+					if (request.hasRemaining()) {
+						write();
+						return;
+					}
+					sent = true;
+					readLength();
+				}
+			});
+		}
+
+		void readLength()
+		{
+			long timeout = timeout();
+			if (timeout < 0) return;
+
+			channel.read(length, timeout, TimeUnit.MILLISECONDS, null, new Handler<Integer>() {
+				public void completed(Integer n, Void a) {
+					if (n < 0) {
+						fail(new EOFException("[KSPayAsyncClient] connection closed before response"));
+						return;
+					}
+					if (length.hasRemaining()) {
+						readLength();
+						return;
+					}
+
+					String len = new String(length.array(), 0, LENGTH_SIZE).trim();
+					if (len.isEmpty()) {
+						done(length.array());   // 빈 응답, ReceiveMessage 에서 실패 처리
+						return;
+					}
+
+					int size;
+					try {
+						size = Integer.parseInt(len);
+					} catch (NumberFormatException e) {
+						size = -1;
+					}
+					// 음수("-005")나 길이부를 넘는 값은 버퍼 생성에서 예외가 나서 결과가 완료되지 않으므로 여기서 실패 처리
+					if (size < 0 || size > MAX_DATA_SIZE) {
+						fail(new IOException("[KSPayAsyncClient] invalid length : [" + len + "]"));
+						return;
+					}
+
+					frame = ByteBuffer.allocate(LENGTH_SIZE + size);
+					frame.put(length.array());
+					readFrame();
+				}
+			});
+		}
+
+		void readFrame()
+		{
+			if (!frame.hasRemaining()) {
+				done(frame.array());
+				return;
+			}
+
+			long timeout = timeout();
+			if (timeout < 0) return;
+
+			channel.read(frame, timeout, TimeUnit.MILLISECONDS, null, new Handler<Integer>() {
+				public void completed(Integer n, Void a) {
+					if (n < 0) fail(new EOFException("[KSPayAsyncClient] connection closed while reading response"));
+					else       readFrame();
+				}
+			});
+		}
+
+		void done(byte[] response)
+		{
+			closeChannel();
+			result.complete(response);
+		}
+
+		void fail(Throwable t)
+		{
+			closeChannel();
+			if (sent && !(t instanceof KSPayOutcomeUnknownException))
+				t = new KSPayOutcomeUnknownException("[KSPayAsyncClient] no response after request sent : " + t, t);
+			result.completeExceptionally(t);
+		}
+
+		void closeChannel()
+		{
+			try { channel.close(); } catch (IOException e) { }
+		}
+
+		private abstract class Handler<V> implements CompletionHandler<V, Void> {
+			public void failed(Throwable t, Void a) {
+				fail(t);
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package ksnet.kspay;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+	Class Name : KSPayCancelTemplate
+	             취소요청 전문(길이 4byte + Header + 취소 Data) 템플릿
+
+	EncType, Version 별로 고정 항목을 미리 인코딩해 두고,
+	요청마다 바뀌는 항목(전송구분, 요청일자, 상점아이디, 승인구분, 거래번호)만 버퍼에 덮어쓴다.
+		- 구분 00, 제품구분 0(실물), KeyInType K, lineType 1(internet), 복합승인갯수 1
+		- 취소처리구분 0, 나머지 항목은 공백
+	버퍼는 템플릿별로 재사용하므로 전송 후 release 해야 한다.
+
+	복합취소(같은 상점의 취소 Data 최대 9건)는 취소 Data 를 건수만큼 반복하고
+	길이와 복합승인갯수를 덮어쓴다. 복합취소 버퍼는 재사용하지 않는다.
+*/
+
+public final class KSPayCancelTemplate {
+
+	private static final int                 POOL_SIZE = 32;
+	public  static final int                 MAX_COUNT = 9;      // 복합승인갯수 최대값
+	private static final ConcurrentHashMap<String, KSPayCancelTemplate> TEMPLATES = new ConcurrentHashMap<String, KSPayCancelTemplate>();
+
+	private static final KSPayLayout         HEADER = KSPayLayouts.HEADER;
+	private static final KSPayLayout         CANCEL = KSPayLayouts.CANCEL_REQUEST;
+	private static final int                 BODY   = KSPayFrame.LENGTH_SIZE + HEADER.getLength();
+
+	private static final int                 RESEND_OFF        = slot(HEADER, KSPayFrame.LENGTH_SIZE, "Resend");
+	private static final int                 REQUEST_DATE_OFF  = slot(HEADER, KSPayFrame.LENGTH_SIZE, "RequestDate");
+	private static final int                 STORE_ID_OFF      = slot(HEADER, KSPayFrame.LENGTH_SIZE, "StoreId");
+	private static final int                 COUNT_OFF         = slot(HEADER, KSPayFrame.LENGTH_SIZE, "ApprovalCount");
+	private static final int                 APPROVAL_TYPE_OFF = slot(CANCEL, BODY, "ApprovalType");
+	private static final int                 TRNO_OFF          = slot(CANCEL, BODY, "TransactionNo");
+
+	private final String                     name;
+	private final byte[]                     template;
+	private final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicInteger              pooled = new AtomicInteger();
+
+	private KSPayCancelTemplate(String EncType, String Version)
+	{
+		this.name = EncType + "/" + Version;
+
+		String HeadMsg = KSPayApprovalCancelBean.format(EncType, 1, 'X')
+				+ KSPayApprovalCancelBean.format(Version,  4, 'X')
+				+ "00"                                               // 구분
+				+ "0"                                                // 전송구분
+				+ blank(14 + 10 + 50 + 50 + 13 + 50)                 // 요청일자 ~ email
+				+ "0"                                                // 제품구분
+				+ blank(50)                                          // 제품명
+				+ "K"                                                // KeyInType
+				+ "1"                                                // lineType
+				+ blank(12)                                          // 휴대폰번호
+				+ "1"                                                // 복합승인갯수
+				+ blank(35);                                         // 예비
+		String SendMsg = blank(4) + "0" + blank(CANCEL.getLength() - 5);   // 승인구분, 취소처리구분, ...
+
+		String len = KSPayApprovalCancelBean.format("" + (HEADER.getLength() + CANCEL.getLength()), 4, '9');
+
+		this.template = (len + HeadMsg + SendMsg).getBytes(KSPayFrame.MSG_CHARSET);
+		if (this.template.length != BODY + CANCEL.getLength())
+			throw new IllegalStateException("[KSPayCancelTemplate] invalid template length : " + this.template.length);
+	}
+
+	public static KSPayCancelTemplate of(String EncType, String Version)
+	{
+		String key = EncType + "/" + Version;
+		KSPayCancelTemplate t = TEMPLATES.get(key);
+		if (t == null)
+		{
+			KSPayCancelTemplate created = new KSPayCancelTemplate(EncType, Version);
+			t = TEMPLATES.putIfAbsent(key, created);
+			if (t == null) t = created;
+		}
+		return t;
+	}
+
+	public int length()
+	{
+		return template.length;
+	}
+
+	// 요청 전문, 사용 후 release(frame)
+	byte[] acquire(String Resend, String RequestDate, String StoreId, String ApprovalType, String TrNo)
+	{
+		byte[] frame = pool.poll();
+		if (frame != null) pooled.decrementAndGet();
+		else               frame = new byte[template.length];
+
+		System.arraycopy(template, 0, frame, 0, template.length);
+
+		put(frame, RESEND_OFF,        1, Resend);
+		put(frame, REQUEST_DATE_OFF, 14, RequestDate);
+		put(frame, STORE_ID_OFF,     10, StoreId);
+		put(frame, APPROVAL_TYPE_OFF, 4, ApprovalType);
+		put(frame, TRNO_OFF,         12, TrNo);
+
+		return frame;
+	}
+
+	// 복합취소 요청 전문, 1건이면 단건 전문과 같다. 사용 후 release(frame)
+	byte[] acquire(String Resend, String RequestDate, String StoreId, String[] ApprovalType, String[] TrNo)
+	{
+		int count = TrNo.length;
+		if (count < 1 || count > MAX_COUNT || ApprovalType.length != count)
+			throw new IllegalArgumentException("[KSPayCancelTemplate] invalid approval count : " + count);
+
+		if (count == 1)
+			return acquire(Resend, RequestDate, StoreId, ApprovalType[0], TrNo[0]);
+
+		int record = CANCEL.getLength();
+		byte[] frame = new byte[BODY + count * record];
+
+		System.arraycopy(template, 0, frame, 0, BODY);
+		for (int i = 0; i < count; i++)
+			System.arraycopy(template, BODY, frame, BODY + i * record, record);
+
+		KSPayFixedWidth.write(frame, 0, "" + (frame.length - KSPayFrame.LENGTH_SIZE), KSPayFrame.LENGTH_SIZE, '9');
+		put(frame, COUNT_OFF,         1, "" + count);
+		put(frame, RESEND_OFF,        1, Resend);
+		put(frame, REQUEST_DATE_OFF, 14, RequestDate);
+		put(frame, STORE_ID_OFF,     10, StoreId);
+
+		for (int i = 0; i < count; i++)
+		{
+			put(frame, APPROVAL_TYPE_OFF + i * record, 4, ApprovalType[i]);
+			put(frame, TRNO_OFF          + i * record, 12, TrNo[i]);
+		}
+
+		return frame;
+	}
+
+	void release(byte[] frame)
+	{
+		if (frame == null || frame.length != template.length) return;
+
+		if (pooled.incrementAndGet() <= POOL_SIZE) pool.offer(frame);
+		else                                        pooled.decrementAndGet();
+	}
+
+	public String toString()
+	{
+		return "KSPayCancelTemplate[" + name + "]";
+	}
+
+	// 문자열 항목(좌측정렬, 공백 채움)을 덮어쓴다.
+	private static void put(byte[] frame, int off, int len, String value)
+	{
+		KSPayFixedWidth.write(frame, off, (value == null) ? "" : value, len, 'X');
+	}
+
+	private static int slot(KSPayLayout layout, int base, String field)
+	{
+		return base + layout.getOffset(layout.indexOf(field));
+	}
+
+	private static String blank(int len)
+	{
+		char[] c = new char[len];
+		Arrays.fill(c, ' ');
+		return new String(c);
+	}
+}
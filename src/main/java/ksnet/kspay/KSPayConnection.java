@@ -0,0 +1,102 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.net.*;
+
+/*
+	Class Name : KSPayConnection
+	             IPG_Server(C-Daemon)과의 물리 연결 1개
+	             KSPaySocketBean, KSPaySocketPool 에서만 사용한다.
+*/
+
+final class KSPayConnection {
+
+	final String            key;                // addr:port
+	final Socket            socket;
+	final DataInputStream   in;
+	final DataOutputStream  out;
+	final KSPayFrame        frame = new KSPayFrame();   // 응답 전문 버퍼(연결 단위 재사용)
+
+	long                    lastUsed;           // 마지막 반납 시각(ms)
+	boolean                 broken;             // 통신 중 오류 발생 여부
+
+	private KSPayConnection(String key, Socket socket) throws IOException
+	{
+		this.key      = key;
+		this.socket   = socket;
+		this.in       = new DataInputStream(socket.getInputStream());
+		this.out      = new DataOutputStream(socket.getOutputStream());
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	static String key(String addr, int port)
+	{
+		return addr + ":" + port;
+	}
+
+	static KSPayConnection open(String addr, int port) throws IOException
+	{
+		return open(addr, port, 0);
+	}
+
+	// connectTimeoutMillis : 0 이면 제한 없음
+	static KSPayConnection open(String addr, int port, int connectTimeoutMillis) throws IOException
+	{
+		Socket socket = new Socket();
+		try
+		{
+			socket.connect(new InetSocketAddress(addr, port), connectTimeoutMillis);
+		}
+		catch (IOException e)
+		{
+			try { socket.close(); } catch (IOException ce) { }
+			throw e;
+		}
+		socket.setTcpNoDelay(true);
+		socket.setKeepAlive(true);
+
+		return new KSPayConnection(key(addr, port), socket);
+	}
+
+	// 유휴 연결 재사용 가능 여부
+	// 상대편이 연결을 끊었는지(FIN) 1ms 대기 read 로 확인한다.
+	boolean isHealthy(long idleTimeoutMillis)
+	{
+		if (broken || socket.isClosed() || !socket.isConnected()
+				|| socket.isInputShutdown() || socket.isOutputShutdown())
+			return false;
+
+		if (idleTimeoutMillis > 0 && System.currentTimeMillis() - lastUsed > idleTimeoutMillis)
+			return false;
+
+		int timeout = 0;
+		try
+		{
+			// 응답을 다 읽은 연결에 남은 데이타가 있으면 전문이 어긋난 것이다.
+			if (in.available() > 0)
+				return false;
+
+			timeout = socket.getSoTimeout();
+			socket.setSoTimeout(1);
+			in.read();      // -1 : 연결 끊김, 그 외 : 요청하지 않은 데이타
+			return false;
+		}
+		catch (SocketTimeoutException e)
+		{
+			return true;    // 읽을 데이타 없음 = 연결 유지중
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		finally
+		{
+			try { socket.setSoTimeout(timeout); } catch (IOException e) { }
+		}
+	}
+
+	void close()
+	{
+		try { socket.close(); } catch (IOException e) { }
+	}
+}
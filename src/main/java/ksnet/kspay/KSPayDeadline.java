@@ -0,0 +1,74 @@
+package ksnet.kspay;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/*
+	Class Name : KSPayDeadline
+	             요청 1건의 통신 시간 제한
+
+	- connectTimeoutMillis : 연결 제한시간 (0 이면 남은 시간까지)
+	- readTimeoutMillis    : 수신 대기(SO_TIMEOUT) 제한시간 (0 이면 남은 시간까지)
+	- budgetMillis         : 요청 전체 제한시간, 생성 시점부터 계산한다.
+
+	연결, 송신, 수신 직전에 남은 시간으로 제한시간을 줄여 적용하므로
+	재전송을 포함한 전체 통신이 budget 을 넘지 않는다.
+*/
+
+public final class KSPayDeadline {
+
+	private final int   connectTimeoutMillis;
+	private final int   readTimeoutMillis;
+	private final long  budgetMillis;
+	private final long  deadline;           // System.nanoTime 기준
+
+	private KSPayDeadline(int connectTimeoutMillis, int readTimeoutMillis, long budgetMillis)
+	{
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis    = readTimeoutMillis;
+		this.budgetMillis         = budgetMillis;
+		this.deadline             = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+	}
+
+	public static KSPayDeadline of(int connectTimeoutMillis, int readTimeoutMillis, long budgetMillis)
+	{
+		return new KSPayDeadline(connectTimeoutMillis, readTimeoutMillis, budgetMillis);
+	}
+
+	public long remainingMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+	}
+
+	public boolean isExpired()
+	{
+		return remainingMillis() <= 0;
+	}
+
+	// 연결 제한시간, 남은 시간이 없으면 SocketTimeoutException
+	public int connectTimeout() throws SocketTimeoutException
+	{
+		return bound(connectTimeoutMillis, "connect");
+	}
+
+	// 수신 대기 제한시간, 남은 시간이 없으면 SocketTimeoutException
+	public int readTimeout() throws SocketTimeoutException
+	{
+		return bound(readTimeoutMillis, "read");
+	}
+
+	private int bound(int timeout, String op) throws SocketTimeoutException
+	{
+		long remaining = remainingMillis();
+		if (remaining <= 0)
+			throw new SocketTimeoutException("[KSPayDeadline] deadline expired before " + op + " (budget " + budgetMillis + "ms)");
+
+		return (int) ((timeout > 0) ? Math.min(timeout, remaining) : Math.min(remaining, Integer.MAX_VALUE));
+	}
+
+	public String toString()
+	{
+		return "KSPayDeadline[connect=" + connectTimeoutMillis + ", read=" + readTimeoutMillis
+				+ ", budget=" + budgetMillis + ", remaining=" + remainingMillis() + "]";
+	}
+}
@@ -0,0 +1,185 @@
+package ksnet.kspay;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.Arrays;
+
+/*
+	Class Name : KSPayFixedWidth
+	             고정길이 항목 쓰기/읽기 (KSC5601)
+
+	전문 항목은 대부분 숫자, 아이디, 일자 같은 ASCII 값이므로
+	ASCII 값은 인코딩 없이 바로 쓰고 읽으며, 채움 문자는 Arrays.fill 로 한번에 채운다.
+	한글 등 ASCII 가 아닌 값만 스레드별 CharsetEncoder 로 인코딩한다.
+		- 문자열(ctype 'X') : 좌측정렬, 공백 채움
+		- 숫자열(ctype '9') : 우측정렬, '0' 채움
+		- 길이 초과 : 여유를 두고 (길이 - 4) byte 이내로 자른 뒤 채운다. (KSPayApprovalCancelBean.format 규칙)
+*/
+
+public final class KSPayFixedWidth {
+
+	public static final Charset  CHARSET = KSPayFrame.MSG_CHARSET;
+
+	private static final int     MARGIN  = 4;       // 길이 초과시 남기는 여유
+
+	private static final ThreadLocal<CharsetEncoder> ENCODER = new ThreadLocal<CharsetEncoder>() {
+		protected CharsetEncoder initialValue()
+		{
+			return CHARSET.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+	};
+
+	private KSPayFixedWidth() {}
+
+	// dst[off] 부터 len byte 에 항목을 쓰고 다음 위치를 돌려준다.
+	public static int write(byte[] dst, int off, String str, int len, char ctype)
+	{
+		if (str != null && isAscii(str))
+		{
+			int n = Math.min(str.length(), str.length() > len ? Math.max(len - MARGIN, 0) : len);
+			int pad = len - n;
+			int at = (ctype == '9') ? off + pad : off;
+
+			for (int i = 0; i < n; i++) dst[at + i] = (byte) str.charAt(i);
+
+			if (ctype == '9') Arrays.fill(dst, off, off + pad, (byte) '0');
+			else              Arrays.fill(dst, off + n, off + len, (byte) ' ');
+
+			return off + len;
+		}
+
+		int n = (str == null) ? -1 : encode(str, dst, off, len);
+		if (n < 0)
+		{
+			// 길이 초과 또는 null : 기존 규칙대로 자른 문자열을 인코딩
+			byte[] b = format(str, len, ctype).getBytes(CHARSET);
+			n = Math.min(len, b.length);
+			System.arraycopy(b, 0, dst, off, n);
+			Arrays.fill(dst, off + n, off + len, (byte) ' ');
+			return off + len;
+		}
+
+		if (ctype == '9')
+		{
+			System.arraycopy(dst, off, dst, off + len - n, n);
+			Arrays.fill(dst, off, off + len - n, (byte) '0');
+		}
+		else
+		{
+			Arrays.fill(dst, off + n, off + len, (byte) ' ');
+		}
+		return off + len;
+	}
+
+	// src[off] 부터 len byte 를 문자열로 읽는다.
+	public static String read(byte[] src, int off, int len)
+	{
+		for (int i = off, end = off + len; i < end; i++)
+			if (src[i] < 0) return new String(src, off, len, CHARSET);
+
+		return new String(src, off, len, StandardCharsets.ISO_8859_1);
+	}
+
+	// 고정길이 문자열 (길이 초과시 자름)
+	public static String format(String str, int len, char ctype)
+	{
+		if (str == null || !isAscii(str)) return formatEncoded(str, len, ctype);
+
+		int n = str.length();
+		if (n > len) n = Math.max(len - MARGIN, 0);
+		if (n == len && n == str.length()) return str;
+
+		char[] c = new char[len];
+		if (ctype == '9')
+		{
+			Arrays.fill(c, 0, len - n, '0');
+			str.getChars(0, n, c, len - n);
+		}
+		else
+		{
+			str.getChars(0, n, c, 0);
+			Arrays.fill(c, n, len, ' ');
+		}
+		return new String(c);
+	}
+
+	// 고정길이 문자열 (길이 초과시 그대로 둠, KSPaySocketBean.format 규칙)
+	public static String pad(String str, int len, char ctype)
+	{
+		int n = isAscii(str) ? str.length() : str.getBytes(CHARSET).length;
+		if (n >= len) return str;
+
+		char[] c = new char[len - n];
+		Arrays.fill(c, (ctype == '9') ? '0' : ' ');
+		return (ctype == '9') ? new String(c) + str : str + new String(c);
+	}
+
+	// 앞에서 len byte 만큼 자른 문자열
+	public static String trim(String str, int len)
+	{
+		if (len > 0 && isAscii(str) && str.length() >= len) return str.substring(0, len);
+
+		byte[] b = str.getBytes(CHARSET);
+		String s = new String(b, 0, checkLength(b, len), CHARSET);
+		if (s.length() == 0)
+			s = new String(b, 0, checkLength(b, len - 1), CHARSET);
+		return s;
+	}
+
+	public static boolean isAscii(String str)
+	{
+		for (int i = 0, n = str.length(); i < n; i++)
+			if (str.charAt(i) >= 0x80) return false;
+		return true;
+	}
+
+	// len byte 안에 인코딩되면 byte 수, 넘치면 -1
+	private static int encode(String str, byte[] dst, int off, int len)
+	{
+		CharsetEncoder enc = ENCODER.get().reset();
+		ByteBuffer     out = ByteBuffer.wrap(dst, off, len);
+
+		CoderResult r = enc.encode(CharBuffer.wrap(str), out, true);
+		if (r.isOverflow() || enc.flush(out).isOverflow()) return -1;
+
+		return out.position() - off;
+	}
+
+	// 한글 등이 섞인 값 : 문자 단위로 (길이 - 4) byte 까지 자른다.
+	private static String formatEncoded(String str, int len, char ctype)
+	{
+		byte[] buff = (str == null) ? new byte[0] : str.getBytes(CHARSET);
+		String trim_str = str;
+
+		int filllen = len - buff.length;
+		if (filllen < 0)
+		{
+			StringBuilder sb = new StringBuilder(len);
+			for (int i = 0, j = 0; j < len - MARGIN; i++)
+			{
+				j += (str.charAt(i) > 127) ? 2 : 1;
+				sb.append(str.charAt(i));
+			}
+
+			trim_str = sb.toString();
+			buff     = trim_str.getBytes(CHARSET);
+			filllen  = len - buff.length;
+
+			if (filllen <= 0) return new String(buff, 0, len, CHARSET);
+		}
+
+		char[] c = new char[filllen];
+		Arrays.fill(c, (ctype == '9') ? '0' : ' ');
+		return (ctype == '9') ? new String(c) + trim_str : trim_str + new String(c);
+	}
+
+	// System.arraycopy 와 같은 예외 (기존 setTrim 동작 유지)
+	private static int checkLength(byte[] b, int len)
+	{
+		if (len < 0)        throw new NegativeArraySizeException(String.valueOf(len));
+		if (len > b.length) throw new ArrayIndexOutOfBoundsException("arraycopy: last source index " + len + " out of bounds for byte[" + b.length + "]");
+		return len;
+	}
+}
@@ -0,0 +1,125 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/*
+	Class Name : KSPayFrame
+	             IPG_Server(C-Daemon) 응답 전문 1건 (길이 4byte + 데이타)
+
+	길이와 데이타를 각각 한번에 끝까지 읽어(read fully) 버퍼에 담고,
+	ReceiveMessage 는 소켓 대신 버퍼에서 고정길이 항목을 순서대로 꺼낸다.
+	버퍼는 연결(KSPayConnection)마다 하나를 재사용한다.
+*/
+
+final class KSPayFrame {
+
+	static final int            LENGTH_SIZE  = 4;
+	static final Charset        MSG_CHARSET  = Charset.forName("ksc5601");
+
+	private byte[]              buf;
+	private int                 limit;              // 전문 끝 (길이 4byte 포함)
+	private int                 pos;                // 다음 항목 위치
+
+	KSPayFrame()
+	{
+		this(1024);
+	}
+
+	private KSPayFrame(int capacity)
+	{
+		this.buf = new byte[capacity];
+	}
+
+	// 이미 수신한 전문(길이 포함)을 감싼다.
+	static KSPayFrame wrap(byte[] frame)
+	{
+		KSPayFrame f = new KSPayFrame(0);
+		f.buf   = frame;
+		f.limit = frame.length;
+		f.pos   = 0;
+		return f;
+	}
+
+	// 스트림에서 전문 1건을 읽는다. 길이가 공백이면 데이타 없이 길이만 담는다.
+	KSPayFrame readFrom(InputStream in) throws IOException
+	{
+		pos   = 0;
+		limit = 0;
+
+		readFully(in, buf, 0, LENGTH_SIZE);
+		limit = LENGTH_SIZE;
+
+		int size = dataLength();
+		if (size > 0)
+		{
+			if (buf.length < LENGTH_SIZE + size)
+			{
+				byte[] grown = new byte[LENGTH_SIZE + size];
+				System.arraycopy(buf, 0, grown, 0, LENGTH_SIZE);
+				buf = grown;
+			}
+
+			readFully(in, buf, LENGTH_SIZE, size);
+			limit = LENGTH_SIZE + size;
+		}
+
+		return this;
+	}
+
+	// 길이부의 데이타 길이, 공백이면 0
+	int dataLength() throws IOException
+	{
+		int size = 0;
+		boolean blank = true;
+
+		for (int i = 0; i < LENGTH_SIZE; i++)
+		{
+			byte b = buf[i];
+			if (b == ' ') continue;
+			if (b < '0' || b > '9')
+				throw new IOException("[KSPayFrame] invalid length : [" + new String(buf, 0, LENGTH_SIZE, MSG_CHARSET) + "]");
+
+			size  = size * 10 + (b - '0');
+			blank = false;
+		}
+
+		return blank ? 0 : size;
+	}
+
+	// 다음 len byte 항목
+	String next(int len) throws IOException
+	{
+		if (len < 0 || pos + len > limit)
+			throw new EOFException("[KSPayFrame] frame underflow : pos=" + pos + ", len=" + len + ", limit=" + limit);
+
+		String s = KSPayFixedWidth.read(buf, pos, len);
+		pos += len;
+		return s;
+	}
+
+	int remaining()
+	{
+		return limit - pos;
+	}
+
+	// 전문 전체(길이 포함) 복사본
+	byte[] toByteArray()
+	{
+		return Arrays.copyOf(buf, limit);
+	}
+
+	private static void readFully(InputStream in, byte[] b, int off, int len) throws IOException
+	{
+		while (len > 0)
+		{
+			int n = in.read(b, off, len);
+			if (n < 0)
+				throw new EOFException("[KSPayFrame] connection closed while reading response");
+
+			off += n;
+			len -= n;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package ksnet.kspay;
+
+import java.util.*;
+
+/*
+	Class Name : KSPayLayout
+	             고정길이 전문 레코드 1종의 항목 배치(항목명, 위치, 길이)
+
+	항목명은 KSPayApprovalCancelBean 의 응답 필드명과 같다.
+	일부 레코드는 고정길이부 뒤에 조건부 가변 데이타(길이 5byte + 데이타)가 붙는다.
+		- 신용카드 : AuthType 이 공백이 아니면 EncData
+		- 계좌이체 : ACCavvSele 가 "1" 이면 ACEncData
+*/
+
+public final class KSPayLayout {
+
+	static final int            TAIL_LENGTH_SIZE = 5;
+
+	private final String        name;
+	private final String[]      fields;
+	private final int[]         offsets;
+	private final int[]         lengths;
+	private final int           length;             // 고정길이부 전체 길이
+	private final Map<String, Integer> index;
+
+	private final String        tailName;           // 가변 데이타 항목명 (없으면 null)
+	private final int           tailTrigger;        // 가변 데이타 유무를 결정하는 항목 순번
+	private final String        tailValue;          // 이 값이면 가변 데이타 있음 (null 이면 공백이 아닌 경우)
+
+	private KSPayLayout(Builder b)
+	{
+		int n = b.fields.size();
+
+		this.name    = b.name;
+		this.fields  = b.fields.toArray(new String[n]);
+		this.offsets = new int[n];
+		this.lengths = new int[n];
+		this.index   = new HashMap<String, Integer>(n * 2);
+
+		int offset = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (this.index.put(this.fields[i], i) != null)
+				throw new IllegalArgumentException("[KSPayLayout] duplicated field : " + b.name + "." + this.fields[i]);
+
+			this.offsets[i] = offset;
+			this.lengths[i] = b.lengths.get(i);
+			offset += this.lengths[i];
+		}
+		this.length = offset;
+
+		this.tailName  = b.tailName;
+		this.tailValue = b.tailValue;
+		if (b.tailName != null)
+		{
+			Integer trigger = this.index.get(b.tailTrigger);
+			if (trigger == null)
+				throw new IllegalArgumentException("[KSPayLayout] unknown tail trigger : " + b.name + "." + b.tailTrigger);
+			this.tailTrigger = trigger;
+		}
+		else
+		{
+			this.tailTrigger = -1;
+		}
+	}
+
+	public static Builder builder(String name)
+	{
+		return new Builder(name);
+	}
+
+	public String getName()           { return name; }
+	public int    getLength()         { return length; }
+	public int    getFieldCount()     { return fields.length; }
+	public String getField(int i)     { return fields[i]; }
+	public int    getOffset(int i)    { return offsets[i]; }
+	public int    getFieldLength(int i) { return lengths[i]; }
+	public String getTailName()       { return tailName; }
+
+	// 항목 순번, 없으면 -1
+	public int indexOf(String field)
+	{
+		Integer i = index.get(field);
+		return (i == null) ? -1 : i;
+	}
+
+	// 레코드(buf[off] 부터)에 가변 데이타가 붙는지 확인한다.
+	boolean hasTail(byte[] buf, int off)
+	{
+		if (tailName == null) return false;
+
+		int start = off + offsets[tailTrigger];
+		int len   = lengths[tailTrigger];
+
+		if (tailValue == null)
+		{
+			for (int i = 0; i < len; i++)
+				if (buf[start + i] != ' ') return true;
+			return false;
+		}
+
+		if (tailValue.length() != len) return false;
+		for (int i = 0; i < len; i++)
+			if (buf[start + i] != tailValue.charAt(i)) return false;
+		return true;
+	}
+
+	public String toString()
+	{
+		return "KSPayLayout[" + name + ", " + length + (tailName != null ? " + " + tailName : "") + "]";
+	}
+
+	public static final class Builder {
+
+		private final String        name;
+		private final List<String>  fields  = new ArrayList<String>();
+		private final List<Integer> lengths = new ArrayList<Integer>();
+
+		private String              tailName;
+		private String              tailTrigger;
+		private String              tailValue;
+
+		private Builder(String name)
+		{
+			this.name = name;
+		}
+
+		public Builder field(String field, int length)
+		{
+			if (length <= 0)
+				throw new IllegalArgumentException("[KSPayLayout] invalid length : " + name + "." + field);
+
+			fields.add(field);
+			lengths.add(length);
+			return this;
+		}
+
+		// trigger 항목이 value 이면(null 이면 공백이 아니면) 길이(5) + 데이타가 뒤따른다.
+		public Builder tail(String field, String trigger, String value)
+		{
+			this.tailName    = field;
+			this.tailTrigger = trigger;
+			this.tailValue   = value;
+			return this;
+		}
+
+		public KSPayLayout build()
+		{
+			return new KSPayLayout(this);
+		}
+	}
+}
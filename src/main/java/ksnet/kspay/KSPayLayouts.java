@@ -0,0 +1,287 @@
+package ksnet.kspay;
+
+/*
+	Class Name : KSPayLayouts
+	             승인구분별 응답 레코드 배치 등록부
+
+	ReceiveMessage / ReceiveDataMessage 의 항목 순서, 길이와 같아야 한다.
+	모든 레코드는 승인구분(ApprovalType, 4byte)으로 시작한다.
+*/
+
+public final class KSPayLayouts {
+
+	private KSPayLayouts() {}
+
+	/* Header (길이 4byte 다음, 요청/응답 공통) */
+	public static final KSPayLayout HEADER = KSPayLayout.builder("header")
+		.field("EncType"        ,  1)   // 0: 암화안함, 1:openssl, 2: seed
+		.field("Version"        ,  4)   // 전문버전
+		.field("Type"           ,  2)   // 구분
+		.field("Resend"         ,  1)   // 전송구분 : 0 : 처음,  2: 재전송
+		.field("RequestDate"    , 14)   // 요청일자 : yyyymmddhhmmss
+		.field("StoreId"        , 10)   // 상점아이디
+		.field("OrderNumber"    , 50)   // 주문번호
+		.field("UserName"       , 50)   // 주문자명
+		.field("IdNum"          , 13)   // 주민번호 or 사업자번호
+		.field("Email"          , 50)   // email
+		.field("GoodType"       ,  1)   // 제품구분 0 : 실물, 1 : 디지털
+		.field("GoodName"       , 50)   // 제품명
+		.field("KeyInType"      ,  1)   // KeyInType 여부 : 1 : Swap, 2: KeyIn
+		.field("LineType"       ,  1)   // lineType 0 : offline, 1:internet, 2:Mobile
+		.field("PhoneNo"        , 12)   // 휴대폰번호
+		.field("ApprovalCount"  ,  1)   // 승인갯수
+		.field("HeadFiller"     , 35)   // 예비
+		.build();
+
+	/* 취소요청 Data (CancelDataMessage) */
+	public static final KSPayLayout CANCEL_REQUEST = KSPayLayout.builder("cancel-request")
+		.field("ApprovalType"   ,  4)   // 승인구분
+		.field("CancelType"     ,  1)   // 취소처리구분 1:거래번호, 2:주문번호
+		.field("TransactionNo"  , 12)   // 거래번호
+		.field("TradeDate"      ,  8)   // 거래일자
+		.field("OrderNumber"    , 50)   // 주문번호
+		.field("CancelData"     , 42)   // 취소data(차후추가)
+		.field("Refundcheck"    ,  1)   // 현금영수증 취소여부
+		.field("Filler"         , 32)   // 기타
+		.build();
+
+	/* 신용카드 (승인구분 2번째 자리 5) */
+	public static final KSPayLayout CREDIT_SHORT = KSPayLayout.builder("credit-short")
+		.field("ApprovalType"   ,  4)
+		.field("TransactionNo"  , 12)   // 거래번호
+		.field("Status"         ,  1)   // 상태 O : 승인, X : 거절
+		.field("TradeDate"      ,  8)   // 거래일자
+		.field("TradeTime"      ,  6)   // 거래시간
+		.field("IssCode"        ,  6)   // 발급사코드
+		.field("Message1"       , 16)   // 메시지1
+		.field("Message2"       , 16)   // 메시지2
+		.build();
+
+	/* 신용카드 */
+	public static final KSPayLayout CREDIT = KSPayLayout.builder("credit")
+		.field("ApprovalType"     ,  4)
+		.field("TransactionNo"    , 12) // 거래번호
+		.field("Status"           ,  1) // 상태 O : 승인, X : 거절
+		.field("TradeDate"        ,  8) // 거래일자
+		.field("TradeTime"        ,  6) // 거래시간
+		.field("IssCode"          ,  6) // 발급사코드
+		.field("AquCode"          ,  6) // 매입사코드
+		.field("AuthNo"           , 12) // 승인번호 or 거절시 오류코드
+		.field("Message1"         , 16) // 메시지1
+		.field("Message2"         , 16) // 메시지2
+		.field("CardNo"           , 16) // 카드번호
+		.field("ExpDate"          ,  4) // 유효기간
+		.field("Installment"      ,  2) // 할부
+		.field("Amount"           ,  9) // 금액
+		.field("MerchantNo"       , 15) // 가맹점번호
+		.field("AuthSendType"     ,  1) // 전송구분
+		.field("ApprovalSendType" ,  1) // 전송구분(0 : 거절, 1 : 승인, 2: 원카드)
+		.field("Point1"           , 12)
+		.field("Point2"           , 12)
+		.field("Point3"           , 12)
+		.field("Point4"           , 12)
+		.field("VanTransactionNo" , 12)
+		.field("Filler"           , 82) // 예비
+		.field("AuthType"         ,  1) // I : ISP거래, M : MPI거래, SPACE : 일반거래
+		.field("MPIPositionType"  ,  1) // K : KSNET, R : Remote, C : 제3기관, SPACE : 일반거래
+		.field("MPIReUseType"     ,  1) // Y : 재사용, N : 재사용아님
+		.tail("EncData", "AuthType", null)  // MPI, ISP 데이터
+		.build();
+
+	/* 포인트카드 */
+	public static final KSPayLayout POINT = KSPayLayout.builder("point")
+		.field("ApprovalType"   ,  4)
+		.field("PTransactionNo" , 12)   // 거래번호
+		.field("PStatus"        ,  1)   // 상태 O : 승인 , X : 거절
+		.field("PTradeDate"     ,  8)   // 거래일자
+		.field("PTradeTime"     ,  6)   // 거래시간
+		.field("PIssCode"       ,  6)   // 발급사코드
+		.field("PAuthNo"        , 12)   // 승인번호 or 거절시 오류코드
+		.field("PMessage1"      , 16)   // 메시지1
+		.field("PMessage2"      , 16)   // 메시지2
+		.field("PPoint1"        ,  9)   // 거래포인트
+		.field("PPoint2"        ,  9)   // 가용포인트
+		.field("PPoint3"        ,  9)   // 누적포인트
+		.field("PPoint4"        ,  9)   // 가맹점포인트
+		.field("PMerchantNo"    , 15)   // 가맹점번호
+		.field("PNotice1"       , 40)
+		.field("PNotice2"       , 40)
+		.field("PNotice3"       , 40)
+		.field("PNotice4"       , 40)
+		.field("PFiller"        ,  8)   // 예비
+		.build();
+
+	/* 가상계좌 */
+	public static final KSPayLayout VIRTUAL_ACCOUNT = KSPayLayout.builder("virtual-account")
+		.field("ApprovalType"    ,  4)
+		.field("VATransactionNo" , 12)
+		.field("VAStatus"        ,  1)
+		.field("VATradeDate"     ,  8)
+		.field("VATradeTime"     ,  6)
+		.field("VABankCode"      ,  6)
+		.field("VAVirAcctNo"     , 15)
+		.field("VAName"          , 30)
+		.field("VACloseDate"     ,  8)
+		.field("VACloseTime"     ,  6)
+		.field("VARespCode"      ,  4)
+		.field("VAMessage1"      , 16)
+		.field("VAMessage2"      , 16)
+		.field("VAFiller"        , 36)
+		.build();
+
+	/* 월드패스 */
+	public static final KSPayLayout WORLDPASS = KSPayLayout.builder("worldpass")
+		.field("ApprovalType"    ,  4)
+		.field("WPTransactionNo" , 12)
+		.field("WPStatus"        ,  1)
+		.field("WPTradeDate"     ,  8)
+		.field("WPTradeTime"     ,  6)
+		.field("WPIssCode"       ,  6)
+		.field("WPAuthNo"        , 12)
+		.field("WPBalanceAmount" ,  9)
+		.field("WPLimitAmount"   ,  9)
+		.field("WPMessage1"      , 16)
+		.field("WPMessage2"      , 16)
+		.field("WPCardNo"        , 16)
+		.field("WPAmount"        ,  9)
+		.field("WPMerchantNo"    , 15)
+		.field("WPFiller"        , 11)
+		.build();
+
+	/* 현금영수증 */
+	public static final KSPayLayout CASH_BILL = KSPayLayout.builder("cash-bill")
+		.field("ApprovalType"       ,   4)
+		.field("HTransactionNo"     ,  12)  // 거래번호
+		.field("HStatus"            ,   1)  // 오류구분 O:정상 X:거절
+		.field("HCashTransactionNo" ,  12)  // 현금영수증 거래번호
+		.field("HIncomeType"        ,   1)  // 0: 소득      1: 비소득
+		.field("HTradeDate"         ,   8)  // 거래 개시 일자
+		.field("HTradeTime"         ,   6)  // 거래 개시 시간
+		.field("HMessage1"          ,  16)  // 응답 message1
+		.field("HMessage2"          ,  16)  // 응답 message2
+		.field("HCashMessage1"      ,  20)  // 국세청 메시지 1
+		.field("HCashMessage2"      ,  20)  // 국세청 메시지 2
+		.field("HFiller"            , 150)  // 예비
+		.build();
+
+	/* 핸드폰결제취소 (M11x) */
+	public static final KSPayLayout MOBILE_CANCEL = KSPayLayout.builder("mobile-cancel")
+		.field("ApprovalType"   ,   4)
+		.field("MTransactionNo" ,  12)  // 거래번호
+		.field("MStatus"        ,   1)  // 상태 : O, X
+		.field("MTradeDate"     ,   8)  // 거래일자
+		.field("MTradeTime"     ,   6)  // 거래시간
+		.field("MBalAmount"     ,   9)  // 잔액
+		.field("MRespCode"      ,   4)  // 응답코드
+		.field("MRespMsg"       , 200)  // 응답메시지
+		.field("MBypassMsg"     , 100)  // Echo 메시지
+		.field("MCompCode"      ,   6)  // 기관코드
+		.field("MFiller"        , 150)  // 예비
+		.build();
+
+	/* 핸드폰결제 (M10x) */
+	public static final KSPayLayout MOBILE = KSPayLayout.builder("mobile")
+		.field("ApprovalType"   ,   4)
+		.field("MTransactionNo" ,  12)  // 거래번호
+		.field("MStatus"        ,   1)  // 상태 : O, X
+		.field("MTradeDate"     ,   8)  // 거래일자
+		.field("MTradeTime"     ,   6)  // 거래시간
+		.field("MBalAmount"     ,   9)  // 잔액
+		.field("MTid"           ,  20)  // Tid
+		.field("MRespCode"      ,   4)  // 응답코드
+		.field("MRespMsg"       , 200)  // 응답메시지
+		.field("MBypassMsg"     , 100)  // Echo 메시지
+		.field("MCompCode"      ,   6)  // 기관코드
+		.field("MCommSele"      ,   3)  // SKT,KTF,LGT
+		.field("MMobileNo"      ,  12)  // 휴대폰번호
+		.field("MApprAmt"       ,   9)  // 승인금액
+		.field("MCpId"          ,  40)  // 업체등록코드
+		.field("MFiller"        ,  66)  // 예비
+		.build();
+
+	/* 계좌이체시작요청 (210x, 240x) */
+	public static final KSPayLayout ACCOUNT_REQUEST = KSPayLayout.builder("account-request")
+		.field("ApprovalType"    ,  4)
+		.field("ACTransactionNo" , 12)  // 거래번호
+		.field("ACStatus"        ,  1)  // 오류구분:- O:승인 X:거절
+		.field("ACTradeDate"     ,  8)  // 거래 개시 일자(YYYYMMDD)
+		.field("ACTradeTime"     ,  6)  // 거래 개시 시간(HHMMSS)
+		.field("ACAcctSele"      ,  1)  // 계좌이체 구분
+		.field("ACFeeSele"       ,  1)  // 선/후불제구분 -	1:선불,	2:후불
+		.field("ACPareBankCode"  ,  6)  // 입금모계좌은행코드
+		.field("ACPareAcctNo"    , 15)  // 입금모계좌 번호
+		.field("ACCustBankCode"  ,  6)  // 출급은행코드
+		.field("ACAmount"        , 13)  // 금액
+		.field("ACInjaName"      , 16)  // 인자명(상점명)
+		.field("ACMessage1"      , 16)  // 응답 message1
+		.field("ACMessage2"      , 16)  // 응답 message2
+		.field("ACEntrNumb"      , 10)  // 사업자번호
+		.field("ACShopPhone"     , 20)  // 전화번호
+		.field("ACFiller"        , 49)  // 예비
+		.build();
+
+	/* 계좌이체결과반영요청 || 계좌이체승인요청 || 계좌이체취소요청 */
+	public static final KSPayLayout ACCOUNT = KSPayLayout.builder("account")
+		.field("ApprovalType"        ,   4)
+		.field("ACTransactionNo"     ,  12) // 거래번호
+		.field("ACStatus"            ,   1) // 오류구분 :승인 X:거절
+		.field("ACTradeDate"         ,   8) // 거래 개시 일자(YYYYMMDD)
+		.field("ACTradeTime"         ,   6) // 거래 개시 시간(HHMMSS)
+		.field("ACAcctSele"          ,   1) // 계좌이체 구분
+		.field("ACFeeSele"           ,   1) // 선/후불제구분 -	1:선불,	2:후불
+		.field("ACInjaName"          ,  16) // 인자명(통장인쇄메세지-상점명)
+		.field("ACPareBankCode"      ,   6) // 입금모계좌코드
+		.field("ACPareAcctNo"        ,  15) // 입금모계좌번호
+		.field("ACCustBankCode"      ,   6) // 출금모계좌코드
+		.field("ACCustAcctNo"        ,  15) // 출금모계좌번호
+		.field("ACAmount"            ,  13) // 금액	(결제대상금액)
+		.field("ACBankTransactionNo" ,  30) // 은행거래번호
+		.field("ACIpgumNm"           ,  20) // 입금자명
+		.field("ACBankFee"           ,  13) // 계좌이체 수수료
+		.field("ACBankAmount"        ,  13) // 총결제금액(결제대상금액+ 수수료
+		.field("ACBankRespCode"      ,   4) // 오류코드
+		.field("ACMessage1"          ,  16) // 오류 message 1
+		.field("ACMessage2"          ,  16) // 오류 message 2
+		.field("ACCavvSele"          ,   1) // 암호화데이터응답여부
+		.field("ACFiller"            , 183) // 예비
+		.tail("ACEncData", "ACCavvSele", "1")   // 금결원암호화응답
+		.build();
+
+	/* 상점상세정보 조회결과 (A7xx) */
+	public static final KSPayLayout SHOP_INFO = KSPayLayout.builder("shop-info")
+		.field("ApprovalType"       ,   4)
+		.field("SITransactionNo"    ,  12)  // 거래번호
+		.field("SIStatus"           ,   1)  // 성공:O, 실패: X
+		.field("SIRespCode"         ,   4)  // '0000' : 정상처리
+		.field("SIAgenMembDealSele" ,   1)  // 자체대행구분
+		.field("SIStartSele"        ,   1)  // 개시여부
+		.field("SIEntrNumb"         ,  10)  // 사업자번호
+		.field("SIShopName"         ,  30)  // 상점명
+		.field("SIMembNumbGene"     ,  15)  // 일반 가맹점번호
+		.field("SIMembNumbNoin"     ,  15)  // 무이자 가맹점번호
+		.field("SIAlloMontType"     , 200)  // 할부유형
+		.field("SIFiller"           , 207)  // 예비
+		.build();
+
+	// 승인구분에 해당하는 레코드 배치, 알 수 없는 승인구분이면 null
+	public static KSPayLayout forApprovalType(String approvalType)
+	{
+		if (approvalType == null || approvalType.length() < 3) return null;
+
+		char c = approvalType.charAt(0);
+
+		if (c == '1' || c == 'I')                   return (approvalType.charAt(1) == '5') ? CREDIT_SHORT : CREDIT;
+		if (c == '4')                               return POINT;
+		if (c == '6')                               return VIRTUAL_ACCOUNT;
+		if (c == '7')                               return WORLDPASS;
+		if (c == 'H')                               return CASH_BILL;
+		if (approvalType.startsWith("M11"))         return MOBILE_CANCEL;
+		if (approvalType.startsWith("M10"))         return MOBILE;
+		if (approvalType.startsWith("210")
+				|| approvalType.startsWith("240"))  return ACCOUNT_REQUEST;
+		if (c == '2')                               return ACCOUNT;
+		if (approvalType.startsWith("A7"))          return SHOP_INFO;
+
+		return null;
+	}
+}
@@ -0,0 +1,98 @@
+package ksnet.kspay;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/*
+	Class Name : KSPayLegacyFields
+	             KSPayApprovalCancelBean 의 응답 필드(String[MAXSIZE] 배열) 어댑터
+
+	응답 필드는 기존 방식(ReceiveMessage)으로 응답을 받거나 FillLegacyFields() 를 호출할 때만 생성한다.
+	KSPayResult 만 사용하는 경우 150여개 배열을 만들지 않는다.
+*/
+
+final class KSPayLegacyFields {
+
+	private static final Field[]            ARRAYS;     // public String[] 응답 필드
+	private static final Map<String, Field> BY_NAME;    // 항목명 -> 응답 필드(배열 또는 Header 문자열)
+
+	static
+	{
+		List<Field>        arrays = new ArrayList<Field>();
+		Map<String, Field> byName = new HashMap<String, Field>();
+
+		for (Field f : KSPayApprovalCancelBean.class.getFields())
+		{
+			if (Modifier.isStatic(f.getModifiers())) continue;
+
+			if (f.getType() == String[].class)
+			{
+				arrays.add(f);
+				byName.put(f.getName(), f);
+			}
+			else if (f.getType() == String.class && KSPayLayouts.HEADER.indexOf(f.getName()) >= 0)
+			{
+				byName.put(f.getName(), f);
+			}
+		}
+
+		ARRAYS  = arrays.toArray(new Field[arrays.size()]);
+		BY_NAME = byName;
+	}
+
+	private KSPayLegacyFields() {}
+
+	// 응답 필드 배열 생성 (이미 있으면 그대로 둔다)
+	static void allocate(KSPayApprovalCancelBean bean, int size)
+	{
+		try
+		{
+			for (Field f : ARRAYS)
+				if (f.get(bean) == null) f.set(bean, new String[size]);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// 해석된 전문으로 응답 필드를 채운다. (ReceiveMessage 결과와 같음)
+	static void fill(KSPayApprovalCancelBean bean, KSPayTelegram telegram, int size)
+	{
+		allocate(bean, size);
+		if (telegram == null || telegram.isEmpty()) return;
+
+		try
+		{
+			KSPayRecord header = telegram.getHeader();
+			for (int i = 0; i < header.getLayout().getFieldCount(); i++)
+			{
+				Field f = BY_NAME.get(header.getLayout().getField(i));
+				if (f != null) f.set(bean, header.get(i));
+			}
+
+			for (int n = 0; n < telegram.size() && n < size; n++)
+			{
+				KSPayRecord record = telegram.record(n);
+				KSPayLayout layout = record.getLayout();
+
+				for (int i = 0; i < layout.getFieldCount(); i++)
+					set(bean, layout.getField(i), n, record.get(i));
+
+				if (layout.getTailName() != null)
+					set(bean, layout.getTailName(), n, record.get(layout.getTailName()));
+			}
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void set(KSPayApprovalCancelBean bean, String name, int n, String value) throws IllegalAccessException
+	{
+		Field f = BY_NAME.get(name);
+		if (f != null && f.getType() == String[].class)
+			((String[]) f.get(bean))[n] = value;
+	}
+}
@@ -0,0 +1,293 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+	Class Name : KSPayLog
+	             ksnet.kspay 공용 비동기 로그 (전문 송수신, WebHost 결과)
+
+	- println 은 고정 크기 대기열(ring buffer)에 넣기만 하고 바로 반환한다. 파일 쓰기는 전용 스레드가 모아서 처리
+	- 대기열이 가득 차면 버리고 getDropped 로 건수를 센다. (결제 처리가 디스크 지연을 기다리지 않음)
+	- dir 이 없으면 System.out, 있으면 dir/kspay_yyyyMMdd.log (날짜가 바뀌면 새 파일)
+	- 카드번호(15~19자리 숫자, Luhn 검사 통과)는 앞 6자리, 뒤 4자리만 남기고 '*' 처리
+
+	설정 : KSPayLog.configure(dir, capacity, batchSize) - 이전 로그는 남은 내용을 쓰고 닫는다.
+*/
+
+public final class KSPayLog implements Closeable {
+
+	public static final int DEFAULT_CAPACITY   = 8192;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	private static final DateTimeFormatter DAY  = DateTimeFormatter.ofPattern("yyyyMMdd");
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+	private static volatile KSPayLog current = new KSPayLog(null, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+
+	private static final class Entry {
+		final long   time;
+		final Object msg;
+
+		Entry(long time, Object msg) {
+			this.time = time;
+			this.msg  = msg;
+		}
+	}
+
+	private final File                        dir;
+	private final int                         batchSize;
+	private final ArrayBlockingQueue<Entry>   queue;
+	private final Thread                      writer;
+
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong errors  = new AtomicLong();
+
+	private volatile boolean closed = false;
+
+	private String day    = null;
+	private Writer out    = null;
+
+	public KSPayLog(String dir, int capacity, int batchSize)
+	{
+		if (capacity < 1 || batchSize < 1)
+			throw new IllegalArgumentException("[KSPayLog] capacity, batchSize must be positive");
+
+		this.dir       = (dir == null || dir.trim().length() == 0) ? null : new File(dir);
+		this.batchSize = batchSize;
+		this.queue     = new ArrayBlockingQueue<Entry>(capacity);
+
+		this.writer = new Thread(new Runnable() {
+			public void run() {
+				drainLoop();
+			}
+		}, "kspay-log");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/* 공용 로그 */
+
+	public static void println(Object msg)
+	{
+		current.offer(msg);
+	}
+
+	public static KSPayLog get()
+	{
+		return current;
+	}
+
+	public static synchronized KSPayLog configure(String dir, int capacity, int batchSize)
+	{
+		KSPayLog old = current;
+		current = new KSPayLog(dir, capacity, batchSize);
+		old.close();
+		return current;
+	}
+
+	// 대기열에 넣기만 한다. 가득 찼거나 닫힌 경우 버림
+	public void offer(Object msg)
+	{
+		if (closed || !queue.offer(new Entry(System.currentTimeMillis(), msg)))
+			dropped.incrementAndGet();
+	}
+
+	public long getWritten()
+	{
+		return written.get();
+	}
+
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+
+	public long getErrors()
+	{
+		return errors.get();
+	}
+
+	public int getQueued()
+	{
+		return queue.size();
+	}
+
+	// 남은 로그를 쓰고 종료 (최대 3초 대기)
+	public void close()
+	{
+		closed = true;
+		writer.interrupt();
+		try
+		{
+			writer.join(3000);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void drainLoop()
+	{
+		List<Entry> batch = new ArrayList<Entry>(batchSize);
+
+		while (!closed || !queue.isEmpty())
+		{
+			try
+			{
+				Entry first = queue.poll(500, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+			}
+			catch (InterruptedException e)
+			{
+				queue.drainTo(batch);
+			}
+
+			write(batch);
+			batch.clear();
+		}
+
+		closeFile();
+	}
+
+	private void write(List<Entry> batch)
+	{
+		if (batch.isEmpty()) return;
+
+		StringBuilder sb    = new StringBuilder();
+		String        today = null;
+
+		try
+		{
+			for (Entry entry : batch)
+			{
+				LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.time), ZoneId.systemDefault());
+				String        d    = time.format(DAY);
+
+				// 날짜가 바뀌면 앞의 내용은 이전 파일에
+				if (today != null && !today.equals(d))
+				{
+					flush(today, sb);
+					sb.setLength(0);
+				}
+				today = d;
+
+				sb.append('[').append(time.format(TIME)).append("] ").append(mask(format(entry.msg)));
+				sb.append(System.lineSeparator());
+			}
+			flush(today, sb);
+			written.addAndGet(batch.size());
+		}
+		catch (IOException e)
+		{
+			errors.incrementAndGet();
+			closeFile();
+		}
+	}
+
+	private void flush(String today, CharSequence lines) throws IOException
+	{
+		if (dir == null)
+		{
+			PrintStream pout = System.out;
+			pout.print(lines);
+			pout.flush();
+			return;
+		}
+
+		if (out == null || !today.equals(day))
+		{
+			closeFile();
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir, "kspay_" + today + ".log"), true)));
+			day = today;
+		}
+
+		out.append(lines);
+		out.flush();
+	}
+
+	private void closeFile()
+	{
+		if (out == null) return;
+
+		try { out.close(); } catch (IOException e) {}
+		out = null;
+		day = null;
+	}
+
+	private static String format(Object msg)
+	{
+		if (!(msg instanceof Throwable))
+			return String.valueOf(msg);
+
+		StringWriter sw = new StringWriter();
+		((Throwable) msg).printStackTrace(new PrintWriter(sw));
+		return sw.toString();
+	}
+
+	/* 카드번호 마스킹 */
+
+	public static String mask(String msg)
+	{
+		if (msg == null) return null;
+
+		char[] chars = null;
+		int    len   = msg.length();
+		int    i     = 0;
+
+		while (i < len)
+		{
+			if (!isDigit(msg.charAt(i)))
+			{
+				i++;
+				continue;
+			}
+
+			int start = i;
+			while (i < len && isDigit(msg.charAt(i))) i++;
+
+			int n = i - start;
+			if (n >= 15 && n <= 19 && luhn(msg, start, i))
+			{
+				if (chars == null) chars = msg.toCharArray();
+				for (int j = start + 6; j < i - 4; j++) chars[j] = '*';
+			}
+		}
+
+		return (chars == null) ? msg : new String(chars);
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean luhn(String s, int start, int end)
+	{
+		int     sum    = 0;
+		boolean second = false;
+
+		for (int i = end - 1; i >= start; i--)
+		{
+			int d = s.charAt(i) - '0';
+			if (second)
+			{
+				d *= 2;
+				if (d > 9) d -= 9;
+			}
+			sum   += d;
+			second = !second;
+		}
+
+		return sum % 10 == 0;
+	}
+}
@@ -0,0 +1,21 @@
+package ksnet.kspay;
+
+import java.io.IOException;
+
+/*
+	Class Name : KSPayOutcomeUnknownException
+	             요청 전문을 보낸 뒤 응답을 받지 못함 (제한시간 초과, 연결 끊김)
+
+	IPG_Server 가 요청을 처리했는지 알 수 없으므로 통신실패(처리 안됨)와 구분해
+	거래 조회 등으로 결과를 확인해야 한다.
+*/
+
+public class KSPayOutcomeUnknownException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public KSPayOutcomeUnknownException(String message, Throwable cause)
+	{
+		super(message, cause);
+	}
+}
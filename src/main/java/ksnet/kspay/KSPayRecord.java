@@ -0,0 +1,83 @@
+package ksnet.kspay;
+
+/*
+	Class Name : KSPayRecord
+	             응답 전문 레코드 1건 (Header 또는 승인구분별 데이타)
+
+	전문 버퍼의 위치만 가지고 있다가 항목을 처음 읽을 때 문자열로 변환한다.
+	대부분 6~7개 항목만 사용하므로 나머지 항목은 변환하지 않는다.
+*/
+
+public final class KSPayRecord {
+
+	private final KSPayLayout   layout;
+	private final byte[]        buf;
+	private final int           offset;
+	private final int           tailOffset;         // 가변 데이타 시작 위치 (없으면 -1)
+	private final int           tailLength;
+
+	private String[]            values;             // 변환된 항목 (처음 읽을 때 생성)
+	private String              tail;
+
+	KSPayRecord(KSPayLayout layout, byte[] buf, int offset, int tailOffset, int tailLength)
+	{
+		this.layout     = layout;
+		this.buf        = buf;
+		this.offset     = offset;
+		this.tailOffset = tailOffset;
+		this.tailLength = tailLength;
+	}
+
+	public KSPayLayout getLayout()
+	{
+		return layout;
+	}
+
+	// 레코드 전체 길이 (가변 데이타 포함)
+	public int length()
+	{
+		return layout.getLength() + (tailOffset < 0 ? 0 : KSPayLayout.TAIL_LENGTH_SIZE + tailLength);
+	}
+
+	public String get(int i)
+	{
+		if (values == null)
+			values = new String[layout.getFieldCount()];
+
+		String v = values[i];
+		if (v == null)
+		{
+			v = KSPayFixedWidth.read(buf, offset + layout.getOffset(i), layout.getFieldLength(i));
+			values[i] = v;
+		}
+		return v;
+	}
+
+	// 항목값, 가변 데이타 항목이 없으면 "", 배치에 없는 항목이면 null
+	public String get(String field)
+	{
+		int i = layout.indexOf(field);
+		if (i >= 0) return get(i);
+
+		if (field.equals(layout.getTailName()))
+		{
+			if (tail == null)
+				tail = (tailOffset < 0) ? "" : KSPayFixedWidth.read(buf, tailOffset, tailLength);
+			return tail;
+		}
+
+		return null;
+	}
+
+	// 첫 글자 비교 (상태값 O/X 확인 등), 문자열로 변환하지 않는다.
+	public boolean startsWith(String field, char c)
+	{
+		int i = layout.indexOf(field);
+		return i >= 0 && buf[offset + layout.getOffset(i)] == c;
+	}
+
+	public String toString()
+	{
+		return new String(buf, offset, length(), KSPayFrame.MSG_CHARSET);
+	}
+}
@@ -0,0 +1,198 @@
+package ksnet.kspay;
+
+/*
+	Class Name : KSPayResult
+	             승인구분별 응답 결과 (불변)
+
+	응답 전문에 있는 레코드에 대해서만 생성되며, 항목은 읽을 때 전문에서 변환한다.
+	공통 항목(거래번호, 상태, 거래일시, 메시지)은 모든 결과에서 같은 이름으로 읽는다.
+		- 휴대폰 결과의 Message1, Message2 는 응답코드, 응답메시지
+		- 상점정보 결과의 Message1 은 응답코드
+*/
+
+public abstract class KSPayResult {
+
+	/* 공통 항목 순서 : 거래번호, 상태, 거래일자, 거래시간, 메시지1, 메시지2 */
+	private static final int TRNO = 0, STATUS = 1, DATE = 2, TIME = 3, MSG1 = 4, MSG2 = 5;
+
+	protected final KSPayRecord record;
+	private   final String[]    common;
+
+	KSPayResult(KSPayRecord record, String[] common)
+	{
+		this.record = record;
+		this.common = common;
+	}
+
+	// 레코드 배치에 맞는 결과, 알 수 없는 배치이면 null
+	static KSPayResult of(KSPayRecord record)
+	{
+		KSPayLayout layout = record.getLayout();
+
+		if (layout == KSPayLayouts.CREDIT || layout == KSPayLayouts.CREDIT_SHORT) return new Credit(record);
+		if (layout == KSPayLayouts.ACCOUNT || layout == KSPayLayouts.ACCOUNT_REQUEST) return new Bank(record);
+		if (layout == KSPayLayouts.MOBILE || layout == KSPayLayouts.MOBILE_CANCEL) return new Mobile(record);
+		if (layout == KSPayLayouts.VIRTUAL_ACCOUNT) return new VirtualAccount(record);
+		if (layout == KSPayLayouts.POINT)           return new Point(record);
+		if (layout == KSPayLayouts.WORLDPASS)       return new WorldPass(record);
+		if (layout == KSPayLayouts.CASH_BILL)       return new CashBill(record);
+		if (layout == KSPayLayouts.SHOP_INFO)       return new ShopInfo(record);
+
+		return null;
+	}
+
+	public String getApprovalType()   { return record.get(0); }
+	public String getTransactionNo()  { return common(TRNO); }
+	public String getStatus()         { return common(STATUS); }
+	public String getTradeDate()      { return common(DATE); }
+	public String getTradeTime()      { return common(TIME); }
+	public String getMessage1()       { return common(MSG1); }
+	public String getMessage2()       { return common(MSG2); }
+
+	// 상태 O : 승인(정상)
+	public boolean isApproved()
+	{
+		return record.startsWith(common[STATUS], 'O');
+	}
+
+	// 배치의 항목명으로 직접 읽기 (KSPayLayouts 참조)
+	public String get(String field)
+	{
+		return record.get(field);
+	}
+
+	public KSPayRecord getRecord()
+	{
+		return record;
+	}
+
+	private String common(int i)
+	{
+		String field = common[i];
+		if (field == null) return "";
+
+		String v = record.get(field);
+		return (v == null) ? "" : v;
+	}
+
+	public String toString()
+	{
+		return getClass().getSimpleName() + "[" + getApprovalType() + ", " + getTransactionNo() + ", " + getStatus() + "]";
+	}
+
+	/* 신용카드 */
+	public static final class Credit extends KSPayResult {
+		private static final String[] COMMON = { "TransactionNo", "Status", "TradeDate", "TradeTime", "Message1", "Message2" };
+
+		Credit(KSPayRecord record) { super(record, COMMON); }
+
+		public String getIssCode()      { return field("IssCode"); }       // 발급사코드
+		public String getAquCode()      { return field("AquCode"); }       // 매입사코드
+		public String getAuthNo()       { return field("AuthNo"); }        // 승인번호 or 거절시 오류코드
+		public String getCardNo()       { return field("CardNo"); }        // 카드번호
+		public String getInstallment()  { return field("Installment"); }   // 할부
+		public String getAmount()       { return field("Amount"); }        // 금액
+		public String getMerchantNo()   { return field("MerchantNo"); }    // 가맹점번호
+		public String getEncData()      { return field("EncData"); }       // MPI, ISP 데이터
+	}
+
+	/* 계좌이체 */
+	public static final class Bank extends KSPayResult {
+		private static final String[] COMMON = { "ACTransactionNo", "ACStatus", "ACTradeDate", "ACTradeTime", "ACMessage1", "ACMessage2" };
+
+		Bank(KSPayRecord record) { super(record, COMMON); }
+
+		public String getAmount()            { return field("ACAmount"); }             // 금액
+		public String getBankTransactionNo() { return field("ACBankTransactionNo"); }  // 은행거래번호
+		public String getBankFee()           { return field("ACBankFee"); }            // 계좌이체 수수료
+		public String getBankAmount()        { return field("ACBankAmount"); }         // 총결제금액
+		public String getBankRespCode()      { return field("ACBankRespCode"); }       // 오류코드
+		public String getEncData()           { return field("ACEncData"); }            // 금결원암호화응답
+	}
+
+	/* 휴대폰 */
+	public static final class Mobile extends KSPayResult {
+		private static final String[] COMMON = { "MTransactionNo", "MStatus", "MTradeDate", "MTradeTime", "MRespCode", "MRespMsg" };
+
+		Mobile(KSPayRecord record) { super(record, COMMON); }
+
+		public String getBalAmount()    { return field("MBalAmount"); }    // 잔액
+		public String getRespCode()     { return field("MRespCode"); }     // 응답코드
+		public String getRespMsg()      { return field("MRespMsg"); }      // 응답메시지
+		public String getCompCode()     { return field("MCompCode"); }     // 기관코드
+		public String getTid()          { return field("MTid"); }          // 서비스제공업체 승인번호 (M10x)
+		public String getMobileNo()     { return field("MMobileNo"); }     // 휴대폰번호 (M10x)
+		public String getApprAmt()      { return field("MApprAmt"); }      // 승인금액 (M10x)
+	}
+
+	/* 가상계좌 */
+	public static final class VirtualAccount extends KSPayResult {
+		private static final String[] COMMON = { "VATransactionNo", "VAStatus", "VATradeDate", "VATradeTime", "VAMessage1", "VAMessage2" };
+
+		VirtualAccount(KSPayRecord record) { super(record, COMMON); }
+
+		public String getBankCode()     { return field("VABankCode"); }
+		public String getVirAcctNo()    { return field("VAVirAcctNo"); }
+		public String getName()         { return field("VAName"); }
+		public String getCloseDate()    { return field("VACloseDate"); }
+		public String getCloseTime()    { return field("VACloseTime"); }
+		public String getRespCode()     { return field("VARespCode"); }
+	}
+
+	/* 포인트카드 */
+	public static final class Point extends KSPayResult {
+		private static final String[] COMMON = { "PTransactionNo", "PStatus", "PTradeDate", "PTradeTime", "PMessage1", "PMessage2" };
+
+		Point(KSPayRecord record) { super(record, COMMON); }
+
+		public String getAuthNo()       { return field("PAuthNo"); }
+		public String getPoint1()       { return field("PPoint1"); }       // 거래포인트
+		public String getPoint2()       { return field("PPoint2"); }       // 가용포인트
+		public String getPoint3()       { return field("PPoint3"); }       // 누적포인트
+		public String getPoint4()       { return field("PPoint4"); }       // 가맹점포인트
+	}
+
+	/* 월드패스 */
+	public static final class WorldPass extends KSPayResult {
+		private static final String[] COMMON = { "WPTransactionNo", "WPStatus", "WPTradeDate", "WPTradeTime", "WPMessage1", "WPMessage2" };
+
+		WorldPass(KSPayRecord record) { super(record, COMMON); }
+
+		public String getAuthNo()        { return field("WPAuthNo"); }          // 승인번호
+		public String getBalanceAmount() { return field("WPBalanceAmount"); }   // 잔액
+		public String getLimitAmount()   { return field("WPLimitAmount"); }     // 한도액
+		public String getAmount()        { return field("WPAmount"); }          // 금액
+	}
+
+	/* 현금영수증 */
+	public static final class CashBill extends KSPayResult {
+		private static final String[] COMMON = { "HTransactionNo", "HStatus", "HTradeDate", "HTradeTime", "HMessage1", "HMessage2" };
+
+		CashBill(KSPayRecord record) { super(record, COMMON); }
+
+		public String getCashTransactionNo() { return field("HCashTransactionNo"); }  // 현금영수증 거래번호
+		public String getIncomeType()        { return field("HIncomeType"); }         // 0: 소득      1: 비소득
+		public String getCashMessage1()      { return field("HCashMessage1"); }       // 국세청 메시지 1
+		public String getCashMessage2()      { return field("HCashMessage2"); }       // 국세청 메시지 2
+	}
+
+	/* 상점상세정보 */
+	public static final class ShopInfo extends KSPayResult {
+		private static final String[] COMMON = { "SITransactionNo", "SIStatus", null, null, "SIRespCode", null };
+
+		ShopInfo(KSPayRecord record) { super(record, COMMON); }
+
+		public String getShopName()      { return field("SIShopName"); }        // 상점명
+		public String getEntrNumb()      { return field("SIEntrNumb"); }        // 사업자번호
+		public String getMembNumbGene()  { return field("SIMembNumbGene"); }    // 일반 가맹점번호
+		public String getMembNumbNoin()  { return field("SIMembNumbNoin"); }    // 무이자 가맹점번호
+		public String getAlloMontType()  { return field("SIAlloMontType"); }    // 할부유형
+	}
+
+	// 배치에 없는 항목(예: 단축 신용카드 응답의 승인번호)은 ""
+	String field(String name)
+	{
+		String v = record.get(name);
+		return (v == null) ? "" : v;
+	}
+}
@@ -0,0 +1,347 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.net.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+	Class Name : KSPaySimulator
+	             IPG_Server(C-Daemon) 모의 서버 (부하/장애 테스트용)
+
+	KSPayApprovalCancelBean 이 보내는 전문(길이 4byte + Header + 취소 Data)을 받아
+	취소 Data 건별로 응답 레코드를 만들어 돌려준다. 연결은 끊지 않고 다음 요청을 기다린다(keep-alive).
+		- 응답 승인구분 : 요청 승인구분 끝자리 + 1 (1010 -> 1011, 2010 -> 2011, M110 -> M111)
+		- 응답 거래번호 : 요청 거래번호
+
+	장애 설정 (요청 전문마다 확률 적용)
+		- latency         : 응답 지연(ms), fixed / uniform / exponential / withTail
+		- rejectRate      : 취소 Data 건별 취소거절(상태 X)
+		- partialWriteRate: 응답 전문을 작은 조각으로 나눠 전송
+		- truncateRate    : 응답 전문 일부만 보내고 연결 끊음
+		- dropRate        : 응답 없이 연결 끊음
+		- stallRate       : 응답 없이 연결 유지 (클라이언트 수신 제한시간 확인)
+
+	사용 : new KSPaySimulator(0).setRejectRate(0.1).start(); ... getPort() 로 접속
+*/
+
+public class KSPaySimulator implements Closeable {
+
+	private static final byte[]                EMPTY_LENGTH = { ' ', ' ', ' ', ' ' };
+
+	private final int                          requestedPort;
+	private ServerSocket                       server;
+	private ExecutorService                    workers;
+	private final Set<Socket>                  sockets = ConcurrentHashMap.newKeySet();
+	private volatile boolean                   closed  = false;
+
+	private volatile LongSupplier              latency = fixed(0);
+	private volatile double                    rejectRate;
+	private volatile double                    partialWriteRate;
+	private volatile double                    truncateRate;
+	private volatile double                    dropRate;
+	private volatile double                    stallRate;
+	private volatile Random                    random = new Random();
+
+	private final AtomicLong                   requests = new AtomicLong();
+	private final AtomicLong                   approved = new AtomicLong();
+	private final AtomicLong                   declined = new AtomicLong();
+	private final AtomicLong                   failed   = new AtomicLong();   // drop, truncate, stall
+
+	// port 0 이면 빈 포트를 사용한다.
+	public KSPaySimulator(int port)
+	{
+		this.requestedPort = port;
+	}
+
+	public KSPaySimulator setLatency(LongSupplier latency)            { this.latency = latency;                   return this; }
+	public KSPaySimulator setRejectRate(double rejectRate)            { this.rejectRate = rejectRate;             return this; }
+	public KSPaySimulator setPartialWriteRate(double partialWriteRate){ this.partialWriteRate = partialWriteRate; return this; }
+	public KSPaySimulator setTruncateRate(double truncateRate)        { this.truncateRate = truncateRate;         return this; }
+	public KSPaySimulator setDropRate(double dropRate)                { this.dropRate = dropRate;                 return this; }
+	public KSPaySimulator setStallRate(double stallRate)              { this.stallRate = stallRate;               return this; }
+	public KSPaySimulator setSeed(long seed)                          { this.random = new Random(seed);           return this; }
+
+	/* 지연시간 분포 */
+	public static LongSupplier fixed(final long millis)
+	{
+		return () -> millis;
+	}
+
+	public static LongSupplier uniform(final long minMillis, final long maxMillis)
+	{
+		return () -> minMillis + (long) (ThreadLocalRandom.current().nextDouble() * (maxMillis - minMillis + 1));
+	}
+
+	public static LongSupplier exponential(final long meanMillis)
+	{
+		return () -> (long) (-meanMillis * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+	}
+
+	// probability 확률로 tailMillis 를 더한다 (p99 지연 등)
+	public static LongSupplier withTail(final LongSupplier base, final double probability, final long tailMillis)
+	{
+		return () -> base.getAsLong() + (ThreadLocalRandom.current().nextDouble() < probability ? tailMillis : 0);
+	}
+
+	public synchronized KSPaySimulator start() throws IOException
+	{
+		if (this.server != null) return this;
+
+		this.server  = new ServerSocket(this.requestedPort, 128, InetAddress.getLoopbackAddress());
+		this.workers = Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "kspay-simulator");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.workers.execute(this::acceptLoop);
+
+		KSPayLog.println("KSPaySimulator started : port=" + getPort());
+		return this;
+	}
+
+	public int getPort()
+	{
+		return (this.server == null) ? this.requestedPort : this.server.getLocalPort();
+	}
+
+	public long getRequests()  { return requests.get(); }
+	public long getApproved()  { return approved.get(); }
+	public long getDeclined()  { return declined.get(); }
+	public long getFailed()    { return failed.get(); }
+
+	public synchronized void close()
+	{
+		if (closed) return;
+		closed = true;
+
+		try { if (server != null) server.close(); } catch (IOException e) {}
+		for (Socket s : sockets) closeQuietly(s);
+		if (workers != null) workers.shutdownNow();
+	}
+
+	private void acceptLoop()
+	{
+		while (!closed)
+		{
+			try {
+				final Socket s = server.accept();
+				s.setTcpNoDelay(true);
+				sockets.add(s);
+				workers.execute(() -> serve(s));
+			} catch (IOException e) {
+				if (!closed) KSPayLog.println("KSPaySimulator accept error : " + e);
+			}
+		}
+	}
+
+	// 연결 1개 처리, 클라이언트가 끊을 때까지 요청을 반복해서 받는다.
+	private void serve(Socket s)
+	{
+		KSPayFrame frame = new KSPayFrame();
+		try {
+			InputStream  in  = new BufferedInputStream(s.getInputStream());
+			OutputStream out = s.getOutputStream();
+
+			while (!closed)
+			{
+				try {
+					frame.readFrom(in);
+				} catch (EOFException e) {
+					return;
+				}
+				requests.incrementAndGet();
+
+				byte[] request = frame.toByteArray();
+
+				if (chance(dropRate))   { failed.incrementAndGet(); return; }
+				if (chance(stallRate))  { failed.incrementAndGet(); stall(in); return; }
+
+				byte[] response = respond(request);
+
+				long delay = latency.getAsLong();
+				if (delay > 0) Thread.sleep(delay);
+
+				if (chance(truncateRate))
+				{
+					failed.incrementAndGet();
+					out.write(response, 0, response.length / 2);
+					out.flush();
+					return;
+				}
+
+				if (chance(partialWriteRate)) writePartial(out, response);
+				else                          out.write(response);
+				out.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			if (!closed) KSPayLog.println("KSPaySimulator connection error : " + e);
+		} finally {
+			sockets.remove(s);
+			closeQuietly(s);
+		}
+	}
+
+	// 요청 전문(길이 포함)에 대한 응답 전문(길이 포함)
+	byte[] respond(byte[] request) throws IOException
+	{
+		KSPayLayout header = KSPayLayouts.HEADER;
+		KSPayLayout cancel = KSPayLayouts.CANCEL_REQUEST;
+		int base = KSPayFrame.LENGTH_SIZE;
+
+		if (request.length < base + header.getLength())
+			return EMPTY_LENGTH.clone();
+
+		int count = digit(request[base + header.getOffset(header.indexOf("ApprovalCount"))]);
+		if (count < 1 || request.length < base + header.getLength() + count * cancel.getLength())
+			return EMPTY_LENGTH.clone();
+
+		String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+
+		List<byte[]> records = new ArrayList<byte[]>(count);
+		int size = header.getLength();
+		for (int i = 0; i < count; i++)
+		{
+			int off = base + header.getLength() + i * cancel.getLength();
+			String approvalType = KSPayFixedWidth.read(request, off + cancel.getOffset(cancel.indexOf("ApprovalType")), 4);
+			String trNo         = KSPayFixedWidth.read(request, off + cancel.getOffset(cancel.indexOf("TransactionNo")), 12).trim();
+
+			byte[] record = record(replyType(approvalType), trNo, !chance(rejectRate), date);
+			if (record == null) return EMPTY_LENGTH.clone();
+
+			records.add(record);
+			size += record.length;
+		}
+
+		byte[] response = new byte[base + size];
+		KSPayFixedWidth.write(response, 0, "" + size, base, '9');
+		System.arraycopy(request, base, response, base, header.getLength());
+		int pos = base + header.getLength();
+		for (byte[] record : records)
+		{
+			System.arraycopy(record, 0, response, pos, record.length);
+			pos += record.length;
+		}
+
+		return response;
+	}
+
+	// 응답 레코드, 취소 응답이 정의되지 않은 승인구분이면 null
+	private byte[] record(String approvalType, String trNo, boolean approve, String date)
+	{
+		KSPayLayout layout = KSPayLayouts.forApprovalType(approvalType);
+		String[] f;       // 거래번호, 상태, 거래일자, 거래시간, 메시지1, 메시지2
+		String   msg1, msg2;
+
+		if (layout == KSPayLayouts.CREDIT || layout == KSPayLayouts.CREDIT_SHORT)
+		{
+			f = new String[] { "TransactionNo", "Status", "TradeDate", "TradeTime", "Message1", "Message2" };
+			msg1 = approve ? "취소완료" : "취소거절";
+			msg2 = approve ? "정상" : "SIMULATOR";
+		}
+		else if (layout == KSPayLayouts.ACCOUNT)
+		{
+			f = new String[] { "ACTransactionNo", "ACStatus", "ACTradeDate", "ACTradeTime", "ACMessage1", "ACMessage2" };
+			msg1 = approve ? "취소완료" : "취소거절";
+			msg2 = approve ? "정상" : "SIMULATOR";
+		}
+		else if (layout == KSPayLayouts.MOBILE_CANCEL)
+		{
+			f = new String[] { "MTransactionNo", "MStatus", "MTradeDate", "MTradeTime", "MRespCode", "MRespMsg" };
+			msg1 = approve ? "0000" : "9999";
+			msg2 = approve ? "정상취소" : "취소거절(SIMULATOR)";
+		}
+		else
+		{
+			return null;
+		}
+
+		byte[] record = new byte[layout.getLength()];
+		Arrays.fill(record, (byte) ' ');
+
+		put(record, layout, "ApprovalType", approvalType);
+		put(record, layout, f[0], trNo);
+		put(record, layout, f[1], approve ? "O" : "X");
+		put(record, layout, f[2], date.substring(0, 8));
+		put(record, layout, f[3], date.substring(8, 14));
+		put(record, layout, f[4], msg1);
+		put(record, layout, f[5], msg2);
+
+		if (approve) approved.incrementAndGet();
+		else         declined.incrementAndGet();
+
+		return record;
+	}
+
+	private static void put(byte[] record, KSPayLayout layout, String field, String value)
+	{
+		int i = layout.indexOf(field);
+		KSPayFixedWidth.write(record, layout.getOffset(i), value, layout.getFieldLength(i), 'X');
+	}
+
+	// 취소 요청 승인구분의 응답 승인구분
+	private static String replyType(String approvalType)
+	{
+		char last = approvalType.charAt(3);
+		return (last >= '0' && last < '9') ? approvalType.substring(0, 3) + (char) (last + 1) : approvalType;
+	}
+
+	private void writePartial(OutputStream out, byte[] response) throws IOException, InterruptedException
+	{
+		int pos = 0;
+		while (pos < response.length)
+		{
+			int n = Math.min(response.length - pos, 1 + nextInt(32));
+			out.write(response, pos, n);
+			out.flush();
+			pos += n;
+			Thread.sleep(1);
+		}
+	}
+
+	// 클라이언트가 끊거나 서버가 종료될 때까지 응답하지 않는다.
+	private void stall(InputStream in) throws IOException
+	{
+		while (!closed && in.read() >= 0) { }
+	}
+
+	private boolean chance(double rate)
+	{
+		if (rate <= 0) return false;
+		synchronized (this.random) { return this.random.nextDouble() < rate; }
+	}
+
+	private int nextInt(int bound)
+	{
+		synchronized (this.random) { return this.random.nextInt(bound); }
+	}
+
+	private static int digit(byte b)
+	{
+		return (b >= '0' && b <= '9') ? b - '0' : -1;
+	}
+
+	private static void closeQuietly(Socket s)
+	{
+		try { s.close(); } catch (IOException e) {}
+	}
+
+	// 단독 실행 : java ksnet.kspay.KSPaySimulator [port] [rejectRate] [meanLatencyMillis]
+	public static void main(String[] args) throws Exception
+	{
+		int    port   = (args.length > 0) ? Integer.parseInt(args[0]) : 29991;
+		double reject = (args.length > 1) ? Double.parseDouble(args[1]) : 0;
+		long   mean   = (args.length > 2) ? Long.parseLong(args[2]) : 0;
+
+		KSPaySimulator simulator = new KSPaySimulator(port).setRejectRate(reject).setLatency(exponential(mean)).start();
+		Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+		Thread.currentThread().join();
+	}
+}
@@ -14,9 +14,11 @@ import java.net.*;
 
 public class KSPaySocketBean {
 
-	private	Socket				socket;				//IPG_Server(C-Daemon)과 연결 소켓
-	private DataInputStream		in;
-  	private DataOutputStream	out;
+	private	KSPayConnection		conn;				//IPG_Server(C-Daemon)과 연결 소켓
+	private KSPaySocketPool		pool;				//연결 풀(null 이면 매번 새로 연결)
+	private boolean				reusable;			//응답을 모두 읽어 재사용 가능한 상태
+	private KSPayDeadline		deadline;			//통신 제한시간(null 이면 제한 없음)
+	private boolean				sent;				//요청 전문을 모두 보냄
   	public  String				IPAddr;
   	public  int					Port;
   	
@@ -33,6 +35,13 @@ public class KSPaySocketBean {
 		this.Port   = Port;
 	}
 
+	public KSPaySocketBean(String IPAddr, int Port, KSPaySocketPool pool)	
+	{
+		this.IPAddr = IPAddr;
+		this.Port   = Port;
+		this.pool   = pool;
+	}
+
 	public KSPaySocketBean()	
 	{
 		this.IPAddr = null;
@@ -53,28 +62,36 @@ public class KSPaySocketBean {
 			BufferedReader br;
 			String line;
 			br = new BufferedReader(new InputStreamReader(home.openStream()));
-			while((line = br.readLine()) != null) System.out.println(SendURL+":"+line);
+			while((line = br.readLine()) != null) KSPayLog.println(SendURL+":"+line);
 		}
         catch(Exception e) {
-			System.out.println("setSendURL ERROR="+e.toString());
+			KSPayLog.println("setSendURL ERROR="+e.toString());
 			return false;
 		}
 		return true;
 	}
 	
+	// 연결, 수신 제한시간 지정 (ConnectSocket 전에 호출)
+	public void setDeadline(KSPayDeadline deadline)
+	{
+		this.deadline = deadline;
+	}
+
 	// IPG_Server와 연결을 맺는다.	
 	public void ConnectSocket() throws IOException 
 	{
 		try
 		{
-			socket = new Socket(this.IPAddr, this.Port);
-			in     = new DataInputStream(socket.getInputStream());
-			out    = new DataOutputStream(socket.getOutputStream());
-			System.out.println("addr = [" + this.IPAddr + "]  ,  port = [" + this.Port + "]");
+			if (pool != null)          conn = pool.borrow(this.IPAddr, this.Port, deadline);
+			else if (deadline != null) conn = KSPayConnection.open(this.IPAddr, this.Port, deadline.connectTimeout());
+			else                       conn = KSPayConnection.open(this.IPAddr, this.Port);
+			reusable = false;
+			sent     = false;
+			KSPayLog.println("addr = [" + this.IPAddr + "]  ,  port = [" + this.Port + "]");
 		}
 		catch( IOException e )
 		{
-			throw new IOException("[KSPaySocketBean] cannot connect server : (" + this.IPAddr + " , " + this.Port + ")");
+			throw new IOException("[KSPaySocketBean] cannot connect server : (" + this.IPAddr + " , " + this.Port + ") " + e.getMessage());
 		}
 	}
 
@@ -83,11 +100,13 @@ public class KSPaySocketBean {
 	{
 		try
 		{
-			out.write(msg);
-			out.flush();
+			conn.out.write(msg);
+			conn.out.flush();
+			sent = true;
 		}
 		catch( IOException e )
 		{
+			conn.broken = true;
 			throw new IOException("[KSPaySocketBean] cannot write to socket");
 		}
 	}
@@ -98,82 +117,76 @@ public class KSPaySocketBean {
 		try
 		{
 			byte[] msg = new byte[size];
-			in.read(msg);
+			conn.in.readFully(msg);
 			return msg;
 		}
 		catch( IOException e )
 		{
+			conn.broken = true;
 			throw new IOException("[KSPaySocketBean] cannot read from socket");
 		}
 	}
 
+	// IPG_Server로 부터 응답 전문 1건(길이 + 데이타)을 얻는다.
+	// 반환된 버퍼는 연결에 속하므로 CloseSocket 전에 모두 읽어야 한다.
+	// 요청을 보낸 뒤 응답을 받지 못하면 KSPayOutcomeUnknownException (처리 여부 알 수 없음)
+	KSPayFrame readFrame() throws IOException
+	{
+		try
+		{
+			conn.socket.setSoTimeout((deadline == null) ? 0 : deadline.readTimeout());
+			return conn.frame.readFrom(conn.in);
+		}
+		catch( IOException e )
+		{
+			conn.broken = true;
+			if (sent)
+				throw new KSPayOutcomeUnknownException("[KSPaySocketBean] no response after request sent : " + e.getMessage(), e);
+			throw new IOException("[KSPaySocketBean] cannot read from socket : " + e.getMessage());
+		}
+	}
+
+	// 응답 전문을 모두 읽은 경우 true 로 설정하면 CloseSocket 시 연결 풀로 반납된다.
+	public void setReusable(boolean reusable) throws IOException
+	{
+		this.reusable = reusable && conn != null && conn.in.available() == 0;
+	}
+
 	// 연결 소켓을 닫는다.
 	public void CloseSocket() throws IOException
 	{
+		if (conn == null) return;
+
 		try
 		{
-			socket.close();
+			if (pool != null)
+				pool.release(conn, reusable);
+			else
+				conn.socket.close();
 		}
 		catch( IOException e )
 		{
 			throw new IOException("[KSPaySocketBean] cannot close socket");
 		}
+		finally
+		{
+			conn     = null;
+			reusable = false;
+		}
 	}
 
 	public String format(String str, int len, char ctype)
 	{
-		String formattedstr = new String();
-		byte[] buff;
-		int filllen = 0;
-		
-		buff = str.getBytes();
-		
-		filllen = len - buff.length;
-		formattedstr = "";
-		if(ctype == '9'){// 숫자열인 경우
-			for(int i = 0; i<filllen;i++)
-			{
-				formattedstr += "0";
-			}
-			formattedstr = formattedstr + str;
-		}
-		else 
-		{ // 문자열인 경우
-			for(int i = 0; i<filllen;i++)
-			{
-				formattedstr += " ";
-			}
-			formattedstr = str + formattedstr;
-		}
-		return formattedstr;
+		return KSPayFixedWidth.pad(str, len, ctype);
 	}
-        
+
 	public String setTrim(String str, int len)
 	{
-		byte[] subbytes;
-		String tmpStr;
-		subbytes = new byte[len];
-		
-		System.arraycopy(str.getBytes(), 0, subbytes, 0, len);
-		tmpStr = new String(subbytes);
-		if(tmpStr.length() == 0) {
-			subbytes = new byte[len-1];
-			System.arraycopy(str.getBytes(), 0, subbytes, 0, len-1);
-			tmpStr = new String(subbytes);
-		}
-		return tmpStr;
+		return KSPayFixedWidth.trim(str, len);
 	}
 	
 	public String setLogMsg(String str)
 	{
-		String strBuf = "";
-		for(int i=0; i < str.length(); i++)
-		{
-			if(str.substring(i, i+1).equals(" "))
-				strBuf = strBuf + "_";
-			else
-				strBuf = strBuf + str.substring(i, i+1);
-		}
-		return strBuf;
+		return str.replace(' ', '_');
 	}
 }
\ No newline at end of file
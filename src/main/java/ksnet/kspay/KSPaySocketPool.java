@@ -0,0 +1,188 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+	Class Name : KSPaySocketPool
+	             IPG_Server(C-Daemon) 연결 풀
+
+	- maxPerHost          : 호스트(addr:port)별 최대 연결 수 (사용중 + 유휴)
+	- borrowTimeoutMillis : 연결을 얻기 위해 대기하는 최대 시간
+	- idleTimeoutMillis   : 유휴 연결 유지 시간, 초과 시 정리된다.
+	- keepAlive           : false 이면 연결을 재사용하지 않고 동시 연결 수 제한만 한다.
+
+	유휴 연결은 대여 시점에 상태를 검사하므로 IPG_Server가 응답 후 연결을 끊는 경우에도
+	새 연결로 대체되어 동작한다.
+*/
+
+public class KSPaySocketPool {
+
+	private final int       maxPerHost;
+	private final long      borrowTimeoutMillis;
+	private final long      idleTimeoutMillis;
+	private final boolean   keepAlive;
+
+	private final ConcurrentHashMap<String, HostPool> hosts = new ConcurrentHashMap<String, HostPool>();
+	private final ScheduledExecutorService            evictor;
+
+	private volatile boolean closed = false;
+
+	private static class HostPool {
+		final Semaphore                              permits;
+		final LinkedBlockingDeque<KSPayConnection>   idle = new LinkedBlockingDeque<KSPayConnection>();
+
+		HostPool(int maxPerHost) {
+			this.permits = new Semaphore(maxPerHost, true);
+		}
+	}
+
+	public KSPaySocketPool(int maxPerHost, long borrowTimeoutMillis, long idleTimeoutMillis, boolean keepAlive)
+	{
+		if (maxPerHost < 1)
+			throw new IllegalArgumentException("[KSPaySocketPool] maxPerHost must be positive");
+
+		this.maxPerHost          = maxPerHost;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.idleTimeoutMillis   = idleTimeoutMillis;
+		this.keepAlive           = keepAlive;
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "kspay-socket-evictor");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		if (keepAlive && idleTimeoutMillis > 0) {
+			long period = Math.max(idleTimeoutMillis / 2, 1000);
+			this.evictor.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					evictIdle();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// 연결 대여, 유휴 연결이 없으면 새로 연결한다.
+	KSPayConnection borrow(String addr, int port) throws IOException
+	{
+		return borrow(addr, port, null);
+	}
+
+	// deadline 이 있으면 대기시간, 연결 제한시간을 남은 시간 이내로 줄인다.
+	KSPayConnection borrow(String addr, int port, KSPayDeadline deadline) throws IOException
+	{
+		if (closed)
+			throw new IOException("[KSPaySocketPool] pool closed");
+
+		HostPool host = hostPool(KSPayConnection.key(addr, port));
+		long     wait = (deadline == null) ? borrowTimeoutMillis : Math.min(borrowTimeoutMillis, Math.max(deadline.remainingMillis(), 0));
+
+		try
+		{
+			if (!host.permits.tryAcquire(wait, TimeUnit.MILLISECONDS))
+				throw new IOException("[KSPaySocketPool] borrow timeout : (" + addr + " , " + port + ")");
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("[KSPaySocketPool] interrupted while waiting connection");
+		}
+
+		try
+		{
+			KSPayConnection conn;
+			while ((conn = host.idle.pollFirst()) != null)
+			{
+				if (conn.isHealthy(idleTimeoutMillis))
+					return conn;
+
+				conn.close();
+			}
+
+			return KSPayConnection.open(addr, port, (deadline == null) ? 0 : deadline.connectTimeout());
+		}
+		catch (IOException e)
+		{
+			host.permits.release();
+			throw e;
+		}
+	}
+
+	// 연결 반납, 재사용 불가능한 연결은 닫는다.
+	void release(KSPayConnection conn, boolean reusable)
+	{
+		HostPool host = hosts.get(conn.key);
+
+		if (keepAlive && reusable && !closed && !conn.broken && host != null)
+		{
+			conn.lastUsed = System.currentTimeMillis();
+			host.idle.offerFirst(conn);
+		}
+		else
+		{
+			conn.close();
+		}
+
+		if (host != null)
+			host.permits.release();
+	}
+
+	// 유휴 시간이 지난 연결 정리
+	void evictIdle()
+	{
+		long now = System.currentTimeMillis();
+
+		for (HostPool host : hosts.values())
+		{
+			Iterator<KSPayConnection> iter = host.idle.descendingIterator();
+			while (iter.hasNext())
+			{
+				KSPayConnection conn = iter.next();
+				if (now - conn.lastUsed > idleTimeoutMillis && host.idle.removeFirstOccurrence(conn))
+					conn.close();
+			}
+		}
+	}
+
+	public int getIdleCount()
+	{
+		int count = 0;
+		for (HostPool host : hosts.values()) count += host.idle.size();
+		return count;
+	}
+
+	public int getActiveCount()
+	{
+		int count = 0;
+		for (HostPool host : hosts.values()) count += maxPerHost - host.permits.availablePermits();
+		return count;
+	}
+
+	public void close()
+	{
+		closed = true;
+		evictor.shutdownNow();
+
+		for (HostPool host : hosts.values())
+		{
+			KSPayConnection conn;
+			while ((conn = host.idle.pollFirst()) != null) conn.close();
+		}
+	}
+
+	private HostPool hostPool(String key)
+	{
+		HostPool host = hosts.get(key);
+		if (host == null)
+		{
+			HostPool newHost = new HostPool(maxPerHost);
+			host = hosts.putIfAbsent(key, newHost);
+			if (host == null) host = newHost;
+		}
+		return host;
+	}
+}
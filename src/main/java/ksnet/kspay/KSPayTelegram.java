@@ -0,0 +1,61 @@
+package ksnet.kspay;
+
+import java.util.*;
+
+/*
+	Class Name : KSPayTelegram
+	             KSPayTelegramCodec 으로 해석한 응답 전문 (Header + 승인구분별 레코드)
+*/
+
+public final class KSPayTelegram {
+
+	private static final KSPayTelegram EMPTY = new KSPayTelegram(null, Collections.<KSPayRecord>emptyList(), "");
+
+	private final KSPayRecord       header;
+	private final List<KSPayRecord> records;
+	private final String            unknownType;    // 해석하지 못한 승인구분 (없으면 "")
+
+	KSPayTelegram(KSPayRecord header, List<KSPayRecord> records, String unknownType)
+	{
+		this.header      = header;
+		this.records     = records;
+		this.unknownType = unknownType;
+	}
+
+	// 길이부가 공백인 응답 (IPG 통신실패)
+	static KSPayTelegram empty()
+	{
+		return EMPTY;
+	}
+
+	public boolean isEmpty()
+	{
+		return header == null;
+	}
+
+	public KSPayRecord getHeader()
+	{
+		return header;
+	}
+
+	public int size()
+	{
+		return records.size();
+	}
+
+	// i 번째 승인구분 레코드, 없으면 null
+	public KSPayRecord record(int i)
+	{
+		return (i < records.size()) ? records.get(i) : null;
+	}
+
+	public List<KSPayRecord> records()
+	{
+		return records;
+	}
+
+	public String getUnknownType()
+	{
+		return unknownType;
+	}
+}
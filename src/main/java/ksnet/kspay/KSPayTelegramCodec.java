@@ -0,0 +1,118 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.util.*;
+
+/*
+	Class Name : KSPayTelegramCodec
+	             응답 전문(길이 4byte + Header + 데이타)을 KSPayLayouts 배치에 따라 해석한다.
+
+	전문을 한번 훑으며 레코드 경계만 계산하고, 항목값은 KSPayRecord 에서 읽을 때 변환한다.
+	알 수 없는 승인구분을 만나면 그 뒤는 해석하지 않는다. (ReceiveDataMessage 와 같음)
+*/
+
+public final class KSPayTelegramCodec {
+
+	private static final int LENGTH_SIZE         = KSPayFrame.LENGTH_SIZE;
+	private static final int APPROVAL_TYPE_SIZE  = 4;
+	private static final int APPROVAL_COUNT      = KSPayLayouts.HEADER.indexOf("ApprovalCount");
+
+	private KSPayTelegramCodec() {}
+
+	// frame 은 해석 결과가 참조하므로 이후 변경하면 안된다.
+	public static KSPayTelegram decode(byte[] frame) throws IOException
+	{
+		return decode(frame, frame.length);
+	}
+
+	// 연결의 수신 버퍼는 재사용되므로 복사해서 해석한다.
+	static KSPayTelegram decode(KSPayFrame frame) throws IOException
+	{
+		byte[] copy = frame.toByteArray();
+		return decode(copy, copy.length);
+	}
+
+	static KSPayTelegram decode(byte[] buf, int limit) throws IOException
+	{
+		if (limit < LENGTH_SIZE)
+			throw new EOFException("[KSPayTelegramCodec] frame too short : " + limit);
+
+		if (isBlank(buf, 0, LENGTH_SIZE))
+			return KSPayTelegram.empty();
+
+		KSPayLayout headerLayout = KSPayLayouts.HEADER;
+		int pos = LENGTH_SIZE;
+		require(buf, limit, pos, headerLayout.getLength(), headerLayout);
+
+		KSPayRecord header = new KSPayRecord(headerLayout, buf, pos, -1, 0);
+		pos += headerLayout.getLength();
+
+		int count = digits(buf, LENGTH_SIZE + headerLayout.getOffset(APPROVAL_COUNT), headerLayout.getFieldLength(APPROVAL_COUNT));
+
+		List<KSPayRecord> records = new ArrayList<KSPayRecord>(count);
+		String unknownType = "";
+
+		for (int i = 0; i < count; i++)
+		{
+			require(buf, limit, pos, APPROVAL_TYPE_SIZE, null);
+			String approvalType = new String(buf, pos, APPROVAL_TYPE_SIZE, KSPayFrame.MSG_CHARSET);
+
+			KSPayLayout layout = KSPayLayouts.forApprovalType(approvalType);
+			if (layout == null)
+			{
+				unknownType = approvalType;
+				break;
+			}
+
+			require(buf, limit, pos, layout.getLength(), layout);
+
+			int tailOffset = -1;
+			int tailLength = 0;
+			int end        = pos + layout.getLength();
+
+			if (layout.hasTail(buf, pos))
+			{
+				require(buf, limit, end, KSPayLayout.TAIL_LENGTH_SIZE, layout);
+				tailLength = digits(buf, end, KSPayLayout.TAIL_LENGTH_SIZE);
+				tailOffset = end + KSPayLayout.TAIL_LENGTH_SIZE;
+
+				require(buf, limit, tailOffset, tailLength, layout);
+				end = tailOffset + tailLength;
+			}
+
+			records.add(new KSPayRecord(layout, buf, pos, tailOffset, tailLength));
+			pos = end;
+		}
+
+		return new KSPayTelegram(header, records, unknownType);
+	}
+
+	private static void require(byte[] buf, int limit, int pos, int len, KSPayLayout layout) throws EOFException
+	{
+		if (pos + len > limit)
+			throw new EOFException("[KSPayTelegramCodec] frame underflow" + (layout != null ? " in " + layout.getName() : "")
+					+ " : pos=" + pos + ", len=" + len + ", limit=" + limit);
+	}
+
+	private static boolean isBlank(byte[] buf, int off, int len)
+	{
+		for (int i = 0; i < len; i++)
+			if (buf[off + i] != ' ') return false;
+		return true;
+	}
+
+	// 숫자 항목 (앞뒤 공백 허용)
+	private static int digits(byte[] buf, int off, int len) throws IOException
+	{
+		int value = 0;
+		for (int i = 0; i < len; i++)
+		{
+			byte b = buf[off + i];
+			if (b == ' ') continue;
+			if (b < '0' || b > '9')
+				throw new IOException("[KSPayTelegramCodec] invalid number : [" + new String(buf, off, len, KSPayFrame.MSG_CHARSET) + "]");
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+}
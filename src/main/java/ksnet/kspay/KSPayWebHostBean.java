@@ -5,8 +5,7 @@ import java.util.*;
 import java.net.*;
 
 public class KSPayWebHostBean {
-	static String LOG_HOME_DIR = "";// 로그를 남길경우 LOG_HOME_DIR을 "c:/log/" 와 같이 '/'를 경로 구분자로 하여 '/'로 끝나도록 로그를 남길 폴더를
-									// 지정해야 함
+	// 로그 폴더는 KSPayLog.configure(dir, ...) 로 지정 (kspay_yyyyMMdd.log)
 
 	public static void main(String[] args) throws Exception {
 		;
@@ -34,8 +33,11 @@ public class KSPayWebHostBean {
 	String rparams;
 	String mtype;
 
-	String[] rnames = null;
-	HashMap rvHash = null;
+	KSPayWebHostReply.Layout layout = null;
+	KSPayWebHostReply reply = null;
+
+	// 연결 재사용, 제한시간, 동시 요청 수 제한(KSPayWebHostClient)
+	KSPayWebHostClient client = KSPayWebHostClient.getDefault();
 
 	public KSPayWebHostBean(String _payKey) {
 		this.payKey = _payKey;
@@ -51,80 +53,49 @@ public class KSPayWebHostBean {
 		init();
 	}
 
+	public void setClient(KSPayWebHostClient client) {
+		if (client != null)
+			this.client = client;
+	}
+
 	private void init() {
-		this.rnames = split(this.rparams, DEFAULT_DELIM);
-		this.rvHash = new HashMap();
+		this.layout = KSPayWebHostReply.layout(this.rparams);
 	}
 
 	public String kspay_get_value(String pname) {
-		if (pname == null || this.rnames == null)
+		if (pname == null || this.reply == null)
 			return null;
-		return (String) rvHash.get(pname);
+		return this.reply.get(pname);
+	}
+
+	// 결제결과, send 전이거나 실패하면 null
+	public KSPayWebHostReply getReply() {
+		return this.reply;
 	}
 
 	public boolean kspay_send_msg(String _mtype) {
 		this.mtype = _mtype;
-		String rmsg = send_url();
-		if (rmsg.indexOf('`') != -1) {
-			String[] tmpvals = split(rmsg, DEFAULT_DELIM);
-			if (this.rnames.length < tmpvals.length) {
-				for (int i = 0; i < this.rnames.length; i++)
-					rvHash.put(this.rnames[i], tmpvals[i + 1]);
-				return true;
-			}
-		}
-		return false;
+		this.reply = KSPayWebHostReply.parse(this.layout, send_url());
+		return this.reply != null;
 	}
 
 	public String send_url() {
-		URLConnection httpConn = null;
-		BufferedReader brd = null;
-		PrintStream pout = null;
-
-		StringBuffer sb = new StringBuffer();
+		String rmsg = "";
 		try {
-			String post_msg = sb.append("sndCommConId=").append(this.payKey).append("&sndActionType=")
+			String post_msg = new StringBuffer().append("sndCommConId=").append(this.payKey).append("&sndActionType=")
 					.append(this.mtype).append("&sndRpyParams=").append(URLEncoder.encode(this.rparams, "euc-kr"))
 					.toString();
 
-//			httpConn = new URL(KSPAY_WEBHOST_URL_MOBILE).openConnection();
-			httpConn = new URL(KSPAY_WEBHOST_URL).openConnection();
-			httpConn.setDoOutput(true);
-			httpConn.setUseCaches(false);
-			pout = new PrintStream(httpConn.getOutputStream(), false, "euc-kr");
-			pout.print(post_msg);
-			pout.flush();
-
-			brd = new BufferedReader(new InputStreamReader(httpConn.getInputStream(), "euc-kr"));
-
-			sb.setLength(0);
-			String tmpStr = null;
-			while ((tmpStr = brd.readLine()) != null) {
-				sb.append(tmpStr);
-			}
+			rmsg = this.client.post(KSPAY_WEBHOST_URL, post_msg);
 
 			write_log("INFO :send_url(" + this.payKey + "," + this.mtype + "," + this.rparams + ") msg=["
-					+ sb.toString() + "]");
+					+ rmsg + "]");
 		} catch (Exception e) {
 			write_log("ERROR:send_url(" + this.payKey + "," + this.mtype + "," + this.rparams + ") failed!!");
 			write_log(e);
-		} finally {
-			try {
-				if (pout != null)
-					pout.close();
-			} catch (Exception e) {
-			}
-			pout = null;
-			try {
-				if (brd != null)
-					brd.close();
-			} catch (Exception e) {
-			}
-			brd = null;
-			httpConn = null;
 		}
 
-		return sb.toString();
+		return rmsg;
 	}
 
 	public static String[] split(String srcStr, char c1) {
@@ -197,61 +168,8 @@ public class KSPayWebHostBean {
 		return sb.toString();
 	}
 
+	// KSPayLog(비동기) 로 기록, 로그 폴더는 KSPayLog.configure 로 지정
 	public static void write_log(Object pstr) {
-		String curr_date = getCurrDate();
-
-		File log_dir = null;
-		if (LOG_HOME_DIR != null && LOG_HOME_DIR.endsWith("/"))
-			log_dir = new File(LOG_HOME_DIR);
-		if (log_dir == null || !log_dir.exists()) {
-			write_log(System.out, pstr, curr_date);
-			return;
-		}
-
-		StringBuffer sb = new StringBuffer();
-
-		sb.append("kspay_").append(curr_date.substring(0, 8)).append(".log");
-
-		File openFile = new File(log_dir, sb.toString());
-		PrintStream pout = null;
-
-		try {
-			if (openFile.exists()) {
-				pout = new PrintStream(new FileOutputStream(openFile, true), true);
-			} else {
-				pout = new PrintStream(new FileOutputStream(openFile), true);
-			}
-			write_log(pout, pstr, curr_date);
-		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if (pout != null)
-					pout.close();
-			} catch (Exception e) {
-			}
-			pout = null;
-		}
-	}
-
-	private static void write_log(PrintStream pout, Object pstr, String curr_date) {
-		StringBuffer sb = new StringBuffer();
-
-		sb.append("[");
-		sb.append(curr_date.substring(8, 10)).append(":").append(curr_date.substring(10, 12)).append(":")
-				.append(curr_date.substring(12, 14));
-		sb.append("] ");
-		if (pstr instanceof Throwable) {
-			pout.println(sb.toString());
-
-			Throwable tw = (Throwable) pstr;
-			tw.printStackTrace(pout);
-			pout.println();
-		} else {
-			sb.append(pstr);
-
-			pout.println(sb.toString());
-		}
-		pout.flush();
+		KSPayLog.println(pstr);
 	}
 }
\ No newline at end of file
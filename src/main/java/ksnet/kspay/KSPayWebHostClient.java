@@ -0,0 +1,233 @@
+package ksnet.kspay;
+
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+	Class Name : KSPayWebHostClient
+	             KSPay WebHost(결제 승인 확인) HTTP 클라이언트, KSPayWebHostBean / KSPayWebHostMobileBean 공용
+
+	- connectTimeoutMillis : 연결 제한시간
+	- readTimeoutMillis    : 응답 제한시간
+	- maxConcurrent        : 동시 요청 수
+	- acquireTimeoutMillis : 동시 요청 수 초과시 대기하는 최대 시간
+
+	연결 재사용(keep-alive)은 HttpURLConnection 의 연결 캐시를 사용한다.
+	응답(오류 응답 포함)을 끝까지 읽고 닫아야 연결이 캐시에 반납되므로 모든 경로에서 응답을 비운다.
+	호스트별 유휴 연결 수는 JVM 설정 http.maxConnections (기본 5) 를 따른다.
+
+	요청별 소요시간(ms)은 getCalls, getFailures, getAverageMillis, getMaxMillis, getPercentileMillis 로 확인한다.
+	동시 요청 수 초과로 전송하지 못한 요청은 getRejected 로 따로 센다(calls, failures, 소요시간에 포함하지 않음).
+*/
+
+public class KSPayWebHostClient {
+
+	public static final String CHARSET = "euc-kr";
+
+	// 소요시간 구간(ms), 마지막 구간은 그 이상
+	static final long[] BUCKETS = { 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000 };
+
+	private static volatile KSPayWebHostClient defaultClient = new KSPayWebHostClient(3000, 10000, 20, 3000);
+
+	private final int       connectTimeoutMillis;
+	private final int       readTimeoutMillis;
+	private final int       maxConcurrent;
+	private final long      acquireTimeoutMillis;
+	private final Semaphore permits;
+
+	private final AtomicLong       calls       = new AtomicLong();
+	private final AtomicLong       failures    = new AtomicLong();
+	private final AtomicLong       rejected    = new AtomicLong();
+	private final AtomicLong       totalMillis = new AtomicLong();
+	private final AtomicLong       maxMillis   = new AtomicLong();
+	private final AtomicLongArray  histogram   = new AtomicLongArray(BUCKETS.length + 1);
+
+	public KSPayWebHostClient(int connectTimeoutMillis, int readTimeoutMillis, int maxConcurrent, long acquireTimeoutMillis)
+	{
+		if (maxConcurrent < 1)
+			throw new IllegalArgumentException("[KSPayWebHostClient] maxConcurrent must be positive");
+
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis    = readTimeoutMillis;
+		this.maxConcurrent        = maxConcurrent;
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.permits              = new Semaphore(maxConcurrent, true);
+	}
+
+	// WebHost Bean 에 클라이언트를 지정하지 않으면 사용하는 공용 클라이언트
+	public static KSPayWebHostClient getDefault()
+	{
+		return defaultClient;
+	}
+
+	public static void setDefault(KSPayWebHostClient client)
+	{
+		if (client != null) defaultClient = client;
+	}
+
+	// form 데이터(euc-kr) 전송 후 응답 본문을 줄바꿈 없이 이어서 돌려준다.
+	public String post(String url, String body) throws IOException
+	{
+		try
+		{
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+			{
+				rejected.incrementAndGet();
+				throw new IOException("[KSPayWebHostClient] too many concurrent requests : " + url);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			rejected.incrementAndGet();
+			throw new IOException("[KSPayWebHostClient] interrupted while waiting permit");
+		}
+
+		long    start = System.nanoTime();
+		boolean ok    = false;
+		try
+		{
+			String response = send(url, body.getBytes(CHARSET));
+			ok = true;
+			return response;
+		}
+		finally
+		{
+			permits.release();
+			record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ok);
+		}
+	}
+
+	private String send(String url, byte[] body) throws IOException
+	{
+		HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+		conn.setConnectTimeout(connectTimeoutMillis);
+		conn.setReadTimeout(readTimeoutMillis);
+		conn.setDoOutput(true);
+		conn.setUseCaches(false);
+		conn.setRequestMethod("POST");
+		conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=" + CHARSET);
+		conn.setFixedLengthStreamingMode(body.length);
+
+		OutputStream out = conn.getOutputStream();
+		try
+		{
+			out.write(body);
+			out.flush();
+		}
+		finally
+		{
+			out.close();
+		}
+
+		InputStream in;
+		try
+		{
+			in = conn.getInputStream();
+		}
+		catch (IOException e)
+		{
+			drain(conn.getErrorStream());
+			throw e;
+		}
+
+		StringBuffer sb = new StringBuffer();
+		BufferedReader brd = new BufferedReader(new InputStreamReader(in, CHARSET));
+		try
+		{
+			String tmpStr = null;
+			while ((tmpStr = brd.readLine()) != null)
+				sb.append(tmpStr);
+		}
+		finally
+		{
+			brd.close();
+		}
+
+		return sb.toString();
+	}
+
+	private static void drain(InputStream in)
+	{
+		if (in == null) return;
+
+		try
+		{
+			byte[] buf = new byte[512];
+			while (in.read(buf) != -1) ;
+		}
+		catch (IOException e)
+		{
+		}
+		finally
+		{
+			try { in.close(); } catch (IOException e) {}
+		}
+	}
+
+	private void record(long elapsedMillis, boolean ok)
+	{
+		calls.incrementAndGet();
+		if (!ok) failures.incrementAndGet();
+		totalMillis.addAndGet(elapsedMillis);
+
+		long max;
+		while (elapsedMillis > (max = maxMillis.get()) && !maxMillis.compareAndSet(max, elapsedMillis)) ;
+
+		int i = 0;
+		while (i < BUCKETS.length && elapsedMillis >= BUCKETS[i]) i++;
+		histogram.incrementAndGet(i);
+	}
+
+	public long getCalls()
+	{
+		return calls.get();
+	}
+
+	// 전송 실패(calls 중)
+	public long getFailures()
+	{
+		return failures.get();
+	}
+
+	// 동시 요청 수 초과로 전송하지 않은 요청
+	public long getRejected()
+	{
+		return rejected.get();
+	}
+
+	public long getAverageMillis()
+	{
+		long count = calls.get();
+		return (count == 0) ? 0 : totalMillis.get() / count;
+	}
+
+	public long getMaxMillis()
+	{
+		return maxMillis.get();
+	}
+
+	// 소요시간 백분위수, 해당 구간의 상한값(마지막 구간은 최대값)
+	public long getPercentileMillis(double percentile)
+	{
+		long count = 0;
+		for (int i = 0; i < histogram.length(); i++) count += histogram.get(i);
+		if (count == 0) return 0;
+
+		long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS.length; i++)
+		{
+			seen += histogram.get(i);
+			if (seen >= rank) return BUCKETS[i];
+		}
+		return maxMillis.get();
+	}
+
+	public int getActiveCount()
+	{
+		return maxConcurrent - permits.availablePermits();
+	}
+}
@@ -28,8 +28,11 @@ public class KSPayWebHostMobileBean {
 	String rparams;
 	String mtype;
 
-	String[] rnames = null;
-	HashMap rvHash = null;
+	KSPayWebHostReply.Layout layout = null;
+	KSPayWebHostReply reply = null;
+
+	// 연결 재사용, 제한시간, 동시 요청 수 제한(KSPayWebHostClient)
+	KSPayWebHostClient client = KSPayWebHostClient.getDefault();
 
 	public KSPayWebHostMobileBean(String _payKey) {
 		this.payKey		= _payKey;
@@ -45,77 +48,45 @@ public class KSPayWebHostMobileBean {
 		init();
 	}
 
+	public void setClient(KSPayWebHostClient client) {
+		if (client != null)
+			this.client = client;
+	}
+
 	private void init() {
-		this.rnames = split(this.rparams, DEFAULT_DELIM);
-		this.rvHash = new HashMap();
+		this.layout = KSPayWebHostReply.layout(this.rparams);
 	}
 
 	public String getValue(String pname) {
-		if (pname == null || this.rnames == null)
+		if (pname == null || this.reply == null)
 			return null;
-		return (String) rvHash.get(pname);
+		return this.reply.get(pname);
+	}
+
+	// 결제결과, send 전이거나 실패하면 null
+	public KSPayWebHostReply getReply() {
+		return this.reply;
 	}
 
 	public boolean send_msg(String _mtype) {
 		this.mtype = _mtype;
-		String rmsg = send_url();
-		if (rmsg.indexOf('`') != -1) {
-			String[] tmpvals = split(rmsg, DEFAULT_DELIM);
-			if (this.rnames.length < tmpvals.length) {
-				for (int i = 0; i < this.rnames.length; i++)
-					rvHash.put(this.rnames[i], tmpvals[i + 1]);
-				return true;
-			}
-		}
-		return false;
+		this.reply = KSPayWebHostReply.parse(this.layout, send_url());
+		return this.reply != null;
 	}
 
 	public String send_url() {
-		URLConnection httpConn = null;
-		BufferedReader brd = null;
-		PrintStream pout = null;
-
-		StringBuffer sb = new StringBuffer();
+		String rmsg = "";
 		try {
-			String post_msg = sb.append("sndCommConId=").append(this.payKey).append("&sndActionType=")
+			String post_msg = new StringBuffer().append("sndCommConId=").append(this.payKey).append("&sndActionType=")
 					.append(this.mtype).append("&sndRpyParams=").append(URLEncoder.encode(this.rparams, "euc-kr"))
 					.toString();
-			sb.setLength(0);
-
-			httpConn = new URL(KSPAY_WEBHOST_URL).openConnection();
-			httpConn.setDoOutput(true);
-			httpConn.setUseCaches(false);
-			pout = new PrintStream(httpConn.getOutputStream(), false, "euc-kr");
-			pout.print(post_msg);
-			pout.flush();
-
-			brd = new BufferedReader(new InputStreamReader(httpConn.getInputStream(), "euc-kr"));
 
-			String tmpStr = null;
-			while ((tmpStr = brd.readLine()) != null) {
-				sb.append(tmpStr);
-			}
+			rmsg = this.client.post(KSPAY_WEBHOST_URL, post_msg);
 		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if (pout != null)
-					pout.close();
-				pout = null;
-			} catch (Exception e) {
-			}
-			;
-			try {
-				if (brd != null)
-					brd.close();
-				brd = null;
-			} catch (Exception e) {
-			}
-			;
-			httpConn = null;
+			KSPayLog.println(e);
 		}
 
-		return sb.toString();
+		return rmsg;
 	}
 
 	public static String[] split(String srcStr, char c1) {
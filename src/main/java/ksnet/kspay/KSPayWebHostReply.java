@@ -0,0 +1,148 @@
+package ksnet.kspay;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+	Class Name : KSPayWebHostReply
+	             KSPay WebHost 결제결과 응답("`" 구분) 해석, KSPayWebHostBean / KSPayWebHostMobileBean 공용
+
+	응답 : (무시)`값1`값2`...`값n[`...]
+	       rparams(항목명 "`" 구분) 순서대로 값이 온다. 구분자가 항목 수보다 적으면 실패(null)
+
+	- layout(rparams) : 항목명 -> 순번을 한번만 계산해 캐시한다. (DEFAULT_RPARAMS 는 고정값)
+	- parse(layout, rmsg) : 응답을 한번 훑어 항목별 시작/끝 위치만 기록, 값(String)은 읽을 때 만든다.
+*/
+
+public final class KSPayWebHostReply {
+
+	public static final char DELIM = '`';
+
+	private static final ConcurrentHashMap<String, Layout> LAYOUTS = new ConcurrentHashMap<String, Layout>();
+
+	public static final class Layout {
+
+		final String[]                 names;
+		final HashMap<String, Integer> index = new HashMap<String, Integer>();
+
+		final int authyn, trno, trddt, trdtm, amt, authno, msg1, msg2, ordno, isscd, aqucd, result, halbu, cbtrno, cbauthno;
+
+		Layout(String rparams)
+		{
+			this.names = KSPayWebHostBean.split(rparams, DELIM);
+			for (int i = 0; i < names.length; i++) index.put(names[i], i);
+
+			authyn   = indexOf("authyn");
+			trno     = indexOf("trno");
+			trddt    = indexOf("trddt");
+			trdtm    = indexOf("trdtm");
+			amt      = indexOf("amt");
+			authno   = indexOf("authno");
+			msg1     = indexOf("msg1");
+			msg2     = indexOf("msg2");
+			ordno    = indexOf("ordno");
+			isscd    = indexOf("isscd");
+			aqucd    = indexOf("aqucd");
+			result   = indexOf("result");
+			halbu    = indexOf("halbu");
+			cbtrno   = indexOf("cbtrno");
+			cbauthno = indexOf("cbauthno");
+		}
+
+		public int indexOf(String name)
+		{
+			Integer i = (name == null) ? null : index.get(name);
+			return (i == null) ? -1 : i.intValue();
+		}
+
+		public int size()
+		{
+			return names.length;
+		}
+	}
+
+	private final Layout layout;
+	private final String rmsg;
+	private final int[]  bounds;	// 항목 i 의 시작 bounds[2i], 끝 bounds[2i+1]
+
+	private KSPayWebHostReply(Layout layout, String rmsg, int[] bounds)
+	{
+		this.layout = layout;
+		this.rmsg   = rmsg;
+		this.bounds = bounds;
+	}
+
+	public static Layout layout(String rparams)
+	{
+		Layout layout = LAYOUTS.get(rparams);
+		if (layout == null)
+		{
+			Layout newLayout = new Layout(rparams);
+			layout = LAYOUTS.putIfAbsent(rparams, newLayout);
+			if (layout == null) layout = newLayout;
+		}
+		return layout;
+	}
+
+	// 응답 해석, 항목 수만큼 값이 없으면 null
+	public static KSPayWebHostReply parse(Layout layout, String rmsg)
+	{
+		if (rmsg == null) return null;
+
+		int   n      = layout.size();
+		int[] bounds = new int[n * 2];
+		int   pos    = rmsg.indexOf(DELIM);
+
+		for (int i = 0; i < n; i++)
+		{
+			if (pos == -1) return null;
+
+			int start = pos + 1;
+			pos = rmsg.indexOf(DELIM, start);
+
+			bounds[2 * i]     = start;
+			bounds[2 * i + 1] = (pos == -1) ? rmsg.length() : pos;
+		}
+
+		return new KSPayWebHostReply(layout, rmsg, bounds);
+	}
+
+	public String get(String name)
+	{
+		return value(layout.indexOf(name));
+	}
+
+	private String value(int i)
+	{
+		return (i < 0) ? null : rmsg.substring(bounds[2 * i], bounds[2 * i + 1]);
+	}
+
+	// authyn : O(성공) / X(거절)
+	public boolean isApproved()
+	{
+		int i = layout.authyn;
+		return i >= 0 && bounds[2 * i + 1] - bounds[2 * i] == 1 && rmsg.charAt(bounds[2 * i]) == 'O';
+	}
+
+	// 금액, 숫자가 아니면 NumberFormatException
+	public int getAmount()
+	{
+		return Integer.parseInt(getAmt());
+	}
+
+	public String getAuthyn()   { return value(layout.authyn); }
+	public String getTrno()     { return value(layout.trno); }
+	public String getTrddt()    { return value(layout.trddt); }
+	public String getTrdtm()    { return value(layout.trdtm); }
+	public String getAmt()      { return value(layout.amt); }
+	public String getAuthno()   { return value(layout.authno); }
+	public String getMsg1()     { return value(layout.msg1); }
+	public String getMsg2()     { return value(layout.msg2); }
+	public String getOrdno()    { return value(layout.ordno); }
+	public String getIsscd()    { return value(layout.isscd); }
+	public String getAqucd()    { return value(layout.aqucd); }
+	public String getResult()   { return value(layout.result); }
+	public String getHalbu()    { return value(layout.halbu); }
+	public String getCbtrno()   { return value(layout.cbtrno); }
+	public String getCbauthno() { return value(layout.cbauthno); }
+}
@@ -0,0 +1,17 @@
+-- 상점 예치금 스냅샷(DepositBalanceService)
+-- 잔액 = 마지막 스냅샷 BALANCE + 이후(UID > LAST_LOG_UID) 예치금 내역 합계
+-- 스냅샷 이후 SP_STORES.DEPOSIT 은 갱신하지 않음(첫 스냅샷 기준값)
+CREATE TABLE SP_DEPOSIT_SNAPSHOTS (
+	UID INT NOT NULL AUTO_INCREMENT,
+	CREATED_DT DATETIME NULL,
+	STORE_UID_FK INT NOT NULL,
+	LAST_LOG_UID INT NOT NULL,
+	BALANCE INT NOT NULL,
+	PRIMARY KEY (UID)
+);
+
+-- 상점별 마지막 스냅샷 조회
+CREATE INDEX IDX_DEPOSIT_SNAPSHOTS_STORE ON SP_DEPOSIT_SNAPSHOTS (STORE_UID_FK, LAST_LOG_UID);
+
+-- 스냅샷 이후 내역 합산/확인 스트림(상점 + 내역 UID 범위)
+CREATE INDEX IDX_DEPOSIT_LOGS_STORE ON SP_DEPOSIT_LOGS (STORE_UID_FK, UID);
@@ -0,0 +1,13 @@
+-- 승인된 결제결과는 거래번호(TR_NO)당 1건(결제 마무리 중복 저장 방지, PaymentFinishGuard)
+-- 승인 실패 결과는 결제요청당 여러 건 가능(다시 결제), MySQL 은 부분 인덱스가 없으므로 승인건만 값이 있는 생성 컬럼에 유니크 인덱스
+-- (NULL 은 유니크 인덱스에서 중복 허용, MySQL 5.7 이상)
+
+-- 결제요청당 1건 유니크 키를 만든 경우 삭제
+-- ALTER TABLE SP_KSNET_PAY_RESULT DROP INDEX UK_KSNET_PAY_RESULT_PAY;
+
+ALTER TABLE SP_KSNET_PAY_RESULT
+	ADD COLUMN APPROVED_TR_NO VARCHAR(20) AS (CASE WHEN AUTH_YN = 'O' THEN TR_NO END) STORED,
+	ADD UNIQUE INDEX UK_KSNET_PAY_RESULT_APPROVED_TR_NO (APPROVED_TR_NO);
+
+-- 결제요청의 승인된 결제결과 조회(결제 마무리 재요청)
+CREATE INDEX IDX_KSNET_PAY_RESULT_PAY ON SP_KSNET_PAY_RESULT (KSNET_PAY_UID_FK, AUTH_YN);
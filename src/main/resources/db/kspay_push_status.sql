@@ -0,0 +1,10 @@
+-- 결제알림 PUSH 발송 상태(PaymentPushService)
+-- PUSH_STATUS_CD: READY -> SENDING -> SENT/FAILED
+-- PUSH_FAILED_TOKENS: 발송 실패한 수신자(FCM TOKEN UID, 쉼표 구분), 재발송시 이 수신자에게만 발송
+ALTER TABLE SP_KSNET_PAY_RESULT
+	ADD COLUMN PUSH_STATUS_CD VARCHAR(10) NULL,
+	ADD COLUMN PUSH_TRY_CNT INT DEFAULT 0,
+	ADD COLUMN PUSH_FAILED_TOKENS VARCHAR(500) NULL;
+
+-- 재발송 대상 조회(상태 + 마지막 변경 시각)
+CREATE INDEX IDX_KSNET_PAY_RESULT_PUSH ON SP_KSNET_PAY_RESULT (PUSH_STATUS_CD, UPDATED_DT);
@@ -0,0 +1,194 @@
+package kr.co.sunpay.api.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import kr.co.sunpay.api.domain.DepositLog;
+import kr.co.sunpay.api.domain.KsnetPayResult;
+import kr.co.sunpay.api.exception.DepositException;
+import kr.co.sunpay.api.repository.KsnetPayResultRepository;
+import kr.co.sunpay.api.service.DepositFixture;
+import kr.co.sunpay.api.service.StoreRoutingTable;
+
+public class DepositServiceTest {
+
+	private static final int STORE_UID = 1;
+	private static final String STORE_ID = "2999199999";
+	private static final String DEPOSIT_NO = "D0001";
+
+	private DepositFixture fixture;
+	private DepositService depositService;
+
+	@Before
+	public void setUp() {
+		fixture = new DepositFixture();
+		fixture.store(STORE_UID, DEPOSIT_NO, 10000);
+
+		StoreRoutingTable storeRouting = mock(StoreRoutingTable.class);
+		when(storeRouting.get(STORE_ID)).thenReturn(new StoreRoute(STORE_UID, STORE_ID, "INSTANT", DEPOSIT_NO,
+				Collections.singletonMap(STORE_ID, "INSTANT")));
+
+		depositService = new DepositService();
+		depositService.storeRepo = fixture.storeRepo;
+		depositService.depositLedger = fixture.ledger;
+		depositService.depositBalances = fixture.balances;
+		depositService.storeRouting = storeRouting;
+		depositService.ksnetPayResultRepo = mock(KsnetPayResultRepository.class);
+	}
+
+	@After
+	public void tearDown() {
+		fixture.close();
+	}
+
+	private static KsnetPayResult paid(String trNo, int amt) {
+		KsnetPayResult paid = new KsnetPayResult();
+		paid.setTrno(trNo);
+		paid.setAmt(amt);
+		return paid;
+	}
+
+	@Test
+	public void tryRefundDebitsDeposit() throws Exception {
+		depositService.tryRefund(STORE_ID, paid("T1", 3000));
+
+		assertEquals(Integer.valueOf(7000), fixture.balances.getBalance(STORE_UID));
+		List<DepositLog> logs = fixture.logs(STORE_UID);
+		assertEquals(1, logs.size());
+		assertEquals(DepositService.TYPE_WITHDRAW, logs.get(0).getTypeCode());
+		assertEquals(DepositService.STATUS_TRY, logs.get(0).getStatusCd());
+		assertEquals(7000, logs.get(0).getTotal());
+	}
+
+	/**
+	 * 잔액 부족: CODE_DEPOSIT_LACK, 내역 추가 없음, 잠금 해제
+	 */
+	@Test
+	public void tryRefundFailsOnInsufficientBalance() throws Exception {
+		try {
+			depositService.tryRefund(STORE_ID, paid("T1", 10001));
+			fail("deposit lack expected");
+		} catch (DepositException e) {
+			assertEquals(DepositException.CODE_DEPOSIT_LACK, e.getErrCode());
+		}
+
+		assertEquals(Integer.valueOf(10000), fixture.balances.getBalance(STORE_UID));
+		assertTrue(fixture.logs(STORE_UID).isEmpty());
+		assertFalse(fixture.isLocked(STORE_UID));
+
+		// 잔액 전체는 차감 가능
+		depositService.tryRefund(STORE_ID, paid("T2", 10000));
+		assertEquals(Integer.valueOf(0), fixture.balances.getBalance(STORE_UID));
+	}
+
+	@Test
+	public void depositAndResetDepositCredit() throws Exception {
+		assertEquals(15000, depositService.deposit(DEPOSIT_NO, 5000));
+
+		depositService.tryRefund(STORE_ID, paid("T1", 3000));
+		when(depositService.ksnetPayResultRepo.findByTrnoAndStoreIdAndAuthyn("T1", STORE_ID, "O"))
+				.thenReturn(Optional.of(paid("T1", 3000)));
+
+		KsnetRefundBody cancel = new KsnetRefundBody();
+		cancel.setStoreid(STORE_ID);
+		cancel.setTrno("T1");
+		depositService.resetDeposit(cancel);
+
+		assertEquals(Integer.valueOf(15000), fixture.balances.getBalance(STORE_UID));
+		List<DepositLog> logs = fixture.logs(STORE_UID);
+		assertEquals(3, logs.size());
+		assertEquals(DepositService.STATUS_FAIL, logs.get(2).getStatusCd());
+		assertEquals(15000, logs.get(2).getTotal());
+	}
+
+	/**
+	 * 같은 상점 동시 차감 2건, 합계가 잔액을 넘으면 1건만 차감
+	 */
+	@Test
+	public void concurrentDebitsOnSameStoreDoNotOverdraw() throws Exception {
+		// 첫 스냅샷 생성(상점 행 잠금) 후 경합
+		assertEquals(Integer.valueOf(10000), fixture.balances.getBalance(STORE_UID));
+		fixture.foldDelayMs = 20;
+
+		List<Object> results = runConcurrently(2, i -> depositService.tryRefund(STORE_ID, paid("T" + i, 6000)));
+
+		assertEquals(1, Collections.frequency(results, "OK"));
+		assertEquals(1, Collections.frequency(results, DepositException.CODE_DEPOSIT_LACK));
+		assertEquals(Integer.valueOf(4000), fixture.balances.getBalance(STORE_UID));
+		assertEquals(1, fixture.logs(STORE_UID).size());
+	}
+
+	/**
+	 * 같은 상점 동시 차감, 잔액과 내역 잔액(TOTAL)이 차감 건수와 일치(lost update 없음)
+	 */
+	@Test
+	public void concurrentDebitsOnSameStoreAreNotLost() throws Exception {
+		assertEquals(Integer.valueOf(10000), fixture.balances.getBalance(STORE_UID));
+		fixture.foldDelayMs = 2;
+
+		List<Object> results = runConcurrently(16, i -> depositService.tryRefund(STORE_ID, paid("T" + i, 1000)));
+
+		assertEquals(10, Collections.frequency(results, "OK"));
+		assertEquals(6, Collections.frequency(results, DepositException.CODE_DEPOSIT_LACK));
+		assertEquals(Integer.valueOf(0), fixture.balances.getBalance(STORE_UID));
+
+		List<DepositLog> logs = fixture.logs(STORE_UID);
+		assertEquals(10, logs.size());
+		for (int i = 0; i < logs.size(); i++) {
+			assertEquals(10000 - (i + 1) * 1000, logs.get(i).getTotal());
+		}
+	}
+
+	private interface Debit {
+		void run(int i) throws Exception;
+	}
+
+	private List<Object> runConcurrently(int threads, Debit debit) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger seq = new AtomicInteger();
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					int i = seq.incrementAndGet();
+					start.await();
+					try {
+						debit.run(i);
+						return "OK";
+					} catch (DepositException e) {
+						return e.getErrCode();
+					}
+				}));
+			}
+			start.countDown();
+
+			List<Object> results = new ArrayList<>();
+			for (Future<Object> future : futures) {
+				results.add(future.get(10, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
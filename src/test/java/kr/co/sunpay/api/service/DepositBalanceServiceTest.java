@@ -0,0 +1,179 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import kr.co.sunpay.api.domain.DepositLog;
+import kr.co.sunpay.api.domain.DepositSnapshot;
+import kr.co.sunpay.api.exception.DepositException;
+import kr.co.sunpay.api.model.DepositService;
+
+public class DepositBalanceServiceTest {
+
+	private static final int STORE_UID = 1;
+
+	private final DepositFixture fixture = new DepositFixture();
+
+	@After
+	public void tearDown() {
+		fixture.close();
+	}
+
+	private int credit(int amt) {
+		return fixture.ledger.credit(STORE_UID, null, "D0001", null, DepositService.STATUS_FINISH, amt);
+	}
+
+	private int debit(int amt) throws DepositException {
+		return fixture.ledger.debit(STORE_UID, "D0001", "T1", DepositService.STATUS_TRY, amt);
+	}
+
+	/**
+	 * 첫 조회: 기존 예치금 컬럼 + 기존 마지막 내역 UID 로 첫 스냅샷
+	 */
+	@Test
+	public void baselineUsesDepositColumnAndLastLog() {
+		fixture.store(STORE_UID, "D0001", 5000);
+		DepositLog legacy = fixture.insertLog(STORE_UID, DepositService.TYPE_DEPOSIT, 1000, 5000);
+
+		assertEquals(Integer.valueOf(5000), fixture.balances.getBalance(STORE_UID));
+
+		List<DepositSnapshot> snapshots = fixture.snapshots(STORE_UID);
+		assertEquals(1, snapshots.size());
+		assertEquals(legacy.getUid(), snapshots.get(0).getLastLogUid());
+		assertEquals(5000, snapshots.get(0).getBalance());
+	}
+
+	/**
+	 * 잔액 = 마지막 스냅샷 + 이후 내역, 다른 서버(재시작)는 마지막 스냅샷부터 합산
+	 */
+	@Test
+	public void foldsLatestSnapshotAndTail() throws Exception {
+		fixture.store(STORE_UID, "D0001", 10000);
+		assertEquals(13000, credit(3000));
+		assertEquals(11000, debit(2000));
+		assertEquals(10000, debit(1000));
+
+		fixture.balances.writeSnapshots();
+		List<DepositSnapshot> snapshots = fixture.snapshots(STORE_UID);
+		assertEquals(2, snapshots.size());
+		DepositSnapshot latest = snapshots.get(1);
+		assertEquals(3, latest.getLastLogUid());
+		assertEquals(10000, latest.getBalance());
+
+		// 스냅샷 이후 내역(이 서버, 다른 서버)
+		assertEquals(9500, debit(500));
+		fixture.insertLog(STORE_UID, DepositService.TYPE_DEPOSIT, 700, 10200);
+
+		clearInvocations(fixture.depositLogRepo);
+		DepositBalanceService other = fixture.newBalanceService();
+		try {
+			assertEquals(Integer.valueOf(10200), other.getBalance(STORE_UID));
+			verify(fixture.depositLogRepo).foldAfter(STORE_UID, latest.getLastLogUid());
+			verify(fixture.depositLogRepo, never()).foldAfter(eq(STORE_UID), eq(0));
+		} finally {
+			other.close();
+		}
+
+		// 보관한 잔액은 다음 변경 때 다른 서버 내역까지 합산
+		assertEquals(Integer.valueOf(9500), fixture.balances.getBalance(STORE_UID));
+		assertEquals(10000, debit(200));
+		assertEquals(Integer.valueOf(10000), fixture.balances.getBalance(STORE_UID));
+	}
+
+	/**
+	 * 스냅샷 이후 내역이 min-logs(3) 건 이상인 상점만 스냅샷 추가
+	 */
+	@Test
+	public void writesSnapshotOnlyAfterMinLogs() throws Exception {
+		fixture.store(STORE_UID, "D0001", 10000);
+		credit(100);
+		credit(100);
+
+		fixture.balances.writeSnapshots();
+		assertEquals(1, fixture.snapshots(STORE_UID).size());
+
+		debit(50);
+		fixture.balances.writeSnapshots();
+		assertEquals(2, fixture.snapshots(STORE_UID).size());
+
+		debit(50);
+		fixture.balances.writeSnapshots();
+		assertEquals(2, fixture.snapshots(STORE_UID).size());
+	}
+
+	@Test
+	public void verifyPassesForConsistentLogs() throws Exception {
+		fixture.store(STORE_UID, "D0001", 10000);
+		credit(3000);
+		debit(2000);
+		debit(1000);
+		fixture.balances.writeSnapshots();
+		debit(500);
+
+		Map<String, Object> result = fixture.balances.verify();
+		assertEquals(1, result.get("stores"));
+		assertEquals(4L, result.get("logs"));
+		assertEquals(Collections.emptyList(), result.get("drifted"));
+	}
+
+	/**
+	 * 내역 잔액(TOTAL)이 합산과 다르면 불일치
+	 */
+	@Test
+	public void verifyDetectsWrongLogTotal() {
+		fixture.store(STORE_UID, "D0001", 10000);
+		credit(1000);
+		fixture.insertLog(STORE_UID, DepositService.TYPE_WITHDRAW, 500, 11000);
+
+		assertEquals(Collections.singletonList(STORE_UID), fixture.balances.verify().get("drifted"));
+		assertEquals(1L, fixture.balances.snapshot().get("depositDrifts"));
+	}
+
+	/**
+	 * 스냅샷 잔액이 내역 합산과 다르면 불일치
+	 */
+	@Test
+	public void verifyDetectsSnapshotDrift() {
+		fixture.store(STORE_UID, "D0001", 10000);
+		credit(1000);
+		credit(1000);
+		fixture.snapshotRepo.save(new DepositSnapshot(STORE_UID, 2, 11000));
+
+		assertEquals(Collections.singletonList(STORE_UID), fixture.balances.verify().get("drifted"));
+	}
+
+	/**
+	 * 보관한 잔액이 같은 마지막 내역까지의 합산과 다르면 불일치, 보관한 잔액은 버리고 다시 합산
+	 */
+	@Test
+	public void verifyDetectsCachedDriftAndReloads() {
+		fixture.store(STORE_UID, "D0001", 10000);
+		credit(1000);
+		DepositLog log = fixture.insertLog(STORE_UID, DepositService.TYPE_DEPOSIT, 1000, 12000);
+		fixture.balances.applied(STORE_UID, log.getUid(), 99999);
+		assertEquals(Integer.valueOf(99999), fixture.balances.getBalance(STORE_UID));
+
+		assertEquals(Collections.singletonList(STORE_UID), fixture.balances.verify().get("drifted"));
+		assertEquals(Integer.valueOf(12000), fixture.balances.getBalance(STORE_UID));
+		assertEquals(Collections.emptyList(), fixture.balances.verify().get("drifted"));
+	}
+
+	@Test
+	public void unknownStoreHasNoBalance() {
+		assertEquals(null, fixture.balances.getBalance(9));
+		verify(fixture.snapshotRepo, never()).save(any(DepositSnapshot.class));
+		verify(fixture.depositLogRepo, never()).foldAfter(eq(9), anyInt());
+	}
+}
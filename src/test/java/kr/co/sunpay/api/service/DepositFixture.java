@@ -0,0 +1,287 @@
+package kr.co.sunpay.api.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import kr.co.sunpay.api.domain.DepositLog;
+import kr.co.sunpay.api.domain.DepositSnapshot;
+import kr.co.sunpay.api.domain.Store;
+import kr.co.sunpay.api.model.DepositService;
+import kr.co.sunpay.api.repository.DepositLogRepository;
+import kr.co.sunpay.api.repository.DepositSnapshotRepository;
+import kr.co.sunpay.api.repository.StoreRepository;
+
+/**
+ * 예치금 테스트용 메모리 저장소
+ * - 상점 행 잠금(lockForDeposit)은 상점별 ReentrantLock, 트랜잭션이 끝날 때(커밋/롤백) 해제
+ * - 롤백시 트랜잭션에서 추가한 내역 삭제, 커밋 후 작업(afterCommit)은 잠금 해제 후 실행
+ * - DepositLedger 는 @Transactional 을 적용한 프록시
+ */
+public class DepositFixture {
+
+	public final StoreRepository storeRepo = mock(StoreRepository.class);
+	public final DepositLogRepository depositLogRepo = mock(DepositLogRepository.class);
+	public final DepositSnapshotRepository snapshotRepo = mock(DepositSnapshotRepository.class);
+	public final PlatformTransactionManager transactionManager = new RowLockTransactionManager();
+
+	public final DepositBalanceService balances;
+	public final DepositReservationLedger reservations;
+	public final DepositLedger ledger;
+
+	// 상점 UID → 예치금 컬럼(SP_STORES.DEPOSIT), 입금번호
+	private final Map<Integer, Integer> deposits = new ConcurrentHashMap<>();
+	private final Map<String, Integer> depositNos = new ConcurrentHashMap<>();
+	private final Map<Integer, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+
+	private final List<DepositLog> logs = Collections.synchronizedList(new ArrayList<>());
+	private final List<DepositSnapshot> snapshots = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger logSeq = new AtomicInteger();
+	private final AtomicInteger snapshotSeq = new AtomicInteger();
+
+	// 트랜잭션별 잠금, 추가한 내역
+	private final ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+	private final ThreadLocal<List<DepositLog>> inserted = ThreadLocal.withInitial(ArrayList::new);
+
+	// 잔액 합산 조회 지연(ms), 동시 차감 경합 구간을 넓힘
+	public volatile long foldDelayMs;
+
+	public DepositFixture() {
+
+		stubStores();
+		stubLogs();
+		stubSnapshots();
+
+		balances = newBalanceService();
+		reservations = new DepositReservationLedger(4, 5000, 0, balances::getBalance);
+
+		DepositLedger target = new DepositLedger();
+		target.storeRepo = storeRepo;
+		target.depositLogRepo = depositLogRepo;
+		target.balances = balances;
+		target.reservations = reservations;
+
+		ProxyFactory proxy = new ProxyFactory(target);
+		proxy.setProxyTargetClass(true);
+		proxy.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+		ledger = (DepositLedger) proxy.getProxy();
+	}
+
+	/**
+	 * 같은 저장소를 사용하는 잔액 서비스(다른 서버, 재시작), 보관한 잔액 없음
+	 */
+	DepositBalanceService newBalanceService() {
+
+		DepositBalanceService service = new DepositBalanceService();
+		service.storeRepo = storeRepo;
+		service.depositLogRepo = depositLogRepo;
+		service.snapshotRepo = snapshotRepo;
+		service.transactionManager = transactionManager;
+		service.snapshotMinLogs = 3;
+		service.verifyThreads = 2;
+		service.start();
+		return service;
+	}
+
+	public void close() {
+		balances.close();
+		reservations.close();
+	}
+
+	/**
+	 * 상점 추가(스냅샷 없음, 첫 조회시 deposit 으로 첫 스냅샷 생성)
+	 */
+	public void store(int storeUid, String depositNo, int deposit) {
+		deposits.put(storeUid, deposit);
+		depositNos.put(depositNo, storeUid);
+	}
+
+	/**
+	 * 저장된 예치금 내역(UID 순)
+	 */
+	public List<DepositLog> logs(int storeUid) {
+		synchronized (logs) {
+			return logs.stream().filter(l -> l.getStore().getUid() == storeUid)
+					.sorted((a, b) -> Integer.compare(a.getUid(), b.getUid())).collect(Collectors.toList());
+		}
+	}
+
+	public List<DepositSnapshot> snapshots(int storeUid) {
+		synchronized (snapshots) {
+			return snapshots.stream().filter(s -> s.getStoreUid() == storeUid)
+					.sorted((a, b) -> Integer.compare(a.getLastLogUid(), b.getLastLogUid()))
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * 잔액 계산을 거치지 않고 내역 추가(다른 서버 변경, 잘못된 내역 등)
+	 */
+	public DepositLog insertLog(int storeUid, String typeCode, int amt, int total) {
+		DepositLog log = new DepositLog(storeRepo.getOne(storeUid), null, null, typeCode, null,
+				DepositService.STATUS_FINISH, amt, total);
+		synchronized (logs) {
+			log.setUid(logSeq.incrementAndGet());
+			logs.add(log);
+		}
+		return log;
+	}
+
+	public boolean isLocked(int storeUid) {
+		return rowLock(storeUid).isLocked();
+	}
+
+	private ReentrantLock rowLock(int storeUid) {
+		return rowLocks.computeIfAbsent(storeUid, k -> new ReentrantLock());
+	}
+
+	private void stubStores() {
+
+		when(storeRepo.lockForDeposit(anyInt())).thenAnswer(inv -> {
+			int storeUid = inv.getArgument(0);
+			if (!deposits.containsKey(storeUid)) {
+				return null;
+			}
+			ReentrantLock lock = rowLock(storeUid);
+			lock.lock();
+			heldLocks.get().add(lock);
+			return storeUid;
+		});
+		when(storeRepo.findDepositByUid(anyInt())).thenAnswer(inv -> deposits.get(inv.getArgument(0)));
+		when(storeRepo.findUidByDepositNo(anyString()))
+				.thenAnswer(inv -> Optional.ofNullable(depositNos.get(inv.getArgument(0))));
+		when(storeRepo.getOne(anyInt())).thenAnswer(inv -> {
+			Store store = new Store();
+			store.setUid(inv.getArgument(0));
+			return store;
+		});
+		when(storeRepo.findUidsWithoutDepositSnapshot()).thenAnswer(inv -> deposits.keySet().stream()
+				.filter(uid -> snapshots(uid).isEmpty()).collect(Collectors.toList()));
+	}
+
+	private void stubLogs() {
+
+		when(depositLogRepo.save(any(DepositLog.class))).thenAnswer(inv -> {
+			DepositLog log = inv.getArgument(0);
+			synchronized (logs) {
+				log.setUid(logSeq.incrementAndGet());
+				logs.add(log);
+			}
+			inserted.get().add(log);
+			return log;
+		});
+		when(depositLogRepo.foldAfter(anyInt(), anyInt())).thenAnswer(inv -> {
+			int storeUid = inv.getArgument(0);
+			int afterUid = inv.getArgument(1);
+			long sum = 0;
+			int maxUid = 0;
+			long count = 0;
+			for (DepositLog log : logs(storeUid)) {
+				if (log.getUid() > afterUid) {
+					sum += DepositService.TYPE_WITHDRAW.equals(log.getTypeCode()) ? -log.getAmt() : log.getAmt();
+					maxUid = Math.max(maxUid, log.getUid());
+					count++;
+				}
+			}
+			if (foldDelayMs > 0) {
+				Thread.sleep(foldDelayMs);
+			}
+			return Collections.singletonList(new Object[] { sum, maxUid, count });
+		});
+		when(depositLogRepo.streamByStoreUid(anyInt(), anyInt())).thenAnswer(inv -> {
+			int afterUid = inv.getArgument(1);
+			return logs(inv.getArgument(0)).stream().filter(l -> l.getUid() > afterUid)
+					.map(l -> new Object[] { l.getUid(), l.getTypeCode(), l.getAmt(), l.getTotal() });
+		});
+	}
+
+	private void stubSnapshots() {
+
+		when(snapshotRepo.save(any(DepositSnapshot.class))).thenAnswer(inv -> {
+			DepositSnapshot snapshot = inv.getArgument(0);
+			snapshot.setUid(snapshotSeq.incrementAndGet());
+			snapshots.add(snapshot);
+			return snapshot;
+		});
+		when(snapshotRepo.findFirstByStoreUidOrderByLastLogUidDesc(anyInt())).thenAnswer(inv -> {
+			List<DepositSnapshot> list = snapshots(inv.getArgument(0));
+			return list.isEmpty() ? Optional.empty() : Optional.of(list.get(list.size() - 1));
+		});
+		when(snapshotRepo.findByStoreUidOrderByLastLogUidAsc(anyInt()))
+				.thenAnswer(inv -> snapshots(inv.getArgument(0)));
+		when(snapshotRepo.findStoreUids()).thenAnswer(inv -> {
+			synchronized (snapshots) {
+				return snapshots.stream().map(DepositSnapshot::getStoreUid).distinct().collect(Collectors.toList());
+			}
+		});
+	}
+
+	/**
+	 * 트랜잭션 종료시 상점 행 잠금 해제, 롤백이면 추가한 내역 삭제
+	 */
+	private class RowLockTransactionManager extends AbstractPlatformTransactionManager {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ThreadLocal<Boolean> active = new ThreadLocal<>();
+
+		@Override
+		protected Object doGetTransaction() {
+			return active.get() != null;
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return (Boolean) transaction;
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			active.set(Boolean.TRUE);
+			inserted.remove();
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			inserted.remove();
+			unlock();
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			logs.removeAll(inserted.get());
+			inserted.remove();
+			unlock();
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			active.remove();
+		}
+
+		private void unlock() {
+			heldLocks.get().forEach(ReentrantLock::unlock);
+			heldLocks.remove();
+		}
+	}
+}
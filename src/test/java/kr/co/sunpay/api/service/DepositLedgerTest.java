@@ -0,0 +1,113 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import kr.co.sunpay.api.domain.DepositLog;
+import kr.co.sunpay.api.exception.DepositException;
+import kr.co.sunpay.api.model.DepositService;
+
+public class DepositLedgerTest {
+
+	private static final int STORE_UID = 1;
+
+	private final DepositFixture fixture = new DepositFixture();
+
+	@After
+	public void tearDown() {
+		fixture.close();
+	}
+
+	/**
+	 * 같은 상점 동시 입금/차감: 내역은 UID 순으로 이전 잔액 ± 금액, 마지막 내역 잔액 = 잔액
+	 */
+	@Test
+	public void concurrentChangesAppendInOrder() throws Exception {
+		fixture.store(STORE_UID, "D0001", 10000);
+		assertEquals(Integer.valueOf(10000), fixture.balances.getBalance(STORE_UID));
+		fixture.foldDelayMs = 1;
+
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger lacks = new AtomicInteger();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < 10; i++) {
+						fixture.ledger.credit(STORE_UID, null, "D0001", null, DepositService.STATUS_FINISH, 300);
+						try {
+							fixture.ledger.debit(STORE_UID, "D0001", "T" + i, DepositService.STATUS_TRY, 500);
+						} catch (DepositException e) {
+							lacks.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		List<DepositLog> logs = fixture.logs(STORE_UID);
+		assertEquals(threads * 10 * 2 - lacks.get(), logs.size());
+
+		int running = 10000;
+		for (DepositLog log : logs) {
+			running += DepositService.TYPE_WITHDRAW.equals(log.getTypeCode()) ? -log.getAmt() : log.getAmt();
+			assertEquals("logUid " + log.getUid(), running, log.getTotal());
+			assertTrue(running >= 0);
+		}
+		assertEquals(10000 + threads * 10 * 300 - (threads * 10 - lacks.get()) * 500, running);
+		assertEquals(Integer.valueOf(running), fixture.balances.getBalance(STORE_UID));
+		assertEquals(Collections.emptyList(), fixture.balances.verify().get("drifted"));
+	}
+
+	/**
+	 * 커밋 후 예치금 예약(DepositReservationLedger)은 예치금을 다시 읽음
+	 */
+	@Test
+	public void commitRefreshesReservationBalance() throws Exception {
+		fixture.store(STORE_UID, "D0001", 10000);
+		assertTrue(fixture.reservations.hold(STORE_UID, 100, 1000));
+		assertEquals(9000, fixture.reservations.getAvailable(STORE_UID));
+
+		fixture.ledger.debit(STORE_UID, "D0001", "T1", DepositService.STATUS_TRY, 5000);
+
+		assertEquals(4000, fixture.reservations.getAvailable(STORE_UID));
+	}
+
+	@Test
+	public void unknownStoreIsRejected() throws Exception {
+		try {
+			fixture.ledger.debit(9, "D0009", "T1", DepositService.STATUS_TRY, 100);
+			fail("unknown store accepted");
+		} catch (EntityNotFoundException e) {
+			assertTrue(fixture.logs(9).isEmpty());
+		}
+		assertFalse(fixture.isLocked(9));
+	}
+}
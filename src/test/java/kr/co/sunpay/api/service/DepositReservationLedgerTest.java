@@ -0,0 +1,191 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class DepositReservationLedgerTest {
+
+	private final AtomicLong now = new AtomicLong(1000);
+	private final Map<Integer, Integer> balances = new HashMap<>();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private DepositReservationLedger ledger(int stripes) {
+		return new DepositReservationLedger(stripes, 5000, 0, storeUid -> {
+			loads.incrementAndGet();
+			return balances.get(storeUid);
+		}, now::get);
+	}
+
+	/**
+	 * 사용가능 금액(예치금 - 예약금액)까지만 예약
+	 */
+	@Test
+	public void holdsUpToAvailableBalance() {
+		balances.put(1, 10000);
+		DepositReservationLedger ledger = ledger(4);
+
+		assertTrue(ledger.hold(1, 100, 6000));
+		assertFalse(ledger.hold(1, 101, 5000));
+		assertEquals(4000, ledger.getAvailable(1));
+
+		assertTrue(ledger.release(100));
+		assertTrue(ledger.hold(1, 101, 5000));
+		assertEquals(5000, ledger.getHeld(1));
+		assertEquals(1, loads.get());
+	}
+
+	/**
+	 * 승인(commit)도 예약금액을 돌려줌, 예약은 진행 중인 결제만
+	 */
+	@Test
+	public void commitAndReleaseEndHoldOnce() {
+		balances.put(1, 10000);
+		DepositReservationLedger ledger = ledger(4);
+
+		assertTrue(ledger.hold(1, 100, 3000));
+		assertTrue(ledger.hold(1, 100, 3000));
+		assertEquals(3000, ledger.getHeld(1));
+
+		assertTrue(ledger.commit(100));
+		assertFalse(ledger.commit(100));
+		assertFalse(ledger.release(100));
+		assertEquals(0, ledger.getHeld(1));
+		assertEquals(10000, ledger.getAvailable(1));
+	}
+
+	@Test
+	public void unknownStoreIsRejected() {
+		DepositReservationLedger ledger = ledger(4);
+
+		assertFalse(ledger.hold(9, 100, 1));
+		assertEquals(0, ledger.getAvailable(9));
+	}
+
+	/**
+	 * 결제 마무리되지 않은 예약은 만료 후 해제
+	 */
+	@Test
+	public void expiredHoldsAreReleased() {
+		balances.put(1, 10000);
+		DepositReservationLedger ledger = ledger(4);
+
+		ledger.hold(1, 100, 4000);
+		now.addAndGet(1000);
+		ledger.hold(1, 101, 4000);
+
+		now.addAndGet(4000);
+		assertEquals(1, ledger.expire());
+		assertEquals(4000, ledger.getHeld(1));
+		assertFalse(ledger.commit(100));
+
+		now.addAndGet(1000);
+		assertEquals(1, ledger.expire());
+		assertEquals(0, ledger.getHeld(1));
+	}
+
+	/**
+	 * 예치금 변경 후 다시 읽음, 예약은 유지
+	 */
+	@Test
+	public void invalidateReloadsBalanceAndKeepsHolds() {
+		balances.put(1, 10000);
+		DepositReservationLedger ledger = ledger(4);
+
+		ledger.hold(1, 100, 8000);
+		balances.put(1, 3000);
+		assertEquals(2000, ledger.getAvailable(1));
+
+		ledger.invalidate(1);
+		assertEquals(-5000, ledger.getAvailable(1));
+		assertFalse(ledger.hold(1, 101, 1));
+		assertEquals(2, loads.get());
+	}
+
+	/**
+	 * 예치금 조회 중에도 같은 stripe 의 다른 상점은 예약, 조회 중 invalidate 되면 다시 읽음
+	 */
+	@Test
+	public void loadRunsOutsideStripeLock() throws Exception {
+		balances.put(2, 10000);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		AtomicInteger store1Loads = new AtomicInteger();
+		DepositReservationLedger ledger = new DepositReservationLedger(1, 5000, 0, storeUid -> {
+			if (storeUid == 1 && store1Loads.incrementAndGet() == 1) {
+				loading.countDown();
+				try {
+					proceed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 10000;
+			}
+			return (storeUid == 1) ? 3000 : balances.get(storeUid);
+		}, now::get);
+
+		AtomicInteger granted = new AtomicInteger();
+		Thread slow = new Thread(() -> {
+			if (ledger.hold(1, 100, 5000)) {
+				granted.incrementAndGet();
+			}
+		});
+		slow.start();
+		loading.await();
+
+		assertTrue(ledger.hold(2, 200, 1000));
+		ledger.invalidate(1);
+		proceed.countDown();
+		slow.join();
+
+		assertEquals(0, granted.get());
+		assertEquals(2, store1Loads.get());
+		assertEquals(3000, ledger.getBalance(1));
+	}
+
+	/**
+	 * 같은 상점 동시 예약이 예치금을 넘지 않음
+	 */
+	@Test
+	public void concurrentHoldsNeverOverdraw() throws Exception {
+		balances.put(1, 10000);
+		balances.put(2, 10000);
+		DepositReservationLedger ledger = ledger(1);
+
+		int threads = 32;
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		AtomicInteger granted = new AtomicInteger();
+
+		for (int i = 0; i < threads; i++) {
+			int payUid = i;
+			new Thread(() -> {
+				try {
+					start.await();
+					if (ledger.hold(1 + payUid % 2, payUid, 1000)) {
+						granted.incrementAndGet();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			}).start();
+		}
+
+		start.countDown();
+		done.await();
+
+		assertEquals(20, granted.get());
+		assertEquals(0, ledger.getAvailable(1));
+		assertEquals(0, ledger.getAvailable(2));
+	}
+}
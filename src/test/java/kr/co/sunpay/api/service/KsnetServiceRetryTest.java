@@ -0,0 +1,101 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import kr.co.sunpay.api.model.KsnetRefundBody;
+import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import ksnet.kspay.KSPayAsyncClient;
+import ksnet.kspay.KSPayDeadline;
+
+public class KsnetServiceRetryTest {
+
+	private KsnetService ksnetService(KspayRetryPolicy policy, int port) {
+		KsnetService ksnetService = new KsnetService();
+		ksnetService.retryPolicy = policy;
+		ksnetService.ipgHost = "127.0.0.1";
+		ksnetService.ipgPort = port;
+		return ksnetService;
+	}
+
+	private static KspayRetryPolicy policy() {
+		return new KspayRetryPolicy(10, 50, 1, 10).rule(KsnetService.KSPAY_AUTHTY_CREDIT, 3, false);
+	}
+
+	private static KsnetRefundBody cancel() {
+		KsnetRefundBody cancel = new KsnetRefundBody();
+		cancel.setStoreid("2999199999");
+		cancel.setTrno("123456789012");
+		cancel.setAuthty(KsnetService.KSPAY_AUTHTY_CREDIT);
+		return cancel;
+	}
+
+	/**
+	 * 첫 연결만 요청을 받고 응답 없이 끊음, 이후 연결은 거부(서버 종료)
+	 */
+	private static Thread dropThenRefuse(ServerSocket server) {
+		Thread responder = new Thread(() -> {
+			try {
+				Socket s = server.accept();
+				InputStream in = s.getInputStream();
+				in.read(new byte[64]);
+				server.close();
+				s.close();
+			} catch (IOException e) {
+				// 서버 종료
+			}
+		});
+		responder.setDaemon(true);
+		responder.start();
+		return responder;
+	}
+
+	/**
+	 * 1회: 요청 전송 후 응답 없음(UNKNOWN), 2회 이후: 연결 실패 -> UNKNOWN 유지
+	 */
+	@Test
+	public void unknownIsKeptWhenRetryCannotConnect() throws Exception {
+		KspayRetryPolicy policy = policy();
+		try (ServerSocket server = new ServerSocket(0)) {
+			dropThenRefuse(server);
+
+			KspayRefundReturns returns = ksnetService(policy, server.getLocalPort()).kspayCancelPostCredit(cancel(),
+					KSPayDeadline.of(1000, 1000, 10000));
+
+			assertEquals(Outcome.UNKNOWN, returns.getOutcome());
+			assertEquals("C취소결과 확인중", returns.getRMessage2());
+			assertEquals(2, policy.getRetries());
+		} finally {
+			policy.close();
+		}
+	}
+
+	@Test
+	public void unknownIsKeptWhenAsyncRetryCannotConnect() throws Exception {
+		KspayRetryPolicy policy = policy();
+		KSPayAsyncClient client = new KSPayAsyncClient(1, 1000, 30000);
+		try (ServerSocket server = new ServerSocket(0)) {
+			dropThenRefuse(server);
+
+			KsnetService ksnetService = ksnetService(policy, server.getLocalPort());
+			ksnetService.asyncClient = client;
+			KspayRefundReturns returns = ksnetService
+					.kspayCancelCreditAsync(cancel(), KSPayDeadline.of(1000, 1000, 10000)).get(5, TimeUnit.SECONDS);
+
+			assertEquals(Outcome.UNKNOWN, returns.getOutcome());
+			assertEquals("C취소결과 확인중", returns.getRMessage2());
+			assertEquals(2, policy.getRetries());
+		} finally {
+			client.close();
+			policy.close();
+		}
+	}
+}
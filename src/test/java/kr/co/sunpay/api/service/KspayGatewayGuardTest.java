@@ -0,0 +1,107 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import kr.co.sunpay.api.exception.KspayGatewayException;
+
+public class KspayGatewayGuardTest {
+
+	private final AtomicLong now = new AtomicLong(1000);
+
+	/**
+	 * 연속 통신실패가 기준에 도달하면 차단, 차단 시간이 지나면 1건만 시험 전송
+	 */
+	@Test
+	public void opensAfterConsecutiveFailuresAndProbesOnce() throws Exception {
+		KspayGatewayGuard guard = new KspayGatewayGuard(3, 5000, 10, 0, now::get);
+
+		call(guard, true);
+		call(guard, false);
+		call(guard, true);
+		call(guard, true);
+		assertEquals(KspayGatewayGuard.State.CLOSED, guard.getState());
+
+		call(guard, true);
+		assertEquals(KspayGatewayGuard.State.OPEN, guard.getState());
+		assertRejected(guard, KspayGatewayException.CODE_CIRCUIT_OPEN);
+
+		now.addAndGet(5000);
+		KspayGatewayGuard.Permit probe = guard.acquire();
+		assertEquals(KspayGatewayGuard.State.HALF_OPEN, guard.getState());
+		assertRejected(guard, KspayGatewayException.CODE_CIRCUIT_OPEN);
+
+		probe.record(false);
+		probe.close();
+		assertEquals(KspayGatewayGuard.State.CLOSED, guard.getState());
+		call(guard, false);
+	}
+
+	@Test
+	public void failedProbeOpensAgain() throws Exception {
+		KspayGatewayGuard guard = new KspayGatewayGuard(1, 5000, 10, 0, now::get);
+
+		call(guard, true);
+		now.addAndGet(5000);
+		call(guard, true);
+
+		assertEquals(KspayGatewayGuard.State.OPEN, guard.getState());
+		now.addAndGet(4999);
+		assertRejected(guard, KspayGatewayException.CODE_CIRCUIT_OPEN);
+	}
+
+	/**
+	 * 결과 없이 반납된 시험 요청은 다음 요청이 다시 시험
+	 */
+	@Test
+	public void unrecordedProbeReleasesHalfOpen() throws Exception {
+		KspayGatewayGuard guard = new KspayGatewayGuard(1, 5000, 10, 0, now::get);
+
+		call(guard, true);
+		now.addAndGet(5000);
+		guard.acquire().close();
+
+		assertEquals(KspayGatewayGuard.State.HALF_OPEN, guard.getState());
+		call(guard, false);
+		assertEquals(KspayGatewayGuard.State.CLOSED, guard.getState());
+	}
+
+	@Test
+	public void bulkheadLimitsConcurrentCalls() throws Exception {
+		KspayGatewayGuard guard = new KspayGatewayGuard(5, 5000, 2, 0, now::get);
+
+		KspayGatewayGuard.Permit first = guard.acquire();
+		KspayGatewayGuard.Permit second = guard.acquire();
+		assertRejected(guard, KspayGatewayException.CODE_BULKHEAD_FULL);
+
+		first.close();
+		first.close();
+		guard.acquire().close();
+		second.close();
+
+		assertEquals(0, guard.snapshot().get("activeCalls"));
+		assertEquals(1L, guard.snapshot().get("rejectedFull"));
+	}
+
+	private void call(KspayGatewayGuard guard, boolean failure) throws KspayGatewayException {
+		KspayGatewayGuard.Permit permit = guard.acquire();
+		try {
+			permit.record(failure);
+		} finally {
+			permit.close();
+		}
+	}
+
+	private void assertRejected(KspayGatewayGuard guard, int code) {
+		try {
+			guard.acquire().close();
+			fail("rejected expected");
+		} catch (KspayGatewayException e) {
+			assertEquals(code, e.getErrCode());
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import kr.co.sunpay.api.domain.KsnetRefundLog;
+import kr.co.sunpay.api.model.KsnetRefundBody;
+import kr.co.sunpay.api.model.KspayRefundReturns;
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+
+public class KspayRefundReconcilerTest {
+
+	/**
+	 * 재요청 결과별 KSPay 응답, 확인 처리 기록
+	 */
+	private static class FakeKsnetService extends KsnetService {
+
+		final List<KsnetRefundLog> unknown = new ArrayList<>();
+		final Map<String, KspayRefundReturns> replies = new HashMap<>();
+		final Map<String, Boolean> resolved = new HashMap<>();
+
+		@Override
+		public List<KsnetRefundLog> getUnknownRefundLogs() {
+			return unknown;
+		}
+
+		@Override
+		public KspayRefundReturns sendKSPay(KsnetRefundBody cancel) {
+			return replies.get(cancel.getTrno());
+		}
+
+		@Override
+		public boolean resolveUnknownRefund(KsnetRefundLog refundLog, boolean cancelled) {
+			resolved.put(refundLog.getTrNo(), cancelled);
+			return true;
+		}
+	}
+
+	private KspayRefundReconciler reconciler(FakeKsnetService ksnetService) {
+		KspayRefundReconciler reconciler = new KspayRefundReconciler();
+		reconciler.ksnetService = ksnetService;
+		reconciler.gatewayGuard = new KspayGatewayGuard(5, 1000, 4, 100);
+		reconciler.minAgeMs = 0;
+		reconciler.cancelledMessages = new String[] { "기취소", "이미취소" };
+		reconciler.notCancelledMessages = new String[] { "취소불가" };
+		return reconciler;
+	}
+
+	private static KspayRefundReturns reply(String status, Outcome outcome, String message1, String message2) {
+		KspayRefundReturns returns = new KspayRefundReturns("", status, "", "", message1, message2);
+		returns.setOutcome(outcome);
+		return returns;
+	}
+
+	private static KsnetRefundLog unknownLog(String trNo) {
+		KsnetRefundLog refundLog = new KsnetRefundLog("2999199999", "", trNo, KsnetService.KSPAY_AUTHTY_CREDIT);
+		refundLog.setCreatedDate(LocalDateTime.now().minusMinutes(10));
+		return refundLog;
+	}
+
+	/**
+	 * 이번 재요청으로 취소 승인: 취소됨
+	 */
+	@Test
+	public void approvedIsCancelled() {
+		KspayRefundReconciler reconciler = reconciler(new FakeKsnetService());
+
+		assertTrue(reconciler.interpret(reply("O", Outcome.APPROVED, "", "")));
+	}
+
+	/**
+	 * 기취소 응답: 취소됨
+	 */
+	@Test
+	public void alreadyCancelledDeclineIsCancelled() {
+		KspayRefundReconciler reconciler = reconciler(new FakeKsnetService());
+
+		assertTrue(reconciler.interpret(reply("X", Outcome.DECLINED, "취소거절", "기취소거래")));
+		assertTrue(reconciler.interpret(reply("X", Outcome.DECLINED, "이미취소된 거래", "")));
+	}
+
+	/**
+	 * 취소안됨으로 등록된 응답만 취소안됨
+	 */
+	@Test
+	public void knownNotCancelledDeclineIsNotCancelled() {
+		KspayRefundReconciler reconciler = reconciler(new FakeKsnetService());
+
+		assertFalse(reconciler.interpret(reply("X", Outcome.DECLINED, "취소거절", "취소불가 거래")));
+	}
+
+	/**
+	 * 알 수 없는 거절 문구는 판단하지 않음(UNKNOWN 유지)
+	 */
+	@Test
+	public void unrecognizedDeclineStaysUnknown() {
+		KspayRefundReconciler reconciler = reconciler(new FakeKsnetService());
+
+		assertNull(reconciler.interpret(reply("X", Outcome.DECLINED, "취소거절", "CANCELLED ALREADY")));
+	}
+
+	/**
+	 * 응답 없음, 결과 알 수 없음: 다음 주기에 확인
+	 */
+	@Test
+	public void noResponseAndUnknownAreDeferred() {
+		KspayRefundReconciler reconciler = reconciler(new FakeKsnetService());
+
+		assertNull(reconciler.interpret(reply("X", Outcome.NO_RESPONSE, "취소거절", "C잠시후재시도")));
+		assertNull(reconciler.interpret(reply("X", Outcome.UNKNOWN, "", "C취소결과 확인중")));
+	}
+
+	/**
+	 * 확인 결과에 따라 처리, 판단할 수 없는 건은 처리하지 않고 남김
+	 */
+	@Test
+	public void reconcileResolvesOnlyKnownOutcomes() {
+		FakeKsnetService ksnetService = new FakeKsnetService();
+		ksnetService.unknown.addAll(Arrays.asList(unknownLog("1"), unknownLog("2"), unknownLog("3"), unknownLog("4"),
+				unknownLog("5")));
+		ksnetService.replies.put("1", reply("O", Outcome.APPROVED, "", "취소승인"));
+		ksnetService.replies.put("2", reply("X", Outcome.DECLINED, "취소거절", "기취소거래"));
+		ksnetService.replies.put("3", reply("X", Outcome.DECLINED, "취소거절", "취소불가 거래"));
+		ksnetService.replies.put("4", reply("X", Outcome.DECLINED, "취소거절", "알수없는 거절"));
+		ksnetService.replies.put("5", reply("X", Outcome.UNKNOWN, "", "C취소결과 확인중"));
+		KspayRefundReconciler reconciler = reconciler(ksnetService);
+
+		assertEquals(3, reconciler.reconcile());
+
+		assertEquals(Boolean.TRUE, ksnetService.resolved.get("1"));
+		assertEquals(Boolean.TRUE, ksnetService.resolved.get("2"));
+		assertEquals(Boolean.FALSE, ksnetService.resolved.get("3"));
+		assertFalse(ksnetService.resolved.containsKey("4"));
+		assertFalse(ksnetService.resolved.containsKey("5"));
+		assertEquals("취소승인", ksnetService.unknown.get(0).getRMsg2());
+
+		Map<String, Object> snapshot = reconciler.snapshot();
+		assertEquals(2L, snapshot.get("refundReconcileCancelled"));
+		assertEquals(1L, snapshot.get("refundReconcileNotCancelled"));
+		assertEquals(2L, snapshot.get("refundReconcileDeferred"));
+		assertEquals(1L, snapshot.get("refundReconcileUnrecognized"));
+	}
+}
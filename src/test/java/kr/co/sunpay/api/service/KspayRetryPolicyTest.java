@@ -0,0 +1,81 @@
+package kr.co.sunpay.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import kr.co.sunpay.api.model.KspayRefundReturns.Outcome;
+import ksnet.kspay.KSPayDeadline;
+
+public class KspayRetryPolicyTest {
+
+	private KspayRetryPolicy policy(double budgetRatio, int budgetMaxTokens) {
+		return new KspayRetryPolicy(100, 1000, budgetRatio, budgetMaxTokens)
+				.rule(KsnetService.KSPAY_AUTHTY_CREDIT, 3, false)
+				.rule(KsnetService.KSPAY_AUTHTY_MOBILE, 2, true);
+	}
+
+	/**
+	 * 통신실패/결과없음은 재전송, 취소거절은 설정한 승인구분(휴대폰)만 재전송
+	 */
+	@Test
+	public void classifiesOutcomes() {
+		KspayRetryPolicy policy = policy(0.1, 10);
+
+		assertTrue(policy.isRetryable(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE));
+		assertTrue(policy.isRetryable(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.UNKNOWN));
+		assertFalse(policy.isRetryable(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.DECLINED));
+		assertFalse(policy.isRetryable(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.APPROVED));
+		assertFalse(policy.isRetryable(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.BLOCKED));
+
+		assertTrue(policy.isRetryable(KsnetService.KSPAY_AUTHTY_MOBILE, Outcome.DECLINED));
+		assertFalse(policy.isRetryable(KsnetService.KSPAY_AUTHTY_BANK_REFUND, Outcome.NO_RESPONSE));
+		policy.close();
+	}
+
+	@Test
+	public void backoffIsBoundedAndStopsAtMaxAttempts() {
+		KspayRetryPolicy policy = policy(1, 100);
+
+		for (int i = 0; i < 50; i++) {
+			long first = policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 1, null);
+			long second = policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 2, null);
+
+			assertTrue(first >= 0 && first <= 100);
+			assertTrue(second >= 0 && second <= 200);
+		}
+
+		assertEquals(-1, policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 3, null));
+		assertEquals(-1, policy.backoff(KsnetService.KSPAY_AUTHTY_MOBILE, Outcome.DECLINED, 2, null));
+		assertEquals(-1, policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.DECLINED, 1, null));
+		policy.close();
+	}
+
+	/**
+	 * 예산을 다 쓰면 재전송하지 않음
+	 */
+	@Test
+	public void budgetLimitsRetries() {
+		KspayRetryPolicy policy = policy(0, 2);
+
+		assertTrue(policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 1, null) >= 0);
+		assertTrue(policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 1, null) >= 0);
+		assertEquals(-1, policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 1, null));
+
+		assertEquals(2, policy.getRetries());
+		assertEquals(1, policy.getThrottled());
+		policy.close();
+	}
+
+	@Test
+	public void noRetryAfterDeadline() {
+		KspayRetryPolicy policy = policy(0.1, 10);
+
+		KSPayDeadline expired = KSPayDeadline.of(1000, 1000, 0);
+		assertEquals(-1, policy.backoff(KsnetService.KSPAY_AUTHTY_CREDIT, Outcome.NO_RESPONSE, 1, expired));
+		assertEquals(0, policy.getRetries());
+		policy.close();
+	}
+}
@@ -0,0 +1,65 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class KSPayAsyncClientTest {
+
+	/**
+	 * 길이부가 음수면 제한시간을 기다리지 않고 바로 실패
+	 */
+	@Test
+	public void malformedLengthFailsImmediately() throws Exception {
+		assertFails("-005");
+		assertFails("-001");
+		assertFails("12a4");
+	}
+
+	private void assertFails(String lengthPrefix) throws Exception {
+		KSPayAsyncClient client = new KSPayAsyncClient(1, 1000, 30000);
+		try (ServerSocket server = new ServerSocket(0)) {
+			Thread responder = new Thread(() -> {
+				try (Socket s = server.accept()) {
+					InputStream in = s.getInputStream();
+					in.read(new byte[64]);
+
+					OutputStream out = s.getOutputStream();
+					out.write(lengthPrefix.getBytes(StandardCharsets.US_ASCII));
+					out.flush();
+
+					// 응답 후 연결 유지(클라이언트가 끊을 때까지)
+					while (in.read() >= 0) {
+					}
+				} catch (IOException e) {
+					// 클라이언트 종료
+				}
+			});
+			responder.setDaemon(true);
+			responder.start();
+
+			try {
+				client.send("127.0.0.1", server.getLocalPort(), "0004TEST".getBytes(StandardCharsets.US_ASCII))
+						.get(3, TimeUnit.SECONDS);
+				fail("invalid length accepted : " + lengthPrefix);
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			} catch (TimeoutException e) {
+				fail("exchange did not complete : " + lengthPrefix);
+			}
+		} finally {
+			client.close();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class KSPayCancelTemplateTest {
+
+	/**
+	 * 템플릿 전문은 HeadMessage + CancelDataMessage 로 만든 전문과 같아야 함
+	 */
+	@Test
+	public void sameAsHeadAndCancelMessage() {
+		assertSameFrame("0", "0210", "1010", "2999199999", "123456789012");
+		assertSameFrame("2", "0603", "2010", "2001106000", "2A1234567890");
+		assertSameFrame("2", "0210", "M110", "M1234", "");
+	}
+
+	@Test
+	public void releasedBufferIsReused() {
+		KSPayCancelTemplate template = KSPayCancelTemplate.of("0", "0210");
+		assertSame(template, KSPayCancelTemplate.of("0", "0210"));
+
+		byte[] first = template.acquire("0", "20181120153010", "2999199999", "1010", "111111111111");
+		template.release(first);
+		byte[] second = template.acquire("2", "20181120153011", "2001", "1010", "2222");
+
+		assertSame(first, second);
+		assertEquals(expected("0", "0210", "2", "20181120153011", "2001", "1010", "2222"),
+				new String(second, KSPayFrame.MSG_CHARSET));
+	}
+
+	/**
+	 * 재전송시 전송구분만 "2" 로 바뀜 (템플릿, HeadMessage 모두)
+	 */
+	@Test
+	public void resendPatchesHeader() {
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		ipg.HeadMessage("0", "0210", "00", "0", "20181120153010", "2999199999", "", "", "", "", "0", "", "K", "1", "",
+				"1", "");
+		String head = ipg.HeadMsg;
+
+		ipg.setResend("2");
+		assertEquals(head.substring(0, 7) + "2" + head.substring(8), ipg.HeadMsg);
+
+		KSPayCancelTemplate template = KSPayCancelTemplate.of("0", "0210");
+		byte[] frame = template.acquire("2", "20181120153010", "2999199999", "1010", "123456789012");
+		assertEquals(expected("0", "0210", "2", "20181120153010", "2999199999", "1010", "123456789012"),
+				new String(frame, KSPayFrame.MSG_CHARSET));
+		template.release(frame);
+	}
+
+	/**
+	 * 복합취소 전문은 HeadMessage(복합승인갯수 N) + CancelDataMessage N건으로 만든 전문과 같아야 함
+	 */
+	@Test
+	public void compoundSameAsHeadAndCancelMessages() {
+		String[] approvalTypes = { "1010", "1010", "1010" };
+		String[] trNos = { "111111111111", "222222222222", "333333333333" };
+
+		KSPayCancelTemplate template = KSPayCancelTemplate.of("0", "0210");
+		byte[] frame = template.acquire("0", "20181120153010", "2999199999", approvalTypes, trNos);
+
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		ipg.HeadMessage("0", "0210", "00", "0", "20181120153010", "2999199999", "", "", "", "", "0", "", "K", "1", "",
+				"3", "");
+		for (String trNo : trNos) {
+			ipg.CancelDataMessage("1010", "0", trNo, "", "", "", "", "");
+		}
+		String msg = ipg.HeadMsg + ipg.SendMsg;
+
+		assertEquals(4 + 296 + 3 * 150, frame.length);
+		assertEquals(KSPayApprovalCancelBean.format("" + msg.getBytes(KSPayFrame.MSG_CHARSET).length, 4, '9') + msg,
+				new String(frame, KSPayFrame.MSG_CHARSET));
+		template.release(frame);
+
+		// 1건이면 단건 전문
+		assertEquals(expected("0", "0210", "0", "20181120153010", "2999199999", "1010", "111111111111"),
+				new String(template.acquire("0", "20181120153010", "2999199999", new String[] { "1010" },
+						new String[] { "111111111111" }), KSPayFrame.MSG_CHARSET));
+	}
+
+	private void assertSameFrame(String encType, String version, String approvalType, String storeId, String trNo) {
+		byte[] frame = KSPayCancelTemplate.of(encType, version).acquire("0", "20181120153010", storeId, approvalType, trNo);
+
+		assertEquals(450, frame.length);
+		assertEquals(expected(encType, version, "0", "20181120153010", storeId, approvalType, trNo),
+				new String(frame, KSPayFrame.MSG_CHARSET));
+	}
+
+	private String expected(String encType, String version, String resend, String requestDate, String storeId,
+			String approvalType, String trNo) {
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		ipg.HeadMessage(encType, version, "00", resend, requestDate, storeId, "", "", "", "", "0", "", "K", "1", "",
+				"1", "");
+		ipg.CancelDataMessage(approvalType, "0", trNo, "", "", "", "", "");
+
+		String msg = ipg.HeadMsg + ipg.SendMsg;
+		return KSPayApprovalCancelBean.format("" + msg.getBytes(KSPayFrame.MSG_CHARSET).length, 4, '9') + msg;
+	}
+}
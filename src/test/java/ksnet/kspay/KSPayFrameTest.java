@@ -0,0 +1,97 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+public class KSPayFrameTest {
+
+	/**
+	 * 1byte 씩 끊겨 도착하는 응답도 전문 단위로 읽어야 함
+	 */
+	@Test
+	public void readFromShortReads() throws IOException {
+		byte[] body = "O거래번호1234".getBytes(KSPayFrame.MSG_CHARSET);
+		String len = String.format("%04d", body.length);
+		InputStream in = new TrickleInputStream(concat(len.getBytes(KSPayFrame.MSG_CHARSET), body, "NEXT".getBytes()));
+
+		KSPayFrame frame = new KSPayFrame().readFrom(in);
+
+		assertEquals(len, frame.next(4));
+		assertEquals("O", frame.next(1));
+		assertEquals("거래번호", frame.next(8));
+		assertEquals("1234", frame.next(4));
+		assertEquals(0, frame.remaining());
+
+		// 다음 전문은 스트림에 그대로 남아 있어야 함
+		assertEquals('N', in.read());
+	}
+
+	@Test
+	public void readFromReusesBuffer() throws IOException {
+		KSPayFrame frame = new KSPayFrame();
+
+		frame.readFrom(new ByteArrayInputStream("0003ABC".getBytes()));
+		assertEquals("0003", frame.next(4));
+		assertEquals("ABC", frame.next(3));
+
+		frame.readFrom(new ByteArrayInputStream("0002XY".getBytes()));
+		assertEquals("0002", frame.next(4));
+		assertEquals("XY", frame.next(2));
+		assertEquals(0, frame.remaining());
+	}
+
+	@Test
+	public void blankLength() throws IOException {
+		KSPayFrame frame = new KSPayFrame().readFrom(new ByteArrayInputStream("    ".getBytes()));
+
+		assertEquals("    ", frame.next(4));
+		assertEquals(0, frame.remaining());
+	}
+
+	@Test(expected = EOFException.class)
+	public void underflow() throws IOException {
+		KSPayFrame frame = KSPayFrame.wrap("0002AB".getBytes());
+
+		frame.next(4);
+		frame.next(3);
+	}
+
+	@Test(expected = EOFException.class)
+	public void closedBeforeFrameEnd() throws IOException {
+		new KSPayFrame().readFrom(new ByteArrayInputStream("0010ABC".getBytes()));
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		int size = 0;
+		for (byte[] p : parts) size += p.length;
+
+		byte[] all = new byte[size];
+		int off = 0;
+		for (byte[] p : parts) {
+			System.arraycopy(p, 0, all, off, p.length);
+			off += p.length;
+		}
+		return all;
+	}
+
+	/**
+	 * read(byte[], int, int) 호출마다 1byte 만 돌려주는 스트림
+	 */
+	private static class TrickleInputStream extends ByteArrayInputStream {
+
+		TrickleInputStream(byte[] buf) {
+			super(buf);
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, 1));
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class KSPaySimulatorTest {
+
+	private static final KSPayCancelTemplate CREDIT = KSPayCancelTemplate.of("0", "0210");
+
+	@Test
+	public void approvesCancel() throws IOException {
+		try (KSPaySimulator simulator = new KSPaySimulator(0).setPartialWriteRate(1).start()) {
+			KSPayApprovalCancelBean ipg = cancelBean(simulator, new String[] { "123456789012" });
+
+			assertTrue(ipg.SendSocket("1"));
+			assertEquals(1, ipg.getResults().size());
+
+			KSPayResult result = ipg.getResult(0);
+			assertTrue(result instanceof KSPayResult.Credit);
+			assertTrue(result.isApproved());
+			assertEquals("1011", result.getApprovalType());
+			assertEquals("123456789012", result.getTransactionNo());
+			assertEquals(1, simulator.getApproved());
+		}
+	}
+
+	/**
+	 * 복합취소 응답은 요청 건수만큼, 거래번호 그대로
+	 */
+	@Test
+	public void rejectsCompoundCancel() throws IOException {
+		try (KSPaySimulator simulator = new KSPaySimulator(0).setRejectRate(1).start()) {
+			String[] trNos = { "111111111111", "222222222222", "333333333333" };
+			KSPayApprovalCancelBean ipg = cancelBean(simulator, trNos);
+
+			assertTrue(ipg.SendSocket("1"));
+			assertEquals(3, ipg.getResults().size());
+			for (int i = 0; i < trNos.length; i++) {
+				assertFalse(ipg.getResult(i).isApproved());
+				assertEquals(trNos[i], ipg.getResult(i).getTransactionNo());
+			}
+			assertEquals(3, simulator.getDeclined());
+		}
+	}
+
+	/**
+	 * 요청 전송 후 연결이 끊기거나 응답이 없으면 결과 알 수 없음
+	 */
+	@Test
+	public void dropAndStallAreOutcomeUnknown() throws IOException {
+		try (KSPaySimulator simulator = new KSPaySimulator(0).setDropRate(1).start()) {
+			KSPayApprovalCancelBean ipg = cancelBean(simulator, new String[] { "123456789012" });
+
+			assertFalse(ipg.SendSocket("1"));
+			assertTrue(ipg.isOutcomeUnknown());
+		}
+
+		try (KSPaySimulator simulator = new KSPaySimulator(0).setStallRate(1).start()) {
+			KSPayApprovalCancelBean ipg = cancelBean(simulator, new String[] { "123456789012" });
+			ipg.setDeadline(KSPayDeadline.of(1000, 300, 1000));
+
+			assertFalse(ipg.SendSocket("1"));
+			assertTrue(ipg.isOutcomeUnknown());
+			assertEquals(1, simulator.getFailed());
+		}
+	}
+
+	private KSPayApprovalCancelBean cancelBean(KSPaySimulator simulator, String[] trNos) {
+		String[] approvalTypes = new String[trNos.length];
+		Arrays.fill(approvalTypes, "1010");
+
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", simulator.getPort());
+		ipg.setLegacyFields(false);
+		ipg.CancelMessage(CREDIT, "0", "20181120153010", "2999199999", approvalTypes, trNos);
+		return ipg;
+	}
+}
@@ -0,0 +1,149 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.Test;
+
+public class KSPaySocketPoolTest {
+
+	private static final KSPayCancelTemplate CREDIT = KSPayCancelTemplate.of("0", "0210");
+
+	/**
+	 * 정상 응답 후 반납한 연결은 다음 요청에서 재사용
+	 */
+	@Test
+	public void reusesConnectionAfterExchange() throws IOException {
+		KSPaySocketPool pool = new KSPaySocketPool(2, 1000, 60000, true);
+		try (KSPaySimulator simulator = new KSPaySimulator(0).start()) {
+			assertTrue(cancelBean(simulator, pool).SendSocket("1"));
+			assertEquals(1, pool.getIdleCount());
+			assertEquals(0, pool.getActiveCount());
+
+			KSPayConnection conn = pool.borrow("127.0.0.1", simulator.getPort());
+			assertEquals(1, pool.getActiveCount());
+			pool.release(conn, true);
+
+			assertTrue(cancelBean(simulator, pool).SendSocket("1"));
+			assertSame(conn, pool.borrow("127.0.0.1", simulator.getPort()));
+			assertEquals(2, simulator.getRequests());
+		} finally {
+			pool.close();
+		}
+	}
+
+	/**
+	 * 통신 오류가 난 연결은 반납하지 않고 닫음
+	 */
+	@Test
+	public void discardsBrokenConnection() throws IOException {
+		KSPaySocketPool pool = new KSPaySocketPool(2, 1000, 60000, true);
+		try (KSPaySimulator simulator = new KSPaySimulator(0).setDropRate(1).start()) {
+			assertFalse(cancelBean(simulator, pool).SendSocket("1"));
+			assertEquals(0, pool.getIdleCount());
+			assertEquals(0, pool.getActiveCount());
+
+			KSPayConnection conn = pool.borrow("127.0.0.1", simulator.getPort());
+			conn.broken = true;
+			pool.release(conn, true);
+			assertEquals(0, pool.getIdleCount());
+			assertTrue(conn.socket.isClosed());
+		} finally {
+			pool.close();
+		}
+	}
+
+	/**
+	 * 상대편이 끊은 유휴 연결은 대여할 때 새 연결로 대체
+	 */
+	@Test
+	public void replacesIdleConnectionClosedByPeer() throws Exception {
+		KSPaySocketPool pool = new KSPaySocketPool(1, 1000, 60000, true);
+		try (ServerSocket server = new ServerSocket(0)) {
+			Thread acceptor = new Thread(() -> {
+				try {
+					while (true) {
+						Socket s = server.accept();
+						s.close();
+					}
+				} catch (IOException e) {
+					// 서버 종료
+				}
+			});
+			acceptor.setDaemon(true);
+			acceptor.start();
+
+			KSPayConnection first = pool.borrow("127.0.0.1", server.getLocalPort());
+			pool.release(first, true);
+			assertEquals(1, pool.getIdleCount());
+			Thread.sleep(100);
+
+			KSPayConnection second = pool.borrow("127.0.0.1", server.getLocalPort());
+			assertNotNull(second);
+			assertFalse(first == second);
+			assertTrue(first.socket.isClosed());
+			pool.release(second, false);
+		} finally {
+			pool.close();
+		}
+	}
+
+	/**
+	 * 유휴 시간이 지난 연결 정리
+	 */
+	@Test
+	public void evictsExpiredIdleConnection() throws Exception {
+		KSPaySocketPool pool = new KSPaySocketPool(1, 1000, 50, true);
+		try (KSPaySimulator simulator = new KSPaySimulator(0).start()) {
+			KSPayConnection conn = pool.borrow("127.0.0.1", simulator.getPort());
+			pool.release(conn, true);
+			assertEquals(1, pool.getIdleCount());
+
+			Thread.sleep(100);
+			pool.evictIdle();
+			assertEquals(0, pool.getIdleCount());
+			assertTrue(conn.socket.isClosed());
+		} finally {
+			pool.close();
+		}
+	}
+
+	/**
+	 * 호스트별 최대 연결 수를 넘으면 대기 후 실패
+	 */
+	@Test
+	public void borrowTimesOutWhenExhausted() throws IOException {
+		KSPaySocketPool pool = new KSPaySocketPool(1, 100, 60000, true);
+		try (KSPaySimulator simulator = new KSPaySimulator(0).start()) {
+			KSPayConnection conn = pool.borrow("127.0.0.1", simulator.getPort());
+			try {
+				pool.borrow("127.0.0.1", simulator.getPort());
+				fail("borrow timeout expected");
+			} catch (IOException e) {
+				assertEquals(1, pool.getActiveCount());
+			}
+
+			pool.release(conn, true);
+			assertSame(conn, pool.borrow("127.0.0.1", simulator.getPort()));
+		} finally {
+			pool.close();
+		}
+	}
+
+	private KSPayApprovalCancelBean cancelBean(KSPaySimulator simulator, KSPaySocketPool pool) {
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", simulator.getPort());
+		ipg.setLegacyFields(false);
+		ipg.setSocketPool(pool);
+		ipg.CancelMessage(CREDIT, "0", "20181120153010", "2999199999", new String[] { "1010" },
+				new String[] { "123456789012" });
+		return ipg;
+	}
+}
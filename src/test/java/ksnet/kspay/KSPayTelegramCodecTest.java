@@ -0,0 +1,124 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class KSPayTelegramCodecTest {
+
+	@Test
+	public void layoutLengths() {
+		assertEquals(296, KSPayLayouts.HEADER.getLength());
+		assertEquals(69, KSPayLayouts.CREDIT_SHORT.getLength());
+		assertEquals(280, KSPayLayouts.CREDIT.getLength());
+		assertEquals(500, KSPayLayouts.MOBILE_CANCEL.getLength());
+		assertEquals(400, KSPayLayouts.ACCOUNT.getLength());
+	}
+
+	@Test
+	public void decodeCreditCancel() throws IOException {
+		String record = pad("1011", 4) + pad("123456789012", 12) + "O" + "20181120" + "153010" + pad("", 12)
+				+ pad("9999", 12) + pad("취소완료", 16) + pad("정상", 16) + pad("", 280 - 4 - 12 - 1 - 8 - 6 - 12 - 12 - 32);
+
+		KSPayTelegram telegram = KSPayTelegramCodec.decode(frame(1, record));
+
+		assertEquals(1, telegram.size());
+		KSPayRecord r = telegram.record(0);
+		assertTrue(r.getLayout() == KSPayLayouts.CREDIT);
+		assertEquals("123456789012", r.get("TransactionNo"));
+		assertEquals("O", r.get("Status"));
+		assertTrue(r.startsWith("Status", 'O'));
+		assertEquals("20181120", r.get("TradeDate"));
+		assertEquals(pad("취소완료", 16), r.get("Message1"));
+		assertEquals("", r.get("EncData"));
+		assertNull(r.get("MStatus"));
+		assertEquals("1", telegram.getHeader().get("ApprovalCount"));
+	}
+
+	@Test
+	public void decodeVariableTail() throws IOException {
+		// AuthType 이 공백이 아니면 EncData(길이 5 + 데이타)가 붙음
+		String credit = pad("1011", 4) + pad("111111111111", 12) + "O" + pad("", 280 - 4 - 12 - 1 - 3) + "I  "
+				+ "00003" + "ENC";
+		String mobile = pad("M111", 4) + pad("222222222222", 12) + "X" + pad("", 500 - 4 - 12 - 1);
+
+		KSPayTelegram telegram = KSPayTelegramCodec.decode(frame(2, credit + mobile));
+
+		assertEquals(2, telegram.size());
+		assertEquals("ENC", telegram.record(0).get("EncData"));
+		assertEquals(288, telegram.record(0).length());
+		assertTrue(telegram.record(1).getLayout() == KSPayLayouts.MOBILE_CANCEL);
+		assertEquals("222222222222", telegram.record(1).get("MTransactionNo"));
+		assertEquals("X", telegram.record(1).get("MStatus"));
+	}
+
+	@Test
+	public void typedResultsAndLegacyFields() throws IOException {
+		String mobile = pad("M111", 4) + pad("222222222222", 12) + "O" + "20181120" + "153010" + pad("", 9) + "0000"
+				+ pad("정상취소", 200) + pad("", 500 - 4 - 12 - 1 - 8 - 6 - 9 - 4 - 200);
+		KSPayTelegram telegram = KSPayTelegramCodec.decode(frame(1, mobile));
+
+		KSPayResult result = KSPayResult.of(telegram.record(0));
+		assertTrue(result instanceof KSPayResult.Mobile);
+		assertTrue(result.isApproved());
+		assertEquals("222222222222", result.getTransactionNo());
+		assertEquals("0000", result.getMessage1());
+		assertEquals("0000", ((KSPayResult.Mobile) result).getRespCode());
+		assertEquals("", ((KSPayResult.Mobile) result).getTid());
+
+		KSPayApprovalCancelBean ipg = new KSPayApprovalCancelBean("127.0.0.1", 0);
+		assertNull(ipg.Status);
+
+		KSPayLegacyFields.fill(ipg, telegram, 9);
+		assertEquals("M111", ipg.ApprovalType[0]);
+		assertEquals("O", ipg.MStatus[0]);
+		assertEquals(pad("정상취소", 200), ipg.MRespMsg[0]);
+		assertNull(ipg.Status[0]);
+		assertEquals("1", ipg.ApprovalCount);
+	}
+
+	@Test
+	public void unknownApprovalTypeStops() throws IOException {
+		KSPayTelegram telegram = KSPayTelegramCodec.decode(frame(1, "Z999" + pad("", 20)));
+
+		assertEquals(0, telegram.size());
+		assertEquals("Z999", telegram.getUnknownType());
+	}
+
+	@Test
+	public void blankLength() throws IOException {
+		assertTrue(KSPayTelegramCodec.decode("    ".getBytes()).isEmpty());
+	}
+
+	@Test(expected = EOFException.class)
+	public void truncatedRecord() throws IOException {
+		KSPayTelegramCodec.decode(frame(1, pad("1011", 4) + pad("", 100)));
+	}
+
+	private static byte[] frame(int count, String data) {
+		String header = pad("0", 1) + "0210" + "00" + "0" + "20181120153010" + pad("2999199999", 10) + pad("", 50)
+				+ pad("", 50) + pad("", 13) + pad("", 50) + "0" + pad("", 50) + "K" + "1" + pad("", 12) + count
+				+ pad("", 35);
+		byte[] body = (header + data).getBytes(KSPayFrame.MSG_CHARSET);
+		byte[] len = String.format("%04d", body.length).getBytes(KSPayFrame.MSG_CHARSET);
+
+		byte[] all = new byte[len.length + body.length];
+		System.arraycopy(len, 0, all, 0, len.length);
+		System.arraycopy(body, 0, all, len.length, body.length);
+		return all;
+	}
+
+	// ksc5601 byte 길이 기준 공백 채움
+	private static String pad(String s, int len) {
+		StringBuilder sb = new StringBuilder(s);
+		for (int i = s.getBytes(KSPayFrame.MSG_CHARSET).length; i < len; i++) {
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
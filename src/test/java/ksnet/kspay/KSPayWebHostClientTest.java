@@ -0,0 +1,64 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class KSPayWebHostClientTest {
+
+	/**
+	 * 동시 요청 수 초과로 거절된 요청은 rejected 로만 집계(calls, failures 에 포함하지 않음)
+	 */
+	@Test
+	public void rejectedRequestIsCountedSeparately() throws Exception {
+		KSPayWebHostClient client = new KSPayWebHostClient(1000, 500, 1, 50);
+		CountDownLatch accepted = new CountDownLatch(1);
+		try (ServerSocket server = new ServerSocket(0)) {
+			Thread responder = new Thread(() -> {
+				try (Socket s = server.accept()) {
+					accepted.countDown();
+					InputStream in = s.getInputStream();
+					// 응답하지 않고 클라이언트 제한시간까지 대기
+					while (in.read() >= 0) {
+					}
+				} catch (IOException e) {
+					// 클라이언트 종료
+				}
+			});
+			responder.setDaemon(true);
+			responder.start();
+
+			String url = "http://127.0.0.1:" + server.getLocalPort() + "/";
+			Thread holder = new Thread(() -> {
+				try {
+					client.post(url, "a=1");
+				} catch (IOException e) {
+					// 응답 제한시간 초과
+				}
+			});
+			holder.start();
+			accepted.await(3, TimeUnit.SECONDS);
+			assertEquals(1, client.getActiveCount());
+
+			try {
+				client.post(url, "a=2");
+				fail("permit rejection expected");
+			} catch (IOException e) {
+				assertEquals(1, client.getRejected());
+			}
+
+			holder.join(3000);
+			assertEquals(1, client.getCalls());
+			assertEquals(1, client.getFailures());
+			assertEquals(1, client.getRejected());
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package ksnet.kspay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+public class KSPayWebHostReplyTest {
+
+	private static final String RPARAMS = "authyn`trno`trddt`trdtm`amt`authno`msg1`msg2`ordno`isscd`aqucd`result`halbu`cbtrno`cbauthno";
+
+	/**
+	 * 기존 kspay_send_msg 해석(split 후 rvHash 에 순서대로 저장)
+	 * - 구분자로 나눈 값이 항목 수보다 많아야 성공, 아니면 null
+	 */
+	private static HashMap<String, String> legacy(String rparams, String rmsg) {
+		String[] rnames = KSPayWebHostBean.split(rparams, KSPayWebHostReply.DELIM);
+		if (rmsg.indexOf('`') != -1) {
+			String[] tmpvals = KSPayWebHostBean.split(rmsg, "`");
+			if (rnames.length < tmpvals.length) {
+				HashMap<String, String> rvHash = new HashMap<String, String>();
+				for (int i = 0; i < rnames.length; i++)
+					rvHash.put(rnames[i], tmpvals[i + 1]);
+				return rvHash;
+			}
+		}
+		return null;
+	}
+
+	private static KSPayWebHostReply assertSameAsLegacy(String rparams, String rmsg) {
+		HashMap<String, String> expected = legacy(rparams, rmsg);
+		KSPayWebHostReply reply = KSPayWebHostReply.parse(KSPayWebHostReply.layout(rparams), rmsg);
+
+		if (expected == null) {
+			assertNull(reply);
+			return null;
+		}
+
+		assertNotNull(reply);
+		for (String name : KSPayWebHostBean.split(rparams, KSPayWebHostReply.DELIM)) {
+			assertEquals(name, expected.get(name), reply.get(name));
+		}
+		assertEquals("O".equals(expected.get("authyn")), reply.isApproved());
+		return reply;
+	}
+
+	private static String reply(String... values) {
+		StringBuilder sb = new StringBuilder("0000");
+		for (String value : values) {
+			sb.append('`').append(value);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 구분자가 항목 수보다 적으면 실패
+	 */
+	@Test
+	public void fewerDelimitersThanParamsIsNull() {
+		assertNull(assertSameAsLegacy(RPARAMS, reply("O", "123456789012", "20181120")));
+		assertNull(assertSameAsLegacy(RPARAMS,
+				reply("O", "123456789012", "20181120", "153010", "1004", "30001234", "승인", "정상", "ORD1", "01",
+						"01", "A", "00", "")
+						.substring(0, 60)));
+		assertNull(assertSameAsLegacy(RPARAMS, "0000"));
+		assertNull(assertSameAsLegacy("authyn", ""));
+	}
+
+	@Test
+	public void fullReply() {
+		KSPayWebHostReply reply = assertSameAsLegacy(RPARAMS, reply("O", "123456789012", "20181120", "153010",
+				"1004", "30001234", "승인", "정상", "ORD1", "01", "01", "A", "00", "C123", "C456"));
+		assertEquals(1004, reply.getAmount());
+	}
+
+	/**
+	 * 마지막 항목 뒤 구분자
+	 */
+	@Test
+	public void trailingDelimiter() {
+		assertSameAsLegacy(RPARAMS, reply("O", "123456789012", "20181120", "153010", "1004", "30001234", "승인",
+				"정상", "ORD1", "01", "01", "A", "00", "C123", "C456") + "`");
+		assertSameAsLegacy(RPARAMS, reply("X", "123456789012", "20181120", "153010", "1004", "", "거절", "한도초과",
+				"ORD1", "01", "01", "A", "00", "", "") + "`");
+		assertSameAsLegacy("authyn`trno", "0000`O`");
+	}
+
+	/**
+	 * 빈 항목(연속 구분자)
+	 */
+	@Test
+	public void emptyFields() {
+		KSPayWebHostReply reply = assertSameAsLegacy(RPARAMS,
+				reply("O", "", "", "", "1004", "", "", "", "", "", "", "", "", "", ""));
+		assertEquals("", reply.getTrno());
+		assertEquals("", reply.getCbauthno());
+
+		assertSameAsLegacy(RPARAMS, reply("", "", "", "", "", "", "", "", "", "", "", "", "", "", ""));
+		assertSameAsLegacy("authyn`trno", "``");
+	}
+
+	/**
+	 * 항목 수보다 많은 값은 무시
+	 */
+	@Test
+	public void extraTrailingFields() {
+		assertSameAsLegacy(RPARAMS, reply("O", "123456789012", "20181120", "153010", "1004", "30001234", "승인",
+				"정상", "ORD1", "01", "01", "A", "00", "C123", "C456", "EXTRA1", "", "EXTRA3"));
+		assertSameAsLegacy("authyn`trno", "0000`O`123`456``");
+	}
+
+	/**
+	 * authyn 이 정확히 "O" 일 때만 승인
+	 */
+	@Test
+	public void approvalCheck() {
+		assertTrue(assertSameAsLegacy("authyn`trno", "0000`O`123").isApproved());
+		assertFalse(assertSameAsLegacy("authyn`trno", "0000`X`123").isApproved());
+		assertFalse(assertSameAsLegacy("authyn`trno", "0000``123").isApproved());
+		assertFalse(assertSameAsLegacy("authyn`trno", "0000`OK`123").isApproved());
+		assertFalse(assertSameAsLegacy("authyn`trno", "0000`o`123").isApproved());
+		assertFalse(assertSameAsLegacy("authyn`trno", "0000` O`123").isApproved());
+
+		// authyn 이 없는 응답 항목
+		assertFalse(assertSameAsLegacy("trno`amt", "0000`123`1004").isApproved());
+	}
+}